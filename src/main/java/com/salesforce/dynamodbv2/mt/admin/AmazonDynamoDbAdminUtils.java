@@ -8,6 +8,7 @@
 package com.salesforce.dynamodbv2.mt.admin;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 
@@ -18,10 +19,11 @@ import com.amazonaws.services.dynamodbv2.model.ResourceInUseException;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.annotations.VisibleForTesting;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import org.awaitility.Duration;
-import org.awaitility.pollinterval.FixedPollInterval;
+import org.awaitility.pollinterval.PollInterval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,8 @@ import org.slf4j.LoggerFactory;
 public class AmazonDynamoDbAdminUtils {
 
     private static final int TABLE_DDL_OPERATION_TIMEOUT_SECONDS = 600;
+    private static final long INITIAL_POLL_INTERVAL_MILLIS = 100L;
+    private static final int DEFAULT_MAX_POLL_INTERVAL_SECONDS = 5;
     private static final Logger log = LoggerFactory.getLogger(AmazonDynamoDbAdminUtils.class);
     private final AmazonDynamoDB amazonDynamoDb;
 
@@ -41,18 +45,24 @@ public class AmazonDynamoDbAdminUtils {
     }
 
     /**
-     * TODO: write Javadoc.
+     * Creates the given table if it does not exist and waits until it is active.  If the table exists, it must match
+     * the given request.  The status of the table is polled with exponential backoff, starting at 100 ms.
      *
      * @param createTableRequest the description of the table to be created
-     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the table being
-     *     created
+     * @param pollIntervalSeconds the maximum interval in seconds between attempts at checking the status of the table
+     *     being created, 0 for 5 seconds
      */
     public void createTableIfNotExists(CreateTableRequest createTableRequest, int pollIntervalSeconds) {
 
         try {
             if (!tableExists(createTableRequest.getTableName(), TableStatus.ACTIVE)) {
                 String tableName = createTableRequest.getTableName();
-                amazonDynamoDb.createTable(createTableRequest);
+                try {
+                    amazonDynamoDb.createTable(createTableRequest);
+                } catch (ResourceInUseException e) {
+                    // created concurrently, e.g., by another node
+                    log.info("table=" + tableName + " was created concurrently");
+                }
                 awaitTableActive(tableName, pollIntervalSeconds
                 );
             } else {
@@ -78,8 +88,8 @@ public class AmazonDynamoDbAdminUtils {
      * TODO: write Javadoc.
      *
      * @param tableName the name of the table to be deleted
-     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the table being
-     *     created
+     * @param pollIntervalSeconds the maximum interval in seconds between attempts at checking the status of the table
+     *     being deleted, 0 for 5 seconds
      * @param timeoutSeconds the time in seconds to wait for the table to no longer exist
      */
     public void deleteTableIfExists(String tableName, int pollIntervalSeconds, int timeoutSeconds) {
@@ -97,7 +107,7 @@ public class AmazonDynamoDbAdminUtils {
         }
         log.info("awaiting " + pollIntervalSeconds + "s for table=" + tableName + " to delete ...");
         await().pollInSameThread()
-            .pollInterval(new FixedPollInterval(new Duration(pollIntervalSeconds, SECONDS)))
+            .pollInterval(exponentialBackoff(pollIntervalSeconds))
             .atMost(timeoutSeconds, SECONDS)
             .until(() -> !tableExists(tableName, TableStatus.DELETING));
     }
@@ -106,11 +116,24 @@ public class AmazonDynamoDbAdminUtils {
         int timeoutSeconds = TABLE_DDL_OPERATION_TIMEOUT_SECONDS;
         log.info("awaiting " + timeoutSeconds + "s for table=" + tableName + " to become active ...");
         await().pollInSameThread()
-            .pollInterval(new FixedPollInterval(new Duration(pollIntervalSeconds, SECONDS)))
+            .pollInterval(exponentialBackoff(pollIntervalSeconds))
             .atMost(timeoutSeconds, SECONDS)
             .until(() -> tableActive(tableName));
     }
 
+    /*
+     * Returns a poll interval that starts at 100 ms and doubles on each poll, up to the given maximum.  A maximum of 0
+     * or less, the default poll interval of the builders, is replaced by 5 seconds, so that tables are not described
+     * without pause.
+     */
+    @VisibleForTesting
+    static PollInterval exponentialBackoff(int maxPollIntervalSeconds) {
+        long maxPollIntervalMillis = SECONDS.toMillis(maxPollIntervalSeconds > 0 ? maxPollIntervalSeconds
+            : DEFAULT_MAX_POLL_INTERVAL_SECONDS);
+        return (pollCount, previousDuration) -> new Duration(Math.min(maxPollIntervalMillis,
+            INITIAL_POLL_INTERVAL_MILLIS << Math.min(pollCount - 1, 20)), MILLISECONDS);
+    }
+
     private boolean tableExists(String tableName, TableStatus expectedTableStatus) throws TableInUseException {
         try {
             getTableStatus(tableName, expectedTableStatus);
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded cache of values by tenant context and name, e.g., table descriptions by context and table name.  Unlike
+ * {@code MtCache}, it does not build a key string per lookup: the values of each context are kept in a map by name,
+ * and the maps are cached by context.
+ *
+ * <p>The size of the cache is the number of values across all contexts.  When the maximum size is exceeded, or a
+ * context has not been accessed for the expire-after-access duration, all values of a context are evicted together.
+ * The values of a context can also be invalidated together with {@code invalidateTenant}.
+ *
+ * <p>Concurrent loads of the same value are coalesced: the first caller loads the value and the others wait for it.
+ *
+ * <p>Optionally, values are refreshed ahead: when a value older than the refresh-after-write duration is read, it is
+ * returned as is and reloaded in the background with the loader of the read, in the context of the value.  If the
+ * reload fails, the value is removed, so that the next read loads it again and surfaces the failure.  Values that
+ * changed are reported to the refresh listener, if any.
+ *
+ * @param <V> the type of the cached values
+ */
+public class MtTenantCache<V> {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 100000L;
+    public static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofHours(1);
+
+    private static final Logger LOG = LoggerFactory.getLogger(MtTenantCache.class);
+
+    private final MtAmazonDynamoDbContextProvider contextProvider;
+    private final Cache<String, ConcurrentMap<String, Entry<V>>> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadExceptionCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final Ticker ticker;
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+    private final BiConsumer<String, String> refreshListener;
+
+    public MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider) {
+        this(contextProvider, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param contextProvider provides the context of the values to get and put
+     * @param maximumSize the maximum number of values to cache across all contexts
+     * @param expireAfterAccess the duration after which the values of a context that has not been accessed are evicted
+     */
+    public MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider,
+                         long maximumSize,
+                         Duration expireAfterAccess) {
+        this(contextProvider, maximumSize, expireAfterAccess, Duration.ZERO, Runnable::run);
+    }
+
+    /**
+     * Creates a cache that refreshes values ahead.
+     *
+     * @param contextProvider provides the context of the values to get and put
+     * @param maximumSize the maximum number of values to cache across all contexts
+     * @param expireAfterAccess the duration after which the values of a context that has not been accessed are evicted
+     * @param refreshAfterWrite the age after which values are reloaded in the background when read, 0 to not refresh
+     * @param refreshExecutor the executor on which values are reloaded
+     */
+    public MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider,
+                         long maximumSize,
+                         Duration expireAfterAccess,
+                         Duration refreshAfterWrite,
+                         Executor refreshExecutor) {
+        this(contextProvider, maximumSize, expireAfterAccess, refreshAfterWrite, refreshExecutor, (context, name) -> {
+        });
+    }
+
+    /**
+     * Creates a cache that refreshes values ahead and reports the values that changed when they were refreshed.
+     *
+     * @param contextProvider provides the context of the values to get and put
+     * @param maximumSize the maximum number of values to cache across all contexts
+     * @param expireAfterAccess the duration after which the values of a context that has not been accessed are evicted
+     * @param refreshAfterWrite the age after which values are reloaded in the background when read, 0 to not refresh
+     * @param refreshExecutor the executor on which values are reloaded
+     * @param refreshListener called on the refresh executor with the context and name of each value that was
+     *     refreshed and is not equal to the value it replaced
+     */
+    public MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider,
+                         long maximumSize,
+                         Duration expireAfterAccess,
+                         Duration refreshAfterWrite,
+                         Executor refreshExecutor,
+                         BiConsumer<String, String> refreshListener) {
+        this(contextProvider, maximumSize, expireAfterAccess, refreshAfterWrite, refreshExecutor, refreshListener,
+            Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider,
+                  long maximumSize,
+                  Duration expireAfterAccess,
+                  Duration refreshAfterWrite,
+                  Executor refreshExecutor,
+                  Ticker ticker) {
+        this(contextProvider, maximumSize, expireAfterAccess, refreshAfterWrite, refreshExecutor, (context, name) -> {
+        }, ticker);
+    }
+
+    @VisibleForTesting
+    MtTenantCache(MtAmazonDynamoDbContextProvider contextProvider,
+                  long maximumSize,
+                  Duration expireAfterAccess,
+                  Duration refreshAfterWrite,
+                  Executor refreshExecutor,
+                  BiConsumer<String, String> refreshListener,
+                  Ticker ticker) {
+        checkArgument(maximumSize >= 0, "maximumSize must not be negative");
+        checkArgument(!expireAfterAccess.isNegative(), "expireAfterAccess must not be negative");
+        checkArgument(!refreshAfterWrite.isNegative(), "refreshAfterWrite must not be negative");
+        this.contextProvider = contextProvider;
+        this.ticker = ticker;
+        this.refreshAfterWriteNanos = refreshAfterWrite.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.refreshListener = refreshListener;
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumSize)
+            .<String, ConcurrentMap<String, Entry<V>>>weigher((context, values) -> values.size())
+            .expireAfterAccess(expireAfterAccess.toNanos(), NANOSECONDS)
+            .ticker(ticker)
+            .removalListener(notification -> {
+                if (notification.wasEvicted()) {
+                    evictionCount.add(notification.getValue().size());
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the value with the given name in the current context, loading it if it is not cached.  Like Guava's
+     * {@code Cache.get}, unchecked exceptions thrown by the loader are rethrown wrapped in an
+     * {@code UncheckedExecutionException}, and errors wrapped in an {@code ExecutionError}.
+     *
+     * @param name the name of the value
+     * @param loader loads the value if it is not cached
+     * @return the value
+     * @throws ExecutionException if the loader threw a checked exception
+     */
+    public V get(String name, Callable<? extends V> loader) throws ExecutionException {
+        String context = contextProvider.getContext();
+        ConcurrentMap<String, Entry<V>> values = getValues(context);
+        Entry<V> entry = values.get(name);
+        if (entry == null) {
+            Entry<V> loading = new Entry<>(ticker.read());
+            entry = values.putIfAbsent(name, loading);
+            if (entry == null) {
+                missCount.increment();
+                reweigh(context, values);
+                return load(values, name, loading, loader);
+            }
+        }
+        hitCount.increment();
+        V value = join(entry.value);
+        if (refreshAfterWriteNanos > 0 && ticker.read() - entry.writeTime > refreshAfterWriteNanos
+            && entry.refreshing.compareAndSet(false, true)) {
+            refresh(context, values, name, entry, loader);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value with the given name in the current context, or null if it is not cached or still loading.
+     */
+    public V getIfPresent(String name) {
+        return getIfPresent(contextProvider.getContext(), name);
+    }
+
+    /**
+     * Returns the value with the given name in the given context, or null if it is not cached or still loading.
+     *
+     * @param context the tenant context
+     * @param name the name of the value
+     * @return the value or null
+     */
+    public V getIfPresent(String context, String name) {
+        ConcurrentMap<String, Entry<V>> values = cache.getIfPresent(context);
+        Entry<V> entry = values == null ? null : values.get(name);
+        if (entry == null || !entry.value.isDone() || entry.value.isCompletedExceptionally()) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return entry.value.join();
+    }
+
+    /**
+     * Caches the given value with the given name in the current context.
+     */
+    public void put(String name, V value) {
+        checkArgument(value != null, "value must not be null");
+        String context = contextProvider.getContext();
+        ConcurrentMap<String, Entry<V>> values = getValues(context);
+        Entry<V> entry = new Entry<>(ticker.read());
+        entry.value.complete(value);
+        if (values.put(name, entry) == null) {
+            reweigh(context, values);
+        }
+    }
+
+    /**
+     * Removes the value with the given name in the current context.
+     */
+    public void invalidate(String name) {
+        invalidate(contextProvider.getContext(), name);
+    }
+
+    /**
+     * Removes the value with the given name in the given context.
+     *
+     * @param context the tenant context
+     * @param name the name of the value
+     */
+    public void invalidate(String context, String name) {
+        ConcurrentMap<String, Entry<V>> values = cache.getIfPresent(context);
+        if (values != null) {
+            values.remove(name);
+        }
+    }
+
+    /**
+     * Removes all values of the given context.
+     *
+     * @param context the tenant context
+     */
+    public void invalidateTenant(String context) {
+        cache.invalidate(context);
+    }
+
+    /**
+     * Removes the values of all contexts that match the given predicate, and the values that are still loading, since
+     * they may be derived from the state that the predicate refers to.
+     *
+     * @param predicate the predicate of the values to remove
+     */
+    public void invalidateIf(Predicate<? super V> predicate) {
+        cache.asMap().values().forEach(values -> values.values().removeIf(entry -> !entry.value.isDone()
+            || entry.value.isCompletedExceptionally() || predicate.test(entry.value.join())));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of values cached across all contexts, including values that are still loading.
+     */
+    public long size() {
+        return cache.asMap().values().stream().mapToLong(ConcurrentMap::size).sum();
+    }
+
+    /**
+     * Returns the statistics of the values of this cache.  Evictions count the values of contexts that were evicted.
+     * Loads include refreshes.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadExceptionCount.sum(),
+            totalLoadTime.sum(), evictionCount.sum());
+    }
+
+    /**
+     * Returns the statistics of the contexts of this cache, i.e., of looking up the values of a context.
+     */
+    public CacheStats tenantStats() {
+        return cache.stats();
+    }
+
+    private ConcurrentMap<String, Entry<V>> getValues(String context) {
+        try {
+            return cache.get(context, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e); // not thrown by the map constructor
+        }
+    }
+
+    /*
+     * Weights are computed when an entry is written, so write the values of the context again after adding a value.
+     * The values are only replaced if they are still cached, so that invalidated values are not added back.
+     */
+    private void reweigh(String context, ConcurrentMap<String, Entry<V>> values) {
+        cache.asMap().replace(context, values, values);
+    }
+
+    private V load(ConcurrentMap<String, Entry<V>> values, String name, Entry<V> loading,
+                   Callable<? extends V> loader) throws ExecutionException {
+        long start = ticker.read();
+        V value;
+        try {
+            value = loader.call();
+            checkArgument(value != null, "loader returned null for " + name);
+        } catch (Throwable e) {
+            totalLoadTime.add(ticker.read() - start);
+            loadExceptionCount.increment();
+            values.remove(name, loading);
+            loading.value.completeExceptionally(e);
+            return join(loading.value);
+        }
+        totalLoadTime.add(ticker.read() - start);
+        loadSuccessCount.increment();
+        loading.value.complete(value);
+        return value;
+    }
+
+    /*
+     * Reloads the given entry in the background and replaces it with the reloaded value, unless it was invalidated or
+     * replaced in the meantime.
+     */
+    private void refresh(String context, ConcurrentMap<String, Entry<V>> values, String name, Entry<V> entry,
+                         Callable<? extends V> loader) {
+        refreshCount.increment();
+        try {
+            refreshExecutor.execute(() -> contextProvider.withContext(context, () -> {
+                Entry<V> refreshed = new Entry<>(ticker.read());
+                V value;
+                try {
+                    value = load(values, name, refreshed, loader);
+                } catch (Exception e) {
+                    LOG.warn("failed to refresh " + name + " of context " + context, e);
+                    values.remove(name, entry);
+                    return;
+                }
+                if (values.replace(name, entry, refreshed) && !value.equals(entry.value.join())) {
+                    refreshListener.accept(context, name);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("failed to schedule refresh of " + name + " of context " + context, e);
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Returns the number of refreshes scheduled.
+     */
+    @VisibleForTesting
+    long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    private static <V> V join(CompletableFuture<V> value) throws ExecutionException {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw new ExecutionError((Error) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw new UncheckedExecutionException(cause);
+            }
+            throw new ExecutionException(cause);
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final CompletableFuture<V> value = new CompletableFuture<>();
+        private final long writeTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(long writeTime) {
+            this.writeTime = writeTime;
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers;
+
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterparts of the item-level operations of {@code MtAmazonDynamoDb}.
+ *
+ * <p>The multitenant context is read and the request is mapped on the calling thread, so callers do not need to
+ * propagate the context to other threads.  The mapped request is then submitted to the {@code AmazonDynamoDBAsync}
+ * delegate, and the returned future is completed (with the mapped result) on one of the delegate's threads.  Requests
+ * that cannot be mapped fail on the calling thread, like their synchronous counterparts.
+ *
+ * <p>Async operations require the underlying {@code AmazonDynamoDB} to be an {@code AmazonDynamoDBAsync}.
+ *
+ * <p>This interface is experimental. It is subject to breaking changes. Use at your own risk.
+ */
+public interface MtAmazonDynamoDbAsync {
+
+    CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest);
+
+    CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest);
+
+    CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest);
+
+    CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest);
+
+    CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest);
+
+    CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest);
+
+}
@@ -9,8 +9,10 @@ package com.salesforce.dynamodbv2.mt.mappers;
 
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.ResponseMetadata;
+import com.amazonaws.handlers.AsyncHandler;
 import com.amazonaws.regions.Region;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
@@ -95,16 +97,21 @@ import com.amazonaws.services.dynamodbv2.waiters.AmazonDynamoDBWaiters;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 
 /**
  * Base class for each mapping scheme to extend.  It reduces code by ...
  * - throwing an UnsupportedOperationException for each unsupported method
  * - providing pass-through to an AmazonDynamoDB and MtAmazonDynamoDbContextProvider passed into the constructor
  * - providing the ability to override the method that returns said AmazonDynamoDB
+ * - throwing an UnsupportedOperationException for each async method, so that mapping schemes that do not override
+ *   them fail rather than bypass their mapping; overrides submit to said AmazonDynamoDB if it is an AmazonDynamoDBAsync
  *
  * @author msgroi
  */
-public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
+public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb, MtAmazonDynamoDbAsync {
 
     private final MtAmazonDynamoDbContextProvider mtContext;
     private final AmazonDynamoDB amazonDynamoDb;
@@ -167,7 +174,7 @@ public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
 
     @Override
     public BatchWriteItemResult batchWriteItem(Map<String, List<WriteRequest>> requestItems) {
-        throw new UnsupportedOperationException();
+        return batchWriteItem(new BatchWriteItemRequest().withRequestItems(requestItems));
     }
 
     @Override
@@ -475,4 +482,67 @@ public class MtAmazonDynamoDbBase implements MtAmazonDynamoDb {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the underlying {@code AmazonDynamoDB} as an {@code AmazonDynamoDBAsync} for use by async operations.
+     * Must be called on the calling thread, since the delegate may depend on the multitenant context.
+     */
+    protected AmazonDynamoDBAsync getAmazonDynamoDbAsync() {
+        AmazonDynamoDB amazonDynamoDb = getAmazonDynamoDb();
+        if (!(amazonDynamoDb instanceof AmazonDynamoDBAsync)) {
+            throw new UnsupportedOperationException("async operations require an AmazonDynamoDBAsync delegate");
+        }
+        return (AmazonDynamoDBAsync) amazonDynamoDb;
+    }
+
+    /**
+     * Submits the given request via the given async client method and returns a future that is completed by the
+     * client's {@code AsyncHandler}.
+     */
+    protected static <Q extends AmazonWebServiceRequest, R> CompletableFuture<R> toCompletableFuture(
+        BiFunction<Q, AsyncHandler<Q, R>, Future<R>> asyncMethod, Q request) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        asyncMethod.apply(request, new AsyncHandler<>() {
+            @Override
+            public void onError(Exception exception) {
+                future.completeExceptionally(exception);
+            }
+
+            @Override
+            public void onSuccess(Q request, R result) {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
 }
\ No newline at end of file
@@ -10,9 +10,22 @@ package com.salesforce.dynamodbv2.mt.mappers;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
@@ -30,6 +43,7 @@ import java.util.function.Function;
  *
  * <p>Supported:
  * - methods: batchGet|get|put Item, create|describe|delete Table, scan|query
+ * - async methods: get|put|update|delete Item, scan|query, if the account mapper returns AmazonDynamoDBAsync clients
  *
  * @author msgroi
  */
@@ -92,6 +106,36 @@ public class MtAmazonDynamoDbByAccount extends MtAmazonDynamoDbBase {
         accountMapper.shutdown();
     }
 
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::deleteItemAsync, deleteItemRequest);
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::getItemAsync, getItemRequest);
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::putItemAsync, putItemRequest);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::queryAsync, queryRequest);
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::scanAsync, scanRequest);
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::updateItemAsync, updateItemRequest);
+    }
+
     @VisibleForTesting
     static class AmazonDynamoDbCache {
         final ConcurrentHashMap<String, AmazonDynamoDB> cache = new ConcurrentHashMap<>();
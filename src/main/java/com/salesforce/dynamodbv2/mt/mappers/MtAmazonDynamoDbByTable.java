@@ -42,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -57,7 +58,8 @@ import java.util.stream.Collectors;
  * <p>The following are optional arguments ... - delimiter: a String delimiter used
  * to separate the tenant identifier prefix from the table name
  *
- * <p>Supported: batchGet|get|put Item, create|describe|delete Table, scan, query
+ * <p>Supported: batchGet|get|put Item, create|describe|delete Table, scan, query, and async get|put|update|delete
+ * Item, scan, query
  *
  * @author msgroi
  */
@@ -230,6 +232,42 @@ public class MtAmazonDynamoDbByTable extends MtAmazonDynamoDbBase {
         return getAmazonDynamoDb().updateItem(updateItemRequest);
     }
 
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::deleteItemAsync, deleteItemRequest.clone()
+            .withTableName(buildPrefixedTableName(deleteItemRequest.getTableName())));
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::getItemAsync, getItemRequest.clone()
+            .withTableName(buildPrefixedTableName(getItemRequest.getTableName())));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::putItemAsync, putItemRequest.clone()
+            .withTableName(buildPrefixedTableName(putItemRequest.getTableName())));
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::queryAsync, queryRequest.clone()
+            .withTableName(buildPrefixedTableName(queryRequest.getTableName())));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::scanAsync, scanRequest.clone()
+            .withTableName(buildPrefixedTableName(scanRequest.getTableName())));
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::updateItemAsync, updateItemRequest.clone()
+            .withTableName(buildPrefixedTableName(updateItemRequest.getTableName())));
+    }
+
     public static MtAmazonDynamoDbBuilder builder() {
         return new MtAmazonDynamoDbBuilder();
     }
@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -48,7 +49,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Logs all calls.
  *
- * <p>Supported: batchGet|get|put|updateItem, create|delete|describeTable, scan, query
+ * <p>Supported: batchGet|get|put|updateItem, create|delete|describeTable, scan, query, and the async
+ * get|put|update|deleteItem, scan, and query methods
  *
  * @author msgroi
  */
@@ -144,6 +146,61 @@ public class MtAmazonDynamoDbLogger extends MtAmazonDynamoDbBase {
         return super.updateItem(updateItemRequest);
     }
 
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        log("deleteItemAsync", tableToString(deleteItemRequest.getTableName()),
+                deleteItemRequestToString(deleteItemRequest));
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.deleteItemAsync(deleteItemRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::deleteItemAsync, deleteItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        log("getItemAsync", tableToString(getItemRequest.getTableName()), "key=" + getItemRequest.getKey());
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.getItemAsync(getItemRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::getItemAsync, getItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        log("putItemAsync", tableToString(putItemRequest.getTableName()), putItemRequestToString(putItemRequest));
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.putItemAsync(putItemRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::putItemAsync, putItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        log("queryAsync", tableToString(queryRequest.getTableName()), queryRequestToString(queryRequest));
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.queryAsync(queryRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::queryAsync, queryRequest));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        log("scanAsync", tableToString(scanRequest.getTableName()), scanRequestToString(scanRequest));
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.scanAsync(scanRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::scanAsync, scanRequest));
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        log("updateItemAsync", tableToString(updateItemRequest.getTableName()),
+                updateItemRequestToString(updateItemRequest));
+        return getMtAmazonDynamoDbAsync().map(delegate -> delegate.updateItemAsync(updateItemRequest))
+            .orElseGet(() -> toCompletableFuture(getAmazonDynamoDbAsync()::updateItemAsync, updateItemRequest));
+    }
+
+    /*
+     * Returns the underlying AmazonDynamoDB if it is a multitenant mapper that supports async operations, so that its
+     * mapping is applied; otherwise async calls are submitted to the underlying AmazonDynamoDBAsync directly.
+     */
+    private Optional<MtAmazonDynamoDbAsync> getMtAmazonDynamoDbAsync() {
+        AmazonDynamoDB amazonDynamoDb = getAmazonDynamoDb();
+        return amazonDynamoDb instanceof MtAmazonDynamoDbAsync
+            ? Optional.of((MtAmazonDynamoDbAsync) amazonDynamoDb)
+            : Optional.empty();
+    }
+
     public static MtAmazonDynamoDbBuilder builder() {
         return new MtAmazonDynamoDbBuilder();
     }
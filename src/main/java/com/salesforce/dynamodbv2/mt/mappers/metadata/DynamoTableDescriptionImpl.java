@@ -198,7 +198,8 @@ public class DynamoTableDescriptionImpl implements DynamoTableDescription {
 
         DynamoTableDescriptionImpl that = (DynamoTableDescriptionImpl) o;
 
-        return Objects.equals(streamSpecification, that.streamSpecification) && tableName.equals(that.tableName)
+        return Objects.equals(streamSpecification, that.streamSpecification)
+            && Objects.equals(tableName, that.tableName)
             && attributeDefinitions.equals(that.attributeDefinitions)
             && primaryKey.equals(that.primaryKey)
             && gsiMap.equals(that.gsiMap)
@@ -22,7 +22,10 @@ import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
 import com.amazonaws.services.dynamodbv2.model.StreamViewType;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.salesforce.dynamodbv2.mt.cache.MtTenantCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
 import com.salesforce.dynamodbv2.mt.mappers.MappingException;
@@ -37,17 +40,27 @@ import com.salesforce.dynamodbv2.mt.mappers.index.PrimaryKeyMapperByTypeImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.DeleteTableJobScheduler;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.TableMappingFactory;
+import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbHashKeyRegistry;
 import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbTableDescriptionRepo;
+import com.salesforce.dynamodbv2.mt.repo.MtHashKeyRegistry;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Maps virtual tables to a set of 7 physical tables hard-coded into the builder by comparing the types of the elements
@@ -106,18 +119,53 @@ import java.util.stream.Collectors;
  *   the table is dropped.  Default: FALSE.
  * - {@code truncateOnDeleteTable}: a {@code boolean} to indicate whether all of a table's data should be deleted when a
  *   table is dropped.  Default: FALSE.
+ * - {@code truncateExecutor}: the {@code Executor} on which segments of the physical table are scanned and deleted
+ *   concurrently when truncating a table.  Default: a fixed pool of 4 daemon threads, which is shut down with the
+ *   {@code AmazonDynamoDB}.
+ * - {@code truncateSegments}: the number of segments to split the physical table into when truncating.  Default: 4.
+ * - {@code truncateDeletesPerSecond}: the maximum number of items to delete per second when truncating a table, to
+ *   bound the write capacity consumed.  Default: unlimited.
+ * - {@code truncateScannedItemsPerSecond}: the maximum number of items to scan per second when truncating a table, to
+ *   bound the read capacity consumed.  Scanned items include those of other tables that share the physical table.
+ *   Default: unlimited.
+ * - {@code deleteTableJobScheduler}: the {@code DeleteTableJobScheduler} on which asynchronous table drops run.  It is
+ *   shut down when the {@code AmazonDynamoDB} is shut down.  Default: a scheduler that runs at most 2 drops at a
+ *   time, 1 per physical table, and accepts up to 1000 pending drops.
+ * - {@code translationPlanCacheSize}: the maximum number of plans for mapping requests to cache.  Query, scan and
+ *   conditional write requests of the same shape, i.e., with the same expressions, expression attribute names and
+ *   index name, share a plan, so that only their attribute values need to be mapped.  Plans are shared across tenants
+ *   whose virtual tables have the same definition.  0 disables the cache; hit and
+ *   miss statistics are available via {@code MtAmazonDynamoDbBySharedTable.getTranslationPlanCacheStats}.
+ *   Ignored if a {@code tableMappingFactory} is provided.  Default: 10000.
+ * - {@code tableCacheMaximumSize}: the maximum number of table mappings, and of table descriptions if the default
+ *   {@code MtTableDescriptionRepo} is used, to cache across all tenants.  When exceeded, the entries of tenants are
+ *   evicted together.  Default: 100000.
+ * - {@code tableCacheExpireAfterAccess}: the {@code Duration} after which the cached table mappings and descriptions of
+ *   a tenant that has not been accessed are evicted.  Default: 1 hour.
  * - {@code createTablesEagerly}: a {@code boolean} to indicate whether the physical tables should be created eagerly.
  *   Default: TRUE.
+ * - {@code createTablesAsync}: a {@code boolean} to indicate whether {@code build} returns before the physical tables
+ *   created eagerly and the metadata tables are active.  Either way, they are created and awaited concurrently; use
+ *   {@code MtAmazonDynamoDbBySharedTable.getStartupFuture} to wait for them.  Default: FALSE.
  * - {@code tableMappingFactory}: the {@code TableMappingFactory} that maps virtual to physical table instances.
  *   Default: a table mapping factory that implements shared table behavior.
  * - {@code name}: a {@code String} representing the name of the multitenant AmazonDynamoDB instance.
  *   Default: "MtAmazonDynamoDbBySharedTable".
- * - {@code pollIntervalSeconds}: an {@code Integer} representing the interval in seconds between attempts at checking
- *   the status of the table being created.  Default: 0.
+ * - {@code pollIntervalSeconds}: an {@code Integer} representing the maximum interval in seconds between attempts at
+ *   checking the status of the table being created; polls back off exponentially from 100 ms.  Default: 0, which
+ *   caps the interval at 5 seconds.
+ * - {@code batchGetItemExecutor}: the {@code Executor} on which chunks of large {@code batchGetItem} requests are
+ *   retrieved concurrently, and on which {@code warmTenant} builds table mappings.  Default: a fixed pool of 4 daemon
+ *   threads, which is shut down when the {@code AmazonDynamoDB} is shut down; an executor provided here is not.
+ * - {@code hashKeyRegistry}: an {@code MtHashKeyRegistry} that tracks the hash keys of each virtual table, so that
+ *   scans of a virtual table are executed as queries over its partitions rather than scans of the entire physical
+ *   table.  Writes register hash keys; use {@code MtAmazonDynamoDbBySharedTable.registerHashKeys} for existing data.
+ *   Setting {@code hashKeyRegistryEnabled} creates a {@code MtDynamoDbHashKeyRegistry}.  Default: none.
  *
  * <p>Limitations ...
  *
- * <p>- Supported methods: create|describe|delete* Table, get|put|update** Item, query***, scan***
+ * <p>- Supported methods: create|describe|delete* Table, get|put|update** Item, batchGet|batchWrite Item,
+ * transactGet|transactWrite** Items, query***, scan***
  * - Drop Tables: When dropping a table, if you don't explicitly specify `truncateOnDeleteTable=true`, then table
  * data will be left behind even after the table is dropped.  If a table with the same name is later recreated under
  * the same tenant identifier, the data will be restored.  Note that undetermined behavior should be expected in the
@@ -158,6 +206,12 @@ import java.util.stream.Collectors;
 public class SharedTableBuilder implements TableBuilder {
 
     private static final String DEFAULT_TABLE_DESCRIPTION_TABLE_NAME = "_tablemetadata";
+    private static final String DEFAULT_HASH_KEY_REGISTRY_TABLE_NAME = "_hashkeys";
+    private static final int DEFAULT_BATCH_GET_ITEM_THREADS = 4;
+    private static final int DEFAULT_TRUNCATE_SEGMENTS = 4;
+    private static final int DEFAULT_DELETE_TABLE_JOB_THREADS = 2;
+    private static final int DEFAULT_DELETE_TABLE_JOBS_PER_PHYSICAL_TABLE = 1;
+    private static final int DEFAULT_MAX_PENDING_DELETE_TABLE_JOBS = 1000;
     private List<CreateTableRequest> createTableRequests;
     private Long defaultProvisionedThroughput; /* TODO if this is ever going to be used in production we will need
                                                        more granularity, like at the table, index, read, write level */
@@ -175,11 +229,25 @@ public class SharedTableBuilder implements TableBuilder {
     private Boolean deleteTableAsync;
     private Boolean truncateOnDeleteTable;
     private Boolean createTablesEagerly;
+    private Boolean createTablesAsync;
+    private final List<Runnable> createMetadataTables = new ArrayList<>();
     private Integer pollIntervalSeconds;
     private Optional<String> tablePrefix = empty();
     private Long getRecordsTimeLimit;
     private Clock clock;
     private String tableDescriptionTableName;
+    private Executor batchGetItemExecutor;
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+    private MtHashKeyRegistry hashKeyRegistry;
+    private Boolean hashKeyRegistryEnabled;
+    private Executor truncateExecutor;
+    private Integer truncateSegments;
+    private Optional<Double> truncateDeletesPerSecond = empty();
+    private Optional<Double> truncateScannedItemsPerSecond = empty();
+    private DeleteTableJobScheduler deleteTableJobScheduler;
+    private Long translationPlanCacheSize;
+    private Long tableCacheMaximumSize;
+    private Duration tableCacheExpireAfterAccess;
 
     public static SharedTableBuilder builder() {
         return new SharedTableBuilder();
@@ -239,6 +307,61 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    public SharedTableBuilder withBatchGetItemExecutor(Executor batchGetItemExecutor) {
+        this.batchGetItemExecutor = batchGetItemExecutor;
+        return this;
+    }
+
+    public SharedTableBuilder withHashKeyRegistry(MtHashKeyRegistry hashKeyRegistry) {
+        this.hashKeyRegistry = hashKeyRegistry;
+        return this;
+    }
+
+    public SharedTableBuilder withHashKeyRegistryEnabled(boolean hashKeyRegistryEnabled) {
+        this.hashKeyRegistryEnabled = hashKeyRegistryEnabled;
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateExecutor(Executor truncateExecutor) {
+        this.truncateExecutor = truncateExecutor;
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateSegments(int truncateSegments) {
+        this.truncateSegments = truncateSegments;
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateDeletesPerSecond(double truncateDeletesPerSecond) {
+        this.truncateDeletesPerSecond = of(truncateDeletesPerSecond);
+        return this;
+    }
+
+    public SharedTableBuilder withTruncateScannedItemsPerSecond(double truncateScannedItemsPerSecond) {
+        this.truncateScannedItemsPerSecond = of(truncateScannedItemsPerSecond);
+        return this;
+    }
+
+    public SharedTableBuilder withDeleteTableJobScheduler(DeleteTableJobScheduler deleteTableJobScheduler) {
+        this.deleteTableJobScheduler = deleteTableJobScheduler;
+        return this;
+    }
+
+    public SharedTableBuilder withTranslationPlanCacheSize(long translationPlanCacheSize) {
+        this.translationPlanCacheSize = translationPlanCacheSize;
+        return this;
+    }
+
+    public SharedTableBuilder withTableCacheMaximumSize(long tableCacheMaximumSize) {
+        this.tableCacheMaximumSize = tableCacheMaximumSize;
+        return this;
+    }
+
+    public SharedTableBuilder withTableCacheExpireAfterAccess(Duration tableCacheExpireAfterAccess) {
+        this.tableCacheExpireAfterAccess = tableCacheExpireAfterAccess;
+        return this;
+    }
+
     /**
      * TODO: write Javadoc.
      *
@@ -253,16 +376,7 @@ public class SharedTableBuilder implements TableBuilder {
         withDynamoSecondaryIndexMapper(new DynamoSecondaryIndexMapperByTypeImpl());
         setDefaults();
         validate();
-        if (tableMappingFactory == null) {
-            tableMappingFactory = new TableMappingFactory(
-                createTableRequestFactory,
-                mtContext,
-                secondaryIndexMapper,
-                amazonDynamoDb,
-                createTablesEagerly,
-                pollIntervalSeconds
-            );
-        }
+        CompletableFuture<Void> startupFuture = createTables();
         return new MtAmazonDynamoDbBySharedTable(name,
             mtContext,
             amazonDynamoDb,
@@ -271,7 +385,58 @@ public class SharedTableBuilder implements TableBuilder {
             deleteTableAsync,
             truncateOnDeleteTable,
             getRecordsTimeLimit,
-            clock);
+            clock,
+            batchGetItemExecutor,
+            hashKeyRegistryEnabled ? Optional.of(hashKeyRegistry) : Optional.empty(),
+            truncateExecutor,
+            truncateSegments,
+            truncateDeletesPerSecond,
+            truncateScannedItemsPerSecond,
+            deleteTableJobScheduler,
+            tableCacheMaximumSize,
+            tableCacheExpireAfterAccess,
+            startupFuture,
+            ImmutableList.copyOf(ownedExecutors));
+    }
+
+    /*
+     * Creates the physical tables, if they are created eagerly, and the metadata tables concurrently, and waits for
+     * them unless they are created asynchronously.
+     */
+    private CompletableFuture<Void> createTables() {
+        ExecutorService createTableExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("mt-create-table-%d").setDaemon(true).build());
+        CompletableFuture<Void> startupFuture;
+        try {
+            if (tableMappingFactory == null) {
+                tableMappingFactory = new TableMappingFactory(
+                    createTableRequestFactory,
+                    mtContext,
+                    secondaryIndexMapper,
+                    amazonDynamoDb,
+                    createTablesEagerly,
+                    pollIntervalSeconds,
+                    translationPlanCacheSize,
+                    createTableExecutor
+                );
+            }
+            startupFuture = CompletableFuture.allOf(Stream.concat(
+                Stream.of(tableMappingFactory.getStartupFuture()),
+                createMetadataTables.stream().map(task -> CompletableFuture.runAsync(task, createTableExecutor)))
+                .toArray(CompletableFuture[]::new));
+            createMetadataTables.clear();
+        } finally {
+            createTableExecutor.shutdown();
+        }
+        if (!createTablesAsync) {
+            try {
+                startupFuture.join();
+            } catch (CompletionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+        }
+        return startupFuture;
     }
 
     private void setDefaults() {
@@ -315,22 +480,33 @@ public class SharedTableBuilder implements TableBuilder {
         if (createTablesEagerly == null) {
             createTablesEagerly = true;
         }
+        if (createTablesAsync == null) {
+            createTablesAsync = false;
+        }
         if (pollIntervalSeconds == null) {
             pollIntervalSeconds = 0;
         }
         if (tableDescriptionTableName == null) {
             tableDescriptionTableName = DEFAULT_TABLE_DESCRIPTION_TABLE_NAME;
         }
+        if (tableCacheMaximumSize == null) {
+            tableCacheMaximumSize = MtTenantCache.DEFAULT_MAXIMUM_SIZE;
+        }
+        if (tableCacheExpireAfterAccess == null) {
+            tableCacheExpireAfterAccess = MtTenantCache.DEFAULT_EXPIRE_AFTER_ACCESS;
+        }
         if (mtTableDescriptionRepo == null) {
-            mtTableDescriptionRepo = MtDynamoDbTableDescriptionRepo.builder()
+            MtDynamoDbTableDescriptionRepo dynamoDbTableDescriptionRepo = MtDynamoDbTableDescriptionRepo.builder()
                 .withAmazonDynamoDb(amazonDynamoDb)
                 .withBillingMode(this.billingMode)
                 .withContext(mtContext)
                 .withTableDescriptionTableName(tableDescriptionTableName)
                 .withPollIntervalSeconds(pollIntervalSeconds)
+                .withCacheMaximumSize(tableCacheMaximumSize)
+                .withCacheExpireAfterAccess(tableCacheExpireAfterAccess)
                 .withTablePrefix(tablePrefix).build();
-
-            ((MtDynamoDbTableDescriptionRepo) mtTableDescriptionRepo).createDefaultDescriptionTable();
+            createMetadataTables.add(dynamoDbTableDescriptionRepo::createDefaultDescriptionTable);
+            mtTableDescriptionRepo = dynamoDbTableDescriptionRepo;
         }
         if (getRecordsTimeLimit == null) {
             getRecordsTimeLimit = 5000L;
@@ -338,6 +514,46 @@ public class SharedTableBuilder implements TableBuilder {
         if (clock == null) {
             clock = Clock.systemDefaultZone();
         }
+        if (batchGetItemExecutor == null) {
+            batchGetItemExecutor = ownedExecutor(Executors.newFixedThreadPool(DEFAULT_BATCH_GET_ITEM_THREADS,
+                new ThreadFactoryBuilder().setNameFormat("mt-batch-get-item-%d").setDaemon(true).build()));
+        }
+        if (truncateExecutor == null) {
+            truncateExecutor = ownedExecutor(Executors.newFixedThreadPool(DEFAULT_TRUNCATE_SEGMENTS,
+                new ThreadFactoryBuilder().setNameFormat("mt-truncate-%d").setDaemon(true).build()));
+        }
+        if (truncateSegments == null) {
+            truncateSegments = DEFAULT_TRUNCATE_SEGMENTS;
+        }
+        if (deleteTableJobScheduler == null) {
+            deleteTableJobScheduler = new DeleteTableJobScheduler(DEFAULT_DELETE_TABLE_JOB_THREADS,
+                DEFAULT_DELETE_TABLE_JOBS_PER_PHYSICAL_TABLE, DEFAULT_MAX_PENDING_DELETE_TABLE_JOBS, clock);
+        }
+        if (translationPlanCacheSize == null) {
+            translationPlanCacheSize = TableMappingFactory.DEFAULT_TRANSLATION_PLAN_CACHE_SIZE;
+        }
+        if (hashKeyRegistryEnabled == null) {
+            hashKeyRegistryEnabled = hashKeyRegistry != null;
+        }
+        if (hashKeyRegistryEnabled && hashKeyRegistry == null) {
+            MtDynamoDbHashKeyRegistry dynamoDbHashKeyRegistry = MtDynamoDbHashKeyRegistry.builder()
+                .withAmazonDynamoDb(amazonDynamoDb)
+                .withBillingMode(billingMode)
+                .withContext(mtContext)
+                .withRegistryTableName(DEFAULT_HASH_KEY_REGISTRY_TABLE_NAME)
+                .withPollIntervalSeconds(pollIntervalSeconds)
+                .withTablePrefix(tablePrefix).build();
+            createMetadataTables.add(dynamoDbHashKeyRegistry::createHashKeyRegistryTable);
+            hashKeyRegistry = dynamoDbHashKeyRegistry;
+        }
+    }
+
+    /*
+     * Records that the given executor was created by this builder, so that the built instance shuts it down.
+     */
+    private ExecutorService ownedExecutor(ExecutorService executor) {
+        ownedExecutors.add(executor);
+        return executor;
     }
 
     private static final String HASH_KEY_FIELD = "hk";
@@ -500,6 +716,11 @@ public class SharedTableBuilder implements TableBuilder {
         return this;
     }
 
+    public SharedTableBuilder withCreateTablesAsync(boolean createTablesAsync) {
+        this.createTablesAsync = createTablesAsync;
+        return this;
+    }
+
     public SharedTableBuilder withPollIntervalSeconds(Integer pollIntervalSeconds) {
         this.pollIntervalSeconds = pollIntervalSeconds;
         return this;
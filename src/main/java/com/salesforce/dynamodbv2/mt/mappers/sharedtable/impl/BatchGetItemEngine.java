@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_RETRIES;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.backoff;
+import static java.util.stream.Collectors.toList;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes {@code BatchGetItemRequest}s of arbitrary size against the physical tables.  Keys are split into chunks of
+ * at most 100 (the DynamoDB limit per call) that are fetched concurrently on the given executor.  Within each chunk,
+ * unprocessed keys are re-driven with jittered exponential backoff.  Responses of all chunks are merged per table.
+ *
+ * <p>Operates on physical (i.e., already mapped) requests only, so that no multitenant context is needed on executor
+ * threads.
+ */
+class BatchGetItemEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchGetItemEngine.class);
+
+    @VisibleForTesting
+    static final int MAX_BATCH_GET_KEYS = 100;
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final Executor executor;
+
+    BatchGetItemEngine(AmazonDynamoDB amazonDynamoDb, Executor executor) {
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets all items for the given request.  The returned result contains a (possibly empty) response entry for every
+     * requested table, as well as whatever keys remained unprocessed after the last retry.
+     */
+    BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+        List<BatchGetItemRequest> chunks = split(request);
+        if (chunks.size() == 1) {
+            // no need to hop threads
+            return merge(request, ImmutableList.of(batchGetItemWithRetries(chunks.get(0))));
+        }
+        List<CompletableFuture<BatchGetItemResult>> futures = chunks.stream()
+            .map(chunk -> CompletableFuture.supplyAsync(() -> batchGetItemWithRetries(chunk), executor))
+            .collect(toList());
+        try {
+            return merge(request, futures.stream().map(CompletableFuture::join).collect(toList()));
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /*
+     * Splits the given request into requests of at most MAX_BATCH_GET_KEYS keys each, preserving the order of keys as
+     * well as the per-table attributes (e.g., projection expressions).
+     */
+    @VisibleForTesting
+    static List<BatchGetItemRequest> split(BatchGetItemRequest request) {
+        List<Entry<String, Map<String, AttributeValue>>> keys = new ArrayList<>();
+        request.getRequestItems().forEach((tableName, keysAndAttributes) -> keysAndAttributes.getKeys()
+            .forEach(key -> keys.add(new SimpleImmutableEntry<>(tableName, key))));
+        if (keys.size() <= MAX_BATCH_GET_KEYS) {
+            return ImmutableList.of(request);
+        }
+        return Lists.partition(keys, MAX_BATCH_GET_KEYS).stream().map(chunk -> {
+            Map<String, KeysAndAttributes> requestItems = new LinkedHashMap<>();
+            chunk.forEach(entry -> requestItems.computeIfAbsent(entry.getKey(), tableName ->
+                request.getRequestItems().get(tableName).clone().withKeys(new ArrayList<>()))
+                .getKeys().add(entry.getValue()));
+            return request.clone().withRequestItems(requestItems);
+        }).collect(toList());
+    }
+
+    /*
+     * Submits the given request, resubmitting unprocessed keys with backoff until all keys are processed or the retry
+     * limit is reached.  Accumulates the responses and consumed capacity of all attempts into a single result.
+     */
+    private BatchGetItemResult batchGetItemWithRetries(BatchGetItemRequest request) {
+        BatchGetItemResult mergedResult = new BatchGetItemResult().withResponses(new HashMap<>())
+            .withConsumedCapacity(new ArrayList<>());
+        for (int retries = 0; ; retries++) {
+            BatchGetItemResult result = amazonDynamoDb.batchGetItem(request);
+            addResponses(mergedResult, result);
+            Map<String, KeysAndAttributes> unprocessedKeys = result.getUnprocessedKeys();
+            if (unprocessedKeys == null || unprocessedKeys.isEmpty()) {
+                return mergedResult;
+            }
+            if (retries == MAX_BATCH_RETRIES || !backoff(request, retries)) {
+                log.warn("giving up on " + unprocessedKeys.values().stream().mapToInt(k -> k.getKeys().size()).sum()
+                    + " unprocessed keys after " + (retries + 1) + " batchGetItem attempts");
+                return mergedResult.withUnprocessedKeys(unprocessedKeys);
+            }
+            request = request.clone().withRequestItems(unprocessedKeys);
+        }
+    }
+
+    private static BatchGetItemResult merge(BatchGetItemRequest request, List<BatchGetItemResult> results) {
+        BatchGetItemResult mergedResult = new BatchGetItemResult()
+            .withResponses(new HashMap<>())
+            .withUnprocessedKeys(new HashMap<>())
+            .withConsumedCapacity(new ArrayList<>());
+        request.getRequestItems().keySet().forEach(tableName ->
+            mergedResult.getResponses().put(tableName, new ArrayList<>()));
+        for (BatchGetItemResult result : results) {
+            addResponses(mergedResult, result);
+            if (result.getUnprocessedKeys() != null) {
+                result.getUnprocessedKeys().forEach((tableName, keysAndAttributes) -> mergedResult
+                    .getUnprocessedKeys().computeIfAbsent(tableName, k ->
+                        keysAndAttributes.clone().withKeys(new ArrayList<>()))
+                    .getKeys().addAll(keysAndAttributes.getKeys()));
+            }
+        }
+        if (mergedResult.getConsumedCapacity().isEmpty()) {
+            mergedResult.setConsumedCapacity(null);
+        }
+        return mergedResult;
+    }
+
+    private static void addResponses(BatchGetItemResult mergedResult, BatchGetItemResult result) {
+        if (result.getResponses() != null) {
+            result.getResponses().forEach((tableName, items) -> mergedResult.getResponses()
+                .computeIfAbsent(tableName, k -> new ArrayList<>()).addAll(items));
+        }
+        if (result.getConsumedCapacity() != null) {
+            mergedResult.getConsumedCapacity().addAll(result.getConsumedCapacity());
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.retry.PredefinedBackoffStrategies.FullJitterBackoffStrategy;
+import com.amazonaws.retry.RetryPolicy.BackoffStrategy;
+
+/**
+ * Limits and backoff shared by the batch operations that resubmit unprocessed items or keys to the physical tables.
+ */
+final class BatchRetryPolicy {
+
+    static final int MAX_BATCH_WRITE_ITEMS = 25;
+    static final int MAX_BATCH_RETRIES = 8;
+    private static final BackoffStrategy BATCH_BACKOFF_STRATEGY = new FullJitterBackoffStrategy(25, 1000);
+
+    private BatchRetryPolicy() {
+    }
+
+    /**
+     * Sleeps for a jittered, exponentially increasing amount of time ahead of the next retry of a batch request.
+     *
+     * @param request the request to retry
+     * @param retriesAttempted the number of retries attempted so far
+     * @return false if the thread was interrupted, in which case the caller should stop retrying
+     */
+    static boolean backoff(AmazonWebServiceRequest request, int retriesAttempted) {
+        try {
+            Thread.sleep(BATCH_BACKOFF_STRATEGY.delayBeforeNextRetry(request, null, retriesAttempted));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
@@ -11,11 +11,14 @@ import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.util.Objects;
 
 class BinaryFieldMapper implements FieldMapper {
 
     private final MtAmazonDynamoDbContextProvider mtContext;
     private final String virtualTableName;
+    // table mappings are cached per context, so the context rarely changes
+    private volatile FieldPrefix<ByteBuffer> prefix;
 
     BinaryFieldMapper(MtAmazonDynamoDbContextProvider mtContext,
                       String virtualTableName) {
@@ -27,17 +30,27 @@ class BinaryFieldMapper implements FieldMapper {
     public AttributeValue apply(FieldMapping fieldMapping, AttributeValue unqualifiedAttribute) {
         checkArgument(fieldMapping.getTarget().getType() == B);
         ByteBuffer binaryValue = convertToBinary(fieldMapping.getSource().getType(), unqualifiedAttribute);
-        FieldValue<ByteBuffer> fieldValue = new FieldValue<>(mtContext.getContext(), virtualTableName, binaryValue);
-        return new AttributeValue().withB(BinaryFieldPrefixFunction.INSTANCE.apply(fieldValue));
+        return new AttributeValue().withB(BinaryFieldPrefixFunction.INSTANCE.apply(getPrefix(), binaryValue));
     }
 
     @Override
     public AttributeValue reverse(FieldMapping fieldMapping, AttributeValue qualifiedAttribute) {
         checkArgument(fieldMapping.getSource().getType() == B);
-        FieldValue<ByteBuffer> fieldValue = BinaryFieldPrefixFunction.INSTANCE.reverse(qualifiedAttribute.getB());
+        FieldValue<ByteBuffer> fieldValue = BinaryFieldPrefixFunction.INSTANCE.reverse(prefix,
+            qualifiedAttribute.getB());
         return convertFromBinary(fieldMapping.getTarget().getType(), fieldValue.getValue());
     }
 
+    private FieldPrefix<ByteBuffer> getPrefix() {
+        String context = mtContext.getContext();
+        FieldPrefix<ByteBuffer> prefix = this.prefix;
+        if (prefix == null || !Objects.equals(prefix.getContext(), context)) {
+            prefix = BinaryFieldPrefixFunction.INSTANCE.createPrefix(context, virtualTableName);
+            this.prefix = prefix;
+        }
+        return prefix;
+    }
+
     private ByteBuffer convertToBinary(ScalarAttributeType type, AttributeValue attributeValue) {
         checkNotNull(type, "null attribute type");
         switch (type) {
@@ -59,11 +72,13 @@ class BinaryFieldMapper implements FieldMapper {
         AttributeValue unqualifiedAttribute = new AttributeValue();
         switch (type) {
             case S:
-                return unqualifiedAttribute.withS(new String(value.array(), UTF_8));
+                return unqualifiedAttribute.withS(BinaryFieldPrefixFunction.decode(value));
             case N:
-                int scale = value.getInt();
-                BigInteger unscaled = new BigInteger(value.array(), 4, value.remaining());
-                return new AttributeValue().withN(new BigDecimal(unscaled, scale).toPlainString());
+                ByteBuffer number = value.duplicate();
+                int scale = number.getInt();
+                byte[] unscaled = new byte[number.remaining()];
+                number.get(unscaled);
+                return new AttributeValue().withN(new BigDecimal(new BigInteger(unscaled), scale).toPlainString());
             case B:
                 return unqualifiedAttribute.withB(value);
             default:
@@ -17,41 +17,86 @@ public class BinaryFieldPrefixFunction implements FieldPrefixFunction<ByteBuffer
 
     @Override
     public ByteBuffer apply(FieldValue<ByteBuffer> fieldValue) {
-        final byte[] context = fieldValue.getContext().getBytes(UTF_8);
-        final byte[] tableName = fieldValue.getTableName().getBytes(UTF_8);
-        final ByteBuffer value = fieldValue.getValue().asReadOnlyBuffer();
-        ByteBuffer qualifiedValue = ByteBuffer.allocate(context.length + tableName.length + value.remaining() + 2);
-        qualifiedValue.put(context);
-        qualifiedValue.put(DELIMITER);
-        qualifiedValue.put(tableName);
-        qualifiedValue.put(DELIMITER);
-        qualifiedValue.put(value);
+        return apply(createPrefix(fieldValue.getContext(), fieldValue.getTableName()), fieldValue.getValue());
+    }
+
+    @Override
+    public ByteBuffer apply(FieldPrefix<ByteBuffer> prefix, ByteBuffer value) {
+        ByteBuffer qualifiedValue = ByteBuffer.allocate(prefix.getPrefix().remaining() + value.remaining());
+        qualifiedValue.put(prefix.getPrefix().duplicate());
+        qualifiedValue.put(value.duplicate());
         qualifiedValue.flip();
         return qualifiedValue;
     }
 
     @Override
-    public FieldValue<ByteBuffer> reverse(ByteBuffer b) {
-        byte[] qualifiedValue = b.array();
-        int idx = indexOf(qualifiedValue, DELIMITER, 0);
+    public FieldValue<ByteBuffer> reverse(ByteBuffer qualifiedValue) {
+        return reverse(null, qualifiedValue);
+    }
+
+    /*
+     * The returned value is a view of the given buffer, so it must not be modified while the value is in use.
+     */
+    @Override
+    public FieldValue<ByteBuffer> reverse(FieldPrefix<ByteBuffer> prefix, ByteBuffer qualifiedValue) {
+        final int start = qualifiedValue.position();
+        if (prefix != null && startsWith(qualifiedValue, prefix.getPrefix())) {
+            return new FieldValue<>(prefix.getContext(), prefix.getTableName(),
+                slice(qualifiedValue, start + prefix.getPrefix().remaining(), qualifiedValue.limit()));
+        }
+
+        int idx = indexOf(qualifiedValue, DELIMITER, start);
         checkArgument(idx != -1);
-        final String context = new String(qualifiedValue, 0, idx, UTF_8);
+        final String context = decode(slice(qualifiedValue, start, idx));
 
         idx++;
         int idx2 = indexOf(qualifiedValue, DELIMITER, idx);
         checkArgument(idx2 != -1);
-        final String tableName = new String(qualifiedValue, idx, idx2 - idx, UTF_8);
+        final String tableName = decode(slice(qualifiedValue, idx, idx2));
 
         idx2++;
-        byte[] value = new byte[qualifiedValue.length - idx2];
-        System.arraycopy(qualifiedValue, idx2, value, 0, value.length);
+        return new FieldValue<>(context, tableName, slice(qualifiedValue, idx2, qualifiedValue.limit()));
+    }
+
+    @Override
+    public FieldPrefix<ByteBuffer> createPrefix(String context, String tableName) {
+        final byte[] contextBytes = context.getBytes(UTF_8);
+        final byte[] tableNameBytes = tableName.getBytes(UTF_8);
+        ByteBuffer prefix = ByteBuffer.allocate(contextBytes.length + tableNameBytes.length + 2);
+        prefix.put(contextBytes);
+        prefix.put(DELIMITER);
+        prefix.put(tableNameBytes);
+        prefix.put(DELIMITER);
+        prefix.flip();
+        return new FieldPrefix<>(context, tableName, prefix.asReadOnlyBuffer());
+    }
+
+    /**
+     * Decodes the remaining bytes of the given buffer as a UTF-8 string without changing the buffer's position.
+     *
+     * @param buffer the buffer to decode
+     * @return the decoded string
+     */
+    static String decode(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), UTF_8);
+        }
+        return UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, ByteBuffer prefix) {
+        int length = prefix.remaining();
+        return buffer.remaining() >= length
+            && slice(buffer, buffer.position(), buffer.position() + length).equals(prefix);
+    }
 
-        return new FieldValue<>(context, tableName, ByteBuffer.wrap(value));
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        return buffer.duplicate().limit(end).position(start).slice();
     }
 
-    private static int indexOf(byte[] array, byte target, int start) {
-        for (int i = start; i < array.length; i++) {
-            if (array[i] == target) {
+    private static int indexOf(ByteBuffer buffer, byte target, int start) {
+        for (int i = start; i < buffer.limit(); i++) {
+            if (buffer.get(i) == target) {
                 return i;
             }
         }
@@ -1,14 +1,16 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
-import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import static java.util.stream.Collectors.toList;
+
 import com.google.common.annotations.VisibleForTesting;
-import java.util.Collection;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 /**
@@ -33,34 +35,53 @@ class ConditionMapper {
      * expression names and values.
      */
     void convertFieldNameLiteralsToExpressionNames(RequestWrapper request) {
-        Collection<FieldMapping> fieldMappings =
-            tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values();
-        request.setPrimaryExpression(
-            convertFieldNameLiteralsToExpressionNamesInternal(fieldMappings, request.getPrimaryExpression(), request));
-        request.setFilterExpression(
-            convertFieldNameLiteralsToExpressionNamesInternal(fieldMappings, request.getFilterExpression(), request));
+        TranslationPlan.Builder plan = new TranslationPlan.Builder(request);
+        convertFieldNameLiterals(plan);
+        plan.build().apply(request, fieldMapper);
     }
 
     /**
      * For each virtual-physical field mapping, maps field names and applies field value prefixing for tenant isolation.
+     * The mapping is planned once per request shape, see {@code TranslationPlanCache}.
      */
     void apply(RequestWrapper request) {
-        convertFieldNameLiteralsToExpressionNames(request);
-        tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().values().forEach(
-            fieldMapping -> applyKeyConditionToField(request, fieldMapping));
+        tableMapping.getTranslationPlan(request, plan -> {
+            convertFieldNameLiterals(plan);
+            applyKeyConditions(plan, tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped());
+        }).apply(request, fieldMapper);
     }
 
     /**
-     * Finds a virtual field name reference in the expression attribute names, finds the value in the right-hand side
-     * operand in the primary expression or filter expression, gets its value in the expression attribute values,
-     * applies the mapping, and sets the physical name of the field to that of the target field.
+     * Finds virtual field name references in the expression attribute names, finds the values in the right-hand side
+     * operands in the primary expression or filter expression, records the mapping of those values, and sets the
+     * physical names of the fields to those of the target fields.  Every name is mapped at most once, based on the
+     * virtual field it refers to, so it is not mapped again if a physical field name happens to match another virtual
+     * field name.
      */
-    void applyKeyConditionToField(RequestWrapper request, FieldMapping fieldMapping) {
-        applyKeyConditionToField(
-            request,
-            fieldMapping,
-            request.getPrimaryExpression(),
-            request.getFilterExpression());
+    void applyKeyConditions(TranslationPlan.Builder plan, Map<String, FieldMapping> fieldMappingsByVirtualName) {
+        applyKeyConditions(plan, fieldMappingsByVirtualName, plan.getPrimaryExpression(),
+            plan.getFilterExpression());
+    }
+
+    private void applyKeyConditions(TranslationPlan.Builder plan,
+        Map<String, FieldMapping> fieldMappingsByVirtualName,
+        String primaryExpression,
+        String filterExpression) {
+        Map<String, String> expressionAttrNames = plan.getExpressionAttributeNames(); // "#field1" -> "virtualHk"
+        if (primaryExpression == null || expressionAttrNames == null) {
+            return;
+        }
+        List<Entry<String, String>> keyFieldNames = expressionAttrNames.entrySet().stream()
+            .filter(entry -> fieldMappingsByVirtualName.containsKey(entry.getValue())
+                && !entry.getKey().equals(NAME_PLACEHOLDER))
+            .collect(toList()); // ["#field1" -> "virtualHk"]
+        if (!keyFieldNames.isEmpty()) {
+            ParsedExpression parsedPrimaryExpression = ParsedExpression.parse(primaryExpression);
+            ParsedExpression parsedFilterExpression = parse(filterExpression);
+            keyFieldNames.forEach(entry -> applyKeyConditionToField(plan,
+                fieldMappingsByVirtualName.get(entry.getValue()), entry.getKey(), parsedPrimaryExpression,
+                parsedFilterExpression));
+        }
     }
 
     /**
@@ -71,31 +92,54 @@ class ConditionMapper {
      */
     @VisibleForTesting
     void applyKeyConditionToField(RequestWrapper request,
-        FieldMapping fieldMapping,
+        FieldMapping fieldMapping, // source = "virtualHk", target = "physicalHk"
         String primaryExpression, // "#field1 = :value"
         String filterExpression) {
-        if (primaryExpression != null) {
-            String virtualAttrName = fieldMapping.getSource().getName(); // "virtualHk"
-            Map<String, String> expressionAttrNames = request.getExpressionAttributeNames(); // "#field1" -> "virtualHk"
-            Optional<String> keyFieldName = expressionAttrNames != null ? expressionAttrNames.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(virtualAttrName)).map(Entry::getKey).findAny()
-                : Optional.empty(); // Optional[#field1]
-            if (keyFieldName.isPresent() && !keyFieldName.get().equals(NAME_PLACEHOLDER)) {
-                Optional<String> virtualValuePlaceholderOpt =
-                    findVirtualValuePlaceholder(primaryExpression, filterExpression, keyFieldName.get()); // ":value"
-                if (virtualValuePlaceholderOpt.isPresent()) {
-                    String virtualValuePlaceholder = virtualValuePlaceholderOpt.get();
-                    AttributeValue virtualAttr =
-                            request.getExpressionAttributeValues().get(virtualValuePlaceholder); // {S: hkValue,}
-                    AttributeValue physicalAttr =
-                        fieldMapping.isContextAware()
-                                ? fieldMapper.apply(fieldMapping, virtualAttr) // {S: ctx.virtualTable.hkValue,}
-                                : virtualAttr;
-                    request.putExpressionAttributeValue(virtualValuePlaceholder, physicalAttr);
-                }
-                request.putExpressionAttributeName(keyFieldName.get(), fieldMapping.getTarget().getName());
+        TranslationPlan.Builder plan = new TranslationPlan.Builder(request);
+        applyKeyConditions(plan, ImmutableMap.of(fieldMapping.getSource().getName(), fieldMapping), primaryExpression,
+            filterExpression);
+        plan.build().apply(request, fieldMapper);
+    }
+
+    private void applyKeyConditionToField(TranslationPlan.Builder plan,
+        FieldMapping fieldMapping,
+        String keyFieldName, // "#field1"
+        ParsedExpression primaryExpression,
+        ParsedExpression filterExpression) {
+        Optional<String> virtualValuePlaceholderOpt =
+            findVirtualValuePlaceholder(primaryExpression, filterExpression, keyFieldName); // ":value"
+        if (virtualValuePlaceholderOpt.isPresent()) {
+            String virtualValuePlaceholder = virtualValuePlaceholderOpt.get();
+            if (fieldMapping.isContextAware()) {
+                // {S: hkValue,} -> {S: ctx.virtualTable.hkValue,}
+                plan.mapExpressionAttributeValue(virtualValuePlaceholder, fieldMapping, null);
+            } else {
+                plan.keepExpressionAttributeValue(virtualValuePlaceholder);
             }
         }
+        plan.putExpressionAttributeName(keyFieldName, fieldMapping.getTarget().getName());
+    }
+
+    /**
+     * Converts field name literals in the primary and filter expressions.  A literal that occurs more than once is
+     * replaced by the same placeholder.
+     */
+    void convertFieldNameLiterals(TranslationPlan.Builder plan) {
+        String primaryExpression = plan.getPrimaryExpression();
+        String filterExpression = plan.getFilterExpression();
+        Map<String, String> fieldPlaceholders = new HashMap<>();
+        AtomicInteger counter = new AtomicInteger(1);
+        if (primaryExpression != null) {
+            plan.setPrimaryExpression(
+                convertFieldNameLiteralsToExpressionNamesInternal(primaryExpression, fieldPlaceholders, counter, plan));
+        }
+        if (filterExpression != null) {
+            // the primary and filter expressions of put and delete requests are the same condition expression
+            plan.setFilterExpression(filterExpression.equals(primaryExpression)
+                ? plan.getPrimaryExpression()
+                : convertFieldNameLiteralsToExpressionNamesInternal(filterExpression, fieldPlaceholders, counter,
+                    plan));
+        }
     }
 
     /**
@@ -104,30 +148,26 @@ class ConditionMapper {
      * <p>Comments show expected variable values with a sample set of inputs.
      */
     private String convertFieldNameLiteralsToExpressionNamesInternal(
-        Collection<FieldMapping> fieldMappings, // source = "field", target="field"
         String conditionExpression, // "field = :value and field2 = :value2 and field = :value3"
+        Map<String, String> fieldPlaceholders, // literals replaced so far
+        AtomicInteger counter,
         RequestWrapper request) {
-        String newConditionExpression = conditionExpression;
-        if (conditionExpression != null) {
-            AtomicInteger counter = new AtomicInteger(1);
-            for (FieldMapping fieldMapping : fieldMappings) {
-                String virtualFieldName = fieldMapping.getSource().getName(); // "field"
-                String toFind = " " + virtualFieldName + " ="; // " field ="
-                int start = (" " + newConditionExpression).indexOf(toFind); // 0 - TODO add support for non-EQ operators
-                while (start >= 0) {
-                    String fieldLiteral =
-                            newConditionExpression.substring(start, start + virtualFieldName.length()); // "field"
-                    String fieldPlaceholder =
-                            getNextFieldPlaceholder(request.getExpressionAttributeNames(), counter); // "#field1"
-                    newConditionExpression = conditionExpression
-                        .replaceAll(fieldLiteral + " ", fieldPlaceholder + " ");
-                    // "#field1 = :value and field2 = :value2 and #field1 = :value3"
-                    request.putExpressionAttributeName(fieldPlaceholder, fieldLiteral);
-                    start = (" " + newConditionExpression).indexOf(toFind); // -1
-                }
+        Map<String, FieldMapping> fieldMappings = tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped();
+        return ParsedExpression.parse(conditionExpression).replaceAttributeLiterals(fieldLiteral -> { // "field"
+            if (!fieldMappings.containsKey(fieldLiteral)) {
+                return null; // "field2"
             }
-        }
-        return newConditionExpression;
+            return fieldPlaceholders.computeIfAbsent(fieldLiteral, literal -> {
+                String fieldPlaceholder =
+                    getNextFieldPlaceholder(request.getExpressionAttributeNames(), counter); // "#field1"
+                request.putExpressionAttributeName(fieldPlaceholder, literal);
+                return fieldPlaceholder;
+            });
+        }).toString(); // "#field1 = :value and field2 = :value2 and #field1 = :value3"
+    }
+
+    private static ParsedExpression parse(String expression) {
+        return expression == null ? null : ParsedExpression.parse(expression);
     }
 
     /*
@@ -151,9 +191,15 @@ class ConditionMapper {
     static Optional<String> findVirtualValuePlaceholder(String primaryExpression,
         String filterExpression,
         String keyFieldName) {
-        return Stream.of(
-            findVirtualValuePlaceholder(primaryExpression, keyFieldName),
-            findVirtualValuePlaceholder(filterExpression, keyFieldName))
+        return findVirtualValuePlaceholder(parse(primaryExpression), parse(filterExpression), keyFieldName);
+    }
+
+    private static Optional<String> findVirtualValuePlaceholder(ParsedExpression primaryExpression,
+        ParsedExpression filterExpression,
+        String keyFieldName) {
+        return Stream.of(primaryExpression, filterExpression)
+            .filter(Objects::nonNull)
+            .map(expression -> expression.findEqualityValue(keyFieldName))
             .filter(Optional::isPresent)
             .map(Optional::get)
             .findFirst();
@@ -161,19 +207,12 @@ class ConditionMapper {
 
     /**
      * Finds the value in the right-hand side operand of an expression where the left-hand operator is a given field.
-     *
-     * <p>Comments show expected variable values with a sample set of inputs.
      */
     @VisibleForTesting
     static Optional<String> findVirtualValuePlaceholder(String conditionExpression, String keyFieldName) {
-        if (conditionExpression == null) {
-            return Optional.empty();
-        }
-
-        // TODO add support for non-EQ operators
-        final Pattern p = Pattern.compile(keyFieldName + " = ([^ ,]*)");
-        final Matcher m = p.matcher(conditionExpression);
-        return m.find() ? Optional.of(m.group(1)) : Optional.empty();
+        return conditionExpression == null
+            ? Optional.empty()
+            : ParsedExpression.parse(conditionExpression).findEqualityValue(keyFieldName);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.toList;
+
+import com.amazonaws.services.dynamodbv2.model.LimitExceededException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs asynchronous virtual table drops (and the truncation they entail) on a shared, bounded pool of threads.
+ *
+ * <p>Jobs are limited in three ways: at most {@code threads} jobs run at any time, at most
+ * {@code maxConcurrentJobsPerPhysicalTable} of those run against the same physical table (so that truncations of many
+ * virtual tables do not exhaust the write capacity of one physical table), and at most {@code maxPendingJobs} jobs
+ * may be queued or running; beyond that, submitting a job fails with a {@code LimitExceededException}.  Dropping a
+ * virtual table that already has a pending job does not submit another one.
+ *
+ * <p>The status of pending jobs and of the most recently finished ones, including the number of items deleted so far
+ * and the elapsed time, is available via {@code getJobs}.  {@code shutdown} cancels queued jobs and waits for running
+ * jobs to complete; jobs that do not complete in time are interrupted, which stops their truncation after the current
+ * page of each segment.  Since truncation resumes where it stopped, dropping the table again completes an interrupted
+ * drop.
+ */
+public class DeleteTableJobScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DeleteTableJobScheduler.class);
+
+    private static final int MAX_FINISHED_JOBS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    public enum JobState {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    /**
+     * Snapshot of the status of a delete table job.
+     */
+    public static class JobStatus {
+
+        private final long id;
+        private final String context;
+        private final String tableName;
+        private final String physicalTableName;
+        private final JobState state;
+        private final long itemsDeleted;
+        private final Duration elapsed;
+        private final Optional<String> failure;
+
+        JobStatus(long id, String context, String tableName, String physicalTableName, JobState state,
+                  long itemsDeleted, Duration elapsed, Optional<String> failure) {
+            this.id = id;
+            this.context = context;
+            this.tableName = tableName;
+            this.physicalTableName = physicalTableName;
+            this.state = state;
+            this.itemsDeleted = itemsDeleted;
+            this.elapsed = elapsed;
+            this.failure = failure;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getContext() {
+            return context;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getPhysicalTableName() {
+            return physicalTableName;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public long getItemsDeleted() {
+            return itemsDeleted;
+        }
+
+        /**
+         * Returns the time the job has been running, or ran for if it is finished.  Zero if it has not started.
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public Optional<String> getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return "JobStatus{id=" + id + ", context=" + context + ", tableName=" + tableName
+                + ", physicalTableName=" + physicalTableName + ", state=" + state + ", itemsDeleted=" + itemsDeleted
+                + ", elapsed=" + elapsed + failure.map(f -> ", failure=" + f).orElse("") + "}";
+        }
+
+    }
+
+    /**
+     * Work performed by a job, reporting the number of items deleted as it goes.
+     */
+    @FunctionalInterface
+    interface Job {
+
+        void run(LongConsumer onDeleted);
+
+    }
+
+    private final ExecutorService executor;
+    private final int maxConcurrentJobsPerPhysicalTable;
+    private final int maxPendingJobs;
+    private final Clock clock;
+    private final AtomicLong ids = new AtomicLong();
+
+    // all state below is guarded by this
+    private final Map<String, JobEntry> pendingJobs = new LinkedHashMap<>();
+    private final Map<String, Deque<JobEntry>> queuedJobsByPhysicalTable = new HashMap<>();
+    private final Map<String, Integer> runningJobsByPhysicalTable = new HashMap<>();
+    private final Deque<JobEntry> finishedJobs = new ArrayDeque<>();
+    private boolean shutdown;
+
+    /**
+     * Creates a scheduler with its own pool of daemon threads.
+     *
+     * @param threads the maximum number of jobs to run concurrently
+     * @param maxConcurrentJobsPerPhysicalTable the maximum number of jobs to run concurrently per physical table
+     * @param maxPendingJobs the maximum number of jobs that may be queued or running
+     * @param clock the clock used to measure elapsed time
+     */
+    public DeleteTableJobScheduler(int threads, int maxConcurrentJobsPerPhysicalTable, int maxPendingJobs,
+                                   Clock clock) {
+        checkArgument(threads > 0, "threads must be positive");
+        checkArgument(maxConcurrentJobsPerPhysicalTable > 0, "maxConcurrentJobsPerPhysicalTable must be positive");
+        checkArgument(maxPendingJobs > 0, "maxPendingJobs must be positive");
+        this.executor = Executors.newFixedThreadPool(threads,
+            new ThreadFactoryBuilder().setNameFormat("mt-delete-table-%d").setDaemon(true).build());
+        this.maxConcurrentJobsPerPhysicalTable = maxConcurrentJobsPerPhysicalTable;
+        this.maxPendingJobs = maxPendingJobs;
+        this.clock = clock;
+    }
+
+    /**
+     * Submits a job that drops the given virtual table, unless one is already pending.
+     *
+     * @param context the multitenant context of the virtual table
+     * @param tableName the name of the virtual table
+     * @param physicalTableName the name of the physical table the virtual table is mapped to
+     * @param job the work to perform
+     * @return the status of the submitted or already pending job
+     */
+    synchronized JobStatus submit(String context, String tableName, String physicalTableName, Job job) {
+        if (shutdown) {
+            throw new IllegalStateException("delete table job scheduler is shut down");
+        }
+        String key = context + "." + tableName;
+        JobEntry pending = pendingJobs.get(key);
+        if (pending != null) {
+            return pending.getStatus();
+        }
+        if (pendingJobs.size() >= maxPendingJobs) {
+            throw new LimitExceededException("too many pending delete table jobs: " + pendingJobs.size());
+        }
+        JobEntry entry = new JobEntry(ids.incrementAndGet(), context, tableName, physicalTableName, job);
+        pendingJobs.put(key, entry);
+        int running = runningJobsByPhysicalTable.getOrDefault(physicalTableName, 0);
+        if (running < maxConcurrentJobsPerPhysicalTable) {
+            runningJobsByPhysicalTable.put(physicalTableName, running + 1);
+            executor.execute(() -> run(entry));
+        } else {
+            queuedJobsByPhysicalTable.computeIfAbsent(physicalTableName, t -> new ArrayDeque<>()).add(entry);
+        }
+        return entry.getStatus();
+    }
+
+    /**
+     * Returns the status of all pending jobs, followed by the most recently finished jobs.
+     */
+    public synchronized List<JobStatus> getJobs() {
+        return Stream.concat(pendingJobs.values().stream(), finishedJobs.stream())
+            .map(JobEntry::getStatus)
+            .collect(toList());
+    }
+
+    /**
+     * Stops accepting jobs, cancels queued jobs, and waits for running jobs to complete.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            queuedJobsByPhysicalTable.values().forEach(queue -> new ArrayList<>(queue).forEach(entry -> {
+                entry.finish(JobState.CANCELLED, null);
+                onFinished(entry);
+            }));
+            queuedJobsByPhysicalTable.clear();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("delete table jobs did not complete within " + SHUTDOWN_TIMEOUT_SECONDS
+                    + " seconds, interrupting " + getJobs());
+                executor.shutdownNow();
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("delete table jobs did not stop within " + SHUTDOWN_TIMEOUT_SECONDS
+                        + " seconds of being interrupted " + getJobs());
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(JobEntry entry) {
+        entry.start();
+        log.info("starting " + entry.getStatus());
+        try {
+            entry.job.run(entry.itemsDeleted::addAndGet);
+            entry.finish(JobState.SUCCEEDED, null);
+            log.info("completed " + entry.getStatus());
+        } catch (RuntimeException e) {
+            entry.finish(JobState.FAILED, e);
+            log.error("failed " + entry.getStatus(), e);
+        } finally {
+            synchronized (this) {
+                onFinished(entry);
+                startNext(entry.physicalTableName);
+            }
+        }
+    }
+
+    /*
+     * Hands the finished job's slot for the physical table over to the next queued job for it, if any.  Called with
+     * the lock held.
+     */
+    private void startNext(String physicalTableName) {
+        Deque<JobEntry> queue = queuedJobsByPhysicalTable.get(physicalTableName);
+        JobEntry next = queue == null ? null : queue.poll();
+        if (next != null) {
+            executor.execute(() -> run(next));
+            return;
+        }
+        queuedJobsByPhysicalTable.remove(physicalTableName);
+        int running = runningJobsByPhysicalTable.get(physicalTableName) - 1;
+        if (running == 0) {
+            runningJobsByPhysicalTable.remove(physicalTableName);
+        } else {
+            runningJobsByPhysicalTable.put(physicalTableName, running);
+        }
+    }
+
+    private void onFinished(JobEntry entry) {
+        pendingJobs.remove(entry.context + "." + entry.tableName, entry);
+        finishedJobs.addFirst(entry);
+        if (finishedJobs.size() > MAX_FINISHED_JOBS) {
+            finishedJobs.removeLast();
+        }
+    }
+
+    private class JobEntry {
+
+        private final long id;
+        private final String context;
+        private final String tableName;
+        private final String physicalTableName;
+        private final Job job;
+        private final AtomicLong itemsDeleted = new AtomicLong();
+        private volatile JobState state = JobState.QUEUED;
+        private volatile Instant started;
+        private volatile Instant finished;
+        private volatile String failure;
+
+        JobEntry(long id, String context, String tableName, String physicalTableName, Job job) {
+            this.id = id;
+            this.context = context;
+            this.tableName = tableName;
+            this.physicalTableName = physicalTableName;
+            this.job = job;
+        }
+
+        void start() {
+            started = clock.instant();
+            state = JobState.RUNNING;
+        }
+
+        void finish(JobState state, RuntimeException e) {
+            finished = clock.instant();
+            failure = e == null ? null : e.toString();
+            this.state = state;
+        }
+
+        JobStatus getStatus() {
+            Instant started = this.started;
+            Instant finished = this.finished;
+            Duration elapsed = started == null ? Duration.ZERO
+                : Duration.between(started, finished == null ? clock.instant() : finished);
+            return new JobStatus(id, context, tableName, physicalTableName, state, itemsDeleted.get(), elapsed,
+                Optional.ofNullable(failure));
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+/**
+ * The encoded prefix that qualifies the values of context-aware fields of a virtual table with the tenant context and
+ * table name.  Encoding the prefix once and reusing it for every value avoids re-encoding the context and table name
+ * per key.
+ *
+ * @param <V> the type of the encoded prefix and the values it qualifies
+ */
+class FieldPrefix<V> {
+
+    private final String context;
+    private final String tableName;
+    private final V prefix;
+
+    FieldPrefix(String context, String tableName, V prefix) {
+        this.context = context;
+        this.tableName = tableName;
+        this.prefix = prefix;
+    }
+
+    String getContext() {
+        return context;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    V getPrefix() {
+        return prefix;
+    }
+
+}
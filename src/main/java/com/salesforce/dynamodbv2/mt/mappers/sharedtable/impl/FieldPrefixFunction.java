@@ -4,6 +4,34 @@ public interface FieldPrefixFunction<V> {
 
     V apply(FieldValue<V> fieldValue);
 
+    /**
+     * Qualifies the given value with the given prefix.
+     *
+     * @param prefix the prefix created with {@code createPrefix}
+     * @param value the unqualified value
+     * @return the qualified value
+     */
+    V apply(FieldPrefix<V> prefix, V value);
+
     FieldValue<V> reverse(V qualifiedValue);
 
+    /**
+     * Removes the qualifying prefix from the given value.  If the value starts with the given prefix, its context and
+     * table name are reused instead of being decoded from the value.
+     *
+     * @param prefix the prefix the value is expected to start with, may be null
+     * @param qualifiedValue the qualified value
+     * @return the context, table name and unqualified value
+     */
+    FieldValue<V> reverse(FieldPrefix<V> prefix, V qualifiedValue);
+
+    /**
+     * Encodes the prefix that qualifies values with the given context and table name.
+     *
+     * @param context the tenant context
+     * @param tableName the virtual table name
+     * @return the prefix
+     */
+    FieldPrefix<V> createPrefix(String context, String tableName);
+
 }
@@ -7,14 +7,14 @@
 
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
-import static com.amazonaws.util.CollectionUtils.isNullOrEmpty;
-
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Maps items representing records in virtual tables so they can be read from and written to their physical table
@@ -27,13 +27,13 @@ import java.util.Map;
 class ItemMapper {
 
     private final FieldMapper fieldMapper;
-    private final Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings;
-    private final Map<String, List<FieldMapping>> physicalToVirtualFieldMappings;
+    private final CompiledFieldMapping[] virtualToPhysicalFieldMappings;
+    private final CompiledFieldMapping[] physicalToVirtualFieldMappings;
 
     ItemMapper(FieldMapper fieldMapper, Map<String, List<FieldMapping>> virtualToPhysicalFieldMappings) {
         this.fieldMapper = fieldMapper;
-        this.virtualToPhysicalFieldMappings = virtualToPhysicalFieldMappings;
-        this.physicalToVirtualFieldMappings = invertMapping(virtualToPhysicalFieldMappings);
+        this.virtualToPhysicalFieldMappings = compile(virtualToPhysicalFieldMappings);
+        this.physicalToVirtualFieldMappings = compile(invertMapping(virtualToPhysicalFieldMappings));
     }
 
     /*
@@ -44,20 +44,7 @@ class ItemMapper {
      * Used for adding context to GetItemRequest, PutItemRequest, UpdateItemRequest, or DeleteItemRequest objects.
      */
     Map<String, AttributeValue> apply(Map<String, AttributeValue> unqualifiedItem) {
-        Map<String, AttributeValue> qualifiedItem = new HashMap<>();
-        unqualifiedItem.forEach((field, attribute) -> {
-            List<FieldMapping> fieldMappings = virtualToPhysicalFieldMappings.get(field);
-            if (!isNullOrEmpty(fieldMappings)) {
-                fieldMappings.forEach(fieldMapping -> qualifiedItem.put(fieldMapping.getTarget().getName(),
-                    fieldMapping.isContextAware()
-                        ? fieldMapper.apply(fieldMapping, attribute)
-                        : attribute));
-            } else {
-                qualifiedItem.put(field, attribute);
-            }
-        });
-
-        return qualifiedItem;
+        return map(unqualifiedItem, virtualToPhysicalFieldMappings, true);
     }
 
     /*
@@ -70,19 +57,29 @@ class ItemMapper {
         if (qualifiedItem == null) {
             return null;
         }
-        Map<String, AttributeValue> unqualifiedItem = new HashMap<>();
-        qualifiedItem.forEach((field, attribute) -> {
-            List<FieldMapping> fieldMappings = physicalToVirtualFieldMappings.get((field));
-            if (fieldMappings != null && !fieldMappings.isEmpty()) {
-                fieldMappings.forEach(fieldMapping -> unqualifiedItem.put(fieldMapping.getTarget().getName(),
-                    fieldMapping.isContextAware()
-                        ? fieldMapper.reverse(fieldMapping, attribute)
-                        : attribute));
-            } else {
-                unqualifiedItem.put(field, attribute);
+        return map(qualifiedItem, physicalToVirtualFieldMappings, false);
+    }
+
+    /*
+     * Copies the item and then replaces the mapped fields with their targets.  Tables have only a few mapped fields,
+     * i.e., table and index keys, so this walks the field mappings rather than looking up each field of the item.
+     */
+    private Map<String, AttributeValue> map(Map<String, AttributeValue> item, CompiledFieldMapping[] fieldMappings,
+                                            boolean apply) {
+        Map<String, AttributeValue> mappedItem = Maps.newHashMapWithExpectedSize(item.size() + fieldMappings.length);
+        mappedItem.putAll(item);
+        for (CompiledFieldMapping fieldMapping : fieldMappings) {
+            mappedItem.remove(fieldMapping.sourceName);
+        }
+        for (CompiledFieldMapping fieldMapping : fieldMappings) {
+            AttributeValue value = item.get(fieldMapping.sourceName);
+            if (value != null) {
+                mappedItem.put(fieldMapping.targetName, !fieldMapping.contextAware ? value
+                    : apply ? fieldMapper.apply(fieldMapping.fieldMapping, value)
+                    : fieldMapper.reverse(fieldMapping.fieldMapping, value));
             }
-        });
-        return unqualifiedItem;
+        }
+        return mappedItem;
     }
 
     private static Map<String, List<FieldMapping>> invertMapping(
@@ -100,4 +97,32 @@ class ItemMapper {
         return fieldMappings;
     }
 
-}
\ No newline at end of file
+    /*
+     * Flattens the field mappings of all fields into one array, so that mapping an item does not need to iterate lists
+     * or resolve source and target names.
+     */
+    private static CompiledFieldMapping[] compile(Map<String, List<FieldMapping>> mapping) {
+        return mapping.values().stream()
+            .filter(Objects::nonNull)
+            .flatMap(Collection::stream)
+            .map(CompiledFieldMapping::new)
+            .toArray(CompiledFieldMapping[]::new);
+    }
+
+    private static class CompiledFieldMapping {
+
+        private final FieldMapping fieldMapping;
+        private final String sourceName;
+        private final String targetName;
+        private final boolean contextAware;
+
+        CompiledFieldMapping(FieldMapping fieldMapping) {
+            this.fieldMapping = fieldMapping;
+            this.sourceName = fieldMapping.getSource().getName();
+            this.targetName = fieldMapping.getTarget().getName();
+            this.contextAware = fieldMapping.isContextAware();
+        }
+
+    }
+
+}
@@ -9,57 +9,97 @@ package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
 import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_RETRIES;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_WRITE_ITEMS;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.backoff;
 import static java.util.stream.Collectors.toList;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteTableResult;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.Get;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ItemResponse;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
-import com.salesforce.dynamodbv2.mt.cache.MtCache;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Streams;
+import com.salesforce.dynamodbv2.mt.cache.MtTenantCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.MtAmazonDynamoDbBase;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ProjectionMapper.MappedProjection;
+import com.salesforce.dynamodbv2.mt.repo.MtHashKeyRegistry;
 import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
 import com.salesforce.dynamodbv2.mt.util.StreamArn;
 import java.time.Clock;
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,16 +117,26 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
 
     private static final Logger log = LoggerFactory.getLogger(MtAmazonDynamoDbBySharedTable.class);
 
+    private static final String PARTITION_NAME_PLACEHOLDER = "#___partition___";
+    private static final String PARTITION_VALUE_PLACEHOLDER = ":___partition___";
+
     private final String name;
 
     private final MtTableDescriptionRepo mtTableDescriptionRepo;
-    private final Cache<String, TableMapping> tableMappingCache;
+    private final MtTenantCache<TableMapping> tableMappingCache;
     private final TableMappingFactory tableMappingFactory;
     private final boolean deleteTableAsync;
     private final boolean truncateOnDeleteTable;
     private final Map<String, CreateTableRequest> mtTables;
     private final long getRecordsTimeLimit;
     private final Clock clock;
+    private final Executor batchGetItemExecutor;
+    private final BatchGetItemEngine batchGetItemEngine;
+    private final Optional<MtHashKeyRegistry> hashKeyRegistry;
+    private final TableTruncator tableTruncator;
+    private final DeleteTableJobScheduler deleteTableJobScheduler;
+    private final CompletableFuture<Void> startupFuture;
+    private final List<ExecutorService> ownedExecutors;
 
     /**
      * TODO: write Javadoc.
@@ -100,6 +150,18 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      * @param truncateOnDeleteTable a flag indicating whether to delete all table data when a virtual table is deleted
      * @param getRecordsTimeLimit soft time limit for getting records out of the shared stream.
      * @param clock clock instance to use for enforcing time limit (injected for unit tests).
+     * @param batchGetItemExecutor executor on which chunks of large batchGetItem requests are retrieved, and tenants
+     *                             are warmed, concurrently
+     * @param hashKeyRegistry optional registry of hash keys per virtual table, used to execute scans as queries
+     * @param truncateExecutor executor on which the segments of physical table scans are truncated concurrently
+     * @param truncateSegments number of segments to split physical table scans into when truncating
+     * @param truncateDeletesPerSecond optional limit on the number of items deleted per second when truncating
+     * @param truncateScannedItemsPerSecond optional limit on the number of items scanned per second when truncating
+     * @param deleteTableJobScheduler scheduler on which async delete-table operations run, shut down with this instance
+     * @param tableMappingCacheMaximumSize maximum number of table mappings to cache across all tenants
+     * @param tableMappingCacheExpireAfterAccess duration after which the table mappings of an idle tenant are evicted
+     * @param startupFuture future that completes when the physical and metadata tables have been created
+     * @param ownedExecutors executors created for this instance, which are shut down with it
      */
     public MtAmazonDynamoDbBySharedTable(String name,
                                          MtAmazonDynamoDbContextProvider mtContext,
@@ -109,11 +171,23 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
                                          boolean deleteTableAsync,
                                          boolean truncateOnDeleteTable,
                                          long getRecordsTimeLimit,
-                                         Clock clock) {
+                                         Clock clock,
+                                         Executor batchGetItemExecutor,
+                                         Optional<MtHashKeyRegistry> hashKeyRegistry,
+                                         Executor truncateExecutor,
+                                         int truncateSegments,
+                                         Optional<Double> truncateDeletesPerSecond,
+                                         Optional<Double> truncateScannedItemsPerSecond,
+                                         DeleteTableJobScheduler deleteTableJobScheduler,
+                                         long tableMappingCacheMaximumSize,
+                                         Duration tableMappingCacheExpireAfterAccess,
+                                         CompletableFuture<Void> startupFuture,
+                                         List<ExecutorService> ownedExecutors) {
         super(mtContext, amazonDynamoDb);
         this.name = name;
         this.mtTableDescriptionRepo = mtTableDescriptionRepo;
-        this.tableMappingCache = new MtCache<>(mtContext);
+        this.tableMappingCache = new MtTenantCache<>(mtContext, tableMappingCacheMaximumSize,
+            tableMappingCacheExpireAfterAccess);
         this.tableMappingFactory = tableMappingFactory;
         this.deleteTableAsync = deleteTableAsync;
         this.truncateOnDeleteTable = truncateOnDeleteTable;
@@ -121,6 +195,16 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
                 .collect(Collectors.toMap(CreateTableRequest::getTableName, Function.identity()));
         this.getRecordsTimeLimit = getRecordsTimeLimit;
         this.clock = clock;
+        this.batchGetItemExecutor = batchGetItemExecutor;
+        this.batchGetItemEngine = new BatchGetItemEngine(amazonDynamoDb, batchGetItemExecutor);
+        this.hashKeyRegistry = hashKeyRegistry;
+        this.tableTruncator = new TableTruncator(amazonDynamoDb, truncateExecutor, truncateSegments,
+            truncateDeletesPerSecond, truncateScannedItemsPerSecond);
+        this.deleteTableJobScheduler = deleteTableJobScheduler;
+        this.startupFuture = startupFuture;
+        this.ownedExecutors = ownedExecutors;
+        mtTableDescriptionRepo.addRefreshListener(this::invalidateTableMapping);
+        tableMappingFactory.addPhysicalTableRefreshListener(this::invalidatePhysicalTableMappings);
     }
 
     long getGetRecordsTimeLimit() {
@@ -165,7 +249,12 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     }
 
     /**
-     * Retrieves batches of items using their primary key.
+     * Retrieves batches of items using their primary key.  Requests may contain any number of keys: keys are split into
+     * chunks of at most 100 that are retrieved concurrently and unprocessed keys are retried with backoff (see
+     * {@code BatchGetItemEngine}).  Keys that remain unprocessed after the last retry are returned as
+     * {@code UnprocessedKeys}.  Projections are mapped to the physical table like in {@code getItem}, unless virtual
+     * tables that share a physical table request different projections, in which case entire items are read from that
+     * physical table and projected after mapping them back.
      */
     @Override
     public BatchGetItemResult batchGetItem(BatchGetItemRequest unqualifiedBatchGetItemRequest) {
@@ -178,66 +267,200 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         BatchGetItemRequest qualifiedBatchGetItemRequest = unqualifiedBatchGetItemRequest.clone();
         qualifiedBatchGetItemRequest.clearRequestItemsEntries();
 
-        // create a map of physical table names to TableMapping for use when handling the request later
-        Map<String, TableMapping> tableMappingByPhysicalTableName = new HashMap<>();
+        // keep track of table mappings by virtual table name, since multiple virtual tables may share a physical table
+        Map<String, TableMapping> tableMappingByVirtualTableName = new HashMap<>();
+        Map<String, Optional<MappedProjection>> projectionByVirtualTableName = new HashMap<>();
+        Map<String, Optional<MappedProjection>> projectionByPhysicalTableName = new HashMap<>();
 
         // for each table in the batch request, map table name and keys
         unqualifiedKeysByTable.forEach((unqualifiedTableName, unqualifiedKeys) -> {
             // map table name
             TableMapping tableMapping = getTableMapping(unqualifiedTableName);
+            tableMappingByVirtualTableName.put(unqualifiedTableName, tableMapping);
             String qualifiedTableName = tableMapping.getPhysicalTable().getTableName();
-            tableMappingByPhysicalTableName.put(qualifiedTableName, tableMapping);
-            // map key
-            qualifiedBatchGetItemRequest.addRequestItemsEntry(
-                qualifiedTableName,
-                new KeysAndAttributes().withKeys(unqualifiedKeys.getKeys().stream().map(
-                    key -> tableMapping.getItemMapper().apply(key)).collect(Collectors.toList())));
+            // map projection
+            Optional<MappedProjection> projection = tableMapping.getProjectionMapper().apply(
+                unqualifiedKeys.getProjectionExpression(), unqualifiedKeys.getAttributesToGet(),
+                unqualifiedKeys.getExpressionAttributeNames());
+            projectionByVirtualTableName.put(unqualifiedTableName, projection);
+            // map keys
+            KeysAndAttributes qualifiedKeys = Optional.ofNullable(qualifiedBatchGetItemRequest.getRequestItems())
+                .map(requestItems -> requestItems.get(qualifiedTableName)).orElse(null);
+            if (qualifiedKeys == null) {
+                qualifiedKeys = withProjection(new KeysAndAttributes().withKeys(new ArrayList<>()), projection);
+                qualifiedBatchGetItemRequest.addRequestItemsEntry(qualifiedTableName, qualifiedKeys);
+                projectionByPhysicalTableName.put(qualifiedTableName, projection);
+            } else if (!isSamePhysicalProjection(projectionByPhysicalTableName.get(qualifiedTableName), projection)) {
+                withProjection(qualifiedKeys, Optional.empty());
+                projectionByPhysicalTableName.put(qualifiedTableName, Optional.empty());
+            }
+            qualifiedKeys.getKeys().addAll(unqualifiedKeys.getKeys().stream()
+                .map(key -> tableMapping.getItemMapper().apply(key)).collect(toList()));
         });
 
         // batch get
-        final BatchGetItemResult qualifiedBatchGetItemResult = getAmazonDynamoDb()
-            .batchGetItem(qualifiedBatchGetItemRequest);
-        Map<String, List<Map<String, AttributeValue>>> qualifiedItemsByTable = qualifiedBatchGetItemResult
-                .getResponses();
+        final BatchGetItemResult qualifiedBatchGetItemResult =
+            batchGetItemEngine.batchGetItem(qualifiedBatchGetItemRequest);
+
+        // map responses and unprocessed keys back to the virtual tables they were requested for
+        Map<String, List<Map<String, AttributeValue>>> unqualifiedItemsByTable = new HashMap<>();
+        unqualifiedKeysByTable.keySet().forEach(unqualifiedTableName ->
+            unqualifiedItemsByTable.put(unqualifiedTableName, new ArrayList<>()));
+        qualifiedBatchGetItemResult.getResponses().forEach((qualifiedTableName, qualifiedItems) ->
+            reverseMapByVirtualTable(qualifiedTableName, qualifiedItems, tableMappingByVirtualTableName)
+                .forEach((unqualifiedTableName, items) -> unqualifiedItemsByTable.get(unqualifiedTableName)
+                    .addAll(projectionByVirtualTableName.get(unqualifiedTableName)
+                        .map(projection -> items.stream().map(projection::apply).collect(toList()))
+                        .orElse(items))));
+        Map<String, KeysAndAttributes> unqualifiedUnprocessedKeys = new HashMap<>();
+        qualifiedBatchGetItemResult.getUnprocessedKeys().forEach((qualifiedTableName, qualifiedKeys) ->
+            reverseMapByVirtualTable(qualifiedTableName, qualifiedKeys.getKeys(), tableMappingByVirtualTableName)
+                .forEach((unqualifiedTableName, keys) -> unqualifiedUnprocessedKeys.put(unqualifiedTableName,
+                    unqualifiedKeysByTable.get(unqualifiedTableName).clone().withKeys(keys))));
+
+        return qualifiedBatchGetItemResult.clone()
+            .withResponses(unqualifiedItemsByTable)
+            .withUnprocessedKeys(unqualifiedUnprocessedKeys);
+    }
 
-        // map result
-        final BatchGetItemResult unqualifiedBatchGetItemResult = qualifiedBatchGetItemResult.clone();
-        unqualifiedBatchGetItemResult.clearResponsesEntries();
-        qualifiedItemsByTable.forEach((qualifiedTableName, qualifiedItems) -> {
-            TableMapping tableMapping = tableMappingByPhysicalTableName.get(qualifiedTableName);
-            unqualifiedBatchGetItemResult.addResponsesEntry(
-                tableMapping.getVirtualTable().getTableName(),
-                qualifiedItems.stream().map(keysAndAttributes ->
-                    tableMapping.getItemMapper().reverse(keysAndAttributes)).collect(Collectors.toList()));
-            // map unprocessedKeys
-            if (!qualifiedBatchGetItemResult.getUnprocessedKeys().isEmpty()) {
-                unqualifiedBatchGetItemResult.clearUnprocessedKeysEntries();
-                qualifiedBatchGetItemResult.getUnprocessedKeys()
-                    .forEach((qualifiedTableNameUk, qualifiedUkKeysAndAttributes) -> {
-                        TableMapping tableMappingUk = tableMappingByPhysicalTableName.get(qualifiedTableNameUk);
-                        unqualifiedBatchGetItemResult.addUnprocessedKeysEntry(
-                            tableMappingUk.getVirtualTable().getTableName(),
-                            new KeysAndAttributes()
-                                .withKeys(qualifiedUkKeysAndAttributes.getKeys().stream()
-                                .map(keysAndAttributes ->
-                                    tableMapping.getKeyMapper().reverse(keysAndAttributes))
-                                    .collect(Collectors.toList())));
-                    });
-            }
+    /*
+     * Groups the given physical items (or keys) by the virtual table they belong to and maps them back to that table.
+     */
+    private Map<String, List<Map<String, AttributeValue>>> reverseMapByVirtualTable(
+        String qualifiedTableName,
+        List<Map<String, AttributeValue>> qualifiedItems,
+        Map<String, TableMapping> tableMappingByVirtualTableName) {
+        Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+            getFieldValueFunction(qualifiedTableName);
+        Map<String, List<Map<String, AttributeValue>>> unqualifiedItemsByTable = new HashMap<>();
+        qualifiedItems.forEach(qualifiedItem -> {
+            String unqualifiedTableName = fieldValueFunction.apply(qualifiedItem).getTableName();
+            TableMapping tableMapping = tableMappingByVirtualTableName.get(unqualifiedTableName);
+            unqualifiedItemsByTable.computeIfAbsent(unqualifiedTableName, k -> new ArrayList<>())
+                .add(tableMapping.getItemMapper().reverse(qualifiedItem));
         });
+        return unqualifiedItemsByTable;
+    }
+
+    private static KeysAndAttributes withProjection(KeysAndAttributes keysAndAttributes,
+                                                    Optional<MappedProjection> projection) {
+        keysAndAttributes.setProjectionExpression(projection.map(MappedProjection::getProjectionExpression)
+            .orElse(null));
+        keysAndAttributes.setAttributesToGet(projection.map(MappedProjection::getAttributesToGet).orElse(null));
+        keysAndAttributes.setExpressionAttributeNames(projection.map(MappedProjection::getExpressionAttributeNames)
+            .orElse(null));
+        return keysAndAttributes;
+    }
 
-        return unqualifiedBatchGetItemResult;
+    private static boolean isSamePhysicalProjection(Optional<MappedProjection> projection,
+                                                    Optional<MappedProjection> other) {
+        return projection.isPresent() ? other.isPresent() && projection.get().isSamePhysicalProjection(other.get())
+            : other.isEmpty();
     }
 
     private static void validateGetItemKeysAndAttribute(KeysAndAttributes keysAndAttributes) {
         checkArgument(keysAndAttributes.getConsistentRead() == null,
             "setting consistentRead is not supported on BatchGetItemRequest calls");
-        checkArgument(keysAndAttributes.getAttributesToGet() == null,
-            "attributesToGet are not supported on BatchGetItemRequest calls");
-        checkArgument(keysAndAttributes.getProjectionExpression() == null,
-            "projectionExpression is not supported on BatchGetItemRequest calls");
-        checkArgument(keysAndAttributes.getExpressionAttributeNames() == null,
-            "expressionAttributeNames are not supported on BatchGetItemRequest calls");
+    }
+
+    /**
+     * Puts and deletes batches of items, mapping virtual table names and items to their physical counterparts.  Write
+     * requests are split into chunks of at most 25 items (the DynamoDB limit per call) and, within each chunk,
+     * unprocessed items are retried with jittered exponential backoff.  Items that remain unprocessed after the last
+     * retry are mapped back to their virtual tables and returned as {@code UnprocessedItems} so callers may resubmit
+     * them.
+     */
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest unqualifiedBatchWriteItemRequest) {
+        // map table names and items, preserving the order in which they were requested
+        Map<String, TableMapping> tableMappingByVirtualTableName = new HashMap<>();
+        List<Entry<String, WriteRequest>> qualifiedWriteRequests = new ArrayList<>();
+        unqualifiedBatchWriteItemRequest.getRequestItems().forEach((unqualifiedTableName, unqualifiedWriteRequests) -> {
+            TableMapping tableMapping = getTableMapping(unqualifiedTableName);
+            tableMappingByVirtualTableName.put(unqualifiedTableName, tableMapping);
+            String qualifiedTableName = tableMapping.getPhysicalTable().getTableName();
+            unqualifiedWriteRequests.forEach(unqualifiedWriteRequest -> {
+                if (unqualifiedWriteRequest.getPutRequest() != null) {
+                    registerHashKey(tableMapping, unqualifiedWriteRequest.getPutRequest().getItem());
+                }
+                qualifiedWriteRequests.add(new SimpleImmutableEntry<>(qualifiedTableName,
+                    mapWriteRequest(unqualifiedWriteRequest, tableMapping.getItemMapper()::apply)));
+            });
+        });
+
+        // write chunk by chunk, collecting whatever could not be written
+        List<ConsumedCapacity> consumedCapacity = new ArrayList<>();
+        Map<String, List<WriteRequest>> qualifiedUnprocessedItems = new HashMap<>();
+        for (List<Entry<String, WriteRequest>> chunk : Lists.partition(qualifiedWriteRequests,
+            MAX_BATCH_WRITE_ITEMS)) {
+            Map<String, List<WriteRequest>> qualifiedRequestItems = new HashMap<>();
+            chunk.forEach(entry -> qualifiedRequestItems.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                .add(entry.getValue()));
+            BatchWriteItemRequest qualifiedBatchWriteItemRequest = unqualifiedBatchWriteItemRequest.clone()
+                .withRequestItems(qualifiedRequestItems);
+            batchWriteItemWithRetries(qualifiedBatchWriteItemRequest, consumedCapacity).forEach(
+                (qualifiedTableName, writeRequests) -> qualifiedUnprocessedItems
+                    .computeIfAbsent(qualifiedTableName, k -> new ArrayList<>()).addAll(writeRequests));
+        }
+
+        // map unprocessed items back to the virtual tables they were requested for
+        Map<String, List<WriteRequest>> unqualifiedUnprocessedItems = new HashMap<>();
+        qualifiedUnprocessedItems.forEach((qualifiedTableName, qualifiedWriteRequestList) -> {
+            Function<Map<String, AttributeValue>, FieldValue<?>> fieldValueFunction =
+                getFieldValueFunction(qualifiedTableName);
+            qualifiedWriteRequestList.forEach(qualifiedWriteRequest -> {
+                String unqualifiedTableName = fieldValueFunction.apply(getItemOrKey(qualifiedWriteRequest))
+                    .getTableName();
+                TableMapping tableMapping = tableMappingByVirtualTableName.get(unqualifiedTableName);
+                unqualifiedUnprocessedItems.computeIfAbsent(unqualifiedTableName, k -> new ArrayList<>())
+                    .add(mapWriteRequest(qualifiedWriteRequest, tableMapping.getItemMapper()::reverse));
+            });
+        });
+
+        return new BatchWriteItemResult()
+            .withUnprocessedItems(unqualifiedUnprocessedItems)
+            .withConsumedCapacity(consumedCapacity.isEmpty() ? null : consumedCapacity);
+    }
+
+    /*
+     * Submits the given request, resubmitting unprocessed items with backoff until all items are processed or the
+     * retry limit is reached.  Returns the items that could not be processed, if any.
+     */
+    private Map<String, List<WriteRequest>> batchWriteItemWithRetries(BatchWriteItemRequest qualifiedRequest,
+                                                                      List<ConsumedCapacity> consumedCapacity) {
+        for (int retries = 0; ; retries++) {
+            BatchWriteItemResult qualifiedResult = getAmazonDynamoDb().batchWriteItem(qualifiedRequest);
+            if (qualifiedResult.getConsumedCapacity() != null) {
+                consumedCapacity.addAll(qualifiedResult.getConsumedCapacity());
+            }
+            Map<String, List<WriteRequest>> unprocessedItems = qualifiedResult.getUnprocessedItems();
+            if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+                return ImmutableMap.of();
+            }
+            if (retries == MAX_BATCH_RETRIES || !backoff(qualifiedRequest, retries)) {
+                log.warn("giving up on " + unprocessedItems.values().stream().mapToInt(List::size).sum()
+                    + " unprocessed items after " + (retries + 1) + " batchWriteItem attempts");
+                return unprocessedItems;
+            }
+            qualifiedRequest = qualifiedRequest.clone().withRequestItems(unprocessedItems);
+        }
+    }
+
+    private static WriteRequest mapWriteRequest(WriteRequest writeRequest,
+                                                Function<Map<String, AttributeValue>,
+                                                    Map<String, AttributeValue>> itemMapper) {
+        if (writeRequest.getPutRequest() != null) {
+            return new WriteRequest(new PutRequest(itemMapper.apply(writeRequest.getPutRequest().getItem())));
+        }
+        checkArgument(writeRequest.getDeleteRequest() != null,
+            "WriteRequest must contain either a PutRequest or a DeleteRequest");
+        return new WriteRequest(new DeleteRequest(itemMapper.apply(writeRequest.getDeleteRequest().getKey())));
+    }
+
+    private static Map<String, AttributeValue> getItemOrKey(WriteRequest writeRequest) {
+        return writeRequest.getPutRequest() != null
+            ? writeRequest.getPutRequest().getItem()
+            : writeRequest.getDeleteRequest().getKey();
     }
 
     /**
@@ -245,8 +468,11 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public CreateTableResult createTable(CreateTableRequest createTableRequest) {
-        return new CreateTableResult()
-            .withTableDescription(withTenantStreamArn(mtTableDescriptionRepo.createTable(createTableRequest)));
+        TableDescription tableDescription = mtTableDescriptionRepo.createTable(createTableRequest);
+        // a failed truncation of a previous table of the same name must not resume against the new one
+        tableTruncator.clearCheckpoint(getTruncationCheckpointKey(getMtContext().getContext(),
+            createTableRequest.getTableName()));
+        return new CreateTableResult().withTableDescription(withTenantStreamArn(tableDescription));
     }
 
     /**
@@ -254,6 +480,11 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public DeleteItemResult deleteItem(DeleteItemRequest deleteItemRequest) {
+        // delete
+        return getAmazonDynamoDb().deleteItem(mapDeleteItemRequest(deleteItemRequest));
+    }
+
+    private DeleteItemRequest mapDeleteItemRequest(DeleteItemRequest deleteItemRequest) {
         // map table name
         deleteItemRequest = deleteItemRequest.clone();
         TableMapping tableMapping = getTableMapping(deleteItemRequest.getTableName());
@@ -265,26 +496,144 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map conditions
         tableMapping.getConditionMapper().apply(new DeleteItemRequestWrapper(deleteItemRequest));
 
-        // delete
-        return getAmazonDynamoDb().deleteItem(deleteItemRequest);
+        return deleteItemRequest;
     }
 
     /**
-     * TODO: write Javadoc.
+     * Drops a virtual table, truncating it first if {@code truncateOnDeleteTable} is enabled.  If
+     * {@code deleteTableAsync} is enabled, the drop is submitted to the {@code DeleteTableJobScheduler} and runs in the
+     * context of the caller once capacity is available; see {@code getDeleteTableJobs} for its progress.
      */
     @Override
     public DeleteTableResult deleteTable(DeleteTableRequest deleteTableRequest) {
         if (deleteTableAsync) {
-            Executors.newSingleThreadExecutor().submit(() -> {
-                deleteTableInternal(deleteTableRequest);
-            });
-            return new DeleteTableResult()
-                .withTableDescription(mtTableDescriptionRepo.getTableDescription(deleteTableRequest.getTableName()));
+            String tableName = deleteTableRequest.getTableName();
+            TableDescription tableDescription = mtTableDescriptionRepo.getTableDescription(tableName);
+            String context = getMtContext().getContext();
+            String physicalTableName = getTableMapping(tableName).getPhysicalTable().getTableName();
+            deleteTableJobScheduler.submit(context, tableName, physicalTableName, onDeleted ->
+                getMtContext().withContext(context, () -> deleteTableInternal(deleteTableRequest, onDeleted)));
+            return new DeleteTableResult().withTableDescription(tableDescription);
         } else {
-            return deleteTableInternal(deleteTableRequest);
+            return deleteTableInternal(deleteTableRequest, count -> { });
         }
     }
 
+    /**
+     * Returns the status of pending and recently finished asynchronous delete-table operations of all tenants.
+     */
+    public List<DeleteTableJobScheduler.JobStatus> getDeleteTableJobs() {
+        return deleteTableJobScheduler.getJobs();
+    }
+
+    /**
+     * Returns hit and miss statistics of the cache of plans for mapping query, scan and conditional write requests.
+     */
+    public CacheStats getTranslationPlanCacheStats() {
+        return tableMappingFactory.getTranslationPlanCacheStats();
+    }
+
+    /**
+     * Returns a future that completes when the physical and metadata tables have been created and are active, or
+     * exceptionally if any of them could not be created.  Requests to tables that are not active yet wait for them.
+     */
+    public CompletableFuture<Void> getStartupFuture() {
+        return startupFuture;
+    }
+
+    public CacheStats getTableMappingCacheStats() {
+        return tableMappingCache.stats();
+    }
+
+    /**
+     * Removes the cached table mappings of the given tenant, so that they are recreated from the table descriptions
+     * on next access.
+     *
+     * @param context the tenant context
+     */
+    public void invalidateTableMappings(String context) {
+        tableMappingCache.invalidateTenant(context);
+    }
+
+    /**
+     * Removes the cached table mapping of the given virtual table of the given tenant, so that it is recreated from the
+     * table description on next access.  Also discards the checkpoint of a failed truncation of the table, since the
+     * table may have been recreated.  Called when the table description repo refreshes a description that changed.
+     *
+     * @param context the tenant context
+     * @param virtualTableName the name of the virtual table
+     */
+    public void invalidateTableMapping(String context, String virtualTableName) {
+        tableMappingCache.invalidate(context, virtualTableName);
+        tableTruncator.clearCheckpoint(getTruncationCheckpointKey(context, virtualTableName));
+    }
+
+    /*
+     * Removes the table mappings of all tenants to the given physical table, so that they are rebuilt with its
+     * refreshed description.
+     */
+    private void invalidatePhysicalTableMappings(String physicalTableName) {
+        tableMappingCache.invalidateIf(tableMapping ->
+            tableMapping.getPhysicalTable().getTableName().equals(physicalTableName));
+    }
+
+    /**
+     * Loads the descriptions of all tables of the given tenant with one paginated query and builds their table
+     * mappings concurrently on the batch get item executor, so that the first requests of the tenant do not load them
+     * one at a time.  Requires a table description repo that can list the tables of a tenant, e.g., one with the
+     * context hash key layout; otherwise, use {@code warmTenant(context, tableNames)}.
+     *
+     * @param context the tenant context
+     * @return the number of tables of the tenant
+     */
+    public int warmTenant(String context) {
+        Optional<List<TableDescription>> tableDescriptions = getMtContext().withContext(context,
+            ignored -> mtTableDescriptionRepo.getTableDescriptions(), null);
+        checkState(tableDescriptions.isPresent(), "table description repo cannot list the tables of a tenant, "
+            + "warm tenants by table name instead");
+        return warmTableMappings(context, tableDescriptions.get());
+    }
+
+    /**
+     * Loads the descriptions of the given tables of the given tenant, with batch reads if the table description repo
+     * supports them, and builds their table mappings concurrently on the batch get item executor.  Tables that do not
+     * exist are skipped.
+     *
+     * @param context the tenant context
+     * @param tableNames the names of the virtual tables to warm
+     * @return the number of tables that exist
+     */
+    public int warmTenant(String context, Collection<String> tableNames) {
+        return warmTableMappings(context, getMtContext().withContext(context,
+            mtTableDescriptionRepo::getTableDescriptions, tableNames));
+    }
+
+    private int warmTableMappings(String context, List<TableDescription> tableDescriptions) {
+        try {
+            CompletableFuture.allOf(tableDescriptions.stream()
+                .map(tableDescription -> CompletableFuture.runAsync(() -> getMtContext().withContext(context, () ->
+                    getTableMapping(tableDescription.getTableName(), () -> tableDescription)), batchGetItemExecutor))
+                .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return tableDescriptions.size();
+    }
+
+    /**
+     * Waits for running asynchronous delete-table operations to complete and cancels queued ones.  Truncations that are
+     * still running afterwards, e.g., of synchronous drops, are cancelled and resume from their checkpoint when the
+     * drop is retried.  Executors created for this instance are shut down as well; executors provided by the caller are
+     * left alone.
+     */
+    @Override
+    public void shutdown() {
+        deleteTableJobScheduler.shutdown();
+        tableTruncator.shutdown();
+        ownedExecutors.forEach(ExecutorService::shutdown);
+        super.shutdown();
+    }
+
     @Override
     public DescribeTableResult describeTable(DescribeTableRequest describeTableRequest) {
         TableDescription tableDescription =
@@ -304,44 +653,69 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     }
 
     /**
-     * TODO: write Javadoc.
+     * Retrieves an item by its primary key.  Projections (via {@code ProjectionExpression} or {@code AttributesToGet})
+     * are mapped to the physical table (see {@code ProjectionMapper}), so only the requested attributes are read.
      */
     @Override
     public GetItemResult getItem(GetItemRequest getItemRequest) {
-        // validate
+        validateGetItemRequest(getItemRequest);
+        TableMapping tableMapping = getTableMapping(getItemRequest.getTableName());
+        Optional<MappedProjection> projection = getProjection(tableMapping, getItemRequest);
+
+        // get
+        GetItemResult getItemResult = getAmazonDynamoDb().getItem(
+            mapGetItemRequest(tableMapping, projection, getItemRequest));
+
+        // map result
+        return reverseGetItemResult(tableMapping, projection, getItemResult);
+    }
+
+    private static void validateGetItemRequest(GetItemRequest getItemRequest) {
         checkArgument(getItemRequest.getConsistentRead() == null,
             "setting consistentRead is not supported on GetItemRequest calls");
-        checkArgument(getItemRequest.getAttributesToGet() == null,
-            "attributesToGet are not supported on GetItemRequest calls");
-        checkArgument(getItemRequest.getProjectionExpression() == null,
-            "projectionExpression is not supported on GetItemRequest calls");
-        checkArgument(getItemRequest.getExpressionAttributeNames() == null,
-            "expressionAttributeNames are not supported on GetItemRequest calls");
+    }
 
+    private static Optional<MappedProjection> getProjection(TableMapping tableMapping, GetItemRequest getItemRequest) {
+        return tableMapping.getProjectionMapper().apply(getItemRequest.getProjectionExpression(),
+            getItemRequest.getAttributesToGet(), getItemRequest.getExpressionAttributeNames());
+    }
+
+    private static GetItemRequest mapGetItemRequest(TableMapping tableMapping, Optional<MappedProjection> projection,
+                                                    GetItemRequest getItemRequest) {
         // map table name
         getItemRequest = getItemRequest.clone();
-        TableMapping tableMapping = getTableMapping(getItemRequest.getTableName());
         getItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
         // map key
         getItemRequest.setKey(tableMapping.getKeyMapper().apply(getItemRequest.getKey()));
 
-        // get
-        GetItemResult getItemResult = getAmazonDynamoDb().getItem(getItemRequest);
+        // map projection
+        if (projection.isPresent()) {
+            getItemRequest.setProjectionExpression(projection.get().getProjectionExpression());
+            getItemRequest.setAttributesToGet(projection.get().getAttributesToGet());
+            getItemRequest.setExpressionAttributeNames(projection.get().getExpressionAttributeNames());
+        }
 
-        // map result
+        return getItemRequest;
+    }
+
+    private static GetItemResult reverseGetItemResult(TableMapping tableMapping, Optional<MappedProjection> projection,
+                                                      GetItemResult getItemResult) {
         if (getItemResult.getItem() != null) {
-            getItemResult.withItem(tableMapping.getItemMapper().reverse(getItemResult.getItem()));
+            Map<String, AttributeValue> item = tableMapping.getItemMapper().reverse(getItemResult.getItem());
+            getItemResult.withItem(projection.map(p -> p.apply(item)).orElse(item));
         }
-
         return getItemResult;
     }
 
     TableMapping getTableMapping(String virtualTableName) {
+        return getTableMapping(virtualTableName, () -> mtTableDescriptionRepo.getTableDescription(virtualTableName));
+    }
+
+    private TableMapping getTableMapping(String virtualTableName, Supplier<TableDescription> tableDescription) {
         try {
             return tableMappingCache.get(virtualTableName, () ->
-                tableMappingFactory.getTableMapping(
-                    new DynamoTableDescriptionImpl(mtTableDescriptionRepo.getTableDescription(virtualTableName))));
+                tableMappingFactory.getTableMapping(new DynamoTableDescriptionImpl(tableDescription.get())));
         } catch (ExecutionException e) {
             throw new RuntimeException("exception mapping virtual table " + virtualTableName, e);
         }
@@ -352,19 +726,26 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
      */
     @Override
     public PutItemResult putItem(PutItemRequest putItemRequest) {
+        // put
+        return getAmazonDynamoDb().putItem(mapPutItemRequest(putItemRequest));
+    }
+
+    private PutItemRequest mapPutItemRequest(PutItemRequest putItemRequest) {
         // map table name
         putItemRequest = putItemRequest.clone();
         TableMapping tableMapping = getTableMapping(putItemRequest.getTableName());
         putItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
+        // register hash key
+        registerHashKey(tableMapping, putItemRequest.getItem());
+
         // map conditions
         tableMapping.getConditionMapper().apply(new PutItemRequestWrapper(putItemRequest));
 
         // map item
         putItemRequest.setItem(tableMapping.getItemMapper().apply(putItemRequest.getItem()));
 
-        // put
-        return getAmazonDynamoDb().putItem(putItemRequest);
+        return putItemRequest;
     }
 
     /**
@@ -374,6 +755,11 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     public QueryResult query(QueryRequest queryRequest) {
         final TableMapping tableMapping = getTableMapping(queryRequest.getTableName());
 
+        // map result
+        return reverseQueryResult(tableMapping, getAmazonDynamoDb().query(mapQueryRequest(tableMapping, queryRequest)));
+    }
+
+    private static QueryRequest mapQueryRequest(TableMapping tableMapping, QueryRequest queryRequest) {
         // map table name
         final QueryRequest clonedQueryRequest = queryRequest.clone();
         clonedQueryRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
@@ -381,8 +767,10 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         // map query request
         tableMapping.getQueryAndScanMapper().apply(clonedQueryRequest);
 
-        // map result
-        final QueryResult queryResult = getAmazonDynamoDb().query(clonedQueryRequest);
+        return clonedQueryRequest;
+    }
+
+    private static QueryResult reverseQueryResult(TableMapping tableMapping, QueryResult queryResult) {
         queryResult.setItems(queryResult.getItems().stream().map(tableMapping.getItemMapper()::reverse)
             .collect(toList()));
         if (queryResult.getLastEvaluatedKey() != null) {
@@ -393,13 +781,259 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
     }
 
     /**
-     * TODO: write Javadoc.
+     * Scans a virtual table.  Supports parallel scans via {@code Segment} and {@code TotalSegments}, which are applied
+     * to the underlying physical table.  Note that a scan of a virtual table reads the entire physical table (or
+     * segment), skipping pages that contain no items of the virtual table.
+     *
+     * <p>If a hash-key registry is configured, scans of the table (as opposed to an index) that neither specify
+     * segments nor filter on key attributes are instead executed as queries over the registered partitions of the
+     * virtual table, so that their cost is proportional to the size of the virtual table rather than the physical
+     * table.
      */
     @Override
     public ScanResult scan(ScanRequest scanRequest) {
         TableMapping tableMapping = getTableMapping(scanRequest.getTableName());
-        PrimaryKey key = scanRequest.getIndexName() == null ? tableMapping.getVirtualTable().getPrimaryKey()
+        if (hashKeyRegistry.isPresent() && canScanByHashKeys(tableMapping, scanRequest)) {
+            return scanByHashKeys(hashKeyRegistry.get(), tableMapping, scanRequest);
+        }
+        return scanPhysicalTable(tableMapping, scanRequest);
+    }
+
+    private ScanResult scanPhysicalTable(TableMapping tableMapping, ScanRequest scanRequest) {
+        PrimaryKey key = getScanKey(tableMapping, scanRequest);
+        ScanRequest clonedScanRequest = mapScanRequest(tableMapping, key, scanRequest);
+
+        // keep moving forward pages until we find at least one record for current tenant or reach end
+        ScanResult scanResult;
+        while ((scanResult = getAmazonDynamoDb().scan(clonedScanRequest)).getItems().isEmpty()
+            && scanResult.getLastEvaluatedKey() != null) {
+            clonedScanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        }
+
+        // map result
+        return reverseScanResult(tableMapping, key, scanResult);
+    }
+
+    private static boolean canScanByHashKeys(TableMapping tableMapping, ScanRequest scanRequest) {
+        return scanRequest.getIndexName() == null
+            && scanRequest.getSegment() == null
+            && (scanRequest.getScanFilter() == null || scanRequest.getScanFilter().isEmpty())
+            && !Select.COUNT.toString().equals(scanRequest.getSelect())
+            && !filterReferencesKey(scanRequest, tableMapping.getVirtualTable().getPrimaryKey());
+    }
+
+    /*
+     * Query filter expressions must not reference key attributes, so scans that do cannot be executed as queries.  Like
+     * projectionContainsKey, this errs on the side of caution by matching names anywhere in the expression.
+     */
+    @VisibleForTesting
+    static boolean filterReferencesKey(ScanRequest request, PrimaryKey key) {
+        String filter = request.getFilterExpression();
+        if (filter == null) {
+            return false;
+        }
+        Map<String, String> expressionNames = Optional.ofNullable(request.getExpressionAttributeNames())
+            .orElseGet(ImmutableMap::of);
+        return Stream.concat(Stream.of(key.getHashKey()), key.getRangeKey().stream())
+            .anyMatch(keyName -> filter.contains(keyName) || expressionNames.entrySet().stream()
+                .anyMatch(name -> name.getValue().equals(keyName) && filter.contains(name.getKey())));
+    }
+
+    /*
+     * Executes a scan of a virtual table as a sequence of queries, one per registered hash key.  Like the physical
+     * scan, returns the first page that contains items (or the last page).  The last evaluated key identifies the
+     * partition to resume with, so paging works across partitions.
+     */
+    private ScanResult scanByHashKeys(MtHashKeyRegistry registry, TableMapping tableMapping, ScanRequest scanRequest) {
+        PrimaryKey key = tableMapping.getVirtualTable().getPrimaryKey();
+        checkArgument(projectionContainsKey(scanRequest, key),
+            "Multitenant scans must include key in projection expression");
+
+        Map<String, AttributeValue> exclusiveStartKey = scanRequest.getExclusiveStartKey();
+        AttributeValue hashKey = exclusiveStartKey == null ? null : exclusiveStartKey.get(key.getHashKey());
+        PeekingIterator<AttributeValue> hashKeys =
+            Iterators.peekingIterator(registry.getHashKeys(scanRequest.getTableName(), hashKey));
+        if (hashKey == null) {
+            if (!hashKeys.hasNext()) {
+                return new ScanResult().withItems(new ArrayList<>()).withCount(0).withScannedCount(0);
+            }
+            hashKey = hashKeys.next();
+        }
+
+        while (true) {
+            QueryRequest queryRequest = toPartitionQueryRequest(scanRequest, key.getHashKey(), hashKey)
+                .withExclusiveStartKey(exclusiveStartKey);
+            QueryResult queryResult = reverseQueryResult(tableMapping,
+                getAmazonDynamoDb().query(mapQueryRequest(tableMapping, queryRequest)));
+            if (queryResult.getLastEvaluatedKey() != null) {
+                if (!queryResult.getItems().isEmpty()) {
+                    return toScanResult(queryResult, queryResult.getLastEvaluatedKey());
+                }
+                exclusiveStartKey = queryResult.getLastEvaluatedKey();
+            } else if (!hashKeys.hasNext()) {
+                return toScanResult(queryResult, null);
+            } else if (!queryResult.getItems().isEmpty()) {
+                // partition is exhausted, but more partitions follow: resume after the last item of this one
+                return toScanResult(queryResult, getKeyFromItem(Iterables.getLast(queryResult.getItems()), key));
+            } else {
+                hashKey = hashKeys.next();
+                exclusiveStartKey = null;
+            }
+        }
+    }
+
+    /*
+     * Creates a query against the given partition of a virtual table with the parameters of the given scan.
+     */
+    private static QueryRequest toPartitionQueryRequest(ScanRequest scanRequest, String hashKeyName,
+                                                        AttributeValue hashKey) {
+        Map<String, String> expressionNames = scanRequest.getExpressionAttributeNames() == null ? new HashMap<>()
+            : new HashMap<>(scanRequest.getExpressionAttributeNames());
+        Map<String, AttributeValue> expressionValues = scanRequest.getExpressionAttributeValues() == null
+            ? new HashMap<>() : new HashMap<>(scanRequest.getExpressionAttributeValues());
+        // the condition mapper identifies key fields by name, so reuse the scan's placeholder for the hash key, if any
+        String namePlaceholder = expressionNames.entrySet().stream()
+            .filter(name -> name.getValue().equals(hashKeyName))
+            .map(Entry::getKey)
+            .findFirst()
+            .orElse(PARTITION_NAME_PLACEHOLDER);
+        expressionNames.put(namePlaceholder, hashKeyName);
+        expressionValues.put(PARTITION_VALUE_PLACEHOLDER, hashKey);
+        return new QueryRequest()
+            .withTableName(scanRequest.getTableName())
+            .withKeyConditionExpression(namePlaceholder + " = " + PARTITION_VALUE_PLACEHOLDER)
+            .withFilterExpression(scanRequest.getFilterExpression())
+            .withProjectionExpression(scanRequest.getProjectionExpression())
+            .withAttributesToGet(scanRequest.getAttributesToGet())
+            .withSelect(scanRequest.getSelect())
+            .withLimit(scanRequest.getLimit())
+            .withConsistentRead(scanRequest.getConsistentRead())
+            .withReturnConsumedCapacity(scanRequest.getReturnConsumedCapacity())
+            .withExpressionAttributeNames(expressionNames)
+            .withExpressionAttributeValues(expressionValues);
+    }
+
+    private static ScanResult toScanResult(QueryResult queryResult, Map<String, AttributeValue> lastEvaluatedKey) {
+        return new ScanResult()
+            .withItems(queryResult.getItems())
+            .withCount(queryResult.getCount())
+            .withScannedCount(queryResult.getScannedCount())
+            .withConsumedCapacity(queryResult.getConsumedCapacity())
+            .withLastEvaluatedKey(lastEvaluatedKey);
+    }
+
+    /**
+     * Registers the hash keys of all items of the given virtual table by scanning the physical table.  Needed when a
+     * hash-key registry is configured for tables that already contain data, since only writes register hash keys.
+     *
+     * @param tableName the name of the virtual table
+     */
+    public void registerHashKeys(String tableName) {
+        MtHashKeyRegistry registry = hashKeyRegistry.orElseThrow(() ->
+            new IllegalStateException("no hash key registry configured"));
+        TableMapping tableMapping = getTableMapping(tableName);
+        String hashKeyName = tableMapping.getVirtualTable().getPrimaryKey().getHashKey();
+        ScanRequest scanRequest = new ScanRequest(tableName);
+        do {
+            ScanResult scanResult = scanPhysicalTable(tableMapping, scanRequest);
+            scanResult.getItems().forEach(item -> registry.registerHashKey(tableName, item.get(hashKeyName)));
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (scanRequest.getExclusiveStartKey() != null);
+    }
+
+    /*
+     * Registers the hash key of the given item or key ahead of writing it, so that the registry remains a superset of
+     * the partitions of the virtual table.
+     */
+    private void registerHashKey(TableMapping tableMapping, Map<String, AttributeValue> itemOrKey) {
+        hashKeyRegistry.ifPresent(registry -> {
+            DynamoTableDescription virtualTable = tableMapping.getVirtualTable();
+            AttributeValue hashKey = itemOrKey.get(virtualTable.getPrimaryKey().getHashKey());
+            if (hashKey != null) {
+                registry.registerHashKey(virtualTable.getTableName(), hashKey);
+            }
+        });
+    }
+
+    private static PrimaryKey getScanKey(TableMapping tableMapping, ScanRequest scanRequest) {
+        return scanRequest.getIndexName() == null ? tableMapping.getVirtualTable().getPrimaryKey()
             : tableMapping.getVirtualTable().findSi(scanRequest.getIndexName()).getPrimaryKey();
+    }
+
+    /**
+     * Scans a virtual table by splitting the underlying physical table into {@code totalSegments} segments that are
+     * scanned concurrently on the given executor.  Returns the items of all segments, mapped back to the virtual table,
+     * as a single stream in no particular order.  The stream should be closed if it is not consumed entirely, so that
+     * the segment scans stop.
+     *
+     * @param scanRequest the scan request against the virtual table, without {@code Segment} or {@code TotalSegments}
+     * @param totalSegments the number of segments to split the physical table into
+     * @param executor the executor on which segments are scanned
+     * @return the items of the virtual table
+     */
+    public Stream<Map<String, AttributeValue>> parallelScan(ScanRequest scanRequest,
+                                                            int totalSegments,
+                                                            Executor executor) {
+        checkArgument(scanRequest.getSegment() == null && scanRequest.getTotalSegments() == null,
+            "segment and totalSegments are assigned by parallelScan");
+        TableMapping tableMapping = getTableMapping(scanRequest.getTableName());
+        ScanRequest qualifiedScanRequest = mapScanRequest(tableMapping, getScanKey(tableMapping, scanRequest),
+            scanRequest);
+        return new ParallelScan(getAmazonDynamoDb(), executor)
+            .scan(qualifiedScanRequest, totalSegments, tableMapping.getItemMapper()::reverse);
+    }
+
+    /**
+     * Queries a virtual table page by page, following {@code LastEvaluatedKey}s, and returns the items of all pages as
+     * a single stream.  Pages are fetched lazily on the given executor, in the multitenant context of the caller, and
+     * up to {@code prefetchPages} pages are fetched ahead of the page being consumed to hide the latency of fetching
+     * them (see {@code PrefetchingPageIterator}).  The stream should be closed if it is not consumed entirely, so that
+     * prefetching stops.
+     *
+     * @param queryRequest the query request against the virtual table
+     * @param prefetchPages the number of pages to fetch ahead of the page being consumed
+     * @param executor the executor on which pages are fetched
+     * @return the items of all pages
+     */
+    public Stream<Map<String, AttributeValue>> queryAll(QueryRequest queryRequest,
+                                                        int prefetchPages,
+                                                        Executor executor) {
+        String context = getMtContext().getContext();
+        return toItemStream(new PrefetchingPageIterator<>(exclusiveStartKey -> getMtContext().withContext(context,
+            (QueryRequest request) -> query(request), queryRequest.clone().withExclusiveStartKey(exclusiveStartKey)),
+            QueryResult::getLastEvaluatedKey, queryRequest.getExclusiveStartKey(), prefetchPages, executor),
+            QueryResult::getItems);
+    }
+
+    /**
+     * Scans a virtual table page by page, like {@code queryAll}.
+     *
+     * @param scanRequest the scan request against the virtual table
+     * @param prefetchPages the number of pages to fetch ahead of the page being consumed
+     * @param executor the executor on which pages are fetched
+     * @return the items of all pages
+     */
+    public Stream<Map<String, AttributeValue>> scanAll(ScanRequest scanRequest,
+                                                       int prefetchPages,
+                                                       Executor executor) {
+        String context = getMtContext().getContext();
+        return toItemStream(new PrefetchingPageIterator<>(exclusiveStartKey -> getMtContext().withContext(context,
+            (ScanRequest request) -> scan(request), scanRequest.clone().withExclusiveStartKey(exclusiveStartKey)),
+            ScanResult::getLastEvaluatedKey, scanRequest.getExclusiveStartKey(), prefetchPages, executor),
+            ScanResult::getItems);
+    }
+
+    private static <P> Stream<Map<String, AttributeValue>> toItemStream(
+        PrefetchingPageIterator<P> pages,
+        Function<P, List<Map<String, AttributeValue>>> getItems) {
+        return Streams.stream(pages)
+            .flatMap(page -> Optional.ofNullable(getItems.apply(page)).stream().flatMap(List::stream))
+            .onClose(pages::close);
+    }
+
+    private static ScanRequest mapScanRequest(TableMapping tableMapping, PrimaryKey key, ScanRequest scanRequest) {
+        checkArgument((scanRequest.getSegment() == null) == (scanRequest.getTotalSegments() == null),
+            "segment and totalSegments must be specified together");
 
         // Projection must include primary key, since we use it for paging.
         // (We could add key fields into projection and filter result in the future)
@@ -417,14 +1051,10 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
             .map(s -> new HashMap<>(clonedScanRequest.getExpressionAttributeValues())).orElseGet(HashMap::new));
         tableMapping.getQueryAndScanMapper().apply(clonedScanRequest);
 
-        // keep moving forward pages until we find at least one record for current tenant or reach end
-        ScanResult scanResult;
-        while ((scanResult = getAmazonDynamoDb().scan(clonedScanRequest)).getItems().isEmpty()
-            && scanResult.getLastEvaluatedKey() != null) {
-            clonedScanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-        }
+        return clonedScanRequest;
+    }
 
-        // map result
+    private static ScanResult reverseScanResult(TableMapping tableMapping, PrimaryKey key, ScanResult scanResult) {
         List<Map<String, AttributeValue>> items = scanResult.getItems();
         if (!items.isEmpty()) {
             scanResult.setItems(items.stream().map(tableMapping.getItemMapper()::reverse).collect(toList()));
@@ -470,11 +1100,198 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         return legacyProjection != null && legacyProjection.contains(key);
     }
 
+    /**
+     * Reads multiple items atomically.  Each get is mapped to its physical table and key, and the returned items are
+     * mapped back to their virtual tables.
+     */
+    @Override
+    public TransactGetItemsResult transactGetItems(TransactGetItemsRequest unqualifiedTransactGetItemsRequest) {
+        // map table names, keys, and projections, remembering the table mapping and projection of each item to map the
+        // responses later
+        List<TableMapping> tableMappings = new ArrayList<>();
+        List<Optional<MappedProjection>> projections = new ArrayList<>();
+        List<TransactGetItem> qualifiedTransactItems = new ArrayList<>();
+        for (TransactGetItem unqualifiedTransactItem : unqualifiedTransactGetItemsRequest.getTransactItems()) {
+            Get unqualifiedGet = unqualifiedTransactItem.getGet();
+            TableMapping tableMapping = getTableMapping(unqualifiedGet.getTableName());
+            Optional<MappedProjection> projection = tableMapping.getProjectionMapper()
+                .apply(unqualifiedGet.getProjectionExpression(), null, unqualifiedGet.getExpressionAttributeNames());
+            tableMappings.add(tableMapping);
+            projections.add(projection);
+            Get qualifiedGet = unqualifiedGet.clone()
+                .withTableName(tableMapping.getPhysicalTable().getTableName())
+                .withKey(tableMapping.getKeyMapper().apply(unqualifiedGet.getKey()));
+            projection.ifPresent(p -> qualifiedGet
+                .withProjectionExpression(p.getProjectionExpression())
+                .withExpressionAttributeNames(p.getExpressionAttributeNames()));
+            qualifiedTransactItems.add(new TransactGetItem().withGet(qualifiedGet));
+        }
+
+        // get
+        TransactGetItemsResult transactGetItemsResult = getAmazonDynamoDb().transactGetItems(
+            unqualifiedTransactGetItemsRequest.clone().withTransactItems(qualifiedTransactItems));
+
+        // map responses, which are in the same order as the requested items
+        List<ItemResponse> responses = transactGetItemsResult.getResponses();
+        if (responses != null) {
+            for (int i = 0; i < responses.size(); i++) {
+                ItemResponse response = responses.get(i);
+                if (response.getItem() != null) {
+                    Map<String, AttributeValue> item = tableMappings.get(i).getItemMapper().reverse(response.getItem());
+                    response.setItem(projections.get(i).map(p -> p.apply(item)).orElse(item));
+                }
+            }
+        }
+
+        return transactGetItemsResult;
+    }
+
+    /**
+     * Writes multiple items atomically.  Each put, update, delete, and condition check is mapped the same way as the
+     * corresponding single-item operation, so that the whole transaction is executed in a single round trip.  Consumed
+     * capacity and item collection metrics are not returned, since they refer to physical tables and keys that may be
+     * shared by several virtual tables.
+     */
+    @Override
+    public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest unqualifiedTransactWriteItemsRequest) {
+        return getAmazonDynamoDb().transactWriteItems(unqualifiedTransactWriteItemsRequest.clone()
+            .withTransactItems(unqualifiedTransactWriteItemsRequest.getTransactItems().stream()
+                .map(this::mapTransactWriteItem)
+                .collect(toList())))
+            .withConsumedCapacity((Collection<ConsumedCapacity>) null)
+            .withItemCollectionMetrics(null);
+    }
+
+    private TransactWriteItem mapTransactWriteItem(TransactWriteItem transactWriteItem) {
+        if (transactWriteItem.getPut() != null) {
+            return new TransactWriteItem().withPut(mapTransactWrite(transactWriteItem.getPut(),
+                put -> new PutItemRequest(put.getTableName(), put.getItem())
+                    .withConditionExpression(put.getConditionExpression())
+                    .withExpressionAttributeNames(put.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(put.getExpressionAttributeValues()),
+                this::mapPutItemRequest,
+                (put, mapped) -> put.clone().withTableName(mapped.getTableName()).withItem(mapped.getItem())
+                    .withConditionExpression(mapped.getConditionExpression())
+                    .withExpressionAttributeNames(mapped.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(mapped.getExpressionAttributeValues())));
+        } else if (transactWriteItem.getUpdate() != null) {
+            return new TransactWriteItem().withUpdate(mapTransactWrite(transactWriteItem.getUpdate(),
+                update -> new UpdateItemRequest().withTableName(update.getTableName()).withKey(update.getKey())
+                    .withUpdateExpression(update.getUpdateExpression())
+                    .withConditionExpression(update.getConditionExpression())
+                    .withExpressionAttributeNames(update.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(update.getExpressionAttributeValues()),
+                this::mapUpdateItemRequest,
+                (update, mapped) -> update.clone().withTableName(mapped.getTableName()).withKey(mapped.getKey())
+                    .withUpdateExpression(mapped.getUpdateExpression())
+                    .withConditionExpression(mapped.getConditionExpression())
+                    .withExpressionAttributeNames(mapped.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(mapped.getExpressionAttributeValues())));
+        } else if (transactWriteItem.getDelete() != null) {
+            return new TransactWriteItem().withDelete(mapTransactWrite(transactWriteItem.getDelete(),
+                delete -> new DeleteItemRequest(delete.getTableName(), delete.getKey())
+                    .withConditionExpression(delete.getConditionExpression())
+                    .withExpressionAttributeNames(delete.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(delete.getExpressionAttributeValues()),
+                this::mapDeleteItemRequest,
+                (delete, mapped) -> delete.clone().withTableName(mapped.getTableName()).withKey(mapped.getKey())
+                    .withConditionExpression(mapped.getConditionExpression())
+                    .withExpressionAttributeNames(mapped.getExpressionAttributeNames())
+                    .withExpressionAttributeValues(mapped.getExpressionAttributeValues())));
+        }
+        checkArgument(transactWriteItem.getConditionCheck() != null,
+            "TransactWriteItem must contain a Put, Update, Delete, or ConditionCheck");
+        // condition checks are mapped like deletes, since both consist of a key and a condition expression
+        return new TransactWriteItem().withConditionCheck(mapTransactWrite(transactWriteItem.getConditionCheck(),
+            check -> new DeleteItemRequest(check.getTableName(), check.getKey())
+                .withConditionExpression(check.getConditionExpression())
+                .withExpressionAttributeNames(check.getExpressionAttributeNames())
+                .withExpressionAttributeValues(check.getExpressionAttributeValues()),
+            this::mapDeleteItemRequest,
+            (check, mapped) -> check.clone().withTableName(mapped.getTableName()).withKey(mapped.getKey())
+                .withConditionExpression(mapped.getConditionExpression())
+                .withExpressionAttributeNames(mapped.getExpressionAttributeNames())
+                .withExpressionAttributeValues(mapped.getExpressionAttributeValues())));
+    }
+
+    /**
+     * Maps one write of a transaction the same way as the equivalent single-item request: {@code toRequest} converts
+     * the write to that request, {@code mapRequest} maps it, and {@code fromRequest} copies the mapped table name, key
+     * or item, and expressions back onto a copy of the write.
+     */
+    private static <W, R> W mapTransactWrite(W write, Function<W, R> toRequest, UnaryOperator<R> mapRequest,
+                                             BiFunction<W, R, W> fromRequest) {
+        return fromRequest.apply(write, mapRequest.apply(toRequest.apply(write)));
+    }
+
+    @Override
+    public CompletableFuture<DeleteItemResult> deleteItemAsync(DeleteItemRequest deleteItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::deleteItemAsync, mapDeleteItemRequest(deleteItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<GetItemResult> getItemAsync(GetItemRequest getItemRequest) {
+        validateGetItemRequest(getItemRequest);
+        TableMapping tableMapping = getTableMapping(getItemRequest.getTableName());
+        Optional<MappedProjection> projection = getProjection(tableMapping, getItemRequest);
+        CompletableFuture<GetItemResult> future = toCompletableFuture(getAmazonDynamoDbAsync()::getItemAsync,
+            mapGetItemRequest(tableMapping, projection, getItemRequest));
+        return future.thenApply(getItemResult -> reverseGetItemResult(tableMapping, projection, getItemResult));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResult> putItemAsync(PutItemRequest putItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::putItemAsync, mapPutItemRequest(putItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(QueryRequest queryRequest) {
+        TableMapping tableMapping = getTableMapping(queryRequest.getTableName());
+        CompletableFuture<QueryResult> future = toCompletableFuture(getAmazonDynamoDbAsync()::queryAsync,
+            mapQueryRequest(tableMapping, queryRequest));
+        return future.thenApply(queryResult -> reverseQueryResult(tableMapping, queryResult));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult> scanAsync(ScanRequest scanRequest) {
+        TableMapping tableMapping = getTableMapping(scanRequest.getTableName());
+        PrimaryKey key = getScanKey(tableMapping, scanRequest);
+        return scanUntilNonEmptyAsync(getAmazonDynamoDbAsync(), mapScanRequest(tableMapping, key, scanRequest))
+            .thenApply(scanResult -> reverseScanResult(tableMapping, key, scanResult));
+    }
+
+    /*
+     * Async equivalent of the paging loop in scan: keeps moving forward pages until at least one record for the
+     * current tenant is found or the end is reached.
+     */
+    private static CompletableFuture<ScanResult> scanUntilNonEmptyAsync(AmazonDynamoDBAsync amazonDynamoDbAsync,
+                                                                       ScanRequest qualifiedScanRequest) {
+        CompletableFuture<ScanResult> future =
+            toCompletableFuture(amazonDynamoDbAsync::scanAsync, qualifiedScanRequest);
+        return future.thenCompose(scanResult -> {
+            if (scanResult.getItems().isEmpty() && scanResult.getLastEvaluatedKey() != null) {
+                return scanUntilNonEmptyAsync(amazonDynamoDbAsync,
+                    qualifiedScanRequest.clone().withExclusiveStartKey(scanResult.getLastEvaluatedKey()));
+            }
+            return CompletableFuture.completedFuture(scanResult);
+        });
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResult> updateItemAsync(UpdateItemRequest updateItemRequest) {
+        return toCompletableFuture(getAmazonDynamoDbAsync()::updateItemAsync, mapUpdateItemRequest(updateItemRequest));
+    }
+
     /**
      * TODO: write Javadoc.
      */
     @Override
     public UpdateItemResult updateItem(UpdateItemRequest updateItemRequest) {
+        // update
+        return getAmazonDynamoDb().updateItem(mapUpdateItemRequest(updateItemRequest));
+    }
+
+    private UpdateItemRequest mapUpdateItemRequest(UpdateItemRequest updateItemRequest) {
         // validate that attributeUpdates are not being used
         validateUpdateItemRequest(updateItemRequest);
 
@@ -483,14 +1300,16 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         TableMapping tableMapping = getTableMapping(updateItemRequest.getTableName());
         updateItemRequest.withTableName(tableMapping.getPhysicalTable().getTableName());
 
+        // register hash key, since updates may create items
+        registerHashKey(tableMapping, updateItemRequest.getKey());
+
         // map key
         updateItemRequest.setKey(tableMapping.getItemMapper().apply(updateItemRequest.getKey()));
 
         // map conditions
         tableMapping.getConditionMapper().apply(new UpdateItemRequestWrapper(updateItemRequest));
 
-        // update
-        return getAmazonDynamoDb().updateItem(updateItemRequest);
+        return updateItemRequest;
     }
 
     /**
@@ -507,34 +1326,41 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
         return name;
     }
 
-    private DeleteTableResult deleteTableInternal(DeleteTableRequest deleteTableRequest) {
+    private DeleteTableResult deleteTableInternal(DeleteTableRequest deleteTableRequest, LongConsumer onDeleted) {
         String tableDesc = "table=" + deleteTableRequest.getTableName() + " " + (deleteTableAsync ? "asynchronously"
             : "synchronously");
         log.warn("dropping " + tableDesc);
-        truncateTable(deleteTableRequest.getTableName());
+        truncateTable(deleteTableRequest.getTableName(), onDeleted);
         DeleteTableResult deleteTableResult = new DeleteTableResult()
             .withTableDescription(mtTableDescriptionRepo.deleteTable(deleteTableRequest.getTableName()));
         log.warn("dropped " + tableDesc);
         return deleteTableResult;
     }
 
-    private void truncateTable(String tableName) {
+    /*
+     * Deletes all items of the given virtual table (see TableTruncator).  If truncation fails, retrying the drop
+     * resumes the truncation where it stopped.
+     */
+    private void truncateTable(String tableName, LongConsumer onDeleted) {
         if (truncateOnDeleteTable) {
-            ScanResult scanResult = scan(new ScanRequest().withTableName(tableName));
-            log.warn("truncating " + scanResult.getItems().size() + " items from table=" + tableName);
-            for (Map<String, AttributeValue> item : scanResult.getItems()) {
-                deleteItem(new DeleteItemRequest().withTableName(tableName).withKey(getKeyFromItem(item, tableName)));
-            }
-            log.warn("truncation of " + scanResult.getItems().size() + " items from table=" + tableName + " complete");
+            TableMapping tableMapping = getTableMapping(tableName);
+            ScanRequest qualifiedScanRequest = mapScanRequest(tableMapping,
+                tableMapping.getVirtualTable().getPrimaryKey(), new ScanRequest(tableName));
+            PrimaryKey physicalKey = tableMapping.getPhysicalTable().getPrimaryKey();
+            List<String> physicalKeyNames = Stream.concat(Stream.of(physicalKey.getHashKey()),
+                physicalKey.getRangeKey().stream()).collect(toList());
+            log.warn("truncating table=" + tableName);
+            long deleted = tableTruncator.truncate(getTruncationCheckpointKey(getMtContext().getContext(), tableName),
+                qualifiedScanRequest, physicalKeyNames, onDeleted);
+            hashKeyRegistry.ifPresent(registry -> registry.deleteHashKeys(tableName));
+            log.warn("truncation of " + deleted + " items from table=" + tableName + " complete");
         } else {
             log.info("truncateOnDeleteTable is disabled for " + tableName + ", skipping truncation");
         }
     }
 
-    private Map<String, AttributeValue> getKeyFromItem(Map<String, AttributeValue> item, String tableName) {
-        return describeTable(new DescribeTableRequest().withTableName(tableName)).getTable().getKeySchema().stream()
-            .collect(Collectors.toMap(KeySchemaElement::getAttributeName,
-                keySchemaElement -> item.get(keySchemaElement.getAttributeName())));
+    private static String getTruncationCheckpointKey(String context, String tableName) {
+        return context + "." + tableName;
     }
 
     private static Map<String, AttributeValue> getKeyFromItem(Map<String, AttributeValue> item, PrimaryKey primaryKey) {
@@ -606,7 +1432,7 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
 
         @Override
         public String getIndexName() {
-            throw new UnsupportedOperationException();
+            return null;
         }
 
         @Override
@@ -700,7 +1526,7 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
 
         @Override
         public String getIndexName() {
-            throw new UnsupportedOperationException();
+            return null;
         }
 
         @Override
@@ -791,7 +1617,7 @@ public class MtAmazonDynamoDbBySharedTable extends MtAmazonDynamoDbBase {
 
         @Override
         public String getIndexName() {
-            throw new UnsupportedOperationException();
+            return null;
         }
 
         @Override
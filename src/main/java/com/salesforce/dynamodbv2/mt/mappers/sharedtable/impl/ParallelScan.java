@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.AbstractIterator;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Scans all segments of a physical table concurrently and exposes the items of all segments as a single stream.
+ * Segments are scanned on the given executor and pages are handed to the consuming thread through a bounded queue, so
+ * that a slow consumer slows down the segment scans rather than buffering the whole table in memory.  Items are mapped
+ * on the consuming thread.
+ */
+class ParallelScan {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final Executor executor;
+
+    ParallelScan(AmazonDynamoDB amazonDynamoDb, Executor executor) {
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.executor = executor;
+    }
+
+    /**
+     * Scans the given physical request split into {@code totalSegments} segments.  The returned stream should be
+     * closed if it is not consumed entirely, so that ongoing segment scans stop.
+     */
+    Stream<Map<String, AttributeValue>> scan(ScanRequest qualifiedScanRequest,
+                                             int totalSegments,
+                                             Function<Map<String, AttributeValue>,
+                                                 Map<String, AttributeValue>> itemMapper) {
+        checkArgument(totalSegments > 0, "totalSegments must be positive");
+        BlockingQueue<Page> pages = new ArrayBlockingQueue<>(2 * totalSegments);
+        AtomicBoolean closed = new AtomicBoolean();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest segmentScanRequest = qualifiedScanRequest.clone()
+                .withSegment(segment)
+                .withTotalSegments(totalSegments);
+            executor.execute(() -> scanSegment(segmentScanRequest, pages, closed));
+        }
+
+        Iterator<Map<String, AttributeValue>> items = new AbstractIterator<>() {
+            private int remainingSegments = totalSegments;
+            private Iterator<Map<String, AttributeValue>> currentPage = Collections.emptyIterator();
+
+            @Override
+            protected Map<String, AttributeValue> computeNext() {
+                while (!currentPage.hasNext()) {
+                    if (remainingSegments == 0) {
+                        return endOfData();
+                    }
+                    Page page = take(pages, closed);
+                    if (page.error != null) {
+                        closed.set(true);
+                        throw page.error;
+                    }
+                    if (page.last) {
+                        remainingSegments--;
+                    }
+                    currentPage = page.items.iterator();
+                }
+                return itemMapper.apply(currentPage.next());
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.NONNULL), false)
+            .onClose(() -> closed.set(true));
+    }
+
+    private void scanSegment(ScanRequest scanRequest, BlockingQueue<Page> pages, AtomicBoolean closed) {
+        try {
+            ScanResult scanResult;
+            do {
+                scanResult = amazonDynamoDb.scan(scanRequest);
+                boolean last = scanResult.getLastEvaluatedKey() == null;
+                // no need to hand over empty pages, unless they mark the end of the segment
+                if ((last || !scanResult.getItems().isEmpty())
+                    && !offer(pages, new Page(scanResult.getItems(), last, null), closed)) {
+                    return;
+                }
+                scanRequest = scanRequest.clone().withExclusiveStartKey(scanResult.getLastEvaluatedKey());
+            } while (scanResult.getLastEvaluatedKey() != null);
+        } catch (RuntimeException e) {
+            offer(pages, new Page(Collections.emptyList(), true, e), closed);
+        }
+    }
+
+    /*
+     * Waits for space in the queue, giving up if the stream was closed or the thread interrupted.
+     */
+    private static boolean offer(BlockingQueue<Page> pages, Page page, AtomicBoolean closed) {
+        try {
+            while (!pages.offer(page, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Page take(BlockingQueue<Page> pages, AtomicBoolean closed) {
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            closed.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for parallel scan results", e);
+        }
+    }
+
+    private static class Page {
+
+        private final List<Map<String, AttributeValue>> items;
+        private final boolean last;
+        private final RuntimeException error;
+
+        Page(List<Map<String, AttributeValue>> items, boolean last, RuntimeException error) {
+            this.items = items;
+            this.last = last;
+            this.error = error;
+        }
+
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A DynamoDB condition, key condition, filter or update expression, split into tokens in a single pass.  Each token
+ * is classified by its role in the expression, so that the attributes an expression references can be told apart from
+ * function names, keywords and nested document path elements without matching strings against the expression text.
+ *
+ * <p>Tokens that are not part of the expression grammar are kept as {@code OTHER}, so that invalid expressions are
+ * passed on unchanged and rejected by DynamoDB.
+ */
+class ParsedExpression {
+
+    enum TokenType {
+        // The first element of a document path: an attribute name literal or # placeholder.
+        ATTRIBUTE,
+        // A later element of a document path, e.g., b in a.b.
+        NESTED_ATTRIBUTE,
+        // An expression attribute value placeholder, e.g., :value.
+        VALUE,
+        // A function name, e.g., begins_with.
+        FUNCTION,
+        // A keyword, e.g., AND or SET.
+        KEYWORD,
+        // A list index, e.g., 1 in a[1].
+        NUMBER,
+        // A comparator or arithmetic operator.
+        OPERATOR,
+        // One of ( ) , . [ ].
+        PUNCTUATION,
+        OTHER
+    }
+
+    private static final Set<String> KEYWORDS = ImmutableSortedSet.orderedBy(String.CASE_INSENSITIVE_ORDER)
+        .add("AND", "OR", "NOT", "BETWEEN", "IN", "SET", "REMOVE", "ADD", "DELETE").build();
+
+    private final String expression;
+    private final List<Token> tokens;
+
+    private ParsedExpression(String expression, List<Token> tokens) {
+        this.expression = expression;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses the given expression.
+     *
+     * @param expression the expression to parse
+     * @return the parsed expression
+     */
+    static ParsedExpression parse(String expression) {
+        List<Token> tokens = new ArrayList<>();
+        int length = expression.length();
+        int i = 0;
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            TokenType type;
+            if (c == '#' || c == ':') {
+                i = scanWord(expression, i + 1);
+                type = c == '#' ? TokenType.ATTRIBUTE : TokenType.VALUE;
+            } else if (Character.isLetter(c) || c == '_') {
+                i = scanWord(expression, i);
+                type = TokenType.ATTRIBUTE;
+            } else if (Character.isDigit(c)) {
+                do {
+                    i++;
+                } while (i < length && Character.isDigit(expression.charAt(i)));
+                type = TokenType.NUMBER;
+            } else if (c == '<' || c == '>') {
+                i++;
+                if (i < length && (expression.charAt(i) == '=' || c == '<' && expression.charAt(i) == '>')) {
+                    i++;
+                }
+                type = TokenType.OPERATOR;
+            } else if (c == '=' || c == '+' || c == '-') {
+                i++;
+                type = TokenType.OPERATOR;
+            } else if ("(),.[]".indexOf(c) >= 0) {
+                i++;
+                type = TokenType.PUNCTUATION;
+            } else {
+                i++;
+                type = TokenType.OTHER;
+            }
+            tokens.add(new Token(type, expression.substring(start, i), start));
+        }
+        classifyWords(tokens);
+        return new ParsedExpression(expression, tokens);
+    }
+
+    private static int scanWord(String expression, int i) {
+        while (i < expression.length()
+            && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    /*
+     * Words are scanned as attributes; tell nested path elements, function names and keywords apart by their context.
+     */
+    private static void classifyWords(List<Token> tokens) {
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.type != TokenType.ATTRIBUTE) {
+                continue;
+            }
+            if (i > 0 && tokens.get(i - 1).isPunctuation(".")) {
+                token.type = TokenType.NESTED_ATTRIBUTE;
+            } else if (!token.isPlaceholder()) {
+                if (i + 1 < tokens.size() && tokens.get(i + 1).isPunctuation("(")) {
+                    token.type = TokenType.FUNCTION;
+                } else if (KEYWORDS.contains(token.text)) {
+                    token.type = TokenType.KEYWORD;
+                }
+            }
+        }
+    }
+
+    List<Token> getTokens() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * Finds the value placeholder that the given top-level attribute is compared to or set to with {@code =}, e.g.,
+     * {@code :value} in {@code #name = :value} or {@code :value = #name}.
+     *
+     * @param attributeName the attribute name literal or placeholder
+     * @return the first value placeholder found, or empty if there is none
+     */
+    Optional<String> findEqualityValue(String attributeName) {
+        for (int i = 1; i < tokens.size() - 1; i++) {
+            Token token = tokens.get(i);
+            if (token.type == TokenType.OPERATOR && token.text.equals("=")) {
+                Token left = tokens.get(i - 1);
+                Token right = tokens.get(i + 1);
+                if (left.isAttribute(attributeName) && right.type == TokenType.VALUE) {
+                    return Optional.of(right.text);
+                }
+                if (left.type == TokenType.VALUE && right.isAttribute(attributeName) && !continuesPath(i + 1)) {
+                    return Optional.of(left.text);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean continuesPath(int i) {
+        return i + 1 < tokens.size() && (tokens.get(i + 1).isPunctuation(".") || tokens.get(i + 1).isPunctuation("["));
+    }
+
+    /**
+     * Replaces top-level attribute name literals.  The rest of the expression, including whitespace, is unchanged.
+     *
+     * @param replacement returns the replacement of a given literal, or null to keep it
+     * @return the resulting expression, which is this expression if no literal was replaced
+     */
+    ParsedExpression replaceAttributeLiterals(Function<String, String> replacement) {
+        StringBuilder replaced = null;
+        List<Token> replacedTokens = null;
+        int copied = 0;
+        int offset = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            String text = token.type == TokenType.ATTRIBUTE && !token.isPlaceholder()
+                ? replacement.apply(token.text)
+                : null;
+            if (text != null) {
+                if (replaced == null) {
+                    replaced = new StringBuilder(expression.length() + 16);
+                    replacedTokens = new ArrayList<>(tokens.subList(0, i));
+                }
+                replaced.append(expression, copied, token.start).append(text);
+                copied = token.start + token.text.length();
+                replacedTokens.add(new Token(TokenType.ATTRIBUTE, text, token.start + offset));
+                offset += text.length() - token.text.length();
+            } else if (replacedTokens != null) {
+                replacedTokens.add(offset == 0 ? token : new Token(token.type, token.text, token.start + offset));
+            }
+        }
+        if (replaced == null) {
+            return this;
+        }
+        replaced.append(expression, copied, expression.length());
+        return new ParsedExpression(replaced.toString(), replacedTokens);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * A token of an expression.
+     */
+    static class Token {
+
+        private TokenType type;
+        private final String text;
+        private final int start;
+
+        Token(TokenType type, String text, int start) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+        }
+
+        TokenType getType() {
+            return type;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        private boolean isPlaceholder() {
+            return text.charAt(0) == '#';
+        }
+
+        private boolean isPunctuation(String punctuation) {
+            return type == TokenType.PUNCTUATION && text.equals(punctuation);
+        }
+
+        private boolean isAttribute(String attributeName) {
+            return type == TokenType.ATTRIBUTE && text.equals(attributeName);
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + text + ")";
+        }
+
+    }
+
+}
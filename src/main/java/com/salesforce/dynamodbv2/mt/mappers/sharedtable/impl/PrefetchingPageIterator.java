@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.AbstractIterator;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Iterates over the pages of a query or scan, following {@code LastEvaluatedKey}s.  Pages are fetched lazily on the
+ * given executor: the first page is fetched when the iterator is first advanced, and while a page is consumed, up to
+ * {@code prefetchPages} subsequent pages are fetched in the background.  Since each page depends on the last evaluated
+ * key of the previous one, prefetched pages are still fetched one after another.
+ *
+ * <p>{@code close} stops fetching pages that have not been started yet.  Errors fetching a page are thrown when that
+ * page is reached.
+ *
+ * @param <P> the page type, e.g., {@code QueryResult}
+ */
+class PrefetchingPageIterator<P> extends AbstractIterator<P> implements AutoCloseable {
+
+    private final Function<Map<String, AttributeValue>, P> fetchPage;
+    private final Function<P, Map<String, AttributeValue>> getLastEvaluatedKey;
+    private final Map<String, AttributeValue> exclusiveStartKey;
+    private final int prefetchPages;
+    private final Executor executor;
+    private final Deque<CompletableFuture<Optional<P>>> pages = new ArrayDeque<>();
+    private CompletableFuture<Optional<P>> lastPage;
+    private volatile boolean closed;
+
+    /**
+     * Creates an iterator.
+     *
+     * @param fetchPage fetches the page that starts after the given key, or the first page if the key is null
+     * @param getLastEvaluatedKey returns the last evaluated key of the given page, or null if it is the last page
+     * @param exclusiveStartKey the key to start after, or null to start with the first page
+     * @param prefetchPages the number of pages to fetch ahead of the page being consumed
+     * @param executor the executor on which pages are fetched
+     */
+    PrefetchingPageIterator(Function<Map<String, AttributeValue>, P> fetchPage,
+                            Function<P, Map<String, AttributeValue>> getLastEvaluatedKey,
+                            Map<String, AttributeValue> exclusiveStartKey,
+                            int prefetchPages,
+                            Executor executor) {
+        checkArgument(prefetchPages >= 0, "prefetchPages must not be negative");
+        this.fetchPage = fetchPage;
+        this.getLastEvaluatedKey = getLastEvaluatedKey;
+        this.exclusiveStartKey = exclusiveStartKey;
+        this.prefetchPages = prefetchPages;
+        this.executor = executor;
+    }
+
+    @Override
+    protected P computeNext() {
+        if (lastPage == null) {
+            lastPage = CompletableFuture.supplyAsync(() -> Optional.of(fetchPage.apply(exclusiveStartKey)), executor);
+            pages.add(lastPage);
+        } else if (pages.isEmpty()) {
+            // nothing was prefetched, so fetch the next page on demand
+            fetchNextPage();
+        }
+        CompletableFuture<Optional<P>> nextPage = pages.poll();
+        while (pages.size() < prefetchPages) {
+            fetchNextPage();
+        }
+        try {
+            Optional<P> page = nextPage.join();
+            return page.isPresent() ? page.get() : endOfData();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /*
+     * Fetches the page after the last page once that one is available, unless it is the last page.
+     */
+    private void fetchNextPage() {
+        lastPage = lastPage.thenApplyAsync(page -> page
+            .map(getLastEvaluatedKey)
+            .filter(key -> !closed)
+            .map(fetchPage), executor);
+        pages.add(lastPage);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.toMap;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps projections of virtual table items, given as {@code ProjectionExpression} (with
+ * {@code ExpressionAttributeNames}) or as legacy {@code AttributesToGet}, to projections of physical table items.
+ * Virtual key fields are replaced by the physical fields they map to and the physical hash key, which is needed to map
+ * items back to their virtual table, is always projected.  Fields that were added to the projection are removed from
+ * the mapped items by {@code MappedProjection.apply}.
+ *
+ * <p>Only the top-level attribute of each document path is mapped, since key fields are scalars.
+ */
+class ProjectionMapper {
+
+    private static final String PLACEHOLDER_PREFIX = "#___projection";
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("#[A-Za-z0-9_]+");
+
+    private final Map<String, String> virtualToPhysicalNames;
+    private final String physicalHashKey;
+
+    ProjectionMapper(TableMapping tableMapping) {
+        this.virtualToPhysicalNames = tableMapping.getAllVirtualToPhysicalFieldMappingsDeduped().entrySet().stream()
+            .collect(toMap(Map.Entry::getKey, fieldMapping -> fieldMapping.getValue().getTarget().getName()));
+        this.physicalHashKey = tableMapping.getPhysicalTable().getPrimaryKey().getHashKey();
+    }
+
+    /**
+     * Maps the given virtual projection.
+     *
+     * @param projectionExpression the projection expression of the request, or null
+     * @param attributesToGet the attributes to get of the request, or null
+     * @param expressionAttributeNames the expression attribute names of the request, or null
+     * @return the physical projection, or empty if the request does not specify a projection
+     */
+    Optional<MappedProjection> apply(String projectionExpression, List<String> attributesToGet,
+                                     Map<String, String> expressionAttributeNames) {
+        checkArgument(projectionExpression == null || attributesToGet == null,
+            "projectionExpression and attributesToGet may not both be specified");
+        if (projectionExpression != null) {
+            return Optional.of(mapProjectionExpression(projectionExpression, expressionAttributeNames));
+        } else if (attributesToGet != null) {
+            return Optional.of(mapAttributesToGet(attributesToGet));
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    private MappedProjection mapProjectionExpression(String projectionExpression,
+                                                     Map<String, String> expressionAttributeNames) {
+        List<String> physicalPaths = new ArrayList<>();
+        Map<String, String> physicalNames = new HashMap<>();
+        Set<String> virtualAttributeNames = new HashSet<>();
+        Set<String> physicalAttributeNames = new HashSet<>();
+        for (String path : projectionExpression.split(",")) {
+            path = path.trim();
+            int end = getTopLevelEnd(path);
+            String topLevel = path.substring(0, end);
+            String virtualName = topLevel;
+            if (topLevel.startsWith("#")) {
+                virtualName = expressionAttributeNames == null ? null : expressionAttributeNames.get(topLevel);
+                checkArgument(virtualName != null, "projectionExpression references undefined name " + topLevel);
+            }
+            virtualAttributeNames.add(virtualName);
+            String physicalName = virtualToPhysicalNames.get(virtualName);
+            if (physicalName == null) {
+                physicalPaths.add(path);
+                physicalAttributeNames.add(virtualName);
+            } else {
+                String placeholder = PLACEHOLDER_PREFIX + physicalNames.size() + "___";
+                physicalNames.put(placeholder, physicalName);
+                physicalPaths.add(placeholder + path.substring(end));
+                physicalAttributeNames.add(physicalName);
+            }
+        }
+        if (!physicalAttributeNames.contains(physicalHashKey)) {
+            String placeholder = PLACEHOLDER_PREFIX + physicalNames.size() + "___";
+            physicalNames.put(placeholder, physicalHashKey);
+            physicalPaths.add(placeholder);
+        }
+        String physicalProjectionExpression = String.join(", ", physicalPaths);
+
+        // keep only the names that are still referenced, since DynamoDB rejects unused names
+        if (expressionAttributeNames != null) {
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(physicalProjectionExpression);
+            while (matcher.find()) {
+                String placeholder = matcher.group();
+                if (expressionAttributeNames.containsKey(placeholder)) {
+                    physicalNames.put(placeholder, expressionAttributeNames.get(placeholder));
+                }
+            }
+        }
+        return new MappedProjection(physicalProjectionExpression, null, physicalNames, virtualAttributeNames);
+    }
+
+    private MappedProjection mapAttributesToGet(List<String> attributesToGet) {
+        Set<String> physicalAttributeNames = new LinkedHashSet<>();
+        attributesToGet.forEach(virtualName ->
+            physicalAttributeNames.add(virtualToPhysicalNames.getOrDefault(virtualName, virtualName)));
+        physicalAttributeNames.add(physicalHashKey);
+        return new MappedProjection(null, new ArrayList<>(physicalAttributeNames), null,
+            new HashSet<>(attributesToGet));
+    }
+
+    private static int getTopLevelEnd(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '.' || c == '[') {
+                return i;
+            }
+        }
+        return path.length();
+    }
+
+    /**
+     * A projection of physical table items, along with the virtual attributes to return.
+     */
+    static class MappedProjection {
+
+        private final String projectionExpression;
+        private final List<String> attributesToGet;
+        private final Map<String, String> expressionAttributeNames;
+        private final Set<String> virtualAttributeNames;
+
+        MappedProjection(String projectionExpression, List<String> attributesToGet,
+                         Map<String, String> expressionAttributeNames, Set<String> virtualAttributeNames) {
+            this.projectionExpression = projectionExpression;
+            this.attributesToGet = attributesToGet;
+            this.expressionAttributeNames = expressionAttributeNames;
+            this.virtualAttributeNames = virtualAttributeNames;
+        }
+
+        String getProjectionExpression() {
+            return projectionExpression;
+        }
+
+        List<String> getAttributesToGet() {
+            return attributesToGet;
+        }
+
+        Map<String, String> getExpressionAttributeNames() {
+            return expressionAttributeNames;
+        }
+
+        /*
+         * Returns whether the given projection selects the same physical attributes.
+         */
+        boolean isSamePhysicalProjection(MappedProjection other) {
+            return Objects.equals(projectionExpression, other.projectionExpression)
+                && Objects.equals(attributesToGet, other.attributesToGet)
+                && Objects.equals(expressionAttributeNames, other.expressionAttributeNames);
+        }
+
+        /*
+         * Removes attributes that were not requested from the given (reverse mapped) virtual item.
+         */
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> virtualItem) {
+            if (virtualItem == null) {
+                return null;
+            }
+            Map<String, AttributeValue> projectedItem = new HashMap<>(virtualItem);
+            projectedItem.keySet().retainAll(virtualAttributeNames);
+            return projectedItem;
+        }
+
+    }
+
+}
@@ -16,6 +16,8 @@ import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ConditionMapper.NAME_PLACEHOLDER;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
@@ -86,14 +88,20 @@ class QueryAndScanMapper {
         apply(new ScanRequestWrapper(scanRequest));
     }
 
+    /*
+     * Legacy conditions carry their values, so they are converted to expressions before the request is mapped.  The
+     * mapping of the resulting expressions is planned once per request shape, see TranslationPlanCache.
+     */
     private void apply(RequestWrapper request) {
         convertLegacyExpression(request);
-        applyConvertFieldNameLiterals(request);
-        applyKeyCondition(request);
+        tableMapping.getTranslationPlan(request, plan -> {
+            applyConvertFieldNameLiterals(plan);
+            applyKeyCondition(plan);
+        }).apply(request, fieldMapper);
         applyExclusiveStartKey(request);
     }
 
-    private void applyKeyCondition(RequestWrapper request) {
+    private void applyKeyCondition(TranslationPlan.Builder request) {
         String virtualHashKey;
         Collection<FieldMapping> fieldMappings;
         if (request.getIndexName() == null) {
@@ -132,11 +140,11 @@ class QueryAndScanMapper {
         checkNotNull(request.getPrimaryExpression(), "request expression is required");
 
         // map each field to its target name and apply field prefixing as appropriate
-        fieldMappings.forEach(targetFieldMapping ->
-            tableMapping.getConditionMapper().applyKeyConditionToField(request, targetFieldMapping));
+        tableMapping.getConditionMapper().applyKeyConditions(request, fieldMappings.stream()
+            .collect(toMap(fieldMapping -> fieldMapping.getSource().getName(), identity(), (first, second) -> first)));
     }
 
-    private void addBeginsWith(RequestWrapper request, Field hashKey, FieldMapping fieldMapping) {
+    private void addBeginsWith(TranslationPlan.Builder request, Field hashKey, FieldMapping fieldMapping) {
         /*
          * TODO make sure it properly identifies that it doesn't need to add this ... make sure it's an equals
          * condition and that the equals condition can't be hacked ... make sure you can't negate the begins_with
@@ -148,16 +156,15 @@ class QueryAndScanMapper {
             fieldMapping.getPhysicalIndexName(),
             fieldMapping.getIndexType(),
             fieldMapping.isContextAware());
-        AttributeValue physicalValuePrefixAttribute = fieldMapper.apply(fieldMappingForPrefix, new AttributeValue(""));
         request.putExpressionAttributeName(NAME_PLACEHOLDER, hashKey.getName());
-        request.putExpressionAttributeValue(VALUE_PLACEHOLDER, physicalValuePrefixAttribute);
+        request.mapExpressionAttributeValue(VALUE_PLACEHOLDER, fieldMappingForPrefix, new AttributeValue(""));
         request.setPrimaryExpression(
             (request.getPrimaryExpression() != null ? request.getPrimaryExpression() + " and " : "")
                 + "begins_with(" + NAME_PLACEHOLDER + ", " + VALUE_PLACEHOLDER + ")");
     }
 
-    private void applyConvertFieldNameLiterals(RequestWrapper request) {
-        tableMapping.getConditionMapper().convertFieldNameLiteralsToExpressionNames(request);
+    private void applyConvertFieldNameLiterals(TranslationPlan.Builder request) {
+        tableMapping.getConditionMapper().convertFieldNameLiterals(request);
     }
 
     private void applyExclusiveStartKey(RequestWrapper request) {
@@ -178,9 +185,7 @@ class QueryAndScanMapper {
         Optional<String> keyFieldName = expressionAttrNames != null ? expressionAttrNames.entrySet().stream()
             .filter(entry -> entry.getValue().equals(hashKeyField)).map(Entry::getKey).findFirst() : Optional.empty();
         String fieldToFind = (keyFieldName.orElse(hashKeyField));
-        String toFind = fieldToFind + " = ";
-        int start = conditionExpression.indexOf(toFind);
-        return start != -1;
+        return ParsedExpression.parse(conditionExpression).findEqualityValue(fieldToFind).isPresent();
     }
 
     @VisibleForTesting
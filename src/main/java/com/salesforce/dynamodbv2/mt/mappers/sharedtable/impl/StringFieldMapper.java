@@ -16,6 +16,7 @@ import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import java.nio.ByteBuffer;
 import java.util.Base64;
+import java.util.Objects;
 
 /**
  * Adds and removes prefixes to fields based on the tenant context.
@@ -26,6 +27,8 @@ class StringFieldMapper implements FieldMapper {
 
     private final MtAmazonDynamoDbContextProvider mtContext;
     private final String virtualTableName;
+    // table mappings are cached per context, so the context rarely changes
+    private volatile FieldPrefix<String> prefix;
 
     StringFieldMapper(MtAmazonDynamoDbContextProvider mtContext,
                       String virtualTableName) {
@@ -37,17 +40,27 @@ class StringFieldMapper implements FieldMapper {
     public AttributeValue apply(FieldMapping fieldMapping, AttributeValue unqualifiedAttribute) {
         checkArgument(fieldMapping.getTarget().getType() == S);
         String stringValue = convertToStringNotNull(fieldMapping.getSource().getType(), unqualifiedAttribute);
-        FieldValue<String> fieldValue = new FieldValue<>(mtContext.getContext(), virtualTableName, stringValue);
-        return new AttributeValue(StringFieldPrefixFunction.INSTANCE.apply(fieldValue));
+        return new AttributeValue(StringFieldPrefixFunction.INSTANCE.apply(getPrefix(), stringValue));
     }
 
     @Override
     public AttributeValue reverse(FieldMapping fieldMapping, AttributeValue qualifiedAttribute) {
         checkArgument(fieldMapping.getSource().getType() == S);
-        FieldValue<String> fieldValue = StringFieldPrefixFunction.INSTANCE.reverse(qualifiedAttribute.getS());
+        FieldValue<String> fieldValue = StringFieldPrefixFunction.INSTANCE.reverse(prefix,
+            qualifiedAttribute.getS());
         return convertFromString(fieldMapping.getTarget().getType(), fieldValue.getValue());
     }
 
+    private FieldPrefix<String> getPrefix() {
+        String context = mtContext.getContext();
+        FieldPrefix<String> prefix = this.prefix;
+        if (prefix == null || !Objects.equals(prefix.getContext(), context)) {
+            prefix = StringFieldPrefixFunction.INSTANCE.createPrefix(context, virtualTableName);
+            this.prefix = prefix;
+        }
+        return prefix;
+    }
+
     private String convertToStringNotNull(ScalarAttributeType type, AttributeValue attributeValue) {
         String convertedString = convertToString(type, attributeValue);
         checkNotNull(convertedString, "attributeValue=" + attributeValue
@@ -26,13 +26,26 @@ class StringFieldPrefixFunction implements FieldPrefixFunction<String> {
 
     @Override
     public String apply(FieldValue<String> fieldValue) {
-        // TODO turn into runtime checks?
-        assert fieldValue.getContext().indexOf(DELIMITER) == -1 && fieldValue.getTableName().indexOf(DELIMITER) == -1;
-        return fieldValue.getContext() + DELIMITER + fieldValue.getTableName() + DELIMITER + fieldValue.getValue();
+        return apply(createPrefix(fieldValue.getContext(), fieldValue.getTableName()), fieldValue.getValue());
+    }
+
+    @Override
+    public String apply(FieldPrefix<String> prefix, String value) {
+        return prefix.getPrefix().concat(value);
     }
 
     @Override
     public FieldValue<String> reverse(String qualifiedValue) {
+        return reverse(null, qualifiedValue);
+    }
+
+    @Override
+    public FieldValue<String> reverse(FieldPrefix<String> prefix, String qualifiedValue) {
+        if (prefix != null && qualifiedValue.startsWith(prefix.getPrefix())) {
+            return new FieldValue<>(prefix.getContext(), prefix.getTableName(),
+                qualifiedValue.substring(prefix.getPrefix().length()));
+        }
+
         int idx = qualifiedValue.indexOf(DELIMITER);
         checkArgument(idx != -1);
         final String context = qualifiedValue.substring(0, idx);
@@ -48,4 +61,11 @@ class StringFieldPrefixFunction implements FieldPrefixFunction<String> {
         return new FieldValue<>(context, tableName, value);
     }
 
-}
\ No newline at end of file
+    @Override
+    public FieldPrefix<String> createPrefix(String context, String tableName) {
+        // TODO turn into runtime checks?
+        assert context.indexOf(DELIMITER) == -1 && tableName.indexOf(DELIMITER) == -1;
+        return new FieldPrefix<>(context, tableName, context + DELIMITER + tableName + DELIMITER);
+    }
+
+}
@@ -29,10 +29,12 @@ import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.CreateTableRequestFactory;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -47,17 +49,29 @@ class TableMapping {
     private DynamoTableDescription physicalTable;
     private final DynamoSecondaryIndexMapper secondaryIndexMapper;
     private final Map<String, List<FieldMapping>> virtualToPhysicalMappings;
+    private final Map<String, FieldMapping> virtualToPhysicalMappingsDeduped;
     private final Map<DynamoSecondaryIndex, List<FieldMapping>> secondaryIndexFieldMappings;
 
     private final ItemMapper itemMapper;
     private final ItemMapper keyMapper;
     private final QueryAndScanMapper queryAndScanMapper;
     private final ConditionMapper conditionMapper;
+    private final ProjectionMapper projectionMapper;
+    private final TranslationPlanCache translationPlanCache;
+    private final Object translationPlanKey;
 
     TableMapping(DynamoTableDescription virtualTable,
                  CreateTableRequestFactory createTableRequestFactory,
                  DynamoSecondaryIndexMapper secondaryIndexMapper,
                  MtAmazonDynamoDbContextProvider mtContext) {
+        this(virtualTable, createTableRequestFactory, secondaryIndexMapper, mtContext, new TranslationPlanCache(0));
+    }
+
+    TableMapping(DynamoTableDescription virtualTable,
+                 CreateTableRequestFactory createTableRequestFactory,
+                 DynamoSecondaryIndexMapper secondaryIndexMapper,
+                 MtAmazonDynamoDbContextProvider mtContext,
+                 TranslationPlanCache translationPlanCache) {
         physicalTable = lookupPhysicalTable(virtualTable, createTableRequestFactory);
         validatePhysicalTable(physicalTable);
         this.secondaryIndexMapper = secondaryIndexMapper;
@@ -66,6 +80,7 @@ class TableMapping {
             buildIndexPrimaryKeyFieldMappings(virtualTable, physicalTable, secondaryIndexMapper);
         this.virtualToPhysicalMappings = buildAllVirtualToPhysicalFieldMappings(virtualTable);
         validateMapping();
+        this.virtualToPhysicalMappingsDeduped = dedupeFieldMappings(virtualToPhysicalMappings);
         FieldMapper fieldMapper = physicalTable.getPrimaryKey().getHashKeyType() == S
             ? new StringFieldMapper(mtContext, virtualTable.getTableName())
             : new BinaryFieldMapper(mtContext, virtualTable.getTableName());
@@ -80,6 +95,9 @@ class TableMapping {
         );
         queryAndScanMapper = new QueryAndScanMapper(this, fieldMapper);
         conditionMapper = new ConditionMapper(this, fieldMapper);
+        projectionMapper = new ProjectionMapper(this);
+        this.translationPlanCache = translationPlanCache;
+        this.translationPlanKey = translationPlanCache.getTableKey(virtualTable, physicalTable);
     }
 
     DynamoTableDescription getVirtualTable() {
@@ -106,6 +124,18 @@ class TableMapping {
         return conditionMapper;
     }
 
+    ProjectionMapper getProjectionMapper() {
+        return projectionMapper;
+    }
+
+    /*
+     * Returns the cached plan for mapping the given request, building it with the given planner if necessary.  Plans
+     * are shared with the table mappings of other tenants whose tables have the same definition.
+     */
+    TranslationPlan getTranslationPlan(RequestWrapper request, Consumer<TranslationPlan.Builder> planner) {
+        return translationPlanCache.get(translationPlanKey, request, planner);
+    }
+
     /*
      * Returns a mapping of virtual to physical fields.
      */
@@ -118,7 +148,7 @@ class TableMapping {
      * then those mappings are reduced to one by selecting one arbitrarily.  See dedupeFieldMappings() method.
      */
     Map<String, FieldMapping> getAllVirtualToPhysicalFieldMappingsDeduped() {
-        return dedupeFieldMappings(virtualToPhysicalMappings);
+        return virtualToPhysicalMappingsDeduped;
     }
 
     @Override
@@ -136,17 +166,17 @@ class TableMapping {
      * one physical field.  In cases where there is more than one physical field for a given virtual field, it
      * arbitrarily chooses the first mapping.
      *
-     * This method is called for any query or scan request that does not specify an index.
+     * Its result is computed once and used for any query or scan request that does not specify an index.
      *
      * It is an effective no-op, meaning, there are no duplicates to remove, except when a scan is performed against
      * a table that maps a given virtual field to multiple physical fields.  In that case, it doesn't matter which
      * field we use in the query, the results should be the same, so we choose one of the physical fields arbitrarily.
      */
     private static Map<String, FieldMapping> dedupeFieldMappings(Map<String, List<FieldMapping>> fieldMappings) {
-        return fieldMappings.entrySet().stream().collect(Collectors.toMap(
+        return Collections.unmodifiableMap(fieldMappings.entrySet().stream().collect(Collectors.toMap(
             Entry::getKey,
             fieldMappingEntry -> fieldMappingEntry.getValue().get(0)
-        ));
+        )));
     }
 
     /*
@@ -13,13 +13,37 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.salesforce.dynamodbv2.mt.admin.AmazonDynamoDbAdminUtils;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapper;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
 import com.salesforce.dynamodbv2.mt.mappers.sharedtable.CreateTableRequestFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,13 +52,24 @@ import org.slf4j.LoggerFactory;
  * {@code TableMapping} also includes methods for retrieving the virtual and physical descriptions, and logic for
  * mapping of fields from virtual to physical and back.
  *
- * <p>This class is also responsible for triggering the creation of the physical tables appropriately.
+ * <p>This class is also responsible for triggering the creation of the physical tables appropriately.  When tables are
+ * created eagerly, they are created and awaited concurrently on the given executor; {@code getStartupFuture} completes
+ * once all of them are active.  Mappings of physical tables that are still being created wait for them.
+ *
+ * <p>The description of each physical table, including its stream ARN, is looked up once and shared by the mappings
+ * of all tenants.  It is refreshed in the background on a single daemon thread when a mapping is created more than 5
+ * minutes after the last refresh, while mappings keep using the previous description, so that onboarding tenants does
+ * not call {@code describeTable} per virtual table.  Refresh listeners (see {@code addPhysicalTableRefreshListener})
+ * are notified when a refresh changed the description, so that mappings built from the previous one are replaced.
  *
  * @author msgroi
  */
 public class TableMappingFactory {
 
+    public static final long DEFAULT_TRANSLATION_PLAN_CACHE_SIZE = 10000L;
+
     private static final Logger LOG = LoggerFactory.getLogger(TableMappingFactory.class);
+    private static final Duration PHYSICAL_TABLE_REFRESH_INTERVAL = Duration.ofMinutes(5);
 
     private final AmazonDynamoDbAdminUtils dynamoDbAdminUtils;
     private final CreateTableRequestFactory createTableRequestFactory;
@@ -42,6 +77,10 @@ public class TableMappingFactory {
     private final DynamoSecondaryIndexMapper secondaryIndexMapper;
     private final AmazonDynamoDB amazonDynamoDb;
     private final int pollIntervalSeconds;
+    private final TranslationPlanCache translationPlanCache;
+    private final LoadingCache<String, DynamoTableDescriptionImpl> physicalTables;
+    private final List<Consumer<String>> physicalTableRefreshListeners = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> startupFuture;
 
     /**
      * TODO: write Javadoc.
@@ -60,27 +99,109 @@ public class TableMappingFactory {
                                AmazonDynamoDB amazonDynamoDb,
                                boolean createTablesEagerly,
                                int pollIntervalSeconds) {
+        this(createTableRequestFactory, mtContext, secondaryIndexMapper, amazonDynamoDb, createTablesEagerly,
+            pollIntervalSeconds, DEFAULT_TRANSLATION_PLAN_CACHE_SIZE, MoreExecutors.directExecutor());
+        try {
+            startupFuture.join();
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * TODO: write Javadoc.
+     *
+     * @param createTableRequestFactory maps virtual to physical table instances
+     * @param mtContext the multitenant context provider
+     * @param secondaryIndexMapper maps virtual to physical indexes
+     * @param amazonDynamoDb the underlying {@code AmazonDynamoDB} delegate
+     * @param createTablesEagerly a flag indicating whether to create physical tables eagerly at start time
+     * @param pollIntervalSeconds the interval in seconds between attempts at checking the status of the table being
+     *     created
+     * @param translationPlanCacheSize the maximum number of request translation plans to cache across all table
+     *     mappings, which share plans if their tables have the same definition, 0 to not cache them
+     * @param createTableExecutor executor on which physical tables are created and awaited concurrently if they are
+     *     created eagerly; the constructor does not wait for them
+     */
+    public TableMappingFactory(CreateTableRequestFactory createTableRequestFactory,
+                               MtAmazonDynamoDbContextProvider mtContext,
+                               DynamoSecondaryIndexMapper secondaryIndexMapper,
+                               AmazonDynamoDB amazonDynamoDb,
+                               boolean createTablesEagerly,
+                               int pollIntervalSeconds,
+                               long translationPlanCacheSize,
+                               Executor createTableExecutor) {
+        this.translationPlanCache = new TranslationPlanCache(translationPlanCacheSize);
         this.createTableRequestFactory = createTableRequestFactory;
         this.secondaryIndexMapper = secondaryIndexMapper;
         this.mtContext = mtContext;
         this.amazonDynamoDb = amazonDynamoDb;
         this.dynamoDbAdminUtils = new AmazonDynamoDbAdminUtils(amazonDynamoDb);
         this.pollIntervalSeconds = pollIntervalSeconds;
-        if (createTablesEagerly) {
-            createTablesEagerly(createTableRequestFactory);
-        }
+        this.physicalTables = CacheBuilder.newBuilder()
+            .refreshAfterWrite(PHYSICAL_TABLE_REFRESH_INTERVAL)
+            .removalListener(this::onPhysicalTableRemoved)
+            .build(CacheLoader.asyncReloading(new CacheLoader<String, DynamoTableDescriptionImpl>() {
+                @Override
+                public DynamoTableDescriptionImpl load(String tableName) {
+                    return new DynamoTableDescriptionImpl(amazonDynamoDb.describeTable(tableName).getTable());
+                }
+            }, new ThreadPoolExecutor(0, 1, 1L, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("mt-physical-table-refresh-%d").setDaemon(true).build())));
+        this.startupFuture = createTablesEagerly
+            ? createTablesEagerly(createTableRequestFactory, createTableExecutor)
+            : CompletableFuture.completedFuture(null);
     }
 
     CreateTableRequestFactory getCreateTableRequestFactory() {
         return createTableRequestFactory;
     }
 
-    private void createTablesEagerly(CreateTableRequestFactory createTableRequestFactory) {
-        createTableRequestFactory.getPhysicalTables().forEach(this::createTableIfNotExists);
+    /**
+     * Returns a future that completes when the physical tables created eagerly are active, or exceptionally if any of
+     * them could not be created.  Completed right away if tables are not created eagerly.
+     *
+     * @return the startup future
+     */
+    public CompletableFuture<Void> getStartupFuture() {
+        return startupFuture;
+    }
+
+    /**
+     * Registers a listener that is called with the name of each physical table whose shared description, including its
+     * stream ARN, changed when it was refreshed.
+     *
+     * @param physicalTableRefreshListener the listener
+     */
+    public void addPhysicalTableRefreshListener(Consumer<String> physicalTableRefreshListener) {
+        physicalTableRefreshListeners.add(physicalTableRefreshListener);
+    }
+
+    @VisibleForTesting
+    void refreshPhysicalTables() {
+        physicalTables.asMap().keySet().forEach(physicalTables::refresh);
+    }
+
+    /**
+     * Returns hit and miss statistics of the cache of request translation plans.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getTranslationPlanCacheStats() {
+        return translationPlanCache.stats();
+    }
+
+    private CompletableFuture<Void> createTablesEagerly(CreateTableRequestFactory createTableRequestFactory,
+                                                        Executor createTableExecutor) {
+        return CompletableFuture.allOf(createTableRequestFactory.getPhysicalTables().stream()
+            .map(physicalTable -> CompletableFuture.runAsync(() -> getPhysicalTable(physicalTable),
+                createTableExecutor))
+            .toArray(CompletableFuture[]::new));
     }
 
     /*
-     * Creates the table mapping, creates the table if it does not exist, sets the physical table description
+     * Creates the table mapping, creates the table if it does not exist, sets the shared physical table description
      * back onto the table mapping so it includes things that can only be determined after the physical
      * table is created, like the streamArn.
      */
@@ -88,15 +209,47 @@ public class TableMappingFactory {
         TableMapping tableMapping = new TableMapping(virtualTableDescription,
             createTableRequestFactory,
             secondaryIndexMapper,
-            mtContext);
-        tableMapping.setPhysicalTable(createTableIfNotExists(tableMapping.getPhysicalTable().getCreateTableRequest()));
+            mtContext,
+            translationPlanCache);
+        tableMapping.setPhysicalTable(getPhysicalTable(tableMapping.getPhysicalTable().getCreateTableRequest()));
         LOG.info("created virtual to physical table mapping: " + tableMapping.toString());
         return tableMapping;
     }
 
+    /*
+     * Notifies the refresh listeners if a refresh replaced the description of a physical table with a different one.
+     * Called after the refreshed description is cached, so that listeners that rebuild mappings get it.
+     */
+    private void onPhysicalTableRemoved(RemovalNotification<String, DynamoTableDescriptionImpl> notification) {
+        if (notification.getCause() != RemovalCause.REPLACED) {
+            return;
+        }
+        DynamoTableDescriptionImpl previous = notification.getValue();
+        DynamoTableDescriptionImpl refreshed = physicalTables.getIfPresent(notification.getKey());
+        if (refreshed != null && (!refreshed.equals(previous)
+            || !Objects.equals(refreshed.getLastStreamArn(), previous.getLastStreamArn()))) {
+            physicalTableRefreshListeners.forEach(listener -> listener.accept(notification.getKey()));
+        }
+    }
+
+    /*
+     * Returns the shared description of the given physical table, creating the table the first time if it does not
+     * exist.
+     */
+    private DynamoTableDescriptionImpl getPhysicalTable(CreateTableRequest physicalTable) {
+        try {
+            return physicalTables.get(physicalTable.getTableName(), () -> createTableIfNotExists(physicalTable));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private DynamoTableDescriptionImpl createTableIfNotExists(CreateTableRequest physicalTable) {
-        // does not exist, create
-        if (getTableDescription(physicalTable.getTableName()).isPresent()) {
+        // does not exist or is still being created, create or wait
+        Optional<TableDescription> tableDescription = getTableDescription(physicalTable.getTableName());
+        if (tableDescription.isPresent() && !TableStatus.CREATING.toString().equals(
+            tableDescription.get().getTableStatus())) {
             LOG.info(format("using existing physical table %s", physicalTable.getTableName()));
         } else {
             LOG.info(format("creating physical table %s", physicalTable.getTableName()));
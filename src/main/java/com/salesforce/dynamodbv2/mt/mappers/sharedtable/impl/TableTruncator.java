@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_RETRIES;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_WRITE_ITEMS;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.backoff;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes all items of a virtual table from its physical table.  The physical table is scanned in parallel segments
+ * on the given executor, projecting only the physical key, and the items found are deleted in batches of 25 via
+ * {@code BatchWriteItem}, retrying unprocessed items with backoff.  Deletes and scanned items may optionally be
+ * throttled to a fixed number of items per second each across all segments; scanned items include the items of other
+ * virtual tables that share the physical table, which the scan reads but filters out.
+ *
+ * <p>The scan position of each segment is checkpointed after each page has been deleted.  If a truncation fails, the
+ * first error stops all segments, and calling {@code truncate} again with the same checkpoint key resumes each segment
+ * where it stopped, rather than rescanning the physical table from the beginning.  Checkpoints are held in memory, so
+ * they do not survive a restart; since truncation deletes what it scans, a restarted truncation still completes, it
+ * just scans again.  Checkpoints must be cleared with {@code clearCheckpoint} when the table they belong to is
+ * recreated, since resuming would skip the parts of the new table that the old one had already been truncated up to.
+ * If the calling thread is interrupted, or the truncator is shut down, the truncation stops like it does on error.
+ *
+ * <p>Operates on physical (i.e., already mapped) requests only, so that no multitenant context is needed on executor
+ * threads.
+ */
+class TableTruncator {
+
+    private static final Logger log = LoggerFactory.getLogger(TableTruncator.class);
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final Executor executor;
+    private final int totalSegments;
+    private final Optional<RateLimiter> deleteRateLimiter;
+    private final Optional<RateLimiter> scanRateLimiter;
+    private final ConcurrentMap<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+    private final Set<Runnable> runningTruncationCancellers = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a truncator.
+     *
+     * @param amazonDynamoDb the physical {@code AmazonDynamoDB}
+     * @param executor the executor on which segments are scanned and deleted
+     * @param totalSegments the number of segments to split physical table scans into
+     * @param deletesPerSecond the maximum number of items to delete per second, or empty for no limit
+     * @param scannedItemsPerSecond the maximum number of items to scan per second, or empty for no limit
+     */
+    TableTruncator(AmazonDynamoDB amazonDynamoDb, Executor executor, int totalSegments,
+                   Optional<Double> deletesPerSecond, Optional<Double> scannedItemsPerSecond) {
+        checkArgument(totalSegments > 0, "totalSegments must be positive");
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.executor = executor;
+        this.totalSegments = totalSegments;
+        this.deleteRateLimiter = deletesPerSecond.map(RateLimiter::create);
+        this.scanRateLimiter = scannedItemsPerSecond.map(RateLimiter::create);
+    }
+
+    /**
+     * Deletes all items matched by the given physical scan request.
+     *
+     * @param checkpointKey identifies the truncation for the purpose of resuming it, e.g., context and table name
+     * @param qualifiedScanRequest the scan request against the physical table that matches the items to delete
+     * @param physicalKeyNames the names of the primary key attributes of the physical table
+     * @param onDeleted called with the number of items deleted after each batch
+     * @return the number of items deleted
+     */
+    long truncate(String checkpointKey, ScanRequest qualifiedScanRequest, List<String> physicalKeyNames,
+                  LongConsumer onDeleted) {
+        if (shutdown) {
+            throw new IllegalStateException("table truncator is shut down");
+        }
+        ScanRequest keysOnlyScanRequest = projectKeys(qualifiedScanRequest, physicalKeyNames);
+        Checkpoint checkpoint = checkpoints.computeIfAbsent(checkpointKey, k -> new Checkpoint(totalSegments));
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        AtomicLong deleted = new AtomicLong();
+        CompletableFuture<?>[] futures = IntStream.range(0, totalSegments)
+            .mapToObj(segment -> CompletableFuture.runAsync(() -> {
+                try {
+                    truncateSegment(keysOnlyScanRequest, physicalKeyNames, checkpoint, segment, error, count -> {
+                        deleted.addAndGet(count);
+                        onDeleted.accept(count);
+                    });
+                } catch (RuntimeException e) {
+                    // the first error stops the other segments at their next page
+                    error.compareAndSet(null, e);
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new);
+        Runnable canceller = () -> cancel(error, futures, "truncation " + checkpointKey + " cancelled by shutdown");
+        runningTruncationCancellers.add(canceller);
+        if (shutdown) {
+            canceller.run();
+        }
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(error, futures, "truncation " + checkpointKey + " interrupted");
+        } catch (ExecutionException | CancellationException e) {
+            // segments record runtime exceptions in error, so unless the truncation was cancelled, this is an Error
+            if (error.get() == null) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IllegalStateException(e.getCause());
+            }
+        } finally {
+            runningTruncationCancellers.remove(canceller);
+        }
+        if (error.get() != null) {
+            log.warn("truncation " + checkpointKey + " failed after deleting " + deleted.get()
+                + " items, it will resume from its checkpoint when retried");
+            throw error.get();
+        }
+        checkpoints.remove(checkpointKey, checkpoint);
+        return deleted.get();
+    }
+
+    /**
+     * Stops accepting truncations and cancels running ones: their segments stop after the current page, their
+     * checkpoints are kept, and their callers get a {@code CancellationException}.
+     */
+    void shutdown() {
+        shutdown = true;
+        runningTruncationCancellers.forEach(Runnable::run);
+    }
+
+    /*
+     * Stops the segments of a truncation at their next page and completes their futures, so that the caller stops
+     * waiting for them.
+     */
+    private static void cancel(AtomicReference<RuntimeException> error, CompletableFuture<?>[] futures,
+                               String reason) {
+        error.compareAndSet(null, new CancellationException(reason));
+        Arrays.stream(futures).forEach(future -> future.cancel(false));
+    }
+
+    /**
+     * Discards the checkpoint of the given truncation, if any, so that it starts over the next time.
+     *
+     * @param checkpointKey identifies the truncation
+     */
+    void clearCheckpoint(String checkpointKey) {
+        checkpoints.remove(checkpointKey);
+    }
+
+    @VisibleForTesting
+    boolean hasCheckpoint(String checkpointKey) {
+        return checkpoints.containsKey(checkpointKey);
+    }
+
+    private void truncateSegment(ScanRequest keysOnlyScanRequest, List<String> physicalKeyNames, Checkpoint checkpoint,
+                                 int segment, AtomicReference<RuntimeException> error, LongConsumer onDeleted) {
+        if (checkpoint.isDone(segment)) {
+            return;
+        }
+        ScanRequest scanRequest = keysOnlyScanRequest.clone()
+            .withSegment(segment)
+            .withTotalSegments(totalSegments)
+            .withExclusiveStartKey(checkpoint.getStartKey(segment));
+        while (error.get() == null) {
+            ScanResult scanResult = amazonDynamoDb.scan(scanRequest);
+            int scannedCount = scanResult.getScannedCount() == null ? scanResult.getItems().size()
+                : scanResult.getScannedCount();
+            if (scannedCount > 0) {
+                scanRateLimiter.ifPresent(rateLimiter -> rateLimiter.acquire(scannedCount));
+            }
+            for (List<Map<String, AttributeValue>> batch : Lists.partition(scanResult.getItems(),
+                MAX_BATCH_WRITE_ITEMS)) {
+                deleteBatch(scanRequest.getTableName(), batch.stream()
+                    .map(item -> physicalKeyNames.stream().collect(toMap(name -> name, item::get)))
+                    .collect(toList()));
+                onDeleted.accept(batch.size());
+            }
+            checkpoint.advance(segment, scanResult.getLastEvaluatedKey());
+            if (scanResult.getLastEvaluatedKey() == null) {
+                return;
+            }
+            scanRequest = scanRequest.clone().withExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        }
+    }
+
+    private void deleteBatch(String tableName, List<Map<String, AttributeValue>> keys) {
+        deleteRateLimiter.ifPresent(rateLimiter -> rateLimiter.acquire(keys.size()));
+        BatchWriteItemRequest request = new BatchWriteItemRequest().withRequestItems(ImmutableMap.of(tableName,
+            keys.stream().map(key -> new WriteRequest(new DeleteRequest(key))).collect(toList())));
+        for (int retries = 0; ; retries++) {
+            Map<String, List<WriteRequest>> unprocessedItems = amazonDynamoDb.batchWriteItem(request)
+                .getUnprocessedItems();
+            if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+                return;
+            }
+            if (retries == MAX_BATCH_RETRIES || !backoff(request, retries)) {
+                throw new IllegalStateException("failed to delete " + unprocessedItems.get(tableName).size()
+                    + " items from " + tableName + " after " + (retries + 1) + " attempts");
+            }
+            request = request.clone().withRequestItems(unprocessedItems);
+        }
+    }
+
+    /*
+     * Projects only the key attributes of the physical table, since all that is needed to delete an item is its key.
+     */
+    private static ScanRequest projectKeys(ScanRequest qualifiedScanRequest, List<String> physicalKeyNames) {
+        Map<String, String> expressionNames = new HashMap<>();
+        if (qualifiedScanRequest.getExpressionAttributeNames() != null) {
+            expressionNames.putAll(qualifiedScanRequest.getExpressionAttributeNames());
+        }
+        List<String> placeholders = IntStream.range(0, physicalKeyNames.size())
+            .mapToObj(i -> "#___key" + i + "___")
+            .collect(toList());
+        IntStream.range(0, physicalKeyNames.size())
+            .forEach(i -> expressionNames.put(placeholders.get(i), physicalKeyNames.get(i)));
+        return qualifiedScanRequest.clone()
+            .withProjectionExpression(String.join(", ", placeholders))
+            .withExpressionAttributeNames(expressionNames);
+    }
+
+    /*
+     * Scan position of each segment: the key to resume from, or done.
+     */
+    private static class Checkpoint {
+
+        private static final Map<String, AttributeValue> DONE = ImmutableMap.of();
+
+        private final AtomicReferenceArray<Map<String, AttributeValue>> startKeys;
+
+        Checkpoint(int totalSegments) {
+            this.startKeys = new AtomicReferenceArray<>(totalSegments);
+        }
+
+        boolean isDone(int segment) {
+            return startKeys.get(segment) == DONE;
+        }
+
+        Map<String, AttributeValue> getStartKey(int segment) {
+            return startKeys.get(segment);
+        }
+
+        void advance(int segment, Map<String, AttributeValue> lastEvaluatedKey) {
+            startKeys.set(segment, lastEvaluatedKey == null ? DONE : lastEvaluatedKey);
+        }
+
+    }
+
+}
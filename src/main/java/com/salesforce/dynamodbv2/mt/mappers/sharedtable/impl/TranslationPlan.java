@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The mapping of a request against a virtual table to its physical table counterpart, in terms of the request's
+ * shape: its expressions, expression attribute names and index name.  The shape does not include attribute values or
+ * the multitenant context, so a plan can be cached and applied to every request of the same shape.  Applying a plan
+ * sets the rewritten expressions, expression attribute names and index name, and maps the values of the placeholders
+ * that refer to key fields.  Plans do not reference the field mapper of any tenant; values are mapped with the field
+ * mapper passed in when the plan is applied, so one plan serves all tables with the same definition.
+ */
+class TranslationPlan {
+
+    private final String primaryExpression;
+    private final boolean primaryExpressionChanged;
+    private final String filterExpression;
+    private final boolean filterExpressionChanged;
+    private final String indexName;
+    private final boolean indexNameChanged;
+    private final Map<String, String> expressionAttributeNames;
+    private final List<ValueMapping> valueMappings;
+
+    private TranslationPlan(Builder builder) {
+        this.primaryExpression = builder.primaryExpression;
+        this.primaryExpressionChanged = !Objects.equals(builder.primaryExpression, builder.originalPrimaryExpression);
+        this.filterExpression = builder.filterExpression;
+        this.filterExpressionChanged = !Objects.equals(builder.filterExpression, builder.originalFilterExpression);
+        this.indexName = builder.indexName;
+        this.indexNameChanged = !Objects.equals(builder.indexName, builder.originalIndexName);
+        this.expressionAttributeNames = builder.putExpressionAttributeNames;
+        this.valueMappings = builder.valueMappings;
+    }
+
+    /**
+     * Applies the plan to the given request, which must have the shape the plan was built for.
+     *
+     * @param request the request to map
+     * @param fieldMapper the field mapper of the table mapping the request is against
+     */
+    void apply(RequestWrapper request, FieldMapper fieldMapper) {
+        if (indexNameChanged) {
+            request.setIndexName(indexName);
+        }
+        if (primaryExpressionChanged) {
+            request.setPrimaryExpression(primaryExpression);
+        }
+        if (filterExpressionChanged) {
+            request.setFilterExpression(filterExpression);
+        }
+        expressionAttributeNames.forEach(request::putExpressionAttributeName);
+        valueMappings.forEach(valueMapping -> valueMapping.apply(request, fieldMapper));
+    }
+
+    private static class ValueMapping {
+
+        private final String placeholder;
+        private final FieldMapping fieldMapping;
+        private final AttributeValue virtualValue;
+
+        ValueMapping(String placeholder, FieldMapping fieldMapping, AttributeValue virtualValue) {
+            this.placeholder = placeholder;
+            this.fieldMapping = fieldMapping;
+            this.virtualValue = virtualValue;
+        }
+
+        void apply(RequestWrapper request, FieldMapper fieldMapper) {
+            AttributeValue value = virtualValue != null
+                ? virtualValue
+                : request.getExpressionAttributeValues().get(placeholder);
+            request.putExpressionAttributeValue(placeholder,
+                fieldMapping != null ? fieldMapper.apply(fieldMapping, value) : value);
+        }
+
+    }
+
+    /**
+     * Builds a plan by recording the changes mappers make to the shape of a request.  Attribute values are not part of
+     * the shape, so they cannot be read or written directly; value mappings are recorded with
+     * {@code mapExpressionAttributeValue} instead.
+     */
+    static class Builder implements RequestWrapper {
+
+        private final String originalPrimaryExpression;
+        private final String originalFilterExpression;
+        private final String originalIndexName;
+        private String primaryExpression;
+        private String filterExpression;
+        private String indexName;
+        private Map<String, String> expressionAttributeNames;
+        private final Map<String, String> putExpressionAttributeNames = new LinkedHashMap<>();
+        private final List<ValueMapping> valueMappings = new ArrayList<>();
+
+        Builder(RequestWrapper request) {
+            this.originalPrimaryExpression = request.getPrimaryExpression();
+            this.originalFilterExpression = request.getFilterExpression();
+            this.originalIndexName = request.getIndexName();
+            this.primaryExpression = originalPrimaryExpression;
+            this.filterExpression = originalFilterExpression;
+            this.indexName = originalIndexName;
+            Map<String, String> names = request.getExpressionAttributeNames();
+            this.expressionAttributeNames = names == null ? null : new HashMap<>(names);
+        }
+
+        /**
+         * Records that the value of the given placeholder is to be mapped.
+         *
+         * @param placeholder the value placeholder
+         * @param fieldMapping the field mapping to apply to the value
+         * @param virtualValue the value to map, or null to map the value of the placeholder in the request
+         */
+        void mapExpressionAttributeValue(String placeholder, FieldMapping fieldMapping, AttributeValue virtualValue) {
+            valueMappings.add(new ValueMapping(placeholder, fieldMapping, virtualValue));
+        }
+
+        /**
+         * Records that the value of the given placeholder is to be kept as is.
+         */
+        void keepExpressionAttributeValue(String placeholder) {
+            valueMappings.add(new ValueMapping(placeholder, null, null));
+        }
+
+        TranslationPlan build() {
+            return new TranslationPlan(this);
+        }
+
+        @Override
+        public String getIndexName() {
+            return indexName;
+        }
+
+        @Override
+        public void setIndexName(String indexName) {
+            this.indexName = indexName;
+        }
+
+        @Override
+        public Map<String, String> getExpressionAttributeNames() {
+            return expressionAttributeNames;
+        }
+
+        @Override
+        public void putExpressionAttributeName(String key, String value) {
+            if (expressionAttributeNames == null) {
+                expressionAttributeNames = new HashMap<>();
+            }
+            expressionAttributeNames.put(key, value);
+            putExpressionAttributeNames.put(key, value);
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExpressionAttributeValues() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putExpressionAttributeValue(String key, AttributeValue value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getPrimaryExpression() {
+            return primaryExpression;
+        }
+
+        @Override
+        public void setPrimaryExpression(String expression) {
+            this.primaryExpression = expression;
+        }
+
+        @Override
+        public String getFilterExpression() {
+            return filterExpression;
+        }
+
+        @Override
+        public void setFilterExpression(String expression) {
+            this.filterExpression = expression;
+        }
+
+        @Override
+        public Map<String, Condition> getLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clearLegacyExpression() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, AttributeValue> getExclusiveStartKey() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setExclusiveStartKey(Map<String, AttributeValue> exclusiveStartKey) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A bounded cache of {@code TranslationPlan}s, keyed by virtual and physical table definition, request type and request
+ * shape, i.e., the expressions, expression attribute names and index name of the request.  Clients typically send a
+ * limited number of expression templates that differ only in attribute values, so requests mostly only need their
+ * values mapped.  Plans do not depend on the tenant, so tenants whose tables have the same definition share them.
+ */
+class TranslationPlanCache {
+
+    private final Cache<List<Object>, TranslationPlan> cache;
+    private final Interner<TableKey> tableKeys = Interners.newWeakInterner();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumSize the maximum number of plans to cache, 0 to not cache plans at all
+     */
+    TranslationPlanCache(long maximumSize) {
+        checkArgument(maximumSize >= 0, "maximumSize must not be negative");
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the key to look up plans for requests against the given tables with.  Equal definitions get the same key
+     * instance, so that looking up plans does not compare table definitions.
+     *
+     * @param virtualTable the virtual table definition
+     * @param physicalTable the physical table definition
+     * @return the table key
+     */
+    Object getTableKey(DynamoTableDescription virtualTable, DynamoTableDescription physicalTable) {
+        return tableKeys.intern(new TableKey(virtualTable, physicalTable));
+    }
+
+    /**
+     * Returns the plan for the given request, building it with the given planner if it is not cached.
+     *
+     * @param tableKey the key of the tables the request is against, see {@code getTableKey}
+     * @param request the request
+     * @param planner records the mapping of the request
+     * @return the plan
+     */
+    TranslationPlan get(Object tableKey, RequestWrapper request, Consumer<TranslationPlan.Builder> planner) {
+        Map<String, String> names = request.getExpressionAttributeNames();
+        List<Object> key = Arrays.asList(tableKey, request.getClass(), request.getIndexName(),
+            request.getPrimaryExpression(), request.getFilterExpression(),
+            names == null ? null : ImmutableMap.copyOf(names));
+        TranslationPlan plan = cache.getIfPresent(key);
+        if (plan == null) {
+            TranslationPlan.Builder builder = new TranslationPlan.Builder(request);
+            planner.accept(builder);
+            plan = builder.build();
+            cache.put(key, plan);
+        }
+        return plan;
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static class TableKey {
+
+        private final DynamoTableDescription virtualTable;
+        private final DynamoTableDescription physicalTable;
+        private final int hashCode;
+
+        TableKey(DynamoTableDescription virtualTable, DynamoTableDescription physicalTable) {
+            this.virtualTable = virtualTable;
+            this.physicalTable = physicalTable;
+            this.hashCode = Objects.hash(virtualTable, physicalTable);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TableKey that = (TableKey) o;
+            return hashCode == that.hashCode
+                && virtualTable.equals(that.virtualTable)
+                && physicalTable.equals(that.physicalTable);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.salesforce.dynamodbv2.mt.admin.AmazonDynamoDbAdminUtils;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.util.DynamoDbCapacity;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the hash-key values of all virtual tables in a single table.  The hash key of the registry table is the table
+ * name prefixed with the context and a {@code /}, which, like in the physical hash keys of shared tables, neither may
+ * contain; the range key is the binary encoding of the hash-key value, prefixed with its type.
+ *
+ * <p>Registrations are remembered in a bounded in-memory cache, so that repeated writes to the same partition do not
+ * cause repeated writes to the registry.  The cache is local to each node: when another node deletes and recreates a
+ * table, this node may skip registering hash keys of the new table until its entries expire.  To avoid that, register
+ * {@code invalidateHashKeys} with the {@code MtTableDescriptionStreamListener}, so that entries are removed when the
+ * table description changes on any node.
+ *
+ * <p>The AmazonDynamoDb that it uses must not, itself, be a MtAmazonDynamoDb* instance.
+ */
+public class MtDynamoDbHashKeyRegistry implements MtHashKeyRegistry {
+
+    private static final String TABLE_FIELD = "table";
+    private static final String HASH_KEY_FIELD = "hashKey";
+    private static final char DELIMITER = '/';
+    private static final long DEFAULT_REGISTERED_CACHE_SIZE = 10_000L;
+    private static final long REGISTERED_CACHE_EXPIRY_MINUTES = 5L;
+
+    private final AmazonDynamoDB amazonDynamoDb;
+    private final BillingMode billingMode;
+    private final MtAmazonDynamoDbContextProvider mtContext;
+    private final AmazonDynamoDbAdminUtils adminUtils;
+    private final String registryTableName;
+    private final int pollIntervalSeconds;
+    private final Cache<List<Object>, Boolean> registered;
+
+    private MtDynamoDbHashKeyRegistry(AmazonDynamoDB amazonDynamoDb,
+                                      BillingMode billingMode,
+                                      MtAmazonDynamoDbContextProvider mtContext,
+                                      String registryTableName,
+                                      Optional<String> tablePrefix,
+                                      int pollIntervalSeconds,
+                                      long registeredCacheSize) {
+        this.amazonDynamoDb = amazonDynamoDb;
+        this.billingMode = billingMode;
+        this.mtContext = mtContext;
+        this.adminUtils = new AmazonDynamoDbAdminUtils(amazonDynamoDb);
+        this.registryTableName = tablePrefix.map(prefix -> prefix + registryTableName).orElse(registryTableName);
+        this.pollIntervalSeconds = pollIntervalSeconds;
+        this.registered = CacheBuilder.newBuilder()
+            .maximumSize(registeredCacheSize)
+            .expireAfterWrite(REGISTERED_CACHE_EXPIRY_MINUTES, TimeUnit.MINUTES)
+            .build();
+    }
+
+    public static MtDynamoDbHashKeyRegistryBuilder builder() {
+        return new MtDynamoDbHashKeyRegistryBuilder();
+    }
+
+    @Override
+    public void registerHashKey(String tableName, AttributeValue hashKey) {
+        String context = mtContext.getContext();
+        ByteBuffer encodedHashKey = encode(hashKey);
+        List<Object> cacheKey = ImmutableList.of(context, tableName, encodedHashKey);
+        if (registered.getIfPresent(cacheKey) == null) {
+            amazonDynamoDb.putItem(new PutItemRequest().withTableName(registryTableName)
+                .withItem(createItem(qualify(context, tableName), encodedHashKey)));
+            registered.put(cacheKey, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public Iterator<AttributeValue> getHashKeys(String tableName, AttributeValue exclusiveStartHashKey) {
+        QueryRequest queryRequest = new QueryRequest().withTableName(registryTableName)
+            .withKeyConditionExpression("#table = :table")
+            .withExpressionAttributeNames(new HashMap<>(ImmutableMap.of("#table", TABLE_FIELD)))
+            .withExpressionAttributeValues(new HashMap<>(ImmutableMap.of(":table",
+                new AttributeValue(addPrefix(tableName)))))
+            .withConsistentRead(true);
+        if (exclusiveStartHashKey != null) {
+            queryRequest.setKeyConditionExpression(queryRequest.getKeyConditionExpression() + " and #hashKey > :start");
+            queryRequest.addExpressionAttributeNamesEntry("#hashKey", HASH_KEY_FIELD);
+            queryRequest.addExpressionAttributeValuesEntry(":start",
+                new AttributeValue().withB(encode(exclusiveStartHashKey)));
+        }
+        return Iterators.transform(new QueryItemIterator(queryRequest),
+            item -> decode(item.get(HASH_KEY_FIELD).getB()));
+    }
+
+    @Override
+    public void deleteHashKeys(String tableName) {
+        String context = mtContext.getContext();
+        String qualifiedTableName = qualify(context, tableName);
+        getHashKeys(tableName, null).forEachRemaining(hashKey -> amazonDynamoDb.deleteItem(new DeleteItemRequest()
+            .withTableName(registryTableName)
+            .withKey(createItem(qualifiedTableName, encode(hashKey)))));
+        invalidateHashKeys(context, tableName);
+    }
+
+    /**
+     * Removes the cached registrations of the given virtual table of the given tenant, so that its hash keys are
+     * registered again on next write.  Can be used as an invalidation listener of the
+     * {@code MtTableDescriptionStreamListener}.
+     *
+     * @param context the tenant context
+     * @param tableName the name of the virtual table
+     */
+    public void invalidateHashKeys(String context, String tableName) {
+        registered.asMap().keySet().removeIf(cacheKey -> cacheKey.get(0).equals(context)
+            && cacheKey.get(1).equals(tableName));
+    }
+
+    /**
+     * Creates the registry table, unless it exists already.
+     */
+    public void createHashKeyRegistryTable() {
+        CreateTableRequest createTableRequest = new CreateTableRequest();
+        DynamoDbCapacity.setBillingMode(createTableRequest, billingMode);
+        adminUtils.createTableIfNotExists(createTableRequest.withTableName(registryTableName)
+                .withKeySchema(
+                    new KeySchemaElement().withAttributeName(TABLE_FIELD).withKeyType(KeyType.HASH),
+                    new KeySchemaElement().withAttributeName(HASH_KEY_FIELD).withKeyType(KeyType.RANGE))
+                .withAttributeDefinitions(
+                    new AttributeDefinition().withAttributeName(TABLE_FIELD)
+                        .withAttributeType(ScalarAttributeType.S),
+                    new AttributeDefinition().withAttributeName(HASH_KEY_FIELD)
+                        .withAttributeType(ScalarAttributeType.B)),
+            pollIntervalSeconds);
+    }
+
+    private static Map<String, AttributeValue> createItem(String qualifiedTableName, ByteBuffer encodedHashKey) {
+        return new HashMap<>(ImmutableMap.of(
+            TABLE_FIELD, new AttributeValue(qualifiedTableName),
+            HASH_KEY_FIELD, new AttributeValue().withB(encodedHashKey.duplicate())));
+    }
+
+    private String addPrefix(String tableName) {
+        return qualify(mtContext.getContext(), tableName);
+    }
+
+    private static String qualify(String context, String tableName) {
+        checkArgument(context.indexOf(DELIMITER) == -1 && tableName.indexOf(DELIMITER) == -1,
+            "context and table name may not contain " + DELIMITER);
+        return context + DELIMITER + tableName;
+    }
+
+    /*
+     * Encodes the given scalar value as its type character followed by its bytes.  Numbers are normalized, so that
+     * values that DynamoDB considers equal (e.g., '1' and '1.0') are registered only once.
+     */
+    @VisibleForTesting
+    static ByteBuffer encode(AttributeValue value) {
+        byte type;
+        byte[] bytes;
+        if (value.getS() != null) {
+            type = 'S';
+            bytes = value.getS().getBytes(UTF_8);
+        } else if (value.getN() != null) {
+            type = 'N';
+            bytes = new BigDecimal(value.getN()).stripTrailingZeros().toPlainString().getBytes(UTF_8);
+        } else if (value.getB() != null) {
+            type = 'B';
+            ByteBuffer b = value.getB().asReadOnlyBuffer();
+            bytes = new byte[b.remaining()];
+            b.get(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported hash key value " + value);
+        }
+        return ByteBuffer.allocate(bytes.length + 1).put(type).put(bytes).flip();
+    }
+
+    @VisibleForTesting
+    static AttributeValue decode(ByteBuffer encoded) {
+        ByteBuffer buffer = encoded.asReadOnlyBuffer();
+        byte type = buffer.get();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        switch (type) {
+            case 'S':
+                return new AttributeValue().withS(new String(bytes, UTF_8));
+            case 'N':
+                return new AttributeValue().withN(new String(bytes, UTF_8));
+            case 'B':
+                return new AttributeValue().withB(ByteBuffer.wrap(bytes));
+            default:
+                throw new IllegalStateException("Unsupported hash key type " + (char) type);
+        }
+    }
+
+    /*
+     * Iterates over the items of all pages of the given query.
+     */
+    private class QueryItemIterator extends AbstractIterator<Map<String, AttributeValue>> {
+
+        private QueryRequest queryRequest;
+        private Iterator<Map<String, AttributeValue>> currentPage = Collections.emptyIterator();
+
+        QueryItemIterator(QueryRequest queryRequest) {
+            this.queryRequest = queryRequest;
+        }
+
+        @Override
+        protected Map<String, AttributeValue> computeNext() {
+            while (!currentPage.hasNext()) {
+                if (queryRequest == null) {
+                    return endOfData();
+                }
+                QueryResult queryResult = amazonDynamoDb.query(queryRequest);
+                currentPage = queryResult.getItems().iterator();
+                queryRequest = queryResult.getLastEvaluatedKey() == null ? null
+                    : queryRequest.clone().withExclusiveStartKey(queryResult.getLastEvaluatedKey());
+            }
+            return currentPage.next();
+        }
+
+    }
+
+    public static class MtDynamoDbHashKeyRegistryBuilder {
+
+        private AmazonDynamoDB amazonDynamoDb;
+        private MtAmazonDynamoDbContextProvider mtContext;
+        private String registryTableName;
+        private BillingMode billingMode;
+        private Optional<String> tablePrefix = Optional.empty();
+        private Integer pollIntervalSeconds;
+        private Long registeredCacheSize;
+
+        public MtDynamoDbHashKeyRegistryBuilder withAmazonDynamoDb(AmazonDynamoDB amazonDynamoDb) {
+            this.amazonDynamoDb = amazonDynamoDb;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withContext(MtAmazonDynamoDbContextProvider mtContext) {
+            this.mtContext = mtContext;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withRegistryTableName(String registryTableName) {
+            this.registryTableName = registryTableName;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withBillingMode(BillingMode billingMode) {
+            this.billingMode = billingMode;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withTablePrefix(Optional<String> tablePrefix) {
+            this.tablePrefix = tablePrefix;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withPollIntervalSeconds(int pollIntervalSeconds) {
+            this.pollIntervalSeconds = pollIntervalSeconds;
+            return this;
+        }
+
+        public MtDynamoDbHashKeyRegistryBuilder withRegisteredCacheSize(long registeredCacheSize) {
+            this.registeredCacheSize = registeredCacheSize;
+            return this;
+        }
+
+        /**
+         * Builds the registry.
+         *
+         * @return a newly created {@code MtDynamoDbHashKeyRegistry} based on the contents of the
+         *     {@code MtDynamoDbHashKeyRegistryBuilder}
+         */
+        public MtDynamoDbHashKeyRegistry build() {
+            setDefaults();
+            validate();
+            return new MtDynamoDbHashKeyRegistry(
+                amazonDynamoDb,
+                billingMode,
+                mtContext,
+                registryTableName,
+                tablePrefix,
+                pollIntervalSeconds,
+                registeredCacheSize);
+        }
+
+        private void validate() {
+            checkArgument(amazonDynamoDb != null, "amazonDynamoDb is required");
+            checkArgument(mtContext != null, "mtContext is required");
+            checkArgument(registryTableName != null, "registryTableName is required");
+        }
+
+        private void setDefaults() {
+            if (pollIntervalSeconds == null) {
+                pollIntervalSeconds = 5;
+            }
+            if (registeredCacheSize == null) {
+                registeredCacheSize = DEFAULT_REGISTERED_CACHE_SIZE;
+            }
+        }
+
+    }
+
+}
@@ -8,40 +8,91 @@
 package com.salesforce.dynamodbv2.mt.repo;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
 import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.Gson;
 import com.salesforce.dynamodbv2.mt.admin.AmazonDynamoDbAdminUtils;
-import com.salesforce.dynamodbv2.mt.cache.MtCache;
+import com.salesforce.dynamodbv2.mt.cache.MtTenantCache;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.util.DynamoDbCapacity;
 
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Stores table definitions in single table.  Each record represents a table.  Table names are prefixed with context.
  *
+ * <p>Table definitions are stored as JSON by default.  With {@code withBinaryEncoding(true)}, they are stored in a
+ * compact binary encoding instead (see {@code TableDescriptionCodec}); enable it only once no node that only reads
+ * JSON shares the table anymore.  Records in either encoding are read.
+ *
+ * <p>By default, the hash key of each record is the table name prefixed with the context.  With
+ * {@code withTableDescriptionTableRangeKeyField}, the hash key is the context and the range key is the table name
+ * instead, so that all table definitions of a tenant can be loaded with one query (see
+ * {@code getTableDescriptions}).  To migrate to that layout, build the new repo with {@code withLegacyRepo}: tables
+ * not found in the new table are then read from the legacy repo and copied, deletes apply to both, and
+ * {@code migrateLegacyTableDescriptions} copies all remaining records.
+ *
+ * <p>Cached table definitions are refreshed in the background when they are read after the refresh-after-write
+ * duration, so that changes made by other nodes propagate without a cache miss on the request path.  Only
+ * {@code getTableDescription} reads refreshed definitions directly; state derived from them, such as table mappings,
+ * is invalidated by refresh listeners (see {@code addRefreshListener}) when a refreshed definition changed.
+ *
  * <p>The AmazonDynamoDb that it uses must not, itself, be a MtAmazonDynamoDb* instance.  MtAmazonDynamoDbLogger
  * is supported.
  *
@@ -52,7 +103,11 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
     private static final String TABLE_METADATA_HK_FIELD = "table";
     private static final String TABLE_METADATA_DATA_FIELD = "data";
     private static final String DELIMITER = ".";
+    private static final Duration DEFAULT_NOT_FOUND_CACHE_TTL = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_CACHE_REFRESH_AFTER_WRITE = Duration.ofMinutes(5);
+    private static final int MAX_BATCH_GET_KEYS = 100;
 
+    private static final Logger log = LoggerFactory.getLogger(MtDynamoDbTableDescriptionRepo.class);
     private static final Gson GSON = new Gson();
     private final AmazonDynamoDB amazonDynamoDb;
     private final BillingMode billingMode;
@@ -60,10 +115,22 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
     private final AmazonDynamoDbAdminUtils adminUtils;
     private final String tableDescriptionTableName;
     private final String tableDescriptionTableHashKeyField;
+    private final String tableDescriptionTableRangeKeyField;
     private final String tableDescriptionTableDataField;
+    private final StreamViewType tableDescriptionTableStreamViewType;
     private final String delimiter;
     private final int pollIntervalSeconds;
-    private final MtCache<TableDescription> cache;
+    private final boolean binaryEncoding;
+    private final MtDynamoDbTableDescriptionRepo legacyRepo;
+    // creates the table description table on first use; retried if that fails
+    private final Supplier<String> tableDescriptionTable;
+    private final MtTenantCache<TableDescription> cache;
+    private final List<BiConsumer<String, String>> refreshListeners = new CopyOnWriteArrayList<>();
+    // nano times until which tables are known not to exist
+    private final MtTenantCache<Long> notFoundCache;
+    private final long notFoundCacheTtlNanos;
+    // generations of tables that were looked up and not found, or created, see cacheNotFound
+    private final MtTenantCache<Generation> generations;
 
     private MtDynamoDbTableDescriptionRepo(AmazonDynamoDB amazonDynamoDb,
                                            BillingMode billingMode,
@@ -71,25 +138,49 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                                            String tableDescriptionTableName,
                                            Optional<String> tablePrefix,
                                            String tableDescriptionTableHashKeyField,
+                                           String tableDescriptionTableRangeKeyField,
                                            String tableDescriptionTableDataField,
+                                           StreamViewType tableDescriptionTableStreamViewType,
                                            String delimiter,
-                                           int pollIntervalSeconds) {
+                                           int pollIntervalSeconds,
+                                           boolean binaryEncoding,
+                                           MtDynamoDbTableDescriptionRepo legacyRepo,
+                                           long cacheMaximumSize,
+                                           Duration cacheExpireAfterAccess,
+                                           Duration cacheRefreshAfterWrite,
+                                           Executor cacheRefreshExecutor,
+                                           Duration notFoundCacheTtl) {
         this.amazonDynamoDb = amazonDynamoDb;
         this.billingMode = billingMode;
         this.mtContext = mtContext;
         adminUtils = new AmazonDynamoDbAdminUtils(amazonDynamoDb);
         this.tableDescriptionTableName = prefix(tableDescriptionTableName, tablePrefix);
         this.tableDescriptionTableHashKeyField = tableDescriptionTableHashKeyField;
+        this.tableDescriptionTableRangeKeyField = tableDescriptionTableRangeKeyField;
         this.tableDescriptionTableDataField = tableDescriptionTableDataField;
+        this.tableDescriptionTableStreamViewType = tableDescriptionTableStreamViewType;
         this.delimiter = delimiter;
         this.pollIntervalSeconds = pollIntervalSeconds;
-        cache = new MtCache<>(mtContext);
+        this.binaryEncoding = binaryEncoding;
+        this.legacyRepo = legacyRepo;
+        tableDescriptionTable = Suppliers.memoize(() -> {
+            createTableDescriptionTableIfNotExists(this.pollIntervalSeconds);
+            return this.tableDescriptionTableName;
+        });
+        cache = new MtTenantCache<>(mtContext, cacheMaximumSize, cacheExpireAfterAccess, cacheRefreshAfterWrite,
+            cacheRefreshExecutor, (context, tableName) -> refreshListeners.forEach(refreshListener ->
+                refreshListener.accept(context, tableName)));
+        notFoundCache = new MtTenantCache<>(mtContext, cacheMaximumSize, notFoundCacheTtl);
+        notFoundCacheTtlNanos = notFoundCacheTtl.toNanos();
+        generations = new MtTenantCache<>(mtContext, cacheMaximumSize, cacheExpireAfterAccess);
     }
 
     @Override
     public TableDescription createTable(CreateTableRequest createTableRequest) {
         amazonDynamoDb.putItem(new PutItemRequest().withTableName(getTableDescriptionTableName())
-            .withItem(createItem(createTableRequest)));
+            .withItem(createItem(createTableRequest.getTableName(), createTableDescription(createTableRequest))));
+        // do not join a lookup that is in progress and may not find the table
+        invalidate(mtContext.getContext(), createTableRequest.getTableName());
         return getTableDescription(createTableRequest.getTableName());
     }
 
@@ -98,13 +189,183 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         return getTableDescriptionFromCache(tableName);
     }
 
+    /**
+     * Returns the descriptions of all tables of the current context, reading them with one paginated query, and
+     * caches them.  Empty unless the table description table has the context hash key layout (see
+     * {@code withTableDescriptionTableRangeKeyField}).  Tables of a legacy repo that have not been copied yet are not
+     * included.
+     */
+    @Override
+    public Optional<List<TableDescription>> getTableDescriptions() {
+        if (tableDescriptionTableRangeKeyField == null) {
+            return Optional.empty();
+        }
+        List<TableDescription> tableDescriptions = new ArrayList<>();
+        QueryRequest queryRequest = new QueryRequest()
+            .withTableName(getTableDescriptionTableName())
+            .withKeyConditionExpression("#context = :context")
+            .withExpressionAttributeNames(ImmutableMap.of("#context", tableDescriptionTableHashKeyField))
+            .withExpressionAttributeValues(ImmutableMap.of(":context", new AttributeValue(mtContext.getContext())));
+        while (queryRequest != null) {
+            QueryResult queryResult = amazonDynamoDb.query(queryRequest);
+            for (Map<String, AttributeValue> item : queryResult.getItems()) {
+                String tableName = item.get(tableDescriptionTableRangeKeyField).getS();
+                TableDescription tableDescription = getTableData(item);
+                cache.put(tableName, tableDescription);
+                notFoundCache.invalidate(tableName);
+                tableDescriptions.add(tableDescription);
+            }
+            queryRequest = queryResult.getLastEvaluatedKey() == null ? null
+                : queryRequest.clone().withExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        }
+        return Optional.of(tableDescriptions);
+    }
+
+    /**
+     * Returns the descriptions of the given tables of the current context, reading those that are not cached with
+     * batch gets of up to 100 tables, and caches them.  Like single lookups, tables that are cached as not found are
+     * left out, and what is read is only cached if the table was not created, deleted, or invalidated in the meantime.
+     * Tables whose keys are not processed, or that are not found but may still be in the legacy repo, are read one at
+     * a time.  Tables that do not exist are left out.
+     */
+    @Override
+    public List<TableDescription> getTableDescriptions(Collection<String> tableNames) {
+        List<TableDescription> tableDescriptions = new ArrayList<>(tableNames.size());
+        List<String> remainingTableNames = new ArrayList<>();
+        for (List<String> batch : Iterables.partition(ImmutableSet.copyOf(tableNames), MAX_BATCH_GET_KEYS)) {
+            Map<Map<String, AttributeValue>, String> tableNamesByKey = new HashMap<>();
+            Map<String, Generation> generationsByTableName = new HashMap<>();
+            Map<String, Long> generationValuesByTableName = new HashMap<>();
+            for (String tableName : batch) {
+                TableDescription cached = cache.getIfPresent(tableName);
+                if (cached != null) {
+                    tableDescriptions.add(cached);
+                } else if (!isCachedNotFound(tableName)) {
+                    Generation generation = getGeneration(tableName);
+                    generationsByTableName.put(tableName, generation);
+                    generationValuesByTableName.put(tableName, generation.get());
+                    tableNamesByKey.put(createKey(tableName), tableName);
+                }
+            }
+            if (tableNamesByKey.isEmpty()) {
+                continue;
+            }
+            BatchGetItemResult result = amazonDynamoDb.batchGetItem(new BatchGetItemRequest().withRequestItems(
+                ImmutableMap.of(getTableDescriptionTableName(),
+                    new KeysAndAttributes().withKeys(tableNamesByKey.keySet()))));
+            Set<String> notRead = new HashSet<>(tableNamesByKey.values());
+            for (Map<String, AttributeValue> item : result.getResponses().get(getTableDescriptionTableName())) {
+                TableDescription tableDescription = getTableData(item);
+                String tableName = tableDescription.getTableName();
+                cacheFound(tableName, tableDescription, generationsByTableName.get(tableName),
+                    generationValuesByTableName.get(tableName));
+                tableDescriptions.add(tableDescription);
+                notRead.remove(tableName);
+            }
+            KeysAndAttributes unprocessed = result.getUnprocessedKeys().get(getTableDescriptionTableName());
+            if (unprocessed != null) {
+                unprocessed.getKeys().forEach(key -> {
+                    String tableName = tableNamesByKey.get(key);
+                    notRead.remove(tableName);
+                    remainingTableNames.add(tableName);
+                });
+            }
+            for (String tableName : notRead) {
+                if (legacyRepo != null) {
+                    remainingTableNames.add(tableName);
+                } else if (notFoundCacheTtlNanos > 0) {
+                    cacheNotFound(tableName, generationsByTableName.get(tableName),
+                        generationValuesByTableName.get(tableName));
+                }
+            }
+        }
+        for (String tableName : remainingTableNames) {
+            try {
+                tableDescriptions.add(getTableDescription(tableName));
+            } catch (ResourceNotFoundException e) {
+                // not included
+            }
+        }
+        return tableDescriptions;
+    }
+
+    /**
+     * Copies all records of the legacy repo to this repo that are not in this repo yet.  Requires a legacy repo (see
+     * {@code withLegacyRepo}).
+     *
+     * @return the number of records copied
+     */
+    public int migrateLegacyTableDescriptions() {
+        checkState(legacyRepo != null, "no legacy repo to migrate from");
+        createTableDescriptionTableIfNotExists(pollIntervalSeconds);
+        int copied = 0;
+        ScanRequest scanRequest = new ScanRequest().withTableName(legacyRepo.tableDescriptionTableName);
+        while (scanRequest != null) {
+            ScanResult scanResult = amazonDynamoDb.scan(scanRequest);
+            for (Map<String, AttributeValue> item : scanResult.getItems()) {
+                TableDescription tableDescription = legacyRepo.getTableData(item);
+                String prefixedTableName = item.get(legacyRepo.tableDescriptionTableHashKeyField).getS();
+                String suffix = legacyRepo.delimiter + tableDescription.getTableName();
+                checkState(prefixedTableName.endsWith(suffix), "unexpected legacy record " + prefixedTableName);
+                String context = prefixedTableName.substring(0, prefixedTableName.length() - suffix.length());
+                if (mtContext.withContext(context, this::copyItem, tableDescription)) {
+                    copied++;
+                }
+            }
+            scanRequest = scanResult.getLastEvaluatedKey() == null ? null
+                : scanRequest.clone().withExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        }
+        log.info("copied {} table descriptions from {} to {}", copied, legacyRepo.tableDescriptionTableName,
+            tableDescriptionTableName);
+        return copied;
+    }
+
+    /**
+     * Registers a listener that is called with the context and name of each table whose cached definition changed
+     * when it was refreshed.  Called on the refresh executor.
+     */
+    @Override
+    public void addRefreshListener(BiConsumer<String, String> refreshListener) {
+        refreshListeners.add(refreshListener);
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Removes the cached table descriptions and not-found lookups of the given tenant, so that they are read again on
+     * next access.
+     *
+     * @param context the tenant context
+     */
+    public void invalidateCache(String context) {
+        cache.invalidateTenant(context);
+        generations.invalidateTenant(context);
+        notFoundCache.invalidateTenant(context);
+    }
+
+    /**
+     * Removes the cached table description and not-found lookup of the given table of the given tenant, so that it is
+     * read again on next access.
+     *
+     * @param context the tenant context
+     * @param tableName the table name
+     */
+    public void invalidateCache(String context, String tableName) {
+        invalidate(context, tableName);
+    }
+
     public static MtDynamoDbTableDescriptionRepoBuilder builder() {
         return new MtDynamoDbTableDescriptionRepoBuilder();
     }
 
     private TableDescription getTableDescriptionFromCache(String tableName) throws ResourceNotFoundException {
+        if (isCachedNotFound(tableName)) {
+            throw new ResourceNotFoundException(getNotFoundMessage(tableName));
+        }
         try {
-            return cache.get(tableName, () -> getTableDescriptionNoCache(tableName));
+            return cache.get(tableName, () -> loadTableDescription(tableName));
         } catch (UncheckedExecutionException e) {
             if (e.getCause() instanceof ResourceNotFoundException) {
                 throw (ResourceNotFoundException) e.getCause();
@@ -116,43 +377,197 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         }
     }
 
+    private boolean isCachedNotFound(String tableName) {
+        if (notFoundCacheTtlNanos > 0) {
+            Long notFoundUntil = notFoundCache.getIfPresent(tableName);
+            if (notFoundUntil != null) {
+                if (System.nanoTime() - notFoundUntil < 0) {
+                    return true;
+                }
+                notFoundCache.invalidate(tableName);
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Loads the given table description and caches that it was not found, if so.  The table may be created while it
+     * is looked up, so that is only cached if the generation of the table did not change in the meantime.
+     */
+    private TableDescription loadTableDescription(String tableName) {
+        if (notFoundCacheTtlNanos == 0) {
+            return getTableDescriptionNoCache(tableName);
+        }
+        Generation generation = getGeneration(tableName);
+        long value = generation.get();
+        try {
+            return getTableDescriptionNoCache(tableName);
+        } catch (ResourceNotFoundException e) {
+            cacheNotFound(tableName, generation, value);
+            throw e;
+        }
+    }
+
+    private void cacheNotFound(String tableName, Generation generation, long value) {
+        synchronized (generation) {
+            // the generation is replaced if it was evicted or invalidated
+            if (generations.getIfPresent(tableName) == generation && generation.value == value) {
+                notFoundCache.put(tableName, System.nanoTime() + notFoundCacheTtlNanos);
+            }
+        }
+    }
+
+    private void cacheFound(String tableName, TableDescription tableDescription, Generation generation, long value) {
+        synchronized (generation) {
+            if (generations.getIfPresent(tableName) == generation && generation.value == value) {
+                cache.put(tableName, tableDescription);
+                notFoundCache.invalidate(tableName);
+            }
+        }
+    }
+
+    /*
+     * Removes the cached description and not-found lookup of the given table and increments its generation, so that
+     * lookups that are in progress do not cache what they read before.  Lookups that start later get the generation
+     * before they read the table, so there is nothing to increment if there is no generation.
+     */
+    private void invalidate(String context, String tableName) {
+        Generation generation = generations.getIfPresent(context, tableName);
+        if (generation == null) {
+            cache.invalidate(context, tableName);
+            notFoundCache.invalidate(context, tableName);
+            return;
+        }
+        synchronized (generation) {
+            generation.value++;
+            cache.invalidate(context, tableName);
+            notFoundCache.invalidate(context, tableName);
+        }
+    }
+
+    private Generation getGeneration(String tableName) {
+        try {
+            return generations.get(tableName, Generation::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e); // not thrown by the constructor
+        }
+    }
+
+    private static class Generation {
+
+        private long value;
+
+        synchronized long get() {
+            return value;
+        }
+
+    }
+
     private TableDescription getTableDescriptionNoCache(String tableName) {
         Map<String, AttributeValue> item = amazonDynamoDb.getItem(new GetItemRequest()
             .withTableName(getTableDescriptionTableName())
-            .withKey(new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField,
-                new AttributeValue(addPrefix(tableName)))))).getItem();
+            .withKey(createKey(tableName))).getItem();
         if (item == null) {
-            throw new ResourceNotFoundException("table metadata entry for '" + tableName + "' does not exist in "
-                + tableDescriptionTableName);
+            if (legacyRepo != null) {
+                TableDescription tableDescription = legacyRepo.getTableDescriptionNoCache(tableName);
+                copyItem(tableDescription);
+                return tableDescription;
+            }
+            throw new ResourceNotFoundException(getNotFoundMessage(tableName));
         }
-        String tableDataJson = item.get(tableDescriptionTableDataField).getS();
-        return jsonToTableData(tableDataJson);
+        return getTableData(item);
+    }
+
+    private TableDescription getTableData(Map<String, AttributeValue> item) {
+        AttributeValue tableData = item.get(tableDescriptionTableDataField);
+        return tableData.getB() != null
+            ? TableDescriptionCodec.decode(tableData.getB())
+            : jsonToTableData(tableData.getS());
+    }
+
+    /*
+     * Returns the contexts and table names of the table descriptions that the given record of the table description
+     * table's stream refers to.  In the default layout, the table name is read from the image, if the record has one,
+     * and the context is the rest of the hash key.  Otherwise, the hash key is split at each delimiter, since the
+     * context and the table name may contain the delimiter as well.
+     */
+    List<Entry<String, String>> getContextAndTableNames(StreamRecord record) {
+        Map<String, AttributeValue> keys = record.getKeys();
+        if (tableDescriptionTableRangeKeyField != null) {
+            return ImmutableList.of(new SimpleImmutableEntry<>(keys.get(tableDescriptionTableHashKeyField).getS(),
+                keys.get(tableDescriptionTableRangeKeyField).getS()));
+        }
+        String prefixedTableName = keys.get(tableDescriptionTableHashKeyField).getS();
+        Map<String, AttributeValue> image = record.getNewImage() != null ? record.getNewImage() : record.getOldImage();
+        if (image != null && image.containsKey(tableDescriptionTableDataField)) {
+            String tableName = getTableData(image).getTableName();
+            String suffix = delimiter + tableName;
+            if (prefixedTableName.endsWith(suffix)) {
+                return ImmutableList.of(new SimpleImmutableEntry<>(
+                    prefixedTableName.substring(0, prefixedTableName.length() - suffix.length()), tableName));
+            }
+        }
+        List<Entry<String, String>> contextAndTableNames = new ArrayList<>();
+        for (int i = prefixedTableName.indexOf(delimiter); i >= 0; i = prefixedTableName.indexOf(delimiter, i + 1)) {
+            contextAndTableNames.add(new SimpleImmutableEntry<>(prefixedTableName.substring(0, i),
+                prefixedTableName.substring(i + delimiter.length())));
+        }
+        return contextAndTableNames;
+    }
+
+    /*
+     * Describes the table description table, e.g., to get its stream.
+     */
+    TableDescription describeTableDescriptionTable() {
+        return amazonDynamoDb.describeTable(tableDescriptionTableName).getTable();
+    }
+
+    private String getNotFoundMessage(String tableName) {
+        return "table metadata entry for '" + tableName + "' does not exist in " + tableDescriptionTableName;
     }
 
     @Override
     public TableDescription deleteTable(String tableName) {
         TableDescription tableDescription = getTableDescription(tableName);
 
+        deleteItem(tableName);
+        if (legacyRepo != null) {
+            // otherwise the table would be copied back from the legacy repo on next access
+            legacyRepo.deleteItem(tableName);
+        }
+
+        return tableDescription;
+    }
+
+    private void deleteItem(String tableName) {
         cache.invalidate(tableName);
 
         amazonDynamoDb.deleteItem(new DeleteItemRequest()
             .withTableName(getTableDescriptionTableName())
-            .withKey(new HashMap<>(ImmutableMap.of(tableDescriptionTableHashKeyField,
-                new AttributeValue(addPrefix(tableName))))));
-
-        return tableDescription;
+            .withKey(createKey(tableName)));
+        // do not cache what lookups in progress read before the delete
+        invalidate(mtContext.getContext(), tableName);
     }
 
-    private String getTableDescriptionTableName() {
+    /*
+     * Copies the given table description of the current context from the legacy repo, unless a table with the same
+     * name was created in the meantime.  Returns whether it was copied.
+     */
+    private boolean copyItem(TableDescription tableDescription) {
         try {
-            cache.get(tableDescriptionTableName, () -> {
-                createTableDescriptionTableIfNotExists(pollIntervalSeconds);
-                return new TableDescription().withTableName(tableDescriptionTableName);
-            });
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+            amazonDynamoDb.putItem(new PutItemRequest()
+                .withTableName(getTableDescriptionTableName())
+                .withItem(createItem(tableDescription.getTableName(), tableDescription))
+                .withConditionExpression("attribute_not_exists(#hk)")
+                .withExpressionAttributeNames(ImmutableMap.of("#hk", tableDescriptionTableHashKeyField)));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
         }
-        return tableDescriptionTableName;
+    }
+
+    private String getTableDescriptionTableName() {
+        return tableDescriptionTable.get();
     }
 
     public void createDefaultDescriptionTable() {
@@ -163,17 +578,40 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         CreateTableRequest createTableRequest = new CreateTableRequest();
         DynamoDbCapacity.setBillingMode(createTableRequest, this.billingMode);
 
-        adminUtils.createTableIfNotExists(
-                createTableRequest.withTableName(tableDescriptionTableName)
-                .withKeySchema(new KeySchemaElement().withAttributeName(tableDescriptionTableHashKeyField)
-                    .withKeyType(KeyType.HASH))
+        createTableRequest.withTableName(tableDescriptionTableName)
+            .withKeySchema(new KeySchemaElement().withAttributeName(tableDescriptionTableHashKeyField)
+                .withKeyType(KeyType.HASH))
+            .withAttributeDefinitions(new AttributeDefinition()
+                .withAttributeName(tableDescriptionTableHashKeyField)
+                .withAttributeType(ScalarAttributeType.S));
+        if (tableDescriptionTableRangeKeyField != null) {
+            createTableRequest
+                .withKeySchema(new KeySchemaElement().withAttributeName(tableDescriptionTableRangeKeyField)
+                    .withKeyType(KeyType.RANGE))
                 .withAttributeDefinitions(new AttributeDefinition()
-                    .withAttributeName(tableDescriptionTableHashKeyField)
-                    .withAttributeType(ScalarAttributeType.S)),
-            pollIntervalSeconds);
+                    .withAttributeName(tableDescriptionTableRangeKeyField)
+                    .withAttributeType(ScalarAttributeType.S));
+        }
+        if (tableDescriptionTableStreamViewType != null) {
+            createTableRequest.withStreamSpecification(new StreamSpecification()
+                .withStreamEnabled(true)
+                .withStreamViewType(tableDescriptionTableStreamViewType));
+        }
+        adminUtils.createTableIfNotExists(createTableRequest, pollIntervalSeconds);
+    }
+
+    private Map<String, AttributeValue> createKey(String tableName) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        if (tableDescriptionTableRangeKeyField == null) {
+            key.put(tableDescriptionTableHashKeyField, new AttributeValue(addPrefix(tableName)));
+        } else {
+            key.put(tableDescriptionTableHashKeyField, new AttributeValue(mtContext.getContext()));
+            key.put(tableDescriptionTableRangeKeyField, new AttributeValue(tableName));
+        }
+        return key;
     }
 
-    private Map<String, AttributeValue> createItem(CreateTableRequest createTableRequest) {
+    private TableDescription createTableDescription(CreateTableRequest createTableRequest) {
         TableDescription tableDescription = new TableDescription()
                 .withTableName(createTableRequest.getTableName())
                 .withKeySchema(createTableRequest.getKeySchema())
@@ -224,10 +662,16 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                     return gsiDescription;
                 }).collect(Collectors.toList()));
         }
-        String tableDataJson = tableDataToJson(tableDescription);
-        return new HashMap<>(ImmutableMap.of(
-                tableDescriptionTableHashKeyField, new AttributeValue(addPrefix(createTableRequest.getTableName())),
-                tableDescriptionTableDataField, new AttributeValue(tableDataJson)));
+        return tableDescription;
+    }
+
+    private Map<String, AttributeValue> createItem(String tableName, TableDescription tableDescription) {
+        AttributeValue tableData = binaryEncoding
+            ? new AttributeValue().withB(TableDescriptionCodec.encode(tableDescription))
+            : new AttributeValue(tableDataToJson(tableDescription));
+        Map<String, AttributeValue> item = createKey(tableName);
+        item.put(tableDescriptionTableDataField, tableData);
+        return item;
     }
 
     private String tableDataToJson(TableDescription tableDescription) {
@@ -251,11 +695,20 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
         private MtAmazonDynamoDbContextProvider mtContext;
         private String tableDescriptionTableName;
         private String tableDescriptionTableHashKeyField;
+        private String tableDescriptionTableRangeKeyField;
         private String tableDescriptionTableDataField;
+        private StreamViewType tableDescriptionTableStreamViewType;
         private String delimiter;
         private Integer pollIntervalSeconds;
         private BillingMode billingMode;
         private Optional<String> tablePrefix = Optional.empty();
+        private Boolean binaryEncoding;
+        private MtDynamoDbTableDescriptionRepo legacyRepo;
+        private Long cacheMaximumSize;
+        private Duration cacheExpireAfterAccess;
+        private Duration cacheRefreshAfterWrite;
+        private Executor cacheRefreshExecutor;
+        private Duration notFoundCacheTtl;
 
         public MtDynamoDbTableDescriptionRepoBuilder withAmazonDynamoDb(AmazonDynamoDB amazonDynamoDb) {
             this.amazonDynamoDb = amazonDynamoDb;
@@ -283,12 +736,43 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
             return this;
         }
 
+        /**
+         * Sets the range key field of the table description table.  If set, the hash key of each record is the context
+         * and the range key is the table name, which allows loading all tables of a context with one query.  By
+         * default, the table description table has no range key, and the hash key is the table name prefixed with the
+         * context.  An existing table description table cannot be changed to the other layout; see
+         * {@code withLegacyRepo} to migrate to a new table.
+         *
+         * @param tableDescriptionTableRangeKeyField the range key field of the table description table
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withTableDescriptionTableRangeKeyField(
+            String tableDescriptionTableRangeKeyField) {
+            this.tableDescriptionTableRangeKeyField = tableDescriptionTableRangeKeyField;
+            return this;
+        }
+
         public MtDynamoDbTableDescriptionRepoBuilder withTableDescriptionTableDataField(
             String tableDescriptionTableDataField) {
             this.tableDescriptionTableDataField = tableDescriptionTableDataField;
             return this;
         }
 
+        /**
+         * Enables the stream of the table description table with the given view type, e.g., to invalidate cached
+         * table descriptions across nodes with a {@code MtTableDescriptionStreamListener}.  Only applies when the table
+         * is created; to enable the stream on an existing table, update the table with the same view type first.
+         * Default: no stream.
+         *
+         * @param tableDescriptionTableStreamViewType the stream view type of the table description table
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withTableDescriptionTableStreamViewType(
+            StreamViewType tableDescriptionTableStreamViewType) {
+            this.tableDescriptionTableStreamViewType = tableDescriptionTableStreamViewType;
+            return this;
+        }
+
         public MtDynamoDbTableDescriptionRepoBuilder withDelimiter(String delimiter) {
             this.delimiter = delimiter;
             return this;
@@ -304,6 +788,79 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
             return this;
         }
 
+        /**
+         * Sets whether table definitions are written in the binary encoding or as JSON.  Both are read either way.
+         * Only enable the binary encoding once no node that only reads JSON shares the table anymore.  Default: false.
+         *
+         * @param binaryEncoding whether to write table definitions in the binary encoding
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withBinaryEncoding(boolean binaryEncoding) {
+            this.binaryEncoding = binaryEncoding;
+            return this;
+        }
+
+        /**
+         * Sets a repo to migrate table descriptions from, e.g., a repo with the legacy layout.  Tables that are not
+         * found are read from the legacy repo and copied, tables are deleted from both repos, and
+         * {@code migrateLegacyTableDescriptions} copies all remaining tables.  Both repos must use the same
+         * {@code AmazonDynamoDB}.
+         *
+         * @param legacyRepo the repo to migrate table descriptions from
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withLegacyRepo(MtDynamoDbTableDescriptionRepo legacyRepo) {
+            this.legacyRepo = legacyRepo;
+            return this;
+        }
+
+        public MtDynamoDbTableDescriptionRepoBuilder withCacheMaximumSize(long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+            return this;
+        }
+
+        public MtDynamoDbTableDescriptionRepoBuilder withCacheExpireAfterAccess(Duration cacheExpireAfterAccess) {
+            this.cacheExpireAfterAccess = cacheExpireAfterAccess;
+            return this;
+        }
+
+        /**
+         * Sets the age after which cached table definitions are reloaded in the background when they are read.  Until
+         * the reload completes, the cached definition is returned.  {@code Duration.ZERO} disables refreshing.
+         * Default: 5 minutes.
+         *
+         * @param cacheRefreshAfterWrite the age after which to refresh cached table definitions
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withCacheRefreshAfterWrite(Duration cacheRefreshAfterWrite) {
+            this.cacheRefreshAfterWrite = cacheRefreshAfterWrite;
+            return this;
+        }
+
+        /**
+         * Sets the executor on which cached table definitions are refreshed.  Default: a single daemon thread.
+         *
+         * @param cacheRefreshExecutor the executor to refresh cached table definitions on
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withCacheRefreshExecutor(Executor cacheRefreshExecutor) {
+            this.cacheRefreshExecutor = cacheRefreshExecutor;
+            return this;
+        }
+
+        /**
+         * Sets for how long lookups of tables that do not exist fail without reading the metadata table again.
+         * Creating a table through this repo ends it right away; tables created by other nodes are visible once it
+         * elapses.  {@code Duration.ZERO} disables caching of not-found lookups.  Default: 5 seconds.
+         *
+         * @param notFoundCacheTtl the duration to cache not-found lookups for
+         * @return this builder
+         */
+        public MtDynamoDbTableDescriptionRepoBuilder withNotFoundCacheTtl(Duration notFoundCacheTtl) {
+            this.notFoundCacheTtl = notFoundCacheTtl;
+            return this;
+        }
+
         /**
          * TODO: write Javadoc.
          *
@@ -320,15 +877,26 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
                 tableDescriptionTableName,
                 tablePrefix,
                 tableDescriptionTableHashKeyField,
+                tableDescriptionTableRangeKeyField,
                 tableDescriptionTableDataField,
+                tableDescriptionTableStreamViewType,
                 delimiter,
-                pollIntervalSeconds);
+                pollIntervalSeconds,
+                binaryEncoding,
+                legacyRepo,
+                cacheMaximumSize,
+                cacheExpireAfterAccess,
+                cacheRefreshAfterWrite,
+                cacheRefreshExecutor,
+                notFoundCacheTtl);
         }
 
         private void validate() {
             checkArgument(amazonDynamoDb != null, "amazonDynamoDb is required");
             checkArgument(mtContext != null, "mtContext is required");
             checkArgument(tableDescriptionTableName != null, "tableDescriptionTableName is required");
+            checkArgument(legacyRepo == null || legacyRepo.amazonDynamoDb == amazonDynamoDb,
+                "legacyRepo must use the same amazonDynamoDb");
         }
 
         private void setDefaults() {
@@ -344,6 +912,28 @@ public class MtDynamoDbTableDescriptionRepo implements MtTableDescriptionRepo {
             if (pollIntervalSeconds == null) {
                 pollIntervalSeconds = 5;
             }
+            if (binaryEncoding == null) {
+                binaryEncoding = false;
+            }
+            if (cacheMaximumSize == null) {
+                cacheMaximumSize = MtTenantCache.DEFAULT_MAXIMUM_SIZE;
+            }
+            if (cacheExpireAfterAccess == null) {
+                cacheExpireAfterAccess = MtTenantCache.DEFAULT_EXPIRE_AFTER_ACCESS;
+            }
+            if (cacheRefreshAfterWrite == null) {
+                cacheRefreshAfterWrite = DEFAULT_CACHE_REFRESH_AFTER_WRITE;
+            }
+            if (cacheRefreshExecutor == null) {
+                cacheRefreshExecutor = new ThreadPoolExecutor(0, 1, 1L, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                    new ThreadFactoryBuilder()
+                        .setNameFormat("mt-table-description-refresh-%d")
+                        .setDaemon(true)
+                        .build());
+            }
+            if (notFoundCacheTtl == null) {
+                notFoundCacheTtl = DEFAULT_NOT_FOUND_CACHE_TTL;
+            }
         }
 
     }
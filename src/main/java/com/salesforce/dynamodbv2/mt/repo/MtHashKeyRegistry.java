@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import java.util.Iterator;
+
+/**
+ * Keeps track of the distinct hash-key values of each virtual table of each tenant, so that a scan of a virtual table
+ * can be executed as a sequence of queries over the partitions of that table, rather than a scan over the entire
+ * shared physical table.
+ *
+ * <p>The registry is a superset of the partitions that hold data: hash keys are registered before items are written,
+ * but are not removed when items are deleted, since that cannot be done safely with respect to concurrent writes to
+ * the same partition.  Querying a partition that no longer holds any items is cheap.  Hash keys are removed in bulk
+ * when a table is truncated.
+ *
+ * <p>Like {@code MtTableDescriptionRepo}, all methods operate on the tables of the current multitenant context.
+ */
+public interface MtHashKeyRegistry {
+
+    /**
+     * Registers the given hash-key value of the given virtual table.  Registering a value more than once has no effect.
+     */
+    void registerHashKey(String tableName, AttributeValue hashKey);
+
+    /**
+     * Returns all registered hash-key values of the given virtual table in a stable order, starting after the given
+     * value, or with the first value if {@code exclusiveStartHashKey} is null.
+     */
+    Iterator<AttributeValue> getHashKeys(String tableName, AttributeValue exclusiveStartHashKey);
+
+    /**
+     * Removes all registered hash-key values of the given virtual table.
+     */
+    void deleteHashKeys(String tableName);
+
+}
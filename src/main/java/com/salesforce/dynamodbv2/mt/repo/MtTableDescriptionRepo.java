@@ -8,7 +8,13 @@
 package com.salesforce.dynamodbv2.mt.repo;
 
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * TODO: write Javadoc.
@@ -23,4 +29,35 @@ public interface MtTableDescriptionRepo {
 
     TableDescription deleteTable(String tableName);
 
+    /**
+     * Returns the descriptions of all tables of the current context, if the repo can list them.  Empty by default.
+     */
+    default Optional<List<TableDescription>> getTableDescriptions() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the descriptions of the given tables of the current context, leaving out tables that do not exist.  Gets
+     * them one at a time by default.
+     */
+    default List<TableDescription> getTableDescriptions(Collection<String> tableNames) {
+        List<TableDescription> tableDescriptions = new ArrayList<>(tableNames.size());
+        for (String tableName : tableNames) {
+            try {
+                tableDescriptions.add(getTableDescription(tableName));
+            } catch (ResourceNotFoundException e) {
+                // not included
+            }
+        }
+        return tableDescriptions;
+    }
+
+    /**
+     * Registers a listener that is called with the context and name of each table whose cached description changed
+     * when it was refreshed, so that state derived from it can be invalidated.  Ignored by default, i.e., by repos
+     * that do not refresh cached descriptions.
+     */
+    default void addRefreshListener(BiConsumer<String, String> refreshListener) {
+    }
+
 }
\ No newline at end of file
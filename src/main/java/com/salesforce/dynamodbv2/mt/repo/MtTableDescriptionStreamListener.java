@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
+import com.amazonaws.services.dynamodbv2.model.DescribeStreamRequest;
+import com.amazonaws.services.dynamodbv2.model.ExpiredIteratorException;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsRequest;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsResult;
+import com.amazonaws.services.dynamodbv2.model.GetShardIteratorRequest;
+import com.amazonaws.services.dynamodbv2.model.Record;
+import com.amazonaws.services.dynamodbv2.model.Shard;
+import com.amazonaws.services.dynamodbv2.model.ShardIteratorType;
+import com.amazonaws.services.dynamodbv2.model.StreamDescription;
+import com.amazonaws.services.dynamodbv2.model.TrimmedDataAccessException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tails the stream of the table description table of a {@code MtDynamoDbTableDescriptionRepo} and invalidates the
+ * cached descriptions of the tables that are created, updated or deleted, e.g., by other nodes.  Additional
+ * invalidation listeners are called with the context and table name of each change, e.g.,
+ * {@code MtAmazonDynamoDbBySharedTable::invalidateTableMapping}, so that the caches of all nodes stay coherent without
+ * expiring entries early.
+ *
+ * <p>The stream must be enabled on the table description table; see
+ * {@code MtDynamoDbTableDescriptionRepoBuilder.withTableDescriptionTableStreamViewType}.  With the default key layout
+ * and a {@code KEYS_ONLY} stream, the context and table name cannot be told apart if either contains the delimiter,
+ * so all candidate pairs are invalidated.
+ *
+ * <p>The listener starts reading at the end of the stream, so it should be started before the caches are filled.
+ * Shards are followed to their children when they close.  If an iterator expires, reading resumes after the last
+ * record read; if those records were trimmed, it resumes at the trim horizon, which may invalidate entries again.
+ */
+public class MtTableDescriptionStreamListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MtTableDescriptionStreamListener.class);
+
+    private final AmazonDynamoDBStreams amazonDynamoDbStreams;
+    private final MtDynamoDbTableDescriptionRepo tableDescriptionRepo;
+    private final List<BiConsumer<String, String>> invalidationListeners;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService executor;
+    // only accessed by the polling thread
+    private final Map<String, ShardPosition> shards = new LinkedHashMap<>();
+    private final Set<String> closedShardIds = new HashSet<>();
+    private String streamArn;
+
+    private MtTableDescriptionStreamListener(AmazonDynamoDBStreams amazonDynamoDbStreams,
+                                             MtDynamoDbTableDescriptionRepo tableDescriptionRepo,
+                                             List<BiConsumer<String, String>> invalidationListeners,
+                                             Duration pollInterval) {
+        this.amazonDynamoDbStreams = amazonDynamoDbStreams;
+        this.tableDescriptionRepo = tableDescriptionRepo;
+        this.invalidationListeners = invalidationListeners;
+        this.pollInterval = pollInterval;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("mt-table-description-stream-%d")
+            .setDaemon(true)
+            .build());
+    }
+
+    public static MtTableDescriptionStreamListenerBuilder builder() {
+        return new MtTableDescriptionStreamListenerBuilder();
+    }
+
+    /**
+     * Starts polling the stream in the background.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                LOG.warn("failed to poll table description stream " + streamArn, e);
+            }
+        }, 0L, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling the stream.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reads the next records of each open shard and invalidates the cache entries they refer to.
+     */
+    @VisibleForTesting
+    void poll() {
+        if (streamArn == null) {
+            String latestStreamArn = tableDescriptionRepo.describeTableDescriptionTable().getLatestStreamArn();
+            checkState(latestStreamArn != null, "stream is not enabled on the table description table");
+            for (Shard shard : describeShards(latestStreamArn)) {
+                if (shard.getSequenceNumberRange().getEndingSequenceNumber() == null) {
+                    shards.put(shard.getShardId(), new ShardPosition(
+                        getShardIterator(latestStreamArn, shard.getShardId(), ShardIteratorType.LATEST, null)));
+                }
+            }
+            streamArn = latestStreamArn;
+        }
+        List<String> closed = new ArrayList<>();
+        for (Entry<String, ShardPosition> shard : shards.entrySet()) {
+            if (!pollShard(shard.getKey(), shard.getValue())) {
+                closed.add(shard.getKey());
+            }
+        }
+        closed.forEach(shards::remove);
+        closedShardIds.addAll(closed);
+        if (!closedShardIds.isEmpty()) {
+            // the children of closed shards may not be visible right away, so look for them until they are
+            Set<String> parentShardIds = new HashSet<>();
+            for (Shard shard : describeShards(streamArn)) {
+                if (closedShardIds.contains(shard.getParentShardId())) {
+                    parentShardIds.add(shard.getParentShardId());
+                    shards.computeIfAbsent(shard.getShardId(), shardId -> new ShardPosition(
+                        getShardIterator(streamArn, shardId, ShardIteratorType.TRIM_HORIZON, null)));
+                }
+            }
+            closedShardIds.removeAll(parentShardIds);
+        }
+    }
+
+    /*
+     * Reads the next records of the given shard and returns whether the shard is still open.
+     */
+    private boolean pollShard(String shardId, ShardPosition shard) {
+        GetRecordsResult result;
+        try {
+            result = amazonDynamoDbStreams.getRecords(new GetRecordsRequest().withShardIterator(shard.iterator));
+        } catch (ExpiredIteratorException e) {
+            shard.iterator = shard.lastSequenceNumber == null
+                ? getShardIterator(streamArn, shardId, ShardIteratorType.TRIM_HORIZON, null)
+                : getShardIterator(streamArn, shardId, ShardIteratorType.AFTER_SEQUENCE_NUMBER,
+                    shard.lastSequenceNumber);
+            return true;
+        }
+        for (Record record : result.getRecords()) {
+            for (Entry<String, String> contextAndTableName
+                : tableDescriptionRepo.getContextAndTableNames(record.getDynamodb())) {
+                String context = contextAndTableName.getKey();
+                String tableName = contextAndTableName.getValue();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("invalidating table {} of context {} on {}", tableName, context, record.getEventName());
+                }
+                tableDescriptionRepo.invalidateCache(context, tableName);
+                invalidationListeners.forEach(listener -> listener.accept(context, tableName));
+            }
+            shard.lastSequenceNumber = record.getDynamodb().getSequenceNumber();
+        }
+        shard.iterator = result.getNextShardIterator();
+        return shard.iterator != null;
+    }
+
+    private List<Shard> describeShards(String streamArn) {
+        List<Shard> shards = new ArrayList<>();
+        DescribeStreamRequest request = new DescribeStreamRequest().withStreamArn(streamArn);
+        while (request != null) {
+            StreamDescription description = amazonDynamoDbStreams.describeStream(request).getStreamDescription();
+            shards.addAll(description.getShards());
+            request = description.getLastEvaluatedShardId() == null ? null
+                : request.clone().withExclusiveStartShardId(description.getLastEvaluatedShardId());
+        }
+        return shards;
+    }
+
+    private String getShardIterator(String streamArn, String shardId, ShardIteratorType type, String sequenceNumber) {
+        GetShardIteratorRequest request = new GetShardIteratorRequest()
+            .withStreamArn(streamArn)
+            .withShardId(shardId)
+            .withShardIteratorType(type)
+            .withSequenceNumber(sequenceNumber);
+        try {
+            return amazonDynamoDbStreams.getShardIterator(request).getShardIterator();
+        } catch (TrimmedDataAccessException e) {
+            LOG.warn("records of shard {} after {} were trimmed, reading from trim horizon", shardId, sequenceNumber);
+            return amazonDynamoDbStreams.getShardIterator(request
+                .withShardIteratorType(ShardIteratorType.TRIM_HORIZON)
+                .withSequenceNumber(null)).getShardIterator();
+        }
+    }
+
+    private static class ShardPosition {
+
+        private String iterator;
+        private String lastSequenceNumber;
+
+        ShardPosition(String iterator) {
+            this.iterator = iterator;
+        }
+
+    }
+
+    public static class MtTableDescriptionStreamListenerBuilder {
+
+        private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1);
+
+        private AmazonDynamoDBStreams amazonDynamoDbStreams;
+        private MtDynamoDbTableDescriptionRepo tableDescriptionRepo;
+        private final List<BiConsumer<String, String>> invalidationListeners = new ArrayList<>();
+        private Duration pollInterval;
+
+        /**
+         * Sets the streams client to read the stream of the table description table with, e.g., a
+         * {@code CachingAmazonDynamoDbStreams}.
+         *
+         * @param amazonDynamoDbStreams the streams client
+         * @return this builder
+         */
+        public MtTableDescriptionStreamListenerBuilder withAmazonDynamoDbStreams(
+            AmazonDynamoDBStreams amazonDynamoDbStreams) {
+            this.amazonDynamoDbStreams = amazonDynamoDbStreams;
+            return this;
+        }
+
+        public MtTableDescriptionStreamListenerBuilder withTableDescriptionRepo(
+            MtDynamoDbTableDescriptionRepo tableDescriptionRepo) {
+            this.tableDescriptionRepo = tableDescriptionRepo;
+            return this;
+        }
+
+        /**
+         * Adds a listener that is called with the context and table name of each changed table description, after the
+         * cached description has been invalidated.
+         *
+         * @param invalidationListener the listener to add
+         * @return this builder
+         */
+        public MtTableDescriptionStreamListenerBuilder withInvalidationListener(
+            BiConsumer<String, String> invalidationListener) {
+            this.invalidationListeners.add(invalidationListener);
+            return this;
+        }
+
+        /**
+         * Sets the delay between polls of the stream.  Default: 1 second.
+         *
+         * @param pollInterval the delay between polls
+         * @return this builder
+         */
+        public MtTableDescriptionStreamListenerBuilder withPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * TODO: write Javadoc.
+         *
+         * @return a newly created {@code MtTableDescriptionStreamListener}, which has not been started yet
+         */
+        public MtTableDescriptionStreamListener build() {
+            setDefaults();
+            validate();
+            return new MtTableDescriptionStreamListener(amazonDynamoDbStreams, tableDescriptionRepo,
+                new ArrayList<>(invalidationListeners), pollInterval);
+        }
+
+        private void validate() {
+            checkArgument(amazonDynamoDbStreams != null, "amazonDynamoDbStreams is required");
+            checkArgument(tableDescriptionRepo != null, "tableDescriptionRepo is required");
+            checkArgument(!pollInterval.isNegative() && !pollInterval.isZero(), "pollInterval must be positive");
+        }
+
+        private void setDefaults() {
+            if (pollInterval == null) {
+                pollInterval = DEFAULT_POLL_INTERVAL;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encodes the parts of a virtual table's {@code TableDescription} that the mappers need in a compact binary format:
+ * table name, key schema, attribute definitions, provisioned throughput, stream specification, and secondary indexes.
+ * Other fields, e.g., table status or item count, are not stored by the repo and not encoded.
+ *
+ * <p>The first byte of an encoded description is the format version.  Decoders must reject versions they do not know,
+ * so the format can be changed by adding a version.  Enum values are encoded by name.
+ */
+class TableDescriptionCodec {
+
+    private static final byte VERSION_1 = 1;
+
+    private TableDescriptionCodec() {
+    }
+
+    /**
+     * Encodes the given table description.
+     *
+     * @param tableDescription the table description to encode
+     * @return the encoded table description
+     */
+    static ByteBuffer encode(TableDescription tableDescription) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION_1);
+            writeString(out, tableDescription.getTableName());
+            writeKeySchema(out, tableDescription.getKeySchema());
+            writeList(out, tableDescription.getAttributeDefinitions(), attributeDefinition -> {
+                out.writeUTF(attributeDefinition.getAttributeName());
+                out.writeUTF(attributeDefinition.getAttributeType());
+            });
+            writeProvisionedThroughput(out, tableDescription.getProvisionedThroughput());
+            StreamSpecification streamSpecification = tableDescription.getStreamSpecification();
+            out.writeBoolean(streamSpecification != null);
+            if (streamSpecification != null) {
+                writeBoolean(out, streamSpecification.getStreamEnabled());
+                writeString(out, streamSpecification.getStreamViewType());
+            }
+            writeList(out, tableDescription.getLocalSecondaryIndexes(), lsi -> {
+                out.writeUTF(lsi.getIndexName());
+                writeKeySchema(out, lsi.getKeySchema());
+                writeProjection(out, lsi.getProjection());
+            });
+            writeList(out, tableDescription.getGlobalSecondaryIndexes(), gsi -> {
+                out.writeUTF(gsi.getIndexName());
+                writeKeySchema(out, gsi.getKeySchema());
+                writeProjection(out, gsi.getProjection());
+                writeProvisionedThroughput(out, gsi.getProvisionedThroughput());
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by ByteArrayOutputStream
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes the given encoded table description.
+     *
+     * @param encoded the encoded table description
+     * @return the decoded table description
+     * @throws IllegalArgumentException if the encoding is malformed or its version is unknown
+     */
+    static TableDescription decode(ByteBuffer encoded) {
+        ByteBuffer buffer = encoded.duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            checkArgument(version == VERSION_1, "unknown table description encoding version " + version);
+            TableDescription tableDescription = new TableDescription()
+                .withTableName(readString(in))
+                .withKeySchema(readKeySchema(in))
+                .withAttributeDefinitions(readList(in, () ->
+                    new AttributeDefinition(in.readUTF(), in.readUTF())));
+            tableDescription.setProvisionedThroughput(readProvisionedThroughput(in));
+            if (in.readBoolean()) {
+                tableDescription.setStreamSpecification(new StreamSpecification()
+                    .withStreamEnabled(readBoolean(in))
+                    .withStreamViewType(readString(in)));
+            }
+            tableDescription.setLocalSecondaryIndexes(readList(in, () -> new LocalSecondaryIndexDescription()
+                .withIndexName(in.readUTF())
+                .withKeySchema(readKeySchema(in))
+                .withProjection(readProjection(in))));
+            tableDescription.setGlobalSecondaryIndexes(readList(in, () -> new GlobalSecondaryIndexDescription()
+                .withIndexName(in.readUTF())
+                .withKeySchema(readKeySchema(in))
+                .withProjection(readProjection(in))
+                .withProvisionedThroughput(readProvisionedThroughput(in))));
+            checkArgument(in.available() == 0, "unexpected bytes after table description");
+            return tableDescription;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed table description encoding", e);
+        }
+    }
+
+    private static void writeKeySchema(DataOutput out, List<KeySchemaElement> keySchema) throws IOException {
+        writeList(out, keySchema, keySchemaElement -> {
+            out.writeUTF(keySchemaElement.getAttributeName());
+            out.writeUTF(keySchemaElement.getKeyType());
+        });
+    }
+
+    private static List<KeySchemaElement> readKeySchema(DataInput in) throws IOException {
+        return readList(in, () -> new KeySchemaElement(in.readUTF(), in.readUTF()));
+    }
+
+    private static void writeProjection(DataOutput out, Projection projection) throws IOException {
+        out.writeBoolean(projection != null);
+        if (projection != null) {
+            writeString(out, projection.getProjectionType());
+            writeList(out, projection.getNonKeyAttributes(), out::writeUTF);
+        }
+    }
+
+    private static Projection readProjection(DataInput in) throws IOException {
+        return in.readBoolean()
+            ? new Projection().withProjectionType(readString(in)).withNonKeyAttributes(readList(in, in::readUTF))
+            : null;
+    }
+
+    private static void writeProvisionedThroughput(DataOutput out, ProvisionedThroughputDescription throughput)
+        throws IOException {
+        out.writeBoolean(throughput != null);
+        if (throughput != null) {
+            writeLong(out, throughput.getReadCapacityUnits());
+            writeLong(out, throughput.getWriteCapacityUnits());
+        }
+    }
+
+    private static ProvisionedThroughputDescription readProvisionedThroughput(DataInput in) throws IOException {
+        return in.readBoolean()
+            ? new ProvisionedThroughputDescription()
+                .withReadCapacityUnits(readLong(in))
+                .withWriteCapacityUnits(readLong(in))
+            : null;
+    }
+
+    /*
+     * Nullable values are encoded with a leading presence flag.  Null and empty lists are not distinguished; both are
+     * decoded as null, which is how the SDK represents absent lists in responses.
+     */
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBoolean(DataOutput out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(DataInput in) throws IOException {
+        byte value = in.readByte();
+        return value == -1 ? null : value == 1;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static <T> void writeList(DataOutput out, Collection<T> values, Writer<T> writer) throws IOException {
+        out.writeShort(values == null ? 0 : values.size());
+        if (values != null) {
+            for (T value : values) {
+                writer.write(value);
+            }
+        }
+    }
+
+    private static <T> List<T> readList(DataInput in, Reader<T> reader) throws IOException {
+        int size = in.readUnsignedShort();
+        if (size == 0) {
+            return null;
+        }
+        List<T> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(reader.read());
+        }
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read() throws IOException;
+    }
+
+}
@@ -9,6 +9,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.getLast;
 import static com.salesforce.dynamodbv2.mt.util.ShardIterator.ITERATOR_SEPARATOR;
 import static java.math.BigInteger.ONE;
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
@@ -21,14 +22,19 @@ import com.amazonaws.services.dynamodbv2.model.LimitExceededException;
 import com.amazonaws.services.dynamodbv2.model.Record;
 import com.amazonaws.services.dynamodbv2.model.ShardIteratorType;
 import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.salesforce.dynamodbv2.mt.mappers.DelegatingAmazonDynamoDbStreams;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -38,8 +44,18 @@ import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
@@ -61,9 +77,25 @@ import org.slf4j.LoggerFactory;
  * <li>All records are cached in at most one segment (no overlapping segments)</li>
  * </ol>
  *
+ * <p>Records are cached per stream shard, and each shard cache has its own lock, so that adding a segment to one shard
+ * does not block readers or writers of other shards. The total size of all shard caches is bounded by a single byte
+ * budget: when it is exceeded, the oldest segments across all shards are evicted first. Eviction locks one shard at a
+ * time and is never done while holding a shard lock.
+ *
+ * <p>Empty results are not added to the records cache. Instead, if an empty result TTL is configured, positions at the
+ * tip of a shard that returned no records are remembered for that long, so that clients polling the tip do not all
+ * hit the stream.
+ *
+ * <p>Concurrent cache misses at the same position, e.g., of many consumers that reach the end of the cached records of
+ * a shard at once or poll its tip, share a single read of the underlying stream. Iterators that cannot be resolved to
+ * a position (<code>TRIM_HORIZON</code> and <code>LATEST</code>) are always read individually.
+ *
+ * <p>Optionally, records can be read ahead: whenever records with a next iterator are returned, the segment after them
+ * is loaded into the cache in the background, so that consumers of busy shards do not wait for the stream each time
+ * they reach the end of the cached records. Read-ahead is limited to a number of reads per shard and second.
+ *
  * <p>Some things we may want to improve in the future:
  * <ol>
- * <li>Reduce lock contention: avoid locking all streams/shards when adding segment</li>
  * <li>Lock shard when loading records to avoid hitting throttling</li>
  * </ol>
  */
@@ -87,6 +119,8 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
         private static final int DEFAULT_MAX_GET_RECORDS_RETRIES = 10;
         private static final long DEFAULT_GET_RECORDS_LIMIT_EXCEEDED_BACKOFF_IN_MILLIS = 1000L;
         private static final int DEFAULT_MAX_ITERATOR_CACHE_SIZE = 100;
+        private static final long DEFAULT_EMPTY_RESULT_TTL_IN_MILLIS = 0L;
+        private static final double DEFAULT_READ_AHEADS_PER_SHARD_PER_SECOND = 1.0;
 
         private final AmazonDynamoDBStreams amazonDynamoDbStreams;
         private Sleeper sleeper;
@@ -95,6 +129,10 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
         private int maxGetRecordsRetries = DEFAULT_MAX_GET_RECORDS_RETRIES;
         private long getRecordsLimitExceededBackoffInMillis =
             DEFAULT_GET_RECORDS_LIMIT_EXCEEDED_BACKOFF_IN_MILLIS;
+        private long emptyResultTtlInMillis = DEFAULT_EMPTY_RESULT_TTL_IN_MILLIS;
+        private Ticker ticker = Ticker.systemTicker();
+        private Executor readAheadExecutor;
+        private double readAheadsPerShardPerSecond = DEFAULT_READ_AHEADS_PER_SHARD_PER_SECOND;
 
         public Builder(AmazonDynamoDBStreams amazonDynamoDbStreams) {
             this.amazonDynamoDbStreams = amazonDynamoDbStreams;
@@ -162,6 +200,59 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
             return this;
         }
 
+        /**
+         * Time for which a position at the tip of a shard that returned no records is assumed to remain empty. Polls of
+         * that position within this time return no records without reading the underlying stream, and concurrent polls
+         * after it share a single read. Should be short, since it delays new records by up to that much. At most as
+         * many tip positions as iterators are tracked. Defaults to 0, which disables caching empty results.
+         *
+         * @param emptyResultTtlInMillis Time to live of empty results in millis.
+         * @return This Builder.
+         */
+        public Builder withEmptyResultTtlInMillis(long emptyResultTtlInMillis) {
+            checkArgument(emptyResultTtlInMillis >= 0);
+            this.emptyResultTtlInMillis = emptyResultTtlInMillis;
+            return this;
+        }
+
+        /**
+         * Executor on which segments are read ahead. Defaults to none, which disables read-ahead. The executor is not
+         * shut down by the streams instance.
+         *
+         * @param readAheadExecutor Executor for background reads.
+         * @return This Builder.
+         */
+        public Builder withReadAheadExecutor(Executor readAheadExecutor) {
+            this.readAheadExecutor = readAheadExecutor;
+            return this;
+        }
+
+        /**
+         * Maximum rate at which segments of a single shard are read ahead. Read-aheads beyond this rate are skipped.
+         * Should leave room for consumers' own reads within DynamoDB's limit of 5 reads per shard and second. Defaults
+         * to 1.
+         *
+         * @param readAheadsPerShardPerSecond Maximum read-aheads per shard and second.
+         * @return This Builder.
+         */
+        public Builder withReadAheadsPerShardPerSecond(double readAheadsPerShardPerSecond) {
+            checkArgument(readAheadsPerShardPerSecond > 0);
+            this.readAheadsPerShardPerSecond = readAheadsPerShardPerSecond;
+            return this;
+        }
+
+        /**
+         * Time source for expiring empty results. Defaults to {@link Ticker#systemTicker()}.
+         *
+         * @param ticker Ticker implementation.
+         * @return This Builder.
+         */
+        @VisibleForTesting
+        Builder withTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
         /**
          * Build instance using the configured properties.
          *
@@ -184,7 +275,11 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
                 maxRecordsByteSize,
                 maxGetRecordsRetries,
                 getRecordsLimitExceededBackoffInMillis,
-                maxIteratorCacheSize);
+                maxIteratorCacheSize,
+                emptyResultTtlInMillis,
+                ticker,
+                readAheadExecutor,
+                readAheadsPerShardPerSecond);
         }
     }
 
@@ -292,6 +387,15 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
             return sequenceNumber.compareTo(o.sequenceNumber);
         }
 
+        /**
+         * Returns the key of the stream shard of this position in the records cache.
+         *
+         * @return Pair of streamArn and shardId.
+         */
+        Entry<String, String> shardKey() {
+            return Map.entry(streamArn, shardId);
+        }
+
         /**
          * Checks whether the given iterator position has the same streamArn and shardId.
          *
@@ -592,6 +696,44 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
         }
     }
 
+    /**
+     * Cached segments of a single stream shard. Segments are indexed by position for lookups and kept in insertion
+     * order for eviction. All fields except {@code eldestSequence} are guarded by the shard's lock.
+     */
+    private static final class ShardCache {
+
+        // index on position for efficient position-based cache lookups
+        private final NavigableMap<IteratorPosition, GetRecordsResult> segments = new TreeMap<>();
+        // insertion sequence number of each segment in insertion order for LRU removal
+        private final Map<IteratorPosition, Long> insertionOrder = new LinkedHashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // insertion sequence number of the oldest segment, read without lock to pick the shard to evict from
+        private volatile long eldestSequence = Long.MAX_VALUE;
+        // set when the empty shard cache is removed from the records cache; segments must not be added anymore
+        private boolean retired;
+
+    }
+
+    /**
+     * Position at the tip of a shard, i.e., one at which the underlying stream recently returned no records.
+     */
+    private static final class TipPoll {
+
+        // ticker time until which the position is assumed to have no records
+        private volatile long emptyUntilNanos;
+
+    }
+
+    /**
+     * Stream read of a position in progress, which concurrent cache misses of the position wait for.
+     */
+    private static final class InFlightLoad extends CompletableFuture<GetRecordsResult> {
+
+        // thread that reads the stream, which must not wait for itself if the stream calls back into this cache
+        private final Thread loader = Thread.currentThread();
+
+    }
+
     // logger instance
     private static final Logger LOG = LoggerFactory.getLogger(CachingAmazonDynamoDbStreams.class);
 
@@ -646,40 +788,79 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
     private final long maxRecordsByteSize;
     private final int maxGetRecordsRetries;
     private final long getRecordsLimitExceededBackoffInMillis;
-
-    // cache for quasi-immutable values that maintains insertion order for LRU removal
-    private final Map<IteratorPosition, GetRecordsResult> recordsCache;
-    // index on position for efficient position-based cache lookups
-    private final NavigableMap<IteratorPosition, GetRecordsResult> recordsCacheIndex;
-    // looks for mutating lock
-    private final ReadWriteLock recordsCacheLock;
-    // size of cache >= 0
-    private long recordsCacheByteSize;
+    private final long emptyResultTtlInNanos;
+    private final Ticker ticker;
+    private final Executor readAheadExecutor;
+    private final double readAheadsPerShardPerSecond;
+
+    // cache for quasi-immutable values partitioned by stream shard
+    private final ConcurrentMap<Entry<String, String>, ShardCache> recordsCache;
+    // sum of the sizes of all shard caches >= 0
+    private final AtomicLong recordsCacheByteSize;
+    // source of segment insertion sequence numbers for LRU removal across shards
+    private final AtomicLong recordsCacheInsertions;
+    // serializes eviction, which locks one shard at a time
+    private final Lock evictionLock;
 
     // iterator cache
     private final LoadingCache<CachingShardIterator, String> iteratorCache;
 
+    // positions at the tip of a shard that recently returned no records
+    private final Cache<IteratorPosition, TipPoll> tipPolls;
+
+    // stream reads in progress by position, shared by concurrent cache misses
+    private final ConcurrentMap<IteratorPosition, InFlightLoad> inFlightLoads;
+
+    // read-ahead budget of recently read shards
+    private final Cache<Entry<String, String>, RateLimiter> readAheadBudgets;
+
     private CachingAmazonDynamoDbStreams(AmazonDynamoDBStreams amazonDynamoDbStreams,
         Sleeper sleeper,
         long maxRecordsByteSize,
         int maxGetRecordsRetries,
         long getRecordsLimitExceededBackoffInMillis,
-        int maxIteratorCacheSize) {
+        int maxIteratorCacheSize,
+        long emptyResultTtlInMillis,
+        Ticker ticker,
+        @Nullable Executor readAheadExecutor,
+        double readAheadsPerShardPerSecond) {
         super(amazonDynamoDbStreams);
         this.sleeper = sleeper;
         this.maxRecordsByteSize = maxRecordsByteSize;
         this.maxGetRecordsRetries = maxGetRecordsRetries;
         this.getRecordsLimitExceededBackoffInMillis = getRecordsLimitExceededBackoffInMillis;
+        this.emptyResultTtlInNanos = TimeUnit.MILLISECONDS.toNanos(emptyResultTtlInMillis);
+        this.ticker = ticker;
+        this.readAheadExecutor = readAheadExecutor;
+        this.readAheadsPerShardPerSecond = readAheadsPerShardPerSecond;
 
-        this.recordsCache = new LinkedHashMap<>();
-        this.recordsCacheIndex = new TreeMap<>();
-        this.recordsCacheByteSize = 0L;
-        this.recordsCacheLock = new ReentrantReadWriteLock();
+        this.recordsCache = new ConcurrentHashMap<>();
+        this.recordsCacheByteSize = new AtomicLong();
+        this.recordsCacheInsertions = new AtomicLong();
+        this.evictionLock = new ReentrantLock();
 
         this.iteratorCache = CacheBuilder
             .newBuilder()
             .maximumSize(maxIteratorCacheSize)
             .build(CacheLoader.from(this::loadShardIterator));
+
+        // tip positions that are no longer polled are dropped after a while, whether or not records arrived
+        this.tipPolls = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxIteratorCacheSize)
+            .expireAfterAccess(Math.max(emptyResultTtlInMillis, TimeUnit.MINUTES.toMillis(1)), TimeUnit.MILLISECONDS)
+            .ticker(ticker)
+            .build();
+
+        this.inFlightLoads = new ConcurrentHashMap<>();
+
+        // shards that have not been read for a while are no longer considered for read-ahead; not bounded by size,
+        // since evicting the budget of a shard that is still read would reset it
+        this.readAheadBudgets = CacheBuilder
+            .newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .ticker(ticker)
+            .build();
     }
 
     private String loadShardIterator(CachingShardIterator iterator) {
@@ -730,6 +911,11 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
         // fetch records using cache
         final GetRecordsResult loadedResult = getRecords(iterator);
 
+        // load the following segment in the background if enabled
+        if (readAheadExecutor != null) {
+            readAhead(loadedResult);
+        }
+
         // apply limit if applicable
         final GetRecordsResult result = applyLimit(request.getLimit(), iterator, loadedResult);
 
@@ -741,12 +927,119 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
     }
 
     /**
-     * Gets records for the given shard iterator position using the record and iterator cache.
+     * Gets records for the given shard iterator position using the record, empty result, and iterator cache.
      *
      * @param iterator Position in the a given stream shard for which to retrieve records
      * @return Results loaded from the cache or underlying stream
      */
     private GetRecordsResult getRecords(CachingShardIterator iterator) {
+        final Optional<IteratorPosition> resolvedPosition = iterator.resolvePosition();
+        if (resolvedPosition.isEmpty()) {
+            return loadRecords(iterator);
+        }
+        final IteratorPosition position = resolvedPosition.get();
+        final Optional<GetRecordsResult> cached = getFromCache(position);
+        if (cached.isPresent()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("getRecords cache hit: iterator={}, result={}", iterator, toShortString(cached.get()));
+            }
+            return cached.get();
+        }
+        final TipPoll tipPoll = tipPolls.getIfPresent(position);
+        if (tipPoll != null && ticker.read() - tipPoll.emptyUntilNanos < 0) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("getRecords empty result cache hit: iterator={}", iterator);
+            }
+            return new GetRecordsResult()
+                .withRecords(emptyList())
+                .withNextShardIterator(iterator.toExternalString());
+        }
+        return loadShared(position, iterator);
+    }
+
+    /**
+     * Loads the segment following the given result into the cache in the background, unless it is already cached or
+     * being loaded, or the read-ahead budget of its shard is exhausted.
+     *
+     * @param result Result returned to a client
+     */
+    private void readAhead(GetRecordsResult result) {
+        if (result.getRecords().isEmpty() || result.getNextShardIterator() == null) {
+            return;
+        }
+        final CachingShardIterator nextIterator =
+            CachingShardIterator.fromExternalString(result.getNextShardIterator());
+        final Optional<IteratorPosition> nextPosition = nextIterator.resolvePosition();
+        if (nextPosition.isEmpty() || inFlightLoads.containsKey(nextPosition.get())
+            || getFromCache(nextPosition.get()).isPresent()) {
+            return;
+        }
+        final RateLimiter budget;
+        try {
+            budget = readAheadBudgets.get(nextPosition.get().shardKey(),
+                () -> RateLimiter.create(readAheadsPerShardPerSecond));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!budget.tryAcquire()) {
+            return;
+        }
+        try {
+            readAheadExecutor.execute(() -> {
+                try {
+                    getRecords(nextIterator);
+                } catch (RuntimeException e) {
+                    LOG.debug("read-ahead failed: iterator={}", nextIterator, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("read-ahead rejected: iterator={}", nextIterator, e);
+        }
+    }
+
+    /**
+     * Loads records for the given position, sharing the result with concurrent callers for the same position.
+     *
+     * @param position Position to load records for
+     * @param iterator Iterator that resolves to the position
+     * @return Results loaded from the cache or underlying stream
+     */
+    private GetRecordsResult loadShared(IteratorPosition position, CachingShardIterator iterator) {
+        final InFlightLoad load = new InFlightLoad();
+        final InFlightLoad inFlightLoad = inFlightLoads.putIfAbsent(position, load);
+        if (inFlightLoad != null && inFlightLoad.loader == load.loader) {
+            return loadRecords(iterator);
+        }
+        if (inFlightLoad != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("getRecords awaiting concurrent load: iterator={}", iterator);
+            }
+            try {
+                return inFlightLoad.join();
+            } catch (CompletionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+        }
+        try {
+            GetRecordsResult result = loadRecords(iterator);
+            load.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(position, load);
+        }
+    }
+
+    /**
+     * Gets records for the given shard iterator position using the record and iterator cache.
+     *
+     * @param iterator Position in the a given stream shard for which to retrieve records
+     * @return Results loaded from the cache or underlying stream
+     */
+    private GetRecordsResult loadRecords(CachingShardIterator iterator) {
         int getRecordsRetries = 0;
         while (getRecordsRetries < maxGetRecordsRetries) {
             // if iterator is resolvable, try to lookup records in cache
@@ -809,12 +1102,16 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
             String loadedNextIterator = loadedRecordsResult.getNextShardIterator();
 
             // if we didn't load anything, return without adding cache segment (preserves non-empty range invariant)
-            // TODO could cache empty results for (short) time period to avoid having every client hit the stream.
             if (loadedRecords.isEmpty()) {
                 // end of shard, just return
                 if (loadedNextIterator == null) {
+                    iterator.resolvePosition().ifPresent(tipPolls::invalidate);
                     return loadedRecordsResult;
                 }
+                // remember that there are no records at the tip of the shard for a short while
+                if (emptyResultTtlInNanos > 0) {
+                    iterator.resolvePosition().ifPresent(this::markEmpty);
+                }
                 // otherwise compute next iterator (update cache for lazy iterators)
                 CachingShardIterator nextIterator;
                 if (iterator.getDynamoDbIterator().isPresent()) {
@@ -828,6 +1125,9 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
                     .withNextShardIterator(nextIterator.toExternalString());
             }
 
+            // the position is no longer at the tip of the shard
+            iterator.resolvePosition().ifPresent(tipPolls::invalidate);
+
             // update iterator cache
             if (loadedNextIterator != null) {
                 iteratorCache.put(iterator.nextShardIterator(loadedRecords), loadedNextIterator);
@@ -838,23 +1138,24 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
             IteratorPosition loadedPosition = iterator.resolvePosition(loadedRecords);
             Optional<GetRecordsResult> cachedResult;
             GetRecordsResult result;
-            final Lock writeLock = recordsCacheLock.writeLock();
-            writeLock.lock();
+            final ShardCache shardCache = lockShardCache(loadedPosition);
             try {
                 // Add retrieved records to cache under resolved position
-                cachedResult = addToCache(loadedPosition, loadedRecordsResult);
+                cachedResult = addToCache(shardCache, loadedPosition, loadedRecordsResult);
 
                 // now lookup result: may not be exactly what we loaded if we merged result with other segments.
-                // can also be empty if the cache is too small to hold the result, in which case we just return loaded.
-                result = getFromCache(loadedPosition).orElseGet(() ->
+                result = getFromCache(shardCache, loadedPosition).orElseGet(() ->
                         new GetRecordsResult().withRecords(loadedRecordsResult.getRecords())
                                 .withNextShardIterator(loadedRecordsResult.getNextShardIterator() == null ? null
                                         : loadedPosition.iteratorAfterResult(loadedRecordsResult).toExternalString()));
 
             } finally {
-                writeLock.unlock();
+                shardCache.lock.writeLock().unlock();
             }
 
+            // evict outside of critical section, so that at most one shard is locked at a time
+            evictIfNeeded();
+
             // log cache  outside of critical section
             if (LOG.isDebugEnabled()) {
                 LOG.debug("getRecords cached result={}", cachedResult);
@@ -869,6 +1170,16 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
         throw new LimitExceededException("Exhausted GetRecords retry limit.");
     }
 
+    /**
+     * Records that the underlying stream returned no records at the given position, which is at the tip of its shard.
+     *
+     * @param position Position at which no records were returned
+     */
+    private void markEmpty(IteratorPosition position) {
+        tipPolls.asMap().computeIfAbsent(position, p -> new TipPoll()).emptyUntilNanos =
+            ticker.read() + emptyResultTtlInNanos;
+    }
+
     /**
      * Reduces the result based on the limit if present.
      *
@@ -892,181 +1203,241 @@ public class CachingAmazonDynamoDbStreams extends DelegatingAmazonDynamoDbStream
     }
 
     /**
-     * Looks up cached result for given position. Acquires read lock to access cache, but may be called with read or
-     * write lock held, since lock is reentrant.
+     * Looks up cached result for given position. Acquires the read lock of the position's shard cache.
      *
      * @param position Iterator for which to retrieve matching records from the cache
      * @return List of matching (i.e., immediately succeeding iterator) cached records or empty list if none match
      */
     private Optional<GetRecordsResult> getFromCache(IteratorPosition position) {
-        final Lock readLock = recordsCacheLock.readLock();
+        final ShardCache shardCache = recordsCache.get(position.shardKey());
+        if (shardCache == null) {
+            return Optional.empty();
+        }
+        final Lock readLock = shardCache.lock.readLock();
         readLock.lock();
         try {
-            final Optional<GetRecordsResult> cachedRecordsResult;
-            final Map.Entry<IteratorPosition, GetRecordsResult> previousCacheEntry = getFloorCacheEntry(position);
-            if (previousCacheEntry == null) {
-                // no matching cache entry found
-                cachedRecordsResult = Optional.empty();
-            } else {
-                IteratorPosition previousPosition = previousCacheEntry.getKey();
-                GetRecordsResult previousResult = previousCacheEntry.getValue();
-                if (position.equals(previousPosition)) {
-                    // exact iterator hit (hopefully common case), return all cached records
-                    cachedRecordsResult = Optional.of(previousResult);
-                } else if (position.equalsShard(previousPosition) && position.precedesAny(previousResult)) {
-                    // Cache entry contains records that match (i.e., come after) the requested iterator
-                    // position: Filter cached records to those that match. Return only that subset, to increase
-                    // the chance of using a shared iterator position on the next getRecords call.
-                    final List<Record> matchingCachedRecords = previousResult.getRecords().stream()
-                        .filter(position)
-                        .collect(toList());
-                    return Optional.of(new GetRecordsResult()
-                        .withRecords(matchingCachedRecords)
-                        .withNextShardIterator(previousResult.getNextShardIterator()));
-                } else {
-                    // no cached records in the preceding cache entry match the requested position (i.e., all records
-                    // precede it)
-                    cachedRecordsResult = Optional.empty();
-                }
-            }
-            return cachedRecordsResult;
+            return getFromCache(shardCache, position);
         } finally {
             readLock.unlock();
         }
     }
 
+    /**
+     * Looks up cached result for given position in the given shard cache. Must be called with the read or write lock
+     * of the shard cache held.
+     *
+     * @param shardCache Cache of the position's shard
+     * @param position Iterator for which to retrieve matching records from the cache
+     * @return List of matching (i.e., immediately succeeding iterator) cached records or empty list if none match
+     */
+    private Optional<GetRecordsResult> getFromCache(ShardCache shardCache, IteratorPosition position) {
+        final Optional<GetRecordsResult> cachedRecordsResult;
+        final Map.Entry<IteratorPosition, GetRecordsResult> previousCacheEntry =
+            shardCache.segments.floorEntry(position);
+        if (previousCacheEntry == null) {
+            // no matching cache entry found
+            cachedRecordsResult = Optional.empty();
+        } else {
+            IteratorPosition previousPosition = previousCacheEntry.getKey();
+            GetRecordsResult previousResult = previousCacheEntry.getValue();
+            if (position.equals(previousPosition)) {
+                // exact iterator hit (hopefully common case), return all cached records
+                cachedRecordsResult = Optional.of(previousResult);
+            } else if (position.equalsShard(previousPosition) && position.precedesAny(previousResult)) {
+                // Cache entry contains records that match (i.e., come after) the requested iterator
+                // position: Filter cached records to those that match. Return only that subset, to increase
+                // the chance of using a shared iterator position on the next getRecords call.
+                final List<Record> matchingCachedRecords = previousResult.getRecords().stream()
+                    .filter(position)
+                    .collect(toList());
+                return Optional.of(new GetRecordsResult()
+                    .withRecords(matchingCachedRecords)
+                    .withNextShardIterator(previousResult.getNextShardIterator()));
+            } else {
+                // no cached records in the preceding cache entry match the requested position (i.e., all records
+                // precede it)
+                cachedRecordsResult = Optional.empty();
+            }
+        }
+        return cachedRecordsResult;
+    }
+
+    /**
+     * Returns the cache of the given position's shard with its write lock held, creating it if needed. The caller must
+     * release the write lock.
+     *
+     * @param position Position in the shard to lock.
+     * @return Locked shard cache.
+     */
+    private ShardCache lockShardCache(IteratorPosition position) {
+        while (true) {
+            final ShardCache shardCache = recordsCache.computeIfAbsent(position.shardKey(), key -> new ShardCache());
+            shardCache.lock.writeLock().lock();
+            if (!shardCache.retired) {
+                return shardCache;
+            }
+            // removed by eviction since we looked it up, try again
+            shardCache.lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Adds the given loaded result into the cache under the given loaded position. Discards records that overlap with
      * existing cache entries. If the entry is adjacent to existing entries, it will merge them, provided the resulting
      * record list does not exceed {@link #GET_RECORDS_LIMIT}. Returns the result that was actually added to the cache
      * (which may include merged records). The loaded position may precede the first record, since sequence numbers are
-     * not contiguous.
+     * not contiguous. Must be called with the write lock of the shard cache held.
      *
+     * @param shardCache Cache of the loaded position's shard.
      * @param loadedPosition Position from which the result was loaded in the stream.
      * @param loadedResult Result loaded for the given position.
      * @return Result actually added to cache. Empty if all records were already present in cache for position.
      */
-    private Optional<GetRecordsResult> addToCache(IteratorPosition loadedPosition, GetRecordsResult loadedResult) {
-        final Lock writeLock = recordsCacheLock.writeLock();
-        writeLock.lock();
-        try {
-            IteratorPosition cachePosition = loadedPosition;
-            GetRecordsResult cacheResult = new GetRecordsResult()
-                .withRecords(loadedResult.getRecords())
-                .withNextShardIterator(loadedResult.getNextShardIterator() == null ? null
-                    : loadedPosition.iteratorAfterResult(loadedResult).toExternalString());
-
-            boolean predecessorAdjacent = false;
-            final Entry<IteratorPosition, GetRecordsResult> predecessor = getFloorCacheEntry(loadedPosition);
-            if (predecessor != null && loadedPosition.equalsShard(predecessor.getKey())) {
-                GetRecordsResult predecessorResult = predecessor.getValue();
-                if (loadedPosition.precedesAny(predecessorResult)) {
-                    // the previous cache entry overlaps with the records we retrieved: filter out overlapping records
-                    // (by reducing the loaded records to those that come after the last predecessor record)
-                    cachePosition = loadedPosition.positionAfterResult(predecessorResult);
-                    cacheResult.setRecords(cacheResult.getRecords().stream()
-                        .filter(cachePosition)
-                        .collect(toList()));
-                    // if all retrieved records are contained in the predecessor, we have nothing to add
-                    if (cacheResult.getRecords().isEmpty()) {
-                        return Optional.empty();
-                    }
-                    predecessorAdjacent = true;
-                } else {
-                    //
-                    predecessorAdjacent = loadedPosition.equals(loadedPosition.positionAfterResult(predecessorResult));
+    private Optional<GetRecordsResult> addToCache(ShardCache shardCache, IteratorPosition loadedPosition,
+        GetRecordsResult loadedResult) {
+        IteratorPosition cachePosition = loadedPosition;
+        GetRecordsResult cacheResult = new GetRecordsResult()
+            .withRecords(loadedResult.getRecords())
+            .withNextShardIterator(loadedResult.getNextShardIterator() == null ? null
+                : loadedPosition.iteratorAfterResult(loadedResult).toExternalString());
+
+        boolean predecessorAdjacent = false;
+        final Entry<IteratorPosition, GetRecordsResult> predecessor = shardCache.segments.floorEntry(loadedPosition);
+        if (predecessor != null && loadedPosition.equalsShard(predecessor.getKey())) {
+            GetRecordsResult predecessorResult = predecessor.getValue();
+            if (loadedPosition.precedesAny(predecessorResult)) {
+                // the previous cache entry overlaps with the records we retrieved: filter out overlapping records
+                // (by reducing the loaded records to those that come after the last predecessor record)
+                cachePosition = loadedPosition.positionAfterResult(predecessorResult);
+                cacheResult.setRecords(cacheResult.getRecords().stream()
+                    .filter(cachePosition)
+                    .collect(toList()));
+                // if all retrieved records are contained in the predecessor, we have nothing to add
+                if (cacheResult.getRecords().isEmpty()) {
+                    return Optional.empty();
                 }
+                predecessorAdjacent = true;
+            } else {
+                //
+                predecessorAdjacent = loadedPosition.equals(loadedPosition.positionAfterResult(predecessorResult));
             }
+        }
 
-            boolean successorAdjacent = false;
-            final Entry<IteratorPosition, GetRecordsResult> successor = getHigherCacheEntry(cachePosition);
-            if (successor != null && cachePosition.equalsShard(successor.getKey())) {
-                IteratorPosition successorPosition = successor.getKey();
-                if (successorPosition.precedesAny(cacheResult)) {
-                    // the succeeding cache entry overlaps with loaded records: filter out overlapping records
-                    // (by reducing the loaded records to those that come before the successor starting position)
-                    cacheResult.setRecords(cacheResult.getRecords().stream()
-                        .filter(successorPosition.negate())
-                        .collect(toList()));
-
-                    if (cacheResult.getRecords().isEmpty()) {
-                        // if all retrieved records are contained in the successor, reindex (and maybe merge) successor
-                        removeCacheEntry(successor);
-                        cacheResult = successor.getValue();
-                        successorAdjacent = false;
-                    } else {
-                        // if some of the retrieved records are not contained in the next segment,
-                        cacheResult.setNextShardIterator(
-                            cachePosition.iteratorAfterResult(cacheResult).toExternalString());
-                        successorAdjacent = true;
-                    }
+        boolean successorAdjacent = false;
+        final Entry<IteratorPosition, GetRecordsResult> successor = shardCache.segments.higherEntry(cachePosition);
+        if (successor != null && cachePosition.equalsShard(successor.getKey())) {
+            IteratorPosition successorPosition = successor.getKey();
+            if (successorPosition.precedesAny(cacheResult)) {
+                // the succeeding cache entry overlaps with loaded records: filter out overlapping records
+                // (by reducing the loaded records to those that come before the successor starting position)
+                cacheResult.setRecords(cacheResult.getRecords().stream()
+                    .filter(successorPosition.negate())
+                    .collect(toList()));
+
+                if (cacheResult.getRecords().isEmpty()) {
+                    // if all retrieved records are contained in the successor, reindex (and maybe merge) successor
+                    removeCacheEntry(shardCache, successor);
+                    cacheResult = successor.getValue();
+                    successorAdjacent = false;
                 } else {
-                    successorAdjacent = successorPosition.equals(cachePosition.positionAfterResult(cacheResult));
+                    // if some of the retrieved records are not contained in the next segment,
+                    cacheResult.setNextShardIterator(
+                        cachePosition.iteratorAfterResult(cacheResult).toExternalString());
+                    successorAdjacent = true;
                 }
+            } else {
+                successorAdjacent = successorPosition.equals(cachePosition.positionAfterResult(cacheResult));
             }
+        }
 
-            if (predecessorAdjacent) {
-                int totalSize = predecessor.getValue().getRecords().size() + cacheResult.getRecords().size();
-                if (totalSize <= GET_RECORDS_LIMIT) {
-                    List<Record> mergedRecords = new ArrayList<>(totalSize);
-                    mergedRecords.addAll(predecessor.getValue().getRecords());
-                    mergedRecords.addAll(cacheResult.getRecords());
-                    cacheResult.setRecords(mergedRecords);
-                    cachePosition = predecessor.getKey();
-                    removeCacheEntry(predecessor);
-                }
+        if (predecessorAdjacent) {
+            int totalSize = predecessor.getValue().getRecords().size() + cacheResult.getRecords().size();
+            if (totalSize <= GET_RECORDS_LIMIT) {
+                List<Record> mergedRecords = new ArrayList<>(totalSize);
+                mergedRecords.addAll(predecessor.getValue().getRecords());
+                mergedRecords.addAll(cacheResult.getRecords());
+                cacheResult.setRecords(mergedRecords);
+                cachePosition = predecessor.getKey();
+                removeCacheEntry(shardCache, predecessor);
             }
-            if (successorAdjacent) {
-                int totalSize = cacheResult.getRecords().size() + successor.getValue().getRecords().size();
-                if (totalSize <= GET_RECORDS_LIMIT) {
-                    List<Record> mergedRecords = new ArrayList<>(totalSize);
-                    mergedRecords.addAll(cacheResult.getRecords());
-                    mergedRecords.addAll(successor.getValue().getRecords());
-                    cacheResult.setRecords(mergedRecords);
-                    cacheResult.setNextShardIterator(successor.getValue().getNextShardIterator());
-                    removeCacheEntry(successor);
-                }
+        }
+        if (successorAdjacent) {
+            int totalSize = cacheResult.getRecords().size() + successor.getValue().getRecords().size();
+            if (totalSize <= GET_RECORDS_LIMIT) {
+                List<Record> mergedRecords = new ArrayList<>(totalSize);
+                mergedRecords.addAll(cacheResult.getRecords());
+                mergedRecords.addAll(successor.getValue().getRecords());
+                cacheResult.setRecords(mergedRecords);
+                cacheResult.setNextShardIterator(successor.getValue().getNextShardIterator());
+                removeCacheEntry(shardCache, successor);
             }
+        }
 
-            addCacheEntry(cachePosition, cacheResult);
+        addCacheEntry(shardCache, cachePosition, cacheResult);
 
-            return Optional.of(cacheResult);
-        } finally {
-            writeLock.unlock();
-        }
+        return Optional.of(cacheResult);
     }
 
-    private void addCacheEntry(IteratorPosition key, GetRecordsResult value) {
-        GetRecordsResult previous = recordsCache.put(key, value);
-        assert previous == null;
-        previous = recordsCacheIndex.put(key, value);
+    private void addCacheEntry(ShardCache shardCache, IteratorPosition key, GetRecordsResult value) {
+        GetRecordsResult previous = shardCache.segments.put(key, value);
         assert previous == null;
-        recordsCacheByteSize += getByteSize(value);
-        // LRU behavior
-        while (recordsCacheByteSize > maxRecordsByteSize) {
-            removeCacheEntry(recordsCache.entrySet().iterator().next());
+        long sequence = recordsCacheInsertions.getAndIncrement();
+        shardCache.insertionOrder.put(key, sequence);
+        if (shardCache.insertionOrder.size() == 1) {
+            shardCache.eldestSequence = sequence;
         }
+        recordsCacheByteSize.addAndGet(getByteSize(value));
     }
 
-    private void removeCacheEntry(Entry<IteratorPosition, GetRecordsResult> entry) {
-        GetRecordsResult previous = recordsCache.remove(entry.getKey());
+    private void removeCacheEntry(ShardCache shardCache, Entry<IteratorPosition, GetRecordsResult> entry) {
+        GetRecordsResult previous = shardCache.segments.remove(entry.getKey());
         assert previous == entry.getValue();
-        previous = recordsCacheIndex.remove(entry.getKey());
-        assert previous == entry.getValue();
-        recordsCacheByteSize -= getByteSize(entry.getValue());
-        assert recordsCacheByteSize >= 0;
+        shardCache.insertionOrder.remove(entry.getKey());
+        shardCache.eldestSequence = shardCache.insertionOrder.isEmpty() ? Long.MAX_VALUE
+            : shardCache.insertionOrder.values().iterator().next();
+        long byteSize = recordsCacheByteSize.addAndGet(-getByteSize(entry.getValue()));
+        assert byteSize >= 0;
     }
 
-    private long getByteSize(GetRecordsResult value) {
-        return value.getRecords().stream().map(Record::getDynamodb).mapToLong(StreamRecord::getSizeBytes).sum();
-    }
-
-    private Entry<IteratorPosition, GetRecordsResult> getFloorCacheEntry(IteratorPosition position) {
-        return recordsCacheIndex.floorEntry(position);
+    /**
+     * Evicts the oldest segments across all shards until the cache fits into its byte budget. Empty shard caches are
+     * removed. Must not be called with any shard lock held.
+     */
+    private void evictIfNeeded() {
+        if (recordsCacheByteSize.get() <= maxRecordsByteSize) {
+            return;
+        }
+        evictionLock.lock();
+        try {
+            while (recordsCacheByteSize.get() > maxRecordsByteSize) {
+                final Optional<Entry<Entry<String, String>, ShardCache>> eldest = recordsCache.entrySet().stream()
+                    .min(Comparator.comparingLong(shard -> shard.getValue().eldestSequence));
+                if (eldest.isEmpty()) {
+                    break;
+                }
+                final ShardCache shardCache = eldest.get().getValue();
+                shardCache.lock.writeLock().lock();
+                try {
+                    if (!shardCache.segments.isEmpty()) {
+                        IteratorPosition eldestPosition = shardCache.insertionOrder.keySet().iterator().next();
+                        removeCacheEntry(shardCache, Map.entry(eldestPosition,
+                            shardCache.segments.get(eldestPosition)));
+                    }
+                    if (shardCache.segments.isEmpty()) {
+                        shardCache.retired = true;
+                        recordsCache.remove(eldest.get().getKey(), shardCache);
+                    }
+                } finally {
+                    shardCache.lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
     }
 
-    private Entry<IteratorPosition, GetRecordsResult> getHigherCacheEntry(IteratorPosition position) {
-        return recordsCacheIndex.higherEntry(position);
+    private long getByteSize(GetRecordsResult value) {
+        return value.getRecords().stream().map(Record::getDynamodb).mapToLong(StreamRecord::getSizeBytes).sum();
     }
 
 }
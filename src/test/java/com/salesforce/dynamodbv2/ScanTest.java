@@ -13,6 +13,8 @@ import static com.salesforce.dynamodbv2.testsupport.TestSupport.SOME_OTHER_OTHER
 import static com.salesforce.dynamodbv2.testsupport.TestSupport.attributeValueToString;
 import static com.salesforce.dynamodbv2.testsupport.TestSupport.createAttributeValue;
 import static com.salesforce.dynamodbv2.testsupport.TestSupport.createStringAttribute;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -28,6 +30,7 @@ import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.MtAmazonDynamoDbBySharedTable;
 import com.salesforce.dynamodbv2.testsupport.ArgumentBuilder.TestArgument;
 import com.salesforce.dynamodbv2.testsupport.DefaultArgumentProvider;
 import com.salesforce.dynamodbv2.testsupport.DefaultTestSetup;
@@ -39,7 +42,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
+import java.util.stream.Stream;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
@@ -134,7 +140,7 @@ class ScanTest {
                     .someField(S, SOME_OTHER_OTHER_FIELD_VALUE + TABLE1 + org)
                     .build();
             final ImmutableSet<Map<String, AttributeValue>> expectedSet = ImmutableSet.of(someValue, someOtherValue);
-            assertEquals(expectedSet, new HashSet(items));
+            assertEquals(expectedSet, new HashSet<>(items));
         });
     }
 
@@ -143,7 +149,7 @@ class ScanTest {
     void scanWithPaging(TestArgument testArgument) {
         testArgument.forEachOrgContext(org -> {
             scanAndAssertItemKeys(
-                scanTestSetup.orgItemKeys.get(org),
+                new HashSet<>(scanTestSetup.orgItemKeys.get(org)),
                 exclusiveStartKey -> testArgument.getAmazonDynamoDb().scan(new ScanRequest(TABLE1)
                     .withLimit(10).withExclusiveStartKey(exclusiveStartKey)),
                 testArgument.getHashKeyAttrType()
@@ -151,6 +157,51 @@ class ScanTest {
         });
     }
 
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(ScanTestArgumentProvider.class)
+    void scanWithSegments(TestArgument testArgument) {
+        testArgument.forEachOrgContext(org -> {
+            int totalSegments = 4;
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (int segment = 0; segment < totalSegments; segment++) {
+                ScanRequest scanRequest = new ScanRequest(TABLE1).withLimit(10)
+                    .withSegment(segment).withTotalSegments(totalSegments);
+                items.addAll(executeScan(exclusiveStartKey -> testArgument.getAmazonDynamoDb()
+                    .scan(scanRequest.withExclusiveStartKey(exclusiveStartKey))));
+            }
+            assertEquals(scanTestSetup.orgItemKeys.get(org), getItemKeys(items, testArgument.getHashKeyAttrType()));
+        });
+    }
+
+    @ParameterizedTest(name = "{arguments}")
+    @ArgumentsSource(ScanTestArgumentProvider.class)
+    void parallelScan(TestArgument testArgument) {
+        if (testArgument.getAmazonDynamoDb() instanceof MtAmazonDynamoDbBySharedTable) {
+            MtAmazonDynamoDbBySharedTable sharedTable = (MtAmazonDynamoDbBySharedTable) testArgument.getAmazonDynamoDb();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                testArgument.forEachOrgContext(org -> {
+                    try (Stream<Map<String, AttributeValue>> items =
+                             sharedTable.parallelScan(new ScanRequest(TABLE1).withLimit(10), 4, executor)) {
+                        assertEquals(scanTestSetup.orgItemKeys.get(org),
+                            getItemKeys(items.collect(toList()), testArgument.getHashKeyAttrType()));
+                    }
+                });
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static Set<Integer> getItemKeys(List<Map<String, AttributeValue>> items,
+                                            ScalarAttributeType hashKeyAttrType) {
+        return items.stream()
+            .map(i -> i.get(HASH_KEY_FIELD))
+            .map(i -> attributeValueToString(hashKeyAttrType, i))
+            .map(Integer::parseInt)
+            .collect(toSet());
+    }
+
     private void scanAndAssertItemKeys(Set<Integer> expectedItems,
                                        Function<Map<String, AttributeValue>, ScanResult> scanExecutor,
                                        ScalarAttributeType hashKeyAttrType) {
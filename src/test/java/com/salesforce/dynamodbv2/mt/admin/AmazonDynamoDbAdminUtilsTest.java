@@ -4,6 +4,7 @@ import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
 import static com.salesforce.dynamodbv2.testsupport.ItemBuilder.HASH_KEY_FIELD;
 import static com.salesforce.dynamodbv2.testsupport.ItemBuilder.INDEX_FIELD;
 import static com.salesforce.dynamodbv2.testsupport.ItemBuilder.RANGE_KEY_FIELD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -21,6 +22,7 @@ import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
 import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
+import org.awaitility.pollinterval.PollInterval;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -132,4 +134,24 @@ class AmazonDynamoDbAdminUtilsTest {
         }
         assertTrue(e instanceof ResourceNotFoundException);
     }
-}
\ No newline at end of file
+
+    @Test
+    void exponentialBackoff() {
+        PollInterval pollInterval = AmazonDynamoDbAdminUtils.exponentialBackoff(1);
+        assertEquals(100L, pollInterval.next(1, null).getValueInMS());
+        assertEquals(200L, pollInterval.next(2, null).getValueInMS());
+        assertEquals(800L, pollInterval.next(4, null).getValueInMS());
+        assertEquals(1000L, pollInterval.next(5, null).getValueInMS());
+        assertEquals(1000L, pollInterval.next(Integer.MAX_VALUE, null).getValueInMS());
+    }
+
+    @Test
+    void exponentialBackoffWithDefaultPollInterval() {
+        PollInterval pollInterval = AmazonDynamoDbAdminUtils.exponentialBackoff(0);
+        assertEquals(100L, pollInterval.next(1, null).getValueInMS());
+        assertEquals(200L, pollInterval.next(2, null).getValueInMS());
+        assertEquals(3200L, pollInterval.next(6, null).getValueInMS());
+        assertEquals(5000L, pollInterval.next(7, null).getValueInMS());
+        assertEquals(5000L, pollInterval.next(Integer.MAX_VALUE, null).getValueInMS());
+    }
+}
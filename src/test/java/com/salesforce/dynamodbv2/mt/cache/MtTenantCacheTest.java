@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests MtTenantCache.
+ */
+class MtTenantCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final ThreadLocal<String> context = new ThreadLocal<>();
+    private final MtAmazonDynamoDbContextProvider contextProvider = new MtAmazonDynamoDbContextProvider() {
+        @Override
+        public Optional<String> getContextOpt() {
+            return Optional.ofNullable(context.get());
+        }
+
+        @Override
+        public void setContext(String tenantId) {
+            context.set(tenantId);
+        }
+    };
+
+    @Test
+    void testGetAndInvalidate() throws ExecutionException {
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        context.set("ctx1");
+        assertEquals("ctx1-table1", sut.get("table1", () -> "ctx1-table1"));
+        assertEquals("ctx1-table1", sut.get("table1", () -> "other"));
+        assertEquals("ctx1-table2", sut.get("table2", () -> "ctx1-table2"));
+        context.set("ctx2");
+        assertNull(sut.getIfPresent("table1"));
+        sut.put("table1", "ctx2-table1");
+        assertEquals("ctx2-table1", sut.getIfPresent("table1"));
+        assertEquals(3, sut.size());
+
+        sut.invalidate("table1");
+        assertNull(sut.getIfPresent("table1"));
+        context.set("ctx1");
+        sut.invalidateTenant("ctx1");
+        assertNull(sut.getIfPresent("table2"));
+        assertEquals(0, sut.size());
+
+        assertStats(2, 5, 2, 0, sut.stats());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedTenant() throws ExecutionException {
+        // small caches have a single segment, so the maximum size applies to the cache as a whole
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 3, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        context.set("ctx1");
+        sut.put("table1", "value");
+        sut.put("table2", "value");
+        context.set("ctx2");
+        sut.put("table1", "value");
+        context.set("ctx3");
+        sut.put("table1", "value");
+
+        context.set("ctx1");
+        assertNull(sut.getIfPresent("table1"));
+        assertEquals(2, sut.size());
+        assertEquals(2, sut.stats().evictionCount());
+    }
+
+    @Test
+    void testExpiresAfterAccess() throws ExecutionException {
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        context.set("ctx1");
+        sut.put("table1", "value");
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("value", sut.getIfPresent("table1"));
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("value", sut.getIfPresent("table1"));
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertNull(sut.getIfPresent("table1"));
+    }
+
+    @Test
+    void testLoadException() {
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        context.set("ctx1");
+        IllegalStateException exception = new IllegalStateException();
+        assertSame(exception, assertThrows(UncheckedExecutionException.class,
+            () -> sut.get("table1", () -> {
+                throw exception;
+            })).getCause());
+        assertThrows(ExecutionException.class, () -> sut.get("table1", () -> {
+            throw new Exception();
+        }));
+        assertEquals(0, sut.size());
+        assertStats(0, 2, 0, 2, sut.stats());
+    }
+
+    @Test
+    void testConcurrentLoadsCoalesced() throws Exception {
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch loaded = new CountDownLatch(1);
+            AtomicInteger loads = new AtomicInteger();
+            Future<String> first = executor.submit(() -> {
+                context.set("ctx1");
+                return sut.get("table1", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    loaded.await();
+                    return "value";
+                });
+            });
+            loading.await();
+            context.set("ctx1");
+            assertNull(sut.getIfPresent("table1"));
+            loaded.countDown();
+            assertEquals("value", sut.get("table1", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            assertEquals("value", first.get());
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRefreshAhead() throws ExecutionException {
+        List<Runnable> refreshes = new ArrayList<>();
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofHours(1),
+            Duration.ofMinutes(1), refreshes::add, ticker);
+        context.set("ctx1");
+        AtomicInteger version = new AtomicInteger();
+        Callable<String> loader = () -> contextProvider.getContext() + "-v" + version.incrementAndGet();
+        assertEquals("ctx1-v1", sut.get("table1", loader));
+
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertEquals("ctx1-v1", sut.get("table1", loader));
+        assertTrue(refreshes.isEmpty());
+
+        // stale values are returned while they are refreshed, and only refreshed once
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertEquals("ctx1-v1", sut.get("table1", loader));
+        assertEquals("ctx1-v1", sut.get("table1", loader));
+        assertEquals(1, refreshes.size());
+
+        // refreshes run in the context of the value
+        context.set("ctx2");
+        refreshes.remove(0).run();
+        context.set("ctx1");
+        assertEquals("ctx1-v2", sut.get("table1", loader));
+        assertEquals(1, sut.getRefreshCount());
+
+        // failed refreshes remove the value
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertEquals("ctx1-v2", sut.get("table1", () -> {
+            throw new IllegalStateException();
+        }));
+        refreshes.remove(0).run();
+        assertNull(sut.getIfPresent("table1"));
+        assertEquals(2, sut.getRefreshCount());
+    }
+
+    @Test
+    void testRefreshListener() throws ExecutionException {
+        List<Runnable> refreshes = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofHours(1),
+            Duration.ofMinutes(1), refreshes::add, (context, name) -> changed.add(context + "/" + name), ticker);
+        context.set("ctx1");
+        AtomicInteger version = new AtomicInteger();
+        assertEquals("v0", sut.get("table1", () -> "v" + version.get()));
+
+        // unchanged values are not reported
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        sut.get("table1", () -> "v" + version.get());
+        refreshes.remove(0).run();
+        assertTrue(changed.isEmpty());
+
+        version.incrementAndGet();
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        sut.get("table1", () -> "v" + version.get());
+        refreshes.remove(0).run();
+        assertEquals("v1", sut.getIfPresent("table1"));
+        assertEquals(List.of("ctx1/table1"), changed);
+    }
+
+    @Test
+    void testInvalidateIf() {
+        MtTenantCache<String> sut = new MtTenantCache<>(contextProvider, 100, Duration.ofMinutes(1), Duration.ZERO,
+            Runnable::run, ticker);
+        context.set("ctx1");
+        sut.put("table1", "physical1");
+        sut.put("table2", "physical2");
+        context.set("ctx2");
+        sut.put("table1", "physical1");
+
+        sut.invalidateIf("physical1"::equals);
+        assertNull(sut.getIfPresent("table1"));
+        context.set("ctx1");
+        assertNull(sut.getIfPresent("table1"));
+        assertEquals("physical2", sut.getIfPresent("table2"));
+    }
+
+    private static void assertStats(long hits, long misses, long loads, long loadExceptions, CacheStats stats) {
+        assertEquals(hits, stats.hitCount());
+        assertEquals(misses, stats.missCount());
+        assertEquals(loads, stats.loadSuccessCount());
+        assertEquals(loadExceptions, stats.loadExceptionCount());
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchGetItemEngine.MAX_BATCH_GET_KEYS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests BatchGetItemEngine.
+ */
+class BatchGetItemEngineTest {
+
+    private static final String TABLE1 = "table1";
+    private static final String TABLE2 = "table2";
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSplit() {
+        BatchGetItemRequest request = new BatchGetItemRequest().withRequestItems(ImmutableMap.of(
+            TABLE1, new KeysAndAttributes().withKeys(keys(0, 150)).withProjectionExpression("a"),
+            TABLE2, new KeysAndAttributes().withKeys(keys(150, 250)).withProjectionExpression("b")));
+
+        List<BatchGetItemRequest> chunks = BatchGetItemEngine.split(request);
+
+        assertEquals(3, chunks.size());
+        assertEquals(ImmutableMap.of(
+            TABLE1, new KeysAndAttributes().withKeys(keys(0, 100)).withProjectionExpression("a")),
+            chunks.get(0).getRequestItems());
+        assertEquals(ImmutableMap.of(
+            TABLE1, new KeysAndAttributes().withKeys(keys(100, 150)).withProjectionExpression("a"),
+            TABLE2, new KeysAndAttributes().withKeys(keys(150, 200)).withProjectionExpression("b")),
+            chunks.get(1).getRequestItems());
+        assertEquals(ImmutableMap.of(
+            TABLE2, new KeysAndAttributes().withKeys(keys(200, 250)).withProjectionExpression("b")),
+            chunks.get(2).getRequestItems());
+    }
+
+    @Test
+    void testSplitSmallRequest() {
+        BatchGetItemRequest request = new BatchGetItemRequest().withRequestItems(ImmutableMap.of(
+            TABLE1, new KeysAndAttributes().withKeys(keys(0, MAX_BATCH_GET_KEYS))));
+
+        assertEquals(List.of(request), BatchGetItemEngine.split(request));
+    }
+
+    @Test
+    void testBatchGetItemRetriesUnprocessedKeys() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        AtomicBoolean returnedUnprocessedKeys = new AtomicBoolean();
+        // echo the requested keys as items, except for the last key of the first call processed
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            List<Map<String, AttributeValue>> keys = ((BatchGetItemRequest) invocation.getArgument(0))
+                .getRequestItems().get(TABLE1).getKeys();
+            if (keys.size() > 1 && returnedUnprocessedKeys.compareAndSet(false, true)) {
+                return new BatchGetItemResult()
+                    .withResponses(ImmutableMap.of(TABLE1, keys.subList(0, keys.size() - 1)))
+                    .withUnprocessedKeys(ImmutableMap.of(TABLE1,
+                        new KeysAndAttributes().withKeys(keys.subList(keys.size() - 1, keys.size()))));
+            }
+            return new BatchGetItemResult().withResponses(ImmutableMap.of(TABLE1, keys));
+        });
+
+        BatchGetItemResult result = new BatchGetItemEngine(amazonDynamoDb, executor).batchGetItem(
+            new BatchGetItemRequest().withRequestItems(ImmutableMap.of(
+                TABLE1, new KeysAndAttributes().withKeys(keys(0, 250)))));
+
+        assertTrue(result.getUnprocessedKeys().isEmpty());
+        assertEquals(Set.copyOf(keys(0, 250)), Set.copyOf(result.getResponses().get(TABLE1)));
+        assertEquals(250, result.getResponses().get(TABLE1).size());
+    }
+
+    @Test
+    void testBatchGetItemPropagatesException() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class)))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+
+        assertThrows(ProvisionedThroughputExceededException.class, () ->
+            new BatchGetItemEngine(amazonDynamoDb, executor).batchGetItem(new BatchGetItemRequest()
+                .withRequestItems(ImmutableMap.of(TABLE1, new KeysAndAttributes().withKeys(keys(0, 250))))));
+    }
+
+    private static List<Map<String, AttributeValue>> keys(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> ImmutableMap.of("id", new AttributeValue(String.valueOf(i))))
+            .collect(toList());
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.nio.ByteBuffer;
 import java.util.Base64;
 
@@ -30,7 +32,7 @@ class BinaryHashKeyDecoder {
         System.out.println("========================================");
         System.out.println("Context: " + fieldValue.getContext());
         System.out.println("TableName: " + fieldValue.getTableName());
-        System.out.println("Value: " + Base64.getEncoder().encodeToString(fieldValue.getValue().array()));
+        System.out.println("Value: " + UTF_8.decode(Base64.getEncoder().encode(fieldValue.getValue())));
         System.out.println("========================================");
     }
 
@@ -0,0 +1,149 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.LimitExceededException;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.DeleteTableJobScheduler.JobState;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.DeleteTableJobScheduler.JobStatus;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests DeleteTableJobScheduler.
+ */
+class DeleteTableJobSchedulerTest {
+
+    private static final String CONTEXT = "ctx";
+    private static final String PHYSICAL_TABLE1 = "physicalTable1";
+    private static final String PHYSICAL_TABLE2 = "physicalTable2";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DeleteTableJobScheduler scheduler;
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testConcurrencyPerPhysicalTable() throws InterruptedException {
+        scheduler = new DeleteTableJobScheduler(2, 1, 10, Clock.systemUTC());
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicBoolean concurrent = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean();
+
+        scheduler.submit(CONTEXT, "table1", PHYSICAL_TABLE1, onDeleted -> {
+            running.set(true);
+            started.countDown();
+            await(release);
+            running.set(false);
+        });
+        scheduler.submit(CONTEXT, "table2", PHYSICAL_TABLE1, onDeleted -> concurrent.compareAndSet(false, running.get()));
+        scheduler.submit(CONTEXT, "table3", PHYSICAL_TABLE2, onDeleted -> started.countDown());
+
+        // the job on the other physical table runs while the first one blocks, the one on the same table waits
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(JobState.QUEUED, getJobs().get("table2").getState());
+        release.countDown();
+        awaitFinished(3);
+        assertFalse(concurrent.get());
+        getJobs().values().forEach(status -> assertEquals(JobState.SUCCEEDED, status.getState()));
+    }
+
+    @Test
+    void testPendingJobs() {
+        scheduler = new DeleteTableJobScheduler(1, 1, 2, Clock.systemUTC());
+        JobStatus first = scheduler.submit(CONTEXT, "table1", PHYSICAL_TABLE1, onDeleted -> await(release));
+        scheduler.submit(CONTEXT, "table2", PHYSICAL_TABLE1, onDeleted -> { });
+
+        // resubmitting a pending job does not count against the limit
+        assertEquals(first.getId(), scheduler.submit(CONTEXT, "table1", PHYSICAL_TABLE1, onDeleted -> { }).getId());
+        assertThrows(LimitExceededException.class,
+            () -> scheduler.submit(CONTEXT, "table3", PHYSICAL_TABLE2, onDeleted -> { }));
+    }
+
+    @Test
+    void testProgressAndFailure() throws InterruptedException {
+        scheduler = new DeleteTableJobScheduler(1, 1, 10, Clock.systemUTC());
+        CountDownLatch deleted = new CountDownLatch(1);
+        scheduler.submit(CONTEXT, "table1", PHYSICAL_TABLE1, onDeleted -> {
+            onDeleted.accept(25);
+            onDeleted.accept(5);
+            deleted.countDown();
+            await(release);
+            throw new IllegalStateException("failed");
+        });
+
+        assertTrue(deleted.await(10, TimeUnit.SECONDS));
+        JobStatus running = getJobs().get("table1");
+        assertEquals(JobState.RUNNING, running.getState());
+        assertEquals(30, running.getItemsDeleted());
+        release.countDown();
+        awaitFinished(1);
+        JobStatus failed = getJobs().get("table1");
+        assertEquals(JobState.FAILED, failed.getState());
+        assertEquals(30, failed.getItemsDeleted());
+        assertEquals("java.lang.IllegalStateException: failed", failed.getFailure().get());
+        assertFalse(failed.getElapsed().isNegative());
+    }
+
+    @Test
+    void testShutdown() throws InterruptedException {
+        scheduler = new DeleteTableJobScheduler(1, 1, 10, Clock.systemUTC());
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(CONTEXT, "table1", PHYSICAL_TABLE1, onDeleted -> {
+            started.countDown();
+            await(release);
+        });
+        scheduler.submit(CONTEXT, "table2", PHYSICAL_TABLE1, onDeleted -> { });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        Thread shutdown = new Thread(scheduler::shutdown);
+        shutdown.start();
+
+        // queued jobs are cancelled right away, running jobs are waited for
+        awaitFinished(1);
+        assertEquals(JobState.RUNNING, getJobs().get("table1").getState());
+        release.countDown();
+        shutdown.join(10000);
+        assertEquals(JobState.SUCCEEDED, getJobs().get("table1").getState());
+        assertEquals(JobState.CANCELLED, getJobs().get("table2").getState());
+        assertThrows(IllegalStateException.class,
+            () -> scheduler.submit(CONTEXT, "table3", PHYSICAL_TABLE1, onDeleted -> { }));
+    }
+
+    private Map<String, JobStatus> getJobs() {
+        return scheduler.getJobs().stream().collect(toMap(JobStatus::getTableName, Function.identity()));
+    }
+
+    private void awaitFinished(int jobs) throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            if (getJobs().values().stream().filter(status -> status.getState() != JobState.QUEUED
+                && status.getState() != JobState.RUNNING).count() == jobs) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("jobs did not finish: " + scheduler.getJobs());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
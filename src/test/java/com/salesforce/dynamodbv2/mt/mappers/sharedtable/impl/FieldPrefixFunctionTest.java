@@ -13,6 +13,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -58,6 +59,27 @@ class FieldPrefixFunctionTest {
         assertEquals(qualifiedValue, actual);
 
         assertEquals(expected, sut.reverse(actual));
+
+        FieldPrefix<V> prefix = sut.createPrefix(context, tableIndex);
+        assertEquals(qualifiedValue, sut.apply(prefix, unqualifiedValue));
+        assertEquals(expected, sut.reverse(prefix, actual));
+        assertEquals(expected, sut.reverse(sut.createPrefix(context + "2", tableIndex), actual));
+    }
+
+    @Test
+    void reverseBinarySlice() {
+        ByteBuffer qualifiedValue = ByteBuffer.allocateDirect(19);
+        qualifiedValue.put(UTF_8.encode("xxctx")).put((byte) 0x00).put(UTF_8.encode("table")).put((byte) 0x00)
+            .put(UTF_8.encode("value")).put(UTF_8.encode("yy"));
+        qualifiedValue.position(2).limit(17);
+        ByteBuffer slice = qualifiedValue.slice();
+        FieldValue<ByteBuffer> expected = new FieldValue<>("ctx", "table", UTF_8.encode("value"));
+
+        assertEquals(expected, BinaryFieldPrefixFunction.INSTANCE.reverse(qualifiedValue));
+        assertEquals(expected, BinaryFieldPrefixFunction.INSTANCE.reverse(
+            BinaryFieldPrefixFunction.INSTANCE.createPrefix("ctx", "table"), qualifiedValue));
+        assertEquals(expected, BinaryFieldPrefixFunction.INSTANCE.reverse(slice));
+        assertEquals(2, qualifiedValue.position());
     }
 
 }
\ No newline at end of file
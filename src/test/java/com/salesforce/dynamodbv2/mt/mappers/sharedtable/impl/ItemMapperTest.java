@@ -8,14 +8,18 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.SECONDARY_INDEX;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.IndexType.TABLE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
 import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.FieldMapping.Field;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 
@@ -59,6 +63,41 @@ class ItemMapperTest {
         assertEquals(item, reversedItem);
     }
 
+    @Test
+    void applyAndReverseMultipleTargets() {
+        Field virtualHk = new Field("virtualHk", S);
+        Field virtualGsiHk = new Field("virtualGsiHk", S);
+        ItemMapper sut = new ItemMapper(new MockFieldMapper(), ImmutableMap.of(
+            "virtualHk", ImmutableList.of(
+                new FieldMapping(virtualHk, new Field("physicalHk", S), null, null, TABLE, true),
+                new FieldMapping(virtualHk, new Field("physicalGsiRk", S), "virtualGsi", "physicalGsi",
+                    SECONDARY_INDEX, false)),
+            "virtualGsiHk", ImmutableList.of(
+                new FieldMapping(virtualGsiHk, new Field("physicalGsiHk", S), "virtualGsi", "physicalGsi",
+                    SECONDARY_INDEX, true)),
+            "unmappedField", ImmutableList.of()));
+        Map<String, AttributeValue> item = ImmutableMap.of(
+            "virtualHk", new AttributeValue().withS("hkValue"),
+            "virtualGsiHk", new AttributeValue().withS("gsiHkValue"),
+            "unmappedField", new AttributeValue().withS("unmappedValue"));
+
+        Map<String, AttributeValue> mappedItem = sut.apply(item);
+
+        assertEquals(ImmutableMap.of(
+            "physicalHk", new AttributeValue().withS(PREFIX + "hkValue"),
+            "physicalGsiRk", new AttributeValue().withS("hkValue"),
+            "physicalGsiHk", new AttributeValue().withS(PREFIX + "gsiHkValue"),
+            "unmappedField", new AttributeValue().withS("unmappedValue")), mappedItem);
+        assertEquals(ImmutableMap.of(
+            "virtualHk", new AttributeValue().withS("hkValue"),
+            "virtualGsiHk", new AttributeValue().withS("gsiHkValue"),
+            "unmappedField", new AttributeValue().withS("unmappedValue")),
+            sut.reverse(ImmutableMap.of(
+                "physicalHk", new AttributeValue().withS(PREFIX + "hkValue"),
+                "physicalGsiHk", new AttributeValue().withS(PREFIX + "gsiHkValue"),
+                "unmappedField", new AttributeValue().withS("unmappedValue"))));
+    }
+
     @Test
     void reverseNull() {
         assertNull(SUT.reverse(null));
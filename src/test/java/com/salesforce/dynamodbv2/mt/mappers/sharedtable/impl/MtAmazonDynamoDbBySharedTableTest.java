@@ -1,12 +1,87 @@
 package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
 
+import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
 import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.BatchRetryPolicy.MAX_BATCH_RETRIES;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConditionCheck;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.Get;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.ItemCollectionMetrics;
+import com.amazonaws.services.dynamodbv2.model.ItemResponse;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItem;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactGetItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.salesforce.dynamodbv2.mt.cache.MtTenantCache;
+import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
 import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.repo.MtHashKeyRegistry;
+import com.salesforce.dynamodbv2.mt.repo.MtTableDescriptionRepo;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 /**
  * Unit tests for specific MtAmazonDynamoDbBySharedTable methods.
@@ -40,4 +115,521 @@ class MtAmazonDynamoDbBySharedTableTest {
             new ScanRequest().withAttributesToGet("hk"), new PrimaryKey("hk", S)));
     }
 
-}
\ No newline at end of file
+    @Test
+    void batchWriteItem_chunksAndRetries() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<BatchWriteItemRequest> requests = new ArrayList<>();
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            BatchWriteItemRequest request = invocation.getArgument(0);
+            requests.add(request);
+            // leave the first item of the first chunk unprocessed once
+            return requests.size() == 1
+                ? new BatchWriteItemResult().withUnprocessedItems(ImmutableMap.of(PHYSICAL_TABLE,
+                    ImmutableList.of(request.getRequestItems().get(PHYSICAL_TABLE).get(0))))
+                : new BatchWriteItemResult().withUnprocessedItems(ImmutableMap.of());
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        BatchWriteItemResult result = sharedTable.batchWriteItem(new BatchWriteItemRequest()
+            .withRequestItems(ImmutableMap.of(VIRTUAL_TABLE, putRequests(30))));
+
+        assertTrue(result.getUnprocessedItems().isEmpty());
+        assertEquals(ImmutableList.of(25, 1, 5), requests.stream()
+            .map(request -> request.getRequestItems().get(PHYSICAL_TABLE).size()).collect(toList()));
+        assertEquals(new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/0"),
+            requests.get(1).getRequestItems().get(PHYSICAL_TABLE).get(0).getPutRequest().getItem().get("hk"));
+    }
+
+    @Test
+    void batchWriteItem_returnsUnprocessedItemsUnqualified() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation ->
+            new BatchWriteItemResult().withUnprocessedItems(
+                ((BatchWriteItemRequest) invocation.getArgument(0)).getRequestItems()));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        BatchWriteItemResult result = sharedTable.batchWriteItem(new BatchWriteItemRequest()
+            .withRequestItems(ImmutableMap.of(VIRTUAL_TABLE, putRequests(2))));
+
+        assertEquals(ImmutableMap.of(VIRTUAL_TABLE, putRequests(2)), result.getUnprocessedItems());
+        verify(amazonDynamoDb, times(MAX_BATCH_RETRIES + 1))
+            .batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    void batchGetItem_multipleVirtualTablesPerPhysicalTable() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        // echo the requested keys as items
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation ->
+            new BatchGetItemResult().withResponses(((BatchGetItemRequest) invocation.getArgument(0))
+                .getRequestItems().entrySet().stream()
+                .collect(toMap(Entry::getKey, e -> e.getValue().getKeys()))));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+        String otherVirtualTable = "otherVirtualTable";
+
+        BatchGetItemResult result = sharedTable.batchGetItem(new BatchGetItemRequest().withRequestItems(ImmutableMap.of(
+            VIRTUAL_TABLE, new KeysAndAttributes().withKeys(keys(0, 80)),
+            otherVirtualTable, new KeysAndAttributes().withKeys(keys(80, 150)))));
+
+        assertEquals(ImmutableMap.of(VIRTUAL_TABLE, keys(0, 80), otherVirtualTable, keys(80, 150)),
+            result.getResponses());
+        assertTrue(result.getUnprocessedKeys().isEmpty());
+        verify(amazonDynamoDb, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test
+    void batchGetItem_differentProjectionsPerPhysicalTable() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<BatchGetItemRequest> requests = new ArrayList<>();
+        // return the requested keys with a value attribute as items
+        when(amazonDynamoDb.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return new BatchGetItemResult().withResponses(request.getRequestItems().entrySet().stream()
+                .collect(toMap(Entry::getKey, e -> e.getValue().getKeys().stream()
+                    .map(key -> ImmutableMap.<String, AttributeValue>builder().putAll(key)
+                        .put("value", new AttributeValue("value")).build())
+                    .collect(toList()))));
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+        String otherVirtualTable = "otherVirtualTable";
+
+        BatchGetItemResult result = sharedTable.batchGetItem(new BatchGetItemRequest().withRequestItems(ImmutableMap.of(
+            VIRTUAL_TABLE, new KeysAndAttributes().withKeys(keys(0, 1)).withProjectionExpression("#v")
+                .withExpressionAttributeNames(ImmutableMap.of("#v", "value")),
+            otherVirtualTable, new KeysAndAttributes().withKeys(keys(1, 2)))));
+
+        // the physical table is read without projection, since the virtual tables project differently
+        assertNull(requests.get(0).getRequestItems().get(PHYSICAL_TABLE).getProjectionExpression());
+        assertNull(requests.get(0).getRequestItems().get(PHYSICAL_TABLE).getExpressionAttributeNames());
+        assertEquals(ImmutableList.of(ImmutableMap.of("value", new AttributeValue("value"))),
+            result.getResponses().get(VIRTUAL_TABLE));
+        assertEquals(ImmutableList.of(ImmutableMap.of("id", new AttributeValue("1"),
+            "value", new AttributeValue("value"))), result.getResponses().get(otherVirtualTable));
+    }
+
+    @Test
+    void getItem_mapsProjection() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.getItem(any(GetItemRequest.class))).thenReturn(new GetItemResult().withItem(
+            ImmutableMap.of("hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"),
+                "value", new AttributeValue("value"))));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        GetItemResult result = sharedTable.getItem(new GetItemRequest(VIRTUAL_TABLE,
+            ImmutableMap.of("id", new AttributeValue("1")))
+            .withProjectionExpression("#v")
+            .withExpressionAttributeNames(ImmutableMap.of("#v", "value")));
+
+        ArgumentCaptor<GetItemRequest> captor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(amazonDynamoDb).getItem(captor.capture());
+        assertEquals("#v, #___projection0___", captor.getValue().getProjectionExpression());
+        assertEquals(ImmutableMap.of("#v", "value", "#___projection0___", "hk"),
+            captor.getValue().getExpressionAttributeNames());
+        assertEquals(ImmutableMap.of("value", new AttributeValue("value")), result.getItem());
+    }
+
+    @Test
+    void transactWriteItems() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.transactWriteItems(any(TransactWriteItemsRequest.class))).thenReturn(
+            new TransactWriteItemsResult()
+                .withConsumedCapacity(new ConsumedCapacity().withTableName(PHYSICAL_TABLE).withCapacityUnits(2.0))
+                .withItemCollectionMetrics(ImmutableMap.of(PHYSICAL_TABLE, ImmutableList.of(
+                    new ItemCollectionMetrics().withItemCollectionKey(ImmutableMap.of("hk",
+                        new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1")))))));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        TransactWriteItemsResult result = sharedTable.transactWriteItems(new TransactWriteItemsRequest()
+            .withTransactItems(
+                new TransactWriteItem().withPut(new Put().withTableName(VIRTUAL_TABLE).withItem(ImmutableMap.of(
+                    "id", new AttributeValue("1"), "value", new AttributeValue("value1")))),
+                new TransactWriteItem().withConditionCheck(new ConditionCheck().withTableName(VIRTUAL_TABLE)
+                    .withKey(ImmutableMap.of("id", new AttributeValue("2")))
+                    .withConditionExpression("#id = :id")
+                    .withExpressionAttributeNames(ImmutableMap.of("#id", "id"))
+                    .withExpressionAttributeValues(ImmutableMap.of(":id", new AttributeValue("2"))))));
+
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(amazonDynamoDb).transactWriteItems(captor.capture());
+        assertEquals(new TransactWriteItemsRequest().withTransactItems(
+            new TransactWriteItem().withPut(new Put().withTableName(PHYSICAL_TABLE).withItem(ImmutableMap.of(
+                "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"),
+                "value", new AttributeValue("value1")))),
+            new TransactWriteItem().withConditionCheck(new ConditionCheck().withTableName(PHYSICAL_TABLE)
+                .withKey(ImmutableMap.of("hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/2")))
+                .withConditionExpression("#id = :id")
+                .withExpressionAttributeNames(ImmutableMap.of("#id", "hk"))
+                .withExpressionAttributeValues(ImmutableMap.of(":id",
+                    new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/2"))))), captor.getValue());
+        // physical table names and keys are not returned
+        assertNull(result.getConsumedCapacity());
+        assertNull(result.getItemCollectionMetrics());
+    }
+
+    @Test
+    void transactGetItems() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.transactGetItems(any(TransactGetItemsRequest.class))).thenReturn(
+            new TransactGetItemsResult().withResponses(
+                new ItemResponse().withItem(ImmutableMap.of(
+                    "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"),
+                    "value", new AttributeValue("value1"))),
+                new ItemResponse()));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        TransactGetItemsResult result = sharedTable.transactGetItems(new TransactGetItemsRequest().withTransactItems(
+            new TransactGetItem().withGet(new Get().withTableName(VIRTUAL_TABLE)
+                .withKey(ImmutableMap.of("id", new AttributeValue("1")))),
+            new TransactGetItem().withGet(new Get().withTableName(VIRTUAL_TABLE)
+                .withKey(ImmutableMap.of("id", new AttributeValue("2"))))));
+
+        ArgumentCaptor<TransactGetItemsRequest> captor = ArgumentCaptor.forClass(TransactGetItemsRequest.class);
+        verify(amazonDynamoDb).transactGetItems(captor.capture());
+        assertEquals(ImmutableList.of(PHYSICAL_TABLE, PHYSICAL_TABLE), captor.getValue().getTransactItems().stream()
+            .map(item -> item.getGet().getTableName()).collect(toList()));
+        assertEquals(ImmutableMap.of("hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/2")),
+            captor.getValue().getTransactItems().get(1).getGet().getKey());
+        assertEquals(ImmutableList.of(
+            new ItemResponse().withItem(ImmutableMap.of(
+                "id", new AttributeValue("1"), "value", new AttributeValue("value1"))),
+            new ItemResponse()), result.getResponses());
+    }
+
+    @Test
+    void transactGetItemsWithProjection() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.transactGetItems(any(TransactGetItemsRequest.class))).thenReturn(
+            new TransactGetItemsResult().withResponses(
+                new ItemResponse().withItem(ImmutableMap.of(
+                    "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"),
+                    "value", new AttributeValue("value1")))));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        TransactGetItemsResult result = sharedTable.transactGetItems(new TransactGetItemsRequest().withTransactItems(
+            new TransactGetItem().withGet(new Get().withTableName(VIRTUAL_TABLE)
+                .withKey(ImmutableMap.of("id", new AttributeValue("1")))
+                .withProjectionExpression("#v")
+                .withExpressionAttributeNames(ImmutableMap.of("#v", "value")))));
+
+        ArgumentCaptor<TransactGetItemsRequest> captor = ArgumentCaptor.forClass(TransactGetItemsRequest.class);
+        verify(amazonDynamoDb).transactGetItems(captor.capture());
+        Get get = captor.getValue().getTransactItems().get(0).getGet();
+        assertEquals("#v, #___projection0___", get.getProjectionExpression());
+        assertEquals(ImmutableMap.of("#v", "value", "#___projection0___", "hk"), get.getExpressionAttributeNames());
+        assertEquals(ImmutableList.of(new ItemResponse().withItem(ImmutableMap.of("value", new AttributeValue("value1")))),
+            result.getResponses());
+    }
+
+    @Test
+    void getItemAsync() throws Exception {
+        AmazonDynamoDBAsync amazonDynamoDb = mock(AmazonDynamoDBAsync.class);
+        List<AsyncHandler<GetItemRequest, GetItemResult>> handlers = new ArrayList<>();
+        when(amazonDynamoDb.getItemAsync(any(GetItemRequest.class), any())).thenAnswer(invocation -> {
+            handlers.add(invocation.getArgument(1));
+            return null;
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        CompletableFuture<GetItemResult> future = sharedTable.getItemAsync(new GetItemRequest()
+            .withTableName(VIRTUAL_TABLE).withKey(ImmutableMap.of("id", new AttributeValue("1"))));
+
+        // request is mapped on the calling thread, result once the delegate completes
+        ArgumentCaptor<GetItemRequest> captor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(amazonDynamoDb).getItemAsync(captor.capture(), any());
+        assertEquals(new GetItemRequest().withTableName(PHYSICAL_TABLE)
+            .withKey(ImmutableMap.of("hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"))), captor.getValue());
+        assertFalse(future.isDone());
+        handlers.get(0).onSuccess(captor.getValue(), new GetItemResult().withItem(ImmutableMap.of(
+            "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"), "value", new AttributeValue("value1"))));
+        assertEquals(ImmutableMap.of("id", new AttributeValue("1"), "value", new AttributeValue("value1")),
+            future.get().getItem());
+    }
+
+    @Test
+    void getItemAsync_error() {
+        AmazonDynamoDBAsync amazonDynamoDb = mock(AmazonDynamoDBAsync.class);
+        ProvisionedThroughputExceededException exception = new ProvisionedThroughputExceededException("throttled");
+        when(amazonDynamoDb.getItemAsync(any(GetItemRequest.class), any())).thenAnswer(invocation -> {
+            ((AsyncHandler<?, ?>) invocation.getArgument(1)).onError(exception);
+            return null;
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        CompletableFuture<GetItemResult> future = sharedTable.getItemAsync(new GetItemRequest()
+            .withTableName(VIRTUAL_TABLE).withKey(ImmutableMap.of("id", new AttributeValue("1"))));
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+        assertSame(exception, thrown.getCause());
+    }
+
+    @Test
+    void scanAsync_skipsEmptyPages() throws Exception {
+        AmazonDynamoDBAsync amazonDynamoDb = mock(AmazonDynamoDBAsync.class);
+        Map<String, AttributeValue> physicalItem = ImmutableMap.of(
+            "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/1"));
+        List<ScanRequest> requests = new ArrayList<>();
+        when(amazonDynamoDb.scanAsync(any(ScanRequest.class), any())).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            requests.add(request);
+            AsyncHandler<ScanRequest, ScanResult> handler = invocation.getArgument(1);
+            handler.onSuccess(request, request.getExclusiveStartKey() == null
+                ? new ScanResult().withItems(ImmutableList.of()).withLastEvaluatedKey(ImmutableMap.of(
+                    "hk", new AttributeValue("other")))
+                : new ScanResult().withItems(ImmutableList.of(physicalItem)));
+            return null;
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        ScanResult result = sharedTable.scanAsync(new ScanRequest().withTableName(VIRTUAL_TABLE)).get();
+
+        assertEquals(2, requests.size());
+        assertEquals(ImmutableList.of(ImmutableMap.of("id", new AttributeValue("1"))), result.getItems());
+    }
+
+    @Test
+    void scan_passesSegmentThrough() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        ArgumentCaptor<ScanRequest> captor = ArgumentCaptor.forClass(ScanRequest.class);
+        when(amazonDynamoDb.scan(captor.capture())).thenReturn(new ScanResult().withItems(ImmutableList.of()));
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+
+        sharedTable.scan(new ScanRequest(VIRTUAL_TABLE).withSegment(1).withTotalSegments(4));
+
+        assertEquals(PHYSICAL_TABLE, captor.getValue().getTableName());
+        assertEquals(Integer.valueOf(1), captor.getValue().getSegment());
+        assertEquals(Integer.valueOf(4), captor.getValue().getTotalSegments());
+    }
+
+    @Test
+    void scanAll_followsLastEvaluatedKeys() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<ScanRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            requests.add(request);
+            int page = request.getExclusiveStartKey() == null ? 0
+                : Integer.parseInt(request.getExclusiveStartKey().get("hk").getS().split("/")[2]) + 1;
+            Map<String, AttributeValue> physicalItem = ImmutableMap.of(
+                "hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/" + page));
+            return new ScanResult().withItems(ImmutableList.of(physicalItem))
+                .withLastEvaluatedKey(page < 2 ? physicalItem : null);
+        });
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (Stream<Map<String, AttributeValue>> items = sharedTable.scanAll(new ScanRequest(VIRTUAL_TABLE), 1,
+            executor)) {
+            assertEquals(ImmutableList.of("0", "1", "2"), items.map(item -> item.get("id").getS()).collect(toList()));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void scan_segmentWithoutTotalSegments() {
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(mock(AmazonDynamoDB.class));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> sharedTable.scan(new ScanRequest(VIRTUAL_TABLE).withSegment(1)));
+    }
+
+    @Test
+    void putItem_registersHashKey() {
+        MtHashKeyRegistry hashKeyRegistry = mock(MtHashKeyRegistry.class);
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(mock(AmazonDynamoDB.class),
+            Optional.of(hashKeyRegistry));
+
+        sharedTable.putItem(new PutItemRequest(VIRTUAL_TABLE, ImmutableMap.of("id", new AttributeValue("1"))));
+
+        verify(hashKeyRegistry).registerHashKey(VIRTUAL_TABLE, new AttributeValue("1"));
+    }
+
+    @Test
+    void scan_queriesRegisteredPartitions() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<QueryRequest> requests = new ArrayList<>();
+        when(amazonDynamoDb.query(any())).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            requests.add(request);
+            String physicalHashKey = request.getExpressionAttributeValues().values().iterator().next().getS();
+            return new QueryResult().withItems(physicalHashKey.endsWith("/1") ? ImmutableList.of()
+                : ImmutableList.of(ImmutableMap.of("hk", new AttributeValue(physicalHashKey))));
+        });
+        MtHashKeyRegistry hashKeyRegistry = mock(MtHashKeyRegistry.class);
+        when(hashKeyRegistry.getHashKeys(VIRTUAL_TABLE, null)).thenReturn(
+            ImmutableList.of(new AttributeValue("1"), new AttributeValue("2"), new AttributeValue("3")).iterator());
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb, Optional.of(hashKeyRegistry));
+
+        ScanResult result = sharedTable.scan(new ScanRequest(VIRTUAL_TABLE));
+
+        // skips the empty partition and resumes after the returned one
+        assertEquals(ImmutableList.of(ImmutableMap.of("id", new AttributeValue("2"))), result.getItems());
+        assertEquals(ImmutableMap.of("id", new AttributeValue("2")), result.getLastEvaluatedKey());
+        assertEquals(2, requests.size());
+        assertEquals(PHYSICAL_TABLE, requests.get(1).getTableName());
+        assertEquals(ImmutableList.of(new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/2")),
+            ImmutableList.copyOf(requests.get(1).getExpressionAttributeValues().values()));
+        verify(amazonDynamoDb, times(0)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void scan_resumesAfterRegisteredPartition() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.query(any())).thenReturn(new QueryResult().withItems(ImmutableList.of()));
+        MtHashKeyRegistry hashKeyRegistry = mock(MtHashKeyRegistry.class);
+        when(hashKeyRegistry.getHashKeys(VIRTUAL_TABLE, new AttributeValue("2")))
+            .thenReturn(Collections.emptyIterator());
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb, Optional.of(hashKeyRegistry));
+
+        ScanResult result = sharedTable.scan(new ScanRequest(VIRTUAL_TABLE)
+            .withExclusiveStartKey(ImmutableMap.of("id", new AttributeValue("2"))));
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getLastEvaluatedKey());
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(amazonDynamoDb).query(captor.capture());
+        assertEquals(ImmutableMap.of("hk", new AttributeValue(CONTEXT + "/" + VIRTUAL_TABLE + "/2")),
+            captor.getValue().getExclusiveStartKey());
+    }
+
+    @Test
+    void scan_filterOnKeyScansPhysicalTable() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenReturn(new ScanResult().withItems(ImmutableList.of()));
+        MtHashKeyRegistry hashKeyRegistry = mock(MtHashKeyRegistry.class);
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(amazonDynamoDb, Optional.of(hashKeyRegistry));
+
+        sharedTable.scan(new ScanRequest(VIRTUAL_TABLE).withFilterExpression("#k = :v")
+            .withExpressionAttributeNames(ImmutableMap.of("#k", "id"))
+            .withExpressionAttributeValues(ImmutableMap.of(":v", new AttributeValue("1"))));
+
+        verify(amazonDynamoDb).scan(any(ScanRequest.class));
+        verify(hashKeyRegistry, times(0)).getHashKeys(anyString(), any());
+    }
+
+    @Test
+    void filterReferencesKey() {
+        PrimaryKey key = new PrimaryKey("hk", S, "rk", S);
+        assertFalse(MtAmazonDynamoDbBySharedTable.filterReferencesKey(new ScanRequest(), key));
+        assertFalse(MtAmazonDynamoDbBySharedTable.filterReferencesKey(new ScanRequest()
+            .withFilterExpression("#a = :a").withExpressionAttributeNames(ImmutableMap.of("#a", "a")), key));
+        assertTrue(MtAmazonDynamoDbBySharedTable.filterReferencesKey(new ScanRequest()
+            .withFilterExpression("rk > :a"), key));
+        assertTrue(MtAmazonDynamoDbBySharedTable.filterReferencesKey(new ScanRequest()
+            .withFilterExpression("#a = :a").withExpressionAttributeNames(ImmutableMap.of("#a", "hk")), key));
+    }
+
+    @Test
+    void warmTenant_listsTables() {
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(mock(AmazonDynamoDB.class));
+
+        assertEquals(2, sharedTable.warmTenant(CONTEXT));
+        sharedTable.getTableMapping(VIRTUAL_TABLE);
+        sharedTable.getTableMapping(OTHER_VIRTUAL_TABLE);
+
+        CacheStats stats = sharedTable.getTableMappingCacheStats();
+        assertEquals(2, stats.missCount());
+        assertEquals(2, stats.hitCount());
+    }
+
+    @Test
+    void warmTenant_buildsTableMappingsByName() {
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(mock(AmazonDynamoDB.class));
+
+        assertEquals(2, sharedTable.warmTenant(CONTEXT, ImmutableList.of(VIRTUAL_TABLE, OTHER_VIRTUAL_TABLE,
+            MISSING_VIRTUAL_TABLE)));
+        sharedTable.getTableMapping(VIRTUAL_TABLE);
+        sharedTable.getTableMapping(OTHER_VIRTUAL_TABLE);
+
+        CacheStats stats = sharedTable.getTableMappingCacheStats();
+        assertEquals(2, stats.missCount());
+        assertEquals(2, stats.hitCount());
+    }
+
+    private static List<Map<String, AttributeValue>> keys(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> ImmutableMap.of("id", new AttributeValue(String.valueOf(i))))
+            .collect(toList());
+    }
+
+    private static final String CONTEXT = "ctx";
+    private static final String VIRTUAL_TABLE = "virtualTable";
+    private static final String OTHER_VIRTUAL_TABLE = "otherVirtualTable";
+    private static final String MISSING_VIRTUAL_TABLE = "missingVirtualTable";
+    @Test
+    void testShutdownShutsDownOwnedExecutors() {
+        ExecutorService ownedExecutor = Executors.newSingleThreadExecutor();
+        MtAmazonDynamoDbBySharedTable sharedTable = createSharedTable(mock(AmazonDynamoDB.class), Optional.empty(),
+            ImmutableList.of(ownedExecutor));
+
+        sharedTable.shutdown();
+
+        assertTrue(ownedExecutor.isShutdown());
+    }
+
+    private static final String PHYSICAL_TABLE = "physicalTable";
+
+    private static List<WriteRequest> putRequests(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new WriteRequest(new PutRequest(ImmutableMap.of(
+            "id", new AttributeValue(String.valueOf(i)),
+            "value", new AttributeValue("value" + i))))).collect(toList());
+    }
+
+    /*
+     * Creates a shared table instance that maps virtual tables with a single string hash key onto a physical table
+     * with a single string hash key, backed by the given (mock) AmazonDynamoDB.
+     */
+    static MtAmazonDynamoDbBySharedTable createSharedTable(AmazonDynamoDB amazonDynamoDb) {
+        return createSharedTable(amazonDynamoDb, Optional.empty());
+    }
+
+    private static MtAmazonDynamoDbBySharedTable createSharedTable(AmazonDynamoDB amazonDynamoDb,
+                                                                   Optional<MtHashKeyRegistry> hashKeyRegistry) {
+        return createSharedTable(amazonDynamoDb, hashKeyRegistry, ImmutableList.of());
+    }
+
+    private static MtAmazonDynamoDbBySharedTable createSharedTable(AmazonDynamoDB amazonDynamoDb,
+                                                                   Optional<MtHashKeyRegistry> hashKeyRegistry,
+                                                                   List<ExecutorService> ownedExecutors) {
+        CreateTableRequest physicalTable = CreateTableRequestBuilder.builder()
+            .withTableName(PHYSICAL_TABLE)
+            .withTableKeySchema("hk", S)
+            .build();
+        when(amazonDynamoDb.describeTable(PHYSICAL_TABLE)).thenReturn(new DescribeTableResult().withTable(
+            new TableDescription().withTableName(PHYSICAL_TABLE)
+                .withKeySchema(physicalTable.getKeySchema())
+                .withAttributeDefinitions(physicalTable.getAttributeDefinitions())));
+        MtTableDescriptionRepo mtTableDescriptionRepo = mock(MtTableDescriptionRepo.class);
+        when(mtTableDescriptionRepo.getTableDescription(anyString())).thenAnswer(invocation ->
+            createVirtualTableDescription(invocation.getArgument(0)));
+        when(mtTableDescriptionRepo.getTableDescriptions()).thenAnswer(invocation -> Optional.of(ImmutableList.of(
+            createVirtualTableDescription(VIRTUAL_TABLE), createVirtualTableDescription(OTHER_VIRTUAL_TABLE))));
+        when(mtTableDescriptionRepo.getTableDescriptions(anyCollection())).thenAnswer(invocation ->
+            invocation.<Collection<String>>getArgument(0).stream()
+                .filter(tableName -> !tableName.equals(MISSING_VIRTUAL_TABLE))
+                .map(MtAmazonDynamoDbBySharedTableTest::createVirtualTableDescription)
+                .collect(toList()));
+        MtAmazonDynamoDbContextProvider mtContext = () -> Optional.of(CONTEXT);
+        TableMappingFactory tableMappingFactory = new TableMappingFactory(
+            new SingletonCreateTableRequestFactory(physicalTable),
+            mtContext,
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            amazonDynamoDb,
+            false,
+            0);
+        return new MtAmazonDynamoDbBySharedTable("test", mtContext, amazonDynamoDb, tableMappingFactory,
+            mtTableDescriptionRepo, false, false, 0L, Clock.systemUTC(), MoreExecutors.directExecutor(),
+            hashKeyRegistry, MoreExecutors.directExecutor(), 1, Optional.empty(), Optional.empty(),
+            new DeleteTableJobScheduler(1, 1, 1, Clock.systemUTC()), MtTenantCache.DEFAULT_MAXIMUM_SIZE,
+            MtTenantCache.DEFAULT_EXPIRE_AFTER_ACCESS, CompletableFuture.completedFuture(null), ownedExecutors);
+    }
+
+    private static TableDescription createVirtualTableDescription(String tableName) {
+        return new TableDescription()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement("id", HASH))
+            .withAttributeDefinitions(new AttributeDefinition("id", S));
+    }
+
+}
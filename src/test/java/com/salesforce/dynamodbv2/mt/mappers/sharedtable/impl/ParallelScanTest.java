@@ -0,0 +1,113 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ParallelScan.
+ */
+class ParallelScanTest {
+
+    private static final String TABLE = "table";
+    private static final int PAGES_PER_SEGMENT = 3;
+    private static final int ITEMS_PER_PAGE = 5;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testScanAllSegments() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.scan(any())).thenAnswer(invocation -> scanPage(invocation.getArgument(0)));
+
+        int totalSegments = 4;
+        try (Stream<Map<String, AttributeValue>> items = new ParallelScan(amazonDynamoDb, executor)
+            .scan(new ScanRequest(TABLE), totalSegments, item -> ImmutableMap.of("mapped", item.get("id")))) {
+            List<String> ids = items.map(item -> item.get("mapped").getS()).collect(toList());
+
+            Set<String> expected = IntStream.range(0, totalSegments)
+                .boxed()
+                .flatMap(segment -> IntStream.range(0, PAGES_PER_SEGMENT * ITEMS_PER_PAGE)
+                    .mapToObj(i -> segment + "-" + i))
+                .collect(toSet());
+            assertEquals(expected.size(), ids.size());
+            assertEquals(expected, Set.copyOf(ids));
+        }
+    }
+
+    @Test
+    void testScanPropagatesError() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        ProvisionedThroughputExceededException error = new ProvisionedThroughputExceededException("throttled");
+        when(amazonDynamoDb.scan(any())).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            if (request.getSegment() == 1 && request.getExclusiveStartKey() != null) {
+                throw error;
+            }
+            return scanPage(request);
+        });
+
+        try (Stream<Map<String, AttributeValue>> items = new ParallelScan(amazonDynamoDb, executor)
+            .scan(new ScanRequest(TABLE), 2, Function.identity())) {
+            assertSame(error, assertThrows(ProvisionedThroughputExceededException.class, items::count));
+        }
+    }
+
+    @Test
+    void testInvalidTotalSegments() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelScan(mock(AmazonDynamoDB.class), executor)
+            .scan(new ScanRequest(TABLE), 0, Function.identity()));
+    }
+
+    /*
+     * Returns PAGES_PER_SEGMENT pages of ITEMS_PER_PAGE items for each segment, where the exclusive start key is the
+     * index of the page.
+     */
+    private static ScanResult scanPage(ScanRequest request) {
+        int page = request.getExclusiveStartKey() == null
+            ? 0 : Integer.parseInt(request.getExclusiveStartKey().get("page").getN());
+        List<Map<String, AttributeValue>> items = IntStream.range(0, ITEMS_PER_PAGE)
+            .mapToObj(i -> Map.of("id",
+                new AttributeValue(request.getSegment() + "-" + (page * ITEMS_PER_PAGE + i))))
+            .collect(toList());
+        ScanResult result = new ScanResult().withItems(items);
+        if (page < PAGES_PER_SEGMENT - 1) {
+            result.withLastEvaluatedKey(ImmutableMap.of("page", new AttributeValue().withN(String.valueOf(page + 1))));
+        }
+        return result;
+    }
+
+}
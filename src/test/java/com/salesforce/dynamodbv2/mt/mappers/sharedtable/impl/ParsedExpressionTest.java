@@ -0,0 +1,77 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.ATTRIBUTE;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.FUNCTION;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.KEYWORD;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.NESTED_ATTRIBUTE;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.NUMBER;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.OPERATOR;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.PUNCTUATION;
+import static com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.TokenType.VALUE;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ParsedExpression.Token;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ParsedExpression.
+ */
+class ParsedExpressionTest {
+
+    @Test
+    void testTokens() {
+        assertEquals(ImmutableList.of(ATTRIBUTE, OPERATOR, VALUE, KEYWORD, FUNCTION, PUNCTUATION, ATTRIBUTE,
+            PUNCTUATION, NESTED_ATTRIBUTE, PUNCTUATION, NUMBER, PUNCTUATION, PUNCTUATION, VALUE, PUNCTUATION,
+            KEYWORD, ATTRIBUTE, OPERATOR, VALUE),
+            getTypes("#hk = :hk and begins_with(a.#b[10], :prefix) AND c<>:c"));
+        assertEquals(ImmutableList.of(KEYWORD, ATTRIBUTE, OPERATOR, FUNCTION, PUNCTUATION, ATTRIBUTE, PUNCTUATION,
+            VALUE, PUNCTUATION, OPERATOR, VALUE, KEYWORD, ATTRIBUTE),
+            getTypes("SET a = if_not_exists(a, :zero) + :one REMOVE b"));
+        assertEquals(ImmutableList.of("a", "<=", ":a", "OR", "b", ">=", ":b"),
+            getTokens("a<=:a OR b>=:b").stream().map(Token::getText).collect(toList()));
+    }
+
+    @Test
+    void testFindEqualityValue() {
+        ParsedExpression expression = ParsedExpression.parse("#hk = :hk and #rk=:rk or :v = field and #a.#hk = :a");
+        assertEquals(Optional.of(":hk"), expression.findEqualityValue("#hk"));
+        assertEquals(Optional.of(":rk"), expression.findEqualityValue("#rk"));
+        assertEquals(Optional.of(":v"), expression.findEqualityValue("field"));
+        assertEquals(Optional.empty(), expression.findEqualityValue("#a"));
+        assertEquals(Optional.empty(), expression.findEqualityValue("#h"));
+        assertEquals(Optional.empty(), ParsedExpression.parse("#hk < :hk").findEqualityValue("#hk"));
+        assertEquals(Optional.empty(), ParsedExpression.parse("SET #hk = #hk + :one").findEqualityValue("#hk"));
+        assertEquals(Optional.empty(), ParsedExpression.parse(":v = #hk.a").findEqualityValue("#hk"));
+    }
+
+    @Test
+    void testReplaceAttributeLiterals() {
+        Map<String, String> replacements = ImmutableMap.of("field", "#field1", "a", "#a", "size", "#size");
+        ParsedExpression expression = ParsedExpression.parse(
+            "field = :value and  size(field2) > :size and begins_with(a.field, :a) and a = :value2")
+            .replaceAttributeLiterals(replacements::get);
+
+        assertEquals("#field1 = :value and  size(field2) > :size and begins_with(#a.field, :a) and #a = :value2",
+            expression.toString());
+        assertEquals(Optional.of(":value2"), expression.findEqualityValue("#a"));
+
+        ParsedExpression unchanged = ParsedExpression.parse("#field = :value");
+        assertSame(unchanged, unchanged.replaceAttributeLiterals(replacements::get));
+    }
+
+    private static List<Token> getTokens(String expression) {
+        return ParsedExpression.parse(expression).getTokens();
+    }
+
+    private static List<ParsedExpression.TokenType> getTypes(String expression) {
+        return getTokens(expression).stream().map(Token::getType).collect(toList());
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests PrefetchingPageIterator.
+ */
+class PrefetchingPageIteratorTest {
+
+    private static final int PAGES = 5;
+
+    private final List<Integer> fetchedPages = new ArrayList<>();
+
+    /*
+     * Returns the page that follows the given key; pages are numbered and their last evaluated key is their number.
+     */
+    private Integer fetchPage(Map<String, AttributeValue> exclusiveStartKey) {
+        int page = exclusiveStartKey == null ? 0 : Integer.parseInt(exclusiveStartKey.get("page").getN()) + 1;
+        fetchedPages.add(page);
+        return page;
+    }
+
+    private static Map<String, AttributeValue> getLastEvaluatedKey(Integer page) {
+        return page == PAGES - 1 ? null : ImmutableMap.of("page", new AttributeValue().withN(String.valueOf(page)));
+    }
+
+    private PrefetchingPageIterator<Integer> createIterator(int prefetchPages) {
+        return new PrefetchingPageIterator<>(this::fetchPage, PrefetchingPageIteratorTest::getLastEvaluatedKey, null,
+            prefetchPages, MoreExecutors.directExecutor());
+    }
+
+    @Test
+    void testLazy() {
+        PrefetchingPageIterator<Integer> iterator = createIterator(0);
+        assertEquals(ImmutableList.of(), fetchedPages);
+
+        assertEquals(0, (int) iterator.next());
+        assertEquals(ImmutableList.of(0), fetchedPages);
+        assertEquals(1, (int) iterator.next());
+        assertEquals(ImmutableList.of(0, 1), fetchedPages);
+        assertEquals(ImmutableList.of(2, 3, 4), Lists.newArrayList(iterator));
+    }
+
+    @Test
+    void testPrefetch() {
+        PrefetchingPageIterator<Integer> iterator = createIterator(2);
+
+        assertEquals(0, (int) iterator.next());
+        assertEquals(ImmutableList.of(0, 1, 2), fetchedPages);
+        assertEquals(1, (int) iterator.next());
+        assertEquals(ImmutableList.of(0, 1, 2, 3), fetchedPages);
+        assertEquals(ImmutableList.of(2, 3, 4), Lists.newArrayList(iterator));
+        assertEquals(ImmutableList.of(0, 1, 2, 3, 4), fetchedPages);
+    }
+
+    @Test
+    void testStartKey() {
+        PrefetchingPageIterator<Integer> iterator = new PrefetchingPageIterator<>(this::fetchPage,
+            PrefetchingPageIteratorTest::getLastEvaluatedKey, ImmutableMap.of("page", new AttributeValue().withN("2")),
+            1, MoreExecutors.directExecutor());
+
+        assertEquals(ImmutableList.of(3, 4), Lists.newArrayList(iterator));
+    }
+
+    @Test
+    void testClose() {
+        PrefetchingPageIterator<Integer> iterator = createIterator(0);
+        iterator.next();
+
+        iterator.close();
+
+        assertFalse(iterator.hasNext());
+        assertEquals(ImmutableList.of(0), fetchedPages);
+    }
+
+    @Test
+    void testError() {
+        ProvisionedThroughputExceededException error = new ProvisionedThroughputExceededException("throttled");
+        PrefetchingPageIterator<Integer> iterator = new PrefetchingPageIterator<>(exclusiveStartKey -> {
+            if (exclusiveStartKey != null) {
+                throw error;
+            }
+            return 0;
+        }, PrefetchingPageIteratorTest::getLastEvaluatedKey, null, 1, MoreExecutors.directExecutor());
+
+        // the error prefetching the second page surfaces only when that page is reached
+        assertEquals(0, (int) iterator.next());
+        assertSame(error, assertThrows(ProvisionedThroughputExceededException.class, iterator::next));
+    }
+
+}
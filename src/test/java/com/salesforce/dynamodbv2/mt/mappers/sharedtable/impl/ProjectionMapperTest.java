@@ -0,0 +1,98 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.GSI;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl.ProjectionMapper.MappedProjection;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ProjectionMapper.
+ */
+class ProjectionMapperTest {
+
+    private static final TableMapping TABLE_MAPPING = new TableMapping(
+        new DynamoTableDescriptionImpl(CreateTableRequestBuilder.builder()
+            .withTableName("virtualTable")
+            .withTableKeySchema("virtualHk", S)
+            .addSi("virtualGsi", GSI, new PrimaryKey("virtualGsiHk", S), 1L).build()),
+        new SingletonCreateTableRequestFactory(CreateTableRequestBuilder.builder()
+            .withTableName("physicalTable")
+            .withTableKeySchema("physicalHk", S)
+            .addSi("physicalGsi", GSI, new PrimaryKey("physicalGsiHk", S), 1L).build()),
+        new DynamoSecondaryIndexMapperByTypeImpl(),
+        () -> Optional.of("ctx"));
+
+    private final ProjectionMapper projectionMapper = TABLE_MAPPING.getProjectionMapper();
+
+    @Test
+    void testNoProjection() {
+        assertFalse(projectionMapper.apply(null, null, null).isPresent());
+    }
+
+    @Test
+    void testProjectionExpressionAddsPhysicalHashKey() {
+        MappedProjection projection = projectionMapper.apply("a, #b.c[1], #d",
+            null, ImmutableMap.of("#b", "b", "#d", "d", "#unused", "e")).get();
+
+        assertEquals("a, #b.c[1], #d, #___projection0___", projection.getProjectionExpression());
+        assertEquals(ImmutableMap.of("#b", "b", "#d", "d", "#___projection0___", "physicalHk"),
+            projection.getExpressionAttributeNames());
+        assertNull(projection.getAttributesToGet());
+        assertEquals(ImmutableMap.of("a", new AttributeValue("1")), projection.apply(ImmutableMap.of(
+            "a", new AttributeValue("1"), "virtualHk", new AttributeValue("2"))));
+    }
+
+    @Test
+    void testProjectionExpressionMapsKeyFields() {
+        MappedProjection projection = projectionMapper.apply("virtualHk, #gsiHk, a",
+            null, ImmutableMap.of("#gsiHk", "virtualGsiHk")).get();
+
+        assertEquals("#___projection0___, #___projection1___, a", projection.getProjectionExpression());
+        assertEquals(ImmutableMap.of("#___projection0___", "physicalHk", "#___projection1___", "physicalGsiHk"),
+            projection.getExpressionAttributeNames());
+        assertEquals(ImmutableMap.of("virtualHk", new AttributeValue("1")),
+            projection.apply(ImmutableMap.of("virtualHk", new AttributeValue("1"))));
+    }
+
+    @Test
+    void testAttributesToGet() {
+        MappedProjection projection = projectionMapper.apply(null, ImmutableList.of("virtualGsiHk", "a"), null).get();
+
+        assertEquals(ImmutableList.of("physicalGsiHk", "a", "physicalHk"), projection.getAttributesToGet());
+        assertNull(projection.getProjectionExpression());
+        assertNull(projection.getExpressionAttributeNames());
+        assertEquals(ImmutableMap.of("a", new AttributeValue("1")), projection.apply(ImmutableMap.of(
+            "a", new AttributeValue("1"), "virtualHk", new AttributeValue("2"))));
+    }
+
+    @Test
+    void testSamePhysicalProjection() {
+        assertTrue(projectionMapper.apply("a", null, null).get()
+            .isSamePhysicalProjection(projectionMapper.apply("a", null, null).get()));
+        assertFalse(projectionMapper.apply("a", null, null).get()
+            .isSamePhysicalProjection(projectionMapper.apply("b", null, null).get()));
+    }
+
+    @Test
+    void testInvalidProjection() {
+        assertThrows(IllegalArgumentException.class,
+            () -> projectionMapper.apply("#a", null, ImmutableMap.of("#b", "b")));
+        assertThrows(IllegalArgumentException.class,
+            () -> projectionMapper.apply("a", ImmutableList.of("a"), null));
+    }
+
+}
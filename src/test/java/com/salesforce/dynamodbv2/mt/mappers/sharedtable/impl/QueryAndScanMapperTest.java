@@ -65,7 +65,7 @@ class QueryAndScanMapperTest {
     );
 
     private QueryAndScanMapper getMockQueryMapper() {
-        return new QueryAndScanMapper(TABLE_MAPPING, null);
+        return TABLE_MAPPING.getQueryAndScanMapper();
     }
 
     @Test
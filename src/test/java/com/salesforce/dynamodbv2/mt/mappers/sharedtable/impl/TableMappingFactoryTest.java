@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.collect.ImmutableList;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescription;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import com.salesforce.dynamodbv2.mt.mappers.sharedtable.CreateTableRequestFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TableMappingFactory.
+ */
+class TableMappingFactoryTest {
+
+    private static final List<CreateTableRequest> PHYSICAL_TABLES = ImmutableList.of(
+        CreateTableRequestBuilder.builder().withTableName("physicalTable1").withTableKeySchema("hk", S).build(),
+        CreateTableRequestBuilder.builder().withTableName("physicalTable2").withTableKeySchema("hk", S).build());
+
+    private final AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private TableMappingFactory createTableMappingFactory() {
+        return new TableMappingFactory(
+            new CreateTableRequestFactory() {
+                @Override
+                public Optional<CreateTableRequest> getCreateTableRequest(DynamoTableDescription virtualTable) {
+                    return Optional.of(PHYSICAL_TABLES.get(0));
+                }
+
+                @Override
+                public List<CreateTableRequest> getPhysicalTables() {
+                    return PHYSICAL_TABLES;
+                }
+            },
+            () -> Optional.of("ctx"),
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            amazonDynamoDb,
+            true,
+            0,
+            0L,
+            tasks::add);
+    }
+
+    private static DescribeTableResult describeTableResult(TableStatus tableStatus) {
+        CreateTableRequest physicalTable = PHYSICAL_TABLES.get(0);
+        return new DescribeTableResult().withTable(new TableDescription()
+            .withTableName(physicalTable.getTableName())
+            .withKeySchema(physicalTable.getKeySchema())
+            .withAttributeDefinitions(physicalTable.getAttributeDefinitions())
+            .withTableStatus(tableStatus));
+    }
+
+    @Test
+    void testCreatesTablesConcurrently() {
+        when(amazonDynamoDb.describeTable(anyString())).thenReturn(describeTableResult(TableStatus.ACTIVE));
+
+        TableMappingFactory tableMappingFactory = createTableMappingFactory();
+
+        // one task per physical table, none of which has run yet
+        assertEquals(PHYSICAL_TABLES.size(), tasks.size());
+        assertFalse(tableMappingFactory.getStartupFuture().isDone());
+
+        tasks.forEach(Runnable::run);
+        assertTrue(tableMappingFactory.getStartupFuture().isDone());
+        assertFalse(tableMappingFactory.getStartupFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    void testAwaitsTablesBeingCreated() {
+        when(amazonDynamoDb.describeTable(anyString())).thenReturn(
+            describeTableResult(TableStatus.CREATING),
+            describeTableResult(TableStatus.CREATING),
+            describeTableResult(TableStatus.CREATING),
+            describeTableResult(TableStatus.ACTIVE));
+
+        TableMappingFactory tableMappingFactory = createTableMappingFactory();
+        tasks.get(0).run();
+
+        assertFalse(tableMappingFactory.getStartupFuture().isDone());
+        verify(amazonDynamoDb, never()).createTable(any(CreateTableRequest.class));
+    }
+
+    @Test
+    void testSharesPhysicalTableDescriptions() {
+        when(amazonDynamoDb.describeTable(anyString())).thenReturn(describeTableResult(TableStatus.ACTIVE));
+        TableMappingFactory tableMappingFactory = createTableMappingFactory();
+        tasks.forEach(Runnable::run);
+        clearInvocations(amazonDynamoDb);
+
+        TableMapping tableMapping1 = tableMappingFactory.getTableMapping(new DynamoTableDescriptionImpl(
+            CreateTableRequestBuilder.builder().withTableName("virtualTable1").withTableKeySchema("hk", S).build()));
+        TableMapping tableMapping2 = tableMappingFactory.getTableMapping(new DynamoTableDescriptionImpl(
+            CreateTableRequestBuilder.builder().withTableName("virtualTable2").withTableKeySchema("hk", S).build()));
+
+        assertSame(tableMapping1.getPhysicalTable(), tableMapping2.getPhysicalTable());
+        verifyZeroInteractions(amazonDynamoDb);
+    }
+
+    @Test
+    void testNotifiesListenersWhenPhysicalTableChanges() throws InterruptedException {
+        DescribeTableResult changed = describeTableResult(TableStatus.ACTIVE);
+        changed.getTable().setLatestStreamArn("streamArn");
+        when(amazonDynamoDb.describeTable(anyString())).thenReturn(describeTableResult(TableStatus.ACTIVE),
+            describeTableResult(TableStatus.ACTIVE), changed);
+        TableMappingFactory tableMappingFactory = createTableMappingFactory();
+        tasks.get(0).run();
+        BlockingQueue<String> refreshed = new LinkedBlockingQueue<>();
+        tableMappingFactory.addPhysicalTableRefreshListener(refreshed::add);
+
+        // refreshes run in order on a single thread, so the unchanged one is not reported
+        tableMappingFactory.refreshPhysicalTables();
+        tableMappingFactory.refreshPhysicalTables();
+        assertEquals(PHYSICAL_TABLES.get(0).getTableName(), refreshed.poll(10, TimeUnit.SECONDS));
+        assertEquals("streamArn", tableMappingFactory.getTableMapping(new DynamoTableDescriptionImpl(
+            CreateTableRequestBuilder.builder().withTableName("virtualTable1").withTableKeySchema("hk", S).build()))
+            .getPhysicalTable().getLastStreamArn());
+        assertTrue(refreshed.isEmpty());
+    }
+
+    @Test
+    void testStartupFutureFailsIfTableCannotBeCreated() {
+        when(amazonDynamoDb.describeTable(anyString())).thenThrow(new IllegalStateException());
+
+        TableMappingFactory tableMappingFactory = createTableMappingFactory();
+        tasks.forEach(Runnable::run);
+
+        assertTrue(tableMappingFactory.getStartupFuture().isCompletedExceptionally());
+    }
+
+}
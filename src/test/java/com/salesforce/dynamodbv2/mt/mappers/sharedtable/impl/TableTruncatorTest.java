@@ -0,0 +1,265 @@
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TableTruncator.
+ */
+class TableTruncatorTest {
+
+    private static final String TABLE = "table";
+    private static final String CHECKPOINT_KEY = "ctx.virtualTable";
+    private static final List<String> KEY_NAMES = ImmutableList.of("hk", "rk");
+    private static final int TOTAL_SEGMENTS = 2;
+    private static final int PAGES_PER_SEGMENT = 3;
+    private static final int ITEMS_PER_PAGE = 30;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(TOTAL_SEGMENTS);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testTruncate() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<ScanRequest> scanRequests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            scanRequests.add(request);
+            return scanPage(request);
+        });
+        Set<Map<String, AttributeValue>> deletedKeys = Collections.synchronizedSet(new HashSet<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            List<WriteRequest> writeRequests = ((BatchWriteItemRequest) invocation.getArgument(0)).getRequestItems()
+                .get(TABLE);
+            batchSizes.add(writeRequests.size());
+            writeRequests.forEach(writeRequest -> deletedKeys.add(writeRequest.getDeleteRequest().getKey()));
+            return new BatchWriteItemResult().withUnprocessedItems(ImmutableMap.of());
+        });
+        TableTruncator truncator = new TableTruncator(amazonDynamoDb, executor, TOTAL_SEGMENTS, Optional.empty(),
+            Optional.empty());
+        AtomicLong progress = new AtomicLong();
+
+        long deleted = truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE).withFilterExpression("#f = :f")
+            .withExpressionAttributeNames(ImmutableMap.of("#f", "f")), KEY_NAMES, progress::addAndGet);
+
+        int expected = TOTAL_SEGMENTS * PAGES_PER_SEGMENT * ITEMS_PER_PAGE;
+        assertEquals(expected, deleted);
+        assertEquals(expected, progress.get());
+        assertEquals(expected, deletedKeys.size());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= BatchRetryPolicy.MAX_BATCH_WRITE_ITEMS));
+        assertEquals(TOTAL_SEGMENTS * PAGES_PER_SEGMENT, scanRequests.size());
+        assertEquals("#___key0___, #___key1___", scanRequests.get(0).getProjectionExpression());
+        assertEquals(ImmutableMap.of("#f", "f", "#___key0___", "hk", "#___key1___", "rk"),
+            scanRequests.get(0).getExpressionAttributeNames());
+        assertFalse(truncator.hasCheckpoint(CHECKPOINT_KEY));
+    }
+
+    @Test
+    void testTruncateResumesFromCheckpoint() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<ScanRequest> scanRequests = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean fail = new AtomicBoolean(true);
+        ProvisionedThroughputExceededException error = new ProvisionedThroughputExceededException("throttled");
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            // fail on the last page of segment 0 once
+            if (request.getSegment() == 0 && page(request) == PAGES_PER_SEGMENT - 1 && fail.getAndSet(false)) {
+                throw error;
+            }
+            scanRequests.add(request);
+            return scanPage(request);
+        });
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class)))
+            .thenReturn(new BatchWriteItemResult().withUnprocessedItems(ImmutableMap.of()));
+        TableTruncator truncator = new TableTruncator(amazonDynamoDb, executor, TOTAL_SEGMENTS, Optional.empty(),
+            Optional.empty());
+
+        assertSame(error, assertThrows(ProvisionedThroughputExceededException.class,
+            () -> truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { })));
+        assertTrue(truncator.hasCheckpoint(CHECKPOINT_KEY));
+        scanRequests.clear();
+
+        truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { });
+
+        // segment 0 resumes with its last page
+        List<ScanRequest> segment0Requests = scanRequests.stream()
+            .filter(request -> request.getSegment() == 0)
+            .collect(toList());
+        assertEquals(1, segment0Requests.size());
+        assertEquals(PAGES_PER_SEGMENT - 1, page(segment0Requests.get(0)));
+        assertFalse(truncator.hasCheckpoint(CHECKPOINT_KEY));
+    }
+
+    @Test
+    void testClearCheckpoint() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.scan(any(ScanRequest.class)))
+            .thenThrow(new ProvisionedThroughputExceededException("throttled"));
+        TableTruncator truncator = new TableTruncator(amazonDynamoDb, executor, TOTAL_SEGMENTS, Optional.empty(),
+            Optional.empty());
+
+        assertThrows(ProvisionedThroughputExceededException.class,
+            () -> truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { }));
+        assertTrue(truncator.hasCheckpoint(CHECKPOINT_KEY));
+
+        truncator.clearCheckpoint(CHECKPOINT_KEY);
+        assertFalse(truncator.hasCheckpoint(CHECKPOINT_KEY));
+    }
+
+    @Test
+    void testTruncateStopsWhenInterrupted() throws Exception {
+        assertTruncationCancelled((truncator, thread) -> thread.interrupt());
+    }
+
+    @Test
+    void testShutdownCancelsTruncations() throws Exception {
+        TableTruncator truncator = assertTruncationCancelled((t, thread) -> t.shutdown());
+
+        assertThrows(IllegalStateException.class,
+            () -> truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { }));
+    }
+
+    @Test
+    void testTruncateRetriesUnprocessedItems() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            return request.getSegment() == 0
+                ? new ScanResult().withItems(ImmutableList.of(key(0, 0, 0)))
+                : new ScanResult().withItems(ImmutableList.of());
+        });
+        List<BatchWriteItemRequest> batchWriteItemRequests = new ArrayList<>();
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            BatchWriteItemRequest request = invocation.getArgument(0);
+            batchWriteItemRequests.add(request);
+            return new BatchWriteItemResult().withUnprocessedItems(batchWriteItemRequests.size() == 1
+                ? request.getRequestItems() : ImmutableMap.of());
+        });
+        TableTruncator truncator = new TableTruncator(amazonDynamoDb, Runnable::run, TOTAL_SEGMENTS, Optional.empty(),
+            Optional.empty());
+
+        assertEquals(1, truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { }));
+        assertEquals(2, batchWriteItemRequests.size());
+        assertEquals(batchWriteItemRequests.get(0).getRequestItems(), batchWriteItemRequests.get(1).getRequestItems());
+    }
+
+    /*
+     * Starts a truncation on another thread, cancels it with the given action while all segments are scanning, and
+     * asserts that the truncation stops with a CancellationException, keeps its checkpoint, and that the segments stop
+     * after their current page.
+     */
+    private TableTruncator assertTruncationCancelled(BiConsumer<TableTruncator, Thread> cancel) throws Exception {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        CountDownLatch scanning = new CountDownLatch(TOTAL_SEGMENTS);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ScanRequest> scanRequests = Collections.synchronizedList(new ArrayList<>());
+        when(amazonDynamoDb.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            scanRequests.add(request);
+            scanning.countDown();
+            release.await();
+            return scanPage(request);
+        });
+        when(amazonDynamoDb.batchWriteItem(any(BatchWriteItemRequest.class)))
+            .thenReturn(new BatchWriteItemResult().withUnprocessedItems(ImmutableMap.of()));
+        TableTruncator truncator = new TableTruncator(amazonDynamoDb, executor, TOTAL_SEGMENTS, Optional.empty(),
+            Optional.empty());
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                truncator.truncate(CHECKPOINT_KEY, new ScanRequest(TABLE), KEY_NAMES, count -> { });
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+        });
+        thread.start();
+        scanning.await();
+
+        cancel.accept(truncator, thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(thread.isAlive());
+        assertTrue(thrown.get() instanceof CancellationException);
+        assertTrue(truncator.hasCheckpoint(CHECKPOINT_KEY));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(TOTAL_SEGMENTS, scanRequests.size());
+        return truncator;
+    }
+
+    private static int page(ScanRequest request) {
+        return request.getExclusiveStartKey() == null ? 0
+            : Integer.parseInt(request.getExclusiveStartKey().get("rk").getS().split("-")[1]) + 1;
+    }
+
+    /*
+     * Returns PAGES_PER_SEGMENT pages of ITEMS_PER_PAGE keys for each segment, with the last key as the exclusive
+     * start key of the next page.
+     */
+    private static ScanResult scanPage(ScanRequest request) {
+        int page = page(request);
+        List<Map<String, AttributeValue>> items = IntStream.range(0, ITEMS_PER_PAGE)
+            .mapToObj(i -> key(request.getSegment(), page, i))
+            .collect(toList());
+        ScanResult result = new ScanResult().withItems(items);
+        if (page < PAGES_PER_SEGMENT - 1) {
+            result.withLastEvaluatedKey(items.get(items.size() - 1));
+        }
+        return result;
+    }
+
+    private static Map<String, AttributeValue> key(int segment, int page, int item) {
+        return ImmutableMap.of("hk", new AttributeValue("ctx/virtualTable/" + segment),
+            "rk", new AttributeValue(segment + "-" + page + "-" + item));
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.mappers.sharedtable.impl;
+
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndex.DynamoSecondaryIndexType.GSI;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.salesforce.dynamodbv2.mt.mappers.CreateTableRequestBuilder;
+import com.salesforce.dynamodbv2.mt.mappers.index.DynamoSecondaryIndexMapperByTypeImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.DynamoTableDescriptionImpl;
+import com.salesforce.dynamodbv2.mt.mappers.metadata.PrimaryKey;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TranslationPlanCache.
+ */
+class TranslationPlanCacheTest {
+
+    private static TableMapping createTableMapping(TranslationPlanCache cache) {
+        return createTableMapping(cache, "ctx");
+    }
+
+    private static TableMapping createTableMapping(TranslationPlanCache cache, String context) {
+        return new TableMapping(
+            new DynamoTableDescriptionImpl(CreateTableRequestBuilder.builder()
+                .withTableName("virtualTable")
+                .withTableKeySchema("virtualHk", S)
+                .addSi("virtualGsi", GSI, new PrimaryKey("virtualGsiHk", S), 1L).build()),
+            new SingletonCreateTableRequestFactory(CreateTableRequestBuilder.builder()
+                .withTableName("physicalTable")
+                .withTableKeySchema("physicalHk", S)
+                .addSi("physicalGsi", GSI, new PrimaryKey("physicalGsiHk", S), 1L).build()),
+            new DynamoSecondaryIndexMapperByTypeImpl(),
+            () -> Optional.of(context),
+            cache);
+    }
+
+    private static QueryRequest createQueryRequest(String indexName, String hashKeyField, String value) {
+        return new QueryRequest()
+            .withIndexName(indexName)
+            .withKeyConditionExpression(hashKeyField + " = :value")
+            .withExpressionAttributeValues(ImmutableMap.of(":value", new AttributeValue(value)));
+    }
+
+    @Test
+    void testSameShapeSharesPlan() {
+        TranslationPlanCache cache = new TranslationPlanCache(10);
+        QueryAndScanMapper mapper = createTableMapping(cache).getQueryAndScanMapper();
+
+        mapper.apply(createQueryRequest(null, "virtualHk", "1"));
+        QueryRequest queryRequest = createQueryRequest(null, "virtualHk", "2");
+        mapper.apply(queryRequest);
+
+        // the cached plan is applied to the values of the second request
+        assertEquals(new QueryRequest()
+                .withKeyConditionExpression("#field1 = :value")
+                .withExpressionAttributeNames(ImmutableMap.of("#field1", "physicalHk"))
+                .withExpressionAttributeValues(ImmutableMap.of(":value", new AttributeValue("ctx/virtualTable/2"))),
+            queryRequest);
+        assertStats(1, 1, cache.stats());
+    }
+
+    @Test
+    void testDifferentShapes() {
+        TranslationPlanCache cache = new TranslationPlanCache(10);
+        TableMapping tableMapping = createTableMapping(cache);
+
+        tableMapping.getQueryAndScanMapper().apply(createQueryRequest(null, "virtualHk", "1"));
+        QueryRequest indexQueryRequest = createQueryRequest("virtualGsi", "virtualGsiHk", "1");
+        tableMapping.getQueryAndScanMapper().apply(indexQueryRequest);
+        tableMapping.getQueryAndScanMapper().apply(createQueryRequest(null, "#hk", "1")
+            .withExpressionAttributeNames(ImmutableMap.of("#hk", "virtualHk")));
+
+        assertEquals("physicalGsi", indexQueryRequest.getIndexName());
+        assertEquals(ImmutableMap.of("#field1", "physicalGsiHk"), indexQueryRequest.getExpressionAttributeNames());
+        assertStats(0, 3, cache.stats());
+    }
+
+    @Test
+    void testTenantsSharePlan() {
+        TranslationPlanCache cache = new TranslationPlanCache(10);
+
+        createTableMapping(cache, "ctx1").getQueryAndScanMapper().apply(createQueryRequest(null, "virtualHk", "1"));
+        QueryRequest queryRequest = createQueryRequest(null, "virtualHk", "1");
+        createTableMapping(cache, "ctx2").getQueryAndScanMapper().apply(queryRequest);
+
+        // the plan is shared, but the value is mapped with the field mapper of the second tenant
+        assertEquals(new QueryRequest()
+                .withKeyConditionExpression("#field1 = :value")
+                .withExpressionAttributeNames(ImmutableMap.of("#field1", "physicalHk"))
+                .withExpressionAttributeValues(ImmutableMap.of(":value", new AttributeValue("ctx2/virtualTable/1"))),
+            queryRequest);
+        assertStats(1, 1, cache.stats());
+    }
+
+    @Test
+    void testDisabled() {
+        TranslationPlanCache cache = new TranslationPlanCache(0);
+        QueryAndScanMapper mapper = createTableMapping(cache).getQueryAndScanMapper();
+
+        mapper.apply(createQueryRequest(null, "virtualHk", "1"));
+        mapper.apply(createQueryRequest(null, "virtualHk", "2"));
+
+        assertStats(0, 2, cache.stats());
+    }
+
+    private static void assertStats(long hits, long misses, CacheStats stats) {
+        assertEquals(hits, stats.hitCount());
+        assertEquals(misses, stats.missCount());
+    }
+
+}
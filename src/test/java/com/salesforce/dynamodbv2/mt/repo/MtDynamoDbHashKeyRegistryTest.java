@@ -0,0 +1,124 @@
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests MtDynamoDbHashKeyRegistry.
+ */
+class MtDynamoDbHashKeyRegistryTest {
+
+    private static final String REGISTRY_TABLE = "_hashkeys";
+    private static final String TABLE = "table";
+
+    @Test
+    void testEncodeDecode() {
+        List<AttributeValue> values = ImmutableList.of(
+            new AttributeValue("value"),
+            new AttributeValue().withN("-12.5"),
+            new AttributeValue().withB(ByteBuffer.wrap(new byte[] {1, 2, 3})));
+        values.forEach(value ->
+            assertEquals(value, MtDynamoDbHashKeyRegistry.decode(MtDynamoDbHashKeyRegistry.encode(value))));
+    }
+
+    @Test
+    void testEncodeNormalizesNumbers() {
+        assertEquals(MtDynamoDbHashKeyRegistry.encode(new AttributeValue().withN("100")),
+            MtDynamoDbHashKeyRegistry.encode(new AttributeValue().withN("1.00E2")));
+    }
+
+    @Test
+    void testRegisterHashKeyOnce() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        MtHashKeyRegistry registry = createRegistry(amazonDynamoDb);
+
+        registry.registerHashKey(TABLE, new AttributeValue("1"));
+        registry.registerHashKey(TABLE, new AttributeValue("1"));
+        registry.registerHashKey(TABLE, new AttributeValue("2"));
+
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(amazonDynamoDb, times(2)).putItem(captor.capture());
+        assertEquals(ImmutableMap.of(
+            "table", new AttributeValue("ctx/" + TABLE),
+            "hashKey", new AttributeValue().withB(MtDynamoDbHashKeyRegistry.encode(new AttributeValue("1")))),
+            captor.getAllValues().get(0).getItem());
+        assertEquals(REGISTRY_TABLE, captor.getAllValues().get(0).getTableName());
+    }
+
+    @Test
+    void testInvalidateHashKeys() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        MtDynamoDbHashKeyRegistry registry = (MtDynamoDbHashKeyRegistry) createRegistry(amazonDynamoDb);
+
+        registry.registerHashKey(TABLE, new AttributeValue("1"));
+        registry.invalidateHashKeys("ctx", "other");
+        registry.registerHashKey(TABLE, new AttributeValue("1"));
+        verify(amazonDynamoDb, times(1)).putItem(any());
+
+        registry.invalidateHashKeys("ctx", TABLE);
+        registry.registerHashKey(TABLE, new AttributeValue("1"));
+        verify(amazonDynamoDb, times(2)).putItem(any());
+    }
+
+    @Test
+    void testRegisterHashKeyRejectsDelimiter() {
+        MtHashKeyRegistry registry = createRegistry(mock(AmazonDynamoDB.class));
+        assertThrows(IllegalArgumentException.class, () -> registry.registerHashKey("a/b", new AttributeValue("1")));
+    }
+
+    @Test
+    void testGetHashKeysPages() {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        List<QueryRequest> requests = new ArrayList<>();
+        when(amazonDynamoDb.query(any())).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return request.getExclusiveStartKey() == null
+                ? new QueryResult().withItems(ImmutableList.of(item("1"))).withLastEvaluatedKey(item("1"))
+                : new QueryResult().withItems(ImmutableList.of(item("2")));
+        });
+        MtHashKeyRegistry registry = createRegistry(amazonDynamoDb);
+
+        List<AttributeValue> hashKeys = Lists.newArrayList(registry.getHashKeys(TABLE, new AttributeValue("0")));
+
+        assertEquals(ImmutableList.of(new AttributeValue("1"), new AttributeValue("2")), hashKeys);
+        assertEquals(2, requests.size());
+        assertEquals("#table = :table and #hashKey > :start", requests.get(0).getKeyConditionExpression());
+        assertEquals(new AttributeValue().withB(MtDynamoDbHashKeyRegistry.encode(new AttributeValue("0"))),
+            requests.get(0).getExpressionAttributeValues().get(":start"));
+    }
+
+    private static ImmutableMap<String, AttributeValue> item(String hashKey) {
+        return ImmutableMap.of("table", new AttributeValue("ctx/" + TABLE),
+            "hashKey", new AttributeValue().withB(MtDynamoDbHashKeyRegistry.encode(new AttributeValue(hashKey))));
+    }
+
+    private static MtHashKeyRegistry createRegistry(AmazonDynamoDB amazonDynamoDb) {
+        return MtDynamoDbHashKeyRegistry.builder()
+            .withAmazonDynamoDb(amazonDynamoDb)
+            .withContext(() -> Optional.of("ctx"))
+            .withRegistryTableName(REGISTRY_TABLE)
+            .build();
+    }
+
+}
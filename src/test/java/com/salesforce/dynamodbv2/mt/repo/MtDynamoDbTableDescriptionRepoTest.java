@@ -1,21 +1,45 @@
 package com.salesforce.dynamodbv2.mt.repo;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BillingMode;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
 import com.amazonaws.services.dynamodbv2.model.KeyType;
 import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.UpdateTableRequest;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
 import com.salesforce.dynamodbv2.mt.context.MtAmazonDynamoDbContextProvider;
 import com.salesforce.dynamodbv2.mt.context.impl.MtAmazonDynamoDbContextProviderThreadLocalImpl;
 import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbTableDescriptionRepo.MtDynamoDbTableDescriptionRepoBuilder;
 import com.salesforce.dynamodbv2.mt.util.DynamoDbTestUtils;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -113,4 +137,225 @@ class MtDynamoDbTableDescriptionRepoTest {
         TableUtils.waitUntilActive(localDynamoDb, fullTableName);
         DynamoDbTestUtils.assertPayPerRequestIsSet(fullTableName, localDynamoDb);
     }
+
+    @Test
+    void testNotFoundCached() {
+        AmazonDynamoDB dynamoDb = mock(AmazonDynamoDB.class, delegatesTo(localDynamoDb));
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withAmazonDynamoDb(dynamoDb)
+            .withNotFoundCacheTtl(Duration.ofMinutes(1))
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing"));
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing"));
+            verify(dynamoDb, times(1)).getItem(any(GetItemRequest.class));
+
+            repo.createTable(new CreateTableRequest()
+                .withTableName("missing")
+                .withKeySchema(new KeySchemaElement("id", KeyType.HASH)));
+            assertEquals("missing", repo.getTableDescription("missing").getTableName());
+        });
+        MT_CONTEXT.withContext("2", () ->
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing")));
+    }
+
+    @Test
+    void testNotFoundNotCachedWhenCreatedDuringLookup() {
+        AmazonDynamoDB dynamoDb = mock(AmazonDynamoDB.class, delegatesTo(localDynamoDb));
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withAmazonDynamoDb(dynamoDb)
+            .withNotFoundCacheTtl(Duration.ofMinutes(1))
+            .build();
+        AtomicBoolean created = new AtomicBoolean();
+        doAnswer(invocation -> {
+            GetItemResult result = localDynamoDb.getItem(invocation.<GetItemRequest>getArgument(0));
+            if (created.compareAndSet(false, true)) {
+                // another thread creates the table after the lookup read it, but before it is cached as not found
+                CompletableFuture.runAsync(() -> MT_CONTEXT.withContext("1", () ->
+                    repo.createTable(new CreateTableRequest()
+                        .withTableName("missing")
+                        .withKeySchema(new KeySchemaElement("id", KeyType.HASH))))).join();
+            }
+            return result;
+        }).when(dynamoDb).getItem(any(GetItemRequest.class));
+
+        MT_CONTEXT.withContext("1", () -> {
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing"));
+            assertEquals("missing", repo.getTableDescription("missing").getTableName());
+        });
+    }
+
+    @Test
+    void testTableDescriptionTableCreatedOnce() {
+        AmazonDynamoDB dynamoDb = mock(AmazonDynamoDB.class, delegatesTo(localDynamoDb));
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withAmazonDynamoDb(dynamoDb)
+            .build();
+        MT_CONTEXT.withContext("1", () -> repo.createTable(createTableRequest("table1")));
+        long describeTableCalls = countDescribeTableCalls(dynamoDb);
+        assertTrue(describeTableCalls > 0);
+
+        // other tenants do not check the table description table again
+        MT_CONTEXT.withContext("2", () -> {
+            repo.createTable(createTableRequest("table1"));
+            assertEquals("table1", repo.getTableDescription("table1").getTableName());
+        });
+        assertEquals(describeTableCalls, countDescribeTableCalls(dynamoDb));
+    }
+
+    private static long countDescribeTableCalls(AmazonDynamoDB dynamoDb) {
+        return mockingDetails(dynamoDb).getInvocations().stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("describeTable"))
+            .count();
+    }
+
+    @Test
+    void testNotFoundNotCached() {
+        AmazonDynamoDB dynamoDb = mock(AmazonDynamoDB.class, delegatesTo(localDynamoDb));
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withAmazonDynamoDb(dynamoDb)
+            .withNotFoundCacheTtl(Duration.ZERO)
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing"));
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("missing"));
+        });
+        verify(dynamoDb, times(2)).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void testReadsLegacyJson() {
+        MtDynamoDbTableDescriptionRepo jsonRepo = mtDynamoDbTableDescriptionRepoBuilder
+            .withBinaryEncoding(false)
+            .build();
+        MtDynamoDbTableDescriptionRepo binaryRepo = mtDynamoDbTableDescriptionRepoBuilder
+            .withBinaryEncoding(true)
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            TableDescription created = jsonRepo.createTable(new CreateTableRequest()
+                .withTableName("legacy")
+                .withKeySchema(new KeySchemaElement("id", KeyType.HASH))
+                .withAttributeDefinitions(new AttributeDefinition("id", ScalarAttributeType.S)));
+            assertEquals(created, binaryRepo.getTableDescription("legacy"));
+        });
+    }
+
+    @Test
+    void testGetTableDescriptions() {
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withTableDescriptionTableRangeKeyField("tableName")
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            repo.createTable(createTableRequest("table1"));
+            repo.createTable(createTableRequest("table2"));
+        });
+        MT_CONTEXT.withContext("2", () -> repo.createTable(createTableRequest("table1")));
+
+        MT_CONTEXT.withContext("1", () -> assertEquals(ImmutableSet.of("table1", "table2"),
+            repo.getTableDescriptions().orElseThrow().stream().map(TableDescription::getTableName)
+                .collect(Collectors.toSet())));
+        MT_CONTEXT.withContext("3", () -> assertEquals(Optional.of(ImmutableList.of()), repo.getTableDescriptions()));
+    }
+
+    @Test
+    void testGetTableDescriptionsByName() {
+        MtDynamoDbTableDescriptionRepo legacyRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        MT_CONTEXT.withContext("1", () -> {
+            legacyRepo.createTable(createTableRequest("table1"));
+            legacyRepo.createTable(createTableRequest("table2"));
+        });
+        MT_CONTEXT.withContext("2", () -> legacyRepo.createTable(createTableRequest("table3")));
+        MT_CONTEXT.withContext("1", () -> assertEquals(Optional.empty(), legacyRepo.getTableDescriptions()));
+        MT_CONTEXT.withContext("1", () -> assertEquals(ImmutableSet.of("table1", "table2"),
+            legacyRepo.getTableDescriptions(ImmutableList.of("table1", "table2", "table3")).stream()
+                .map(TableDescription::getTableName).collect(Collectors.toSet())));
+
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withTableDescriptionTableName(tableName + "_v2")
+            .withTableDescriptionTableRangeKeyField("tableName")
+            .withLegacyRepo(legacyRepo)
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            repo.createTable(createTableRequest("table4"));
+            // read from this repo, read through from the legacy repo, or not found
+            assertEquals(ImmutableSet.of("table1", "table2", "table4"),
+                repo.getTableDescriptions(ImmutableList.of("table1", "table2", "table3", "table4")).stream()
+                    .map(TableDescription::getTableName).collect(Collectors.toSet()));
+            assertEquals(3, repo.getTableDescriptions().orElseThrow().size());
+        });
+    }
+
+    @Test
+    void testGetTableDescriptionsByNameUsesNotFoundCache() {
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withNotFoundCacheTtl(Duration.ofMinutes(1))
+            .build();
+        MtDynamoDbTableDescriptionRepo otherRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        MT_CONTEXT.withContext("1", () -> {
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("table1"));
+            // created by another node, but not seen until the not-found lookup expires or is invalidated
+            otherRepo.createTable(createTableRequest("table1"));
+            assertEquals(ImmutableList.of(), repo.getTableDescriptions(ImmutableList.of("table1")));
+        });
+        repo.invalidateCache("1", "table1");
+        MT_CONTEXT.withContext("1", () -> assertEquals(1, repo.getTableDescriptions(ImmutableList.of("table1")).size()));
+    }
+
+    @Test
+    void testGetTableDescriptionsByNameNotCachedWhenDeletedDuringLookup() {
+        AmazonDynamoDB dynamoDb = mock(AmazonDynamoDB.class, delegatesTo(localDynamoDb));
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withAmazonDynamoDb(dynamoDb)
+            .build();
+        MT_CONTEXT.withContext("1", () -> repo.createTable(createTableRequest("table1")));
+        repo.invalidateCache("1");
+        doAnswer(invocation -> {
+            BatchGetItemResult result = localDynamoDb.batchGetItem(invocation.<BatchGetItemRequest>getArgument(0));
+            // another thread deletes the table after the lookup read it, but before it is cached
+            CompletableFuture.runAsync(() -> MT_CONTEXT.withContext("1", () -> repo.deleteTable("table1"))).join();
+            return result;
+        }).when(dynamoDb).batchGetItem(any(BatchGetItemRequest.class));
+
+        MT_CONTEXT.withContext("1", () -> {
+            assertEquals(1, repo.getTableDescriptions(ImmutableList.of("table1")).size());
+            assertThrows(ResourceNotFoundException.class, () -> repo.getTableDescription("table1"));
+        });
+    }
+
+    @Test
+    void testMigrateLegacyTableDescriptions() {
+        MtDynamoDbTableDescriptionRepo legacyRepo = mtDynamoDbTableDescriptionRepoBuilder.build();
+        MT_CONTEXT.withContext("1", () -> {
+            legacyRepo.createTable(createTableRequest("table1"));
+            legacyRepo.createTable(createTableRequest("table2"));
+            legacyRepo.createTable(createTableRequest("table3"));
+        });
+        MT_CONTEXT.withContext("2.x", () -> legacyRepo.createTable(createTableRequest("table1")));
+
+        MtDynamoDbTableDescriptionRepo repo = mtDynamoDbTableDescriptionRepoBuilder
+            .withTableDescriptionTableName(tableName + "_v2")
+            .withTableDescriptionTableRangeKeyField("tableName")
+            .withLegacyRepo(legacyRepo)
+            .build();
+        MT_CONTEXT.withContext("1", () -> {
+            // read through and copied
+            assertEquals("table1", repo.getTableDescription("table1").getTableName());
+            // deleted from both repos
+            repo.deleteTable("table2");
+            assertThrows(ResourceNotFoundException.class, () -> legacyRepo.getTableDescription("table2"));
+        });
+        assertEquals(2, repo.migrateLegacyTableDescriptions());
+
+        MT_CONTEXT.withContext("1", () -> assertEquals(ImmutableSet.of("table1", "table3"),
+            repo.getTableDescriptions().orElseThrow().stream().map(TableDescription::getTableName)
+                .collect(Collectors.toSet())));
+        MT_CONTEXT.withContext("2.x", () -> assertEquals(1, repo.getTableDescriptions().orElseThrow().size()));
+    }
+
+    private static CreateTableRequest createTableRequest(String tableName) {
+        return new CreateTableRequest()
+            .withTableName(tableName)
+            .withKeySchema(new KeySchemaElement("id", KeyType.HASH))
+            .withAttributeDefinitions(new AttributeDefinition("id", ScalarAttributeType.S));
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBStreams;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DescribeStreamRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeStreamResult;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.ExpiredIteratorException;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsRequest;
+import com.amazonaws.services.dynamodbv2.model.GetRecordsResult;
+import com.amazonaws.services.dynamodbv2.model.GetShardIteratorRequest;
+import com.amazonaws.services.dynamodbv2.model.GetShardIteratorResult;
+import com.amazonaws.services.dynamodbv2.model.Record;
+import com.amazonaws.services.dynamodbv2.model.SequenceNumberRange;
+import com.amazonaws.services.dynamodbv2.model.Shard;
+import com.amazonaws.services.dynamodbv2.model.StreamDescription;
+import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.salesforce.dynamodbv2.mt.repo.MtDynamoDbTableDescriptionRepo.MtDynamoDbTableDescriptionRepoBuilder;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests MtTableDescriptionStreamListener.
+ */
+class MtTableDescriptionStreamListenerTest {
+
+    private static final String STREAM_ARN = "arn:aws:dynamodb:us-east-1:123456789012:table/metadata/stream/1";
+
+    private final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+    private final List<Entry<String, String>> invalidated = new ArrayList<>();
+
+    private MtTableDescriptionStreamListener createListener(MtDynamoDbTableDescriptionRepoBuilder repoBuilder) {
+        AmazonDynamoDB amazonDynamoDb = mock(AmazonDynamoDB.class);
+        when(amazonDynamoDb.describeTable(anyString())).thenReturn(new DescribeTableResult()
+            .withTable(new TableDescription().withLatestStreamArn(STREAM_ARN)));
+        when(streams.getShardIterator(any(GetShardIteratorRequest.class))).thenAnswer(invocation -> {
+            GetShardIteratorRequest request = invocation.getArgument(0);
+            return new GetShardIteratorResult().withShardIterator(request.getShardId() + "/"
+                + request.getShardIteratorType() + "/" + request.getSequenceNumber());
+        });
+        return MtTableDescriptionStreamListener.builder()
+            .withAmazonDynamoDbStreams(streams)
+            .withTableDescriptionRepo(repoBuilder
+                .withAmazonDynamoDb(amazonDynamoDb)
+                .withContext(Optional::empty)
+                .withTableDescriptionTableName("metadata")
+                .build())
+            .withInvalidationListener((context, tableName) ->
+                invalidated.add(new SimpleImmutableEntry<>(context, tableName)))
+            .build();
+    }
+
+    private void mockShards(Shard... shards) {
+        when(streams.describeStream(any(DescribeStreamRequest.class))).thenReturn(new DescribeStreamResult()
+            .withStreamDescription(new StreamDescription().withStreamArn(STREAM_ARN).withShards(shards)));
+    }
+
+    private static Shard shard(String shardId, String parentShardId, boolean closed) {
+        return new Shard()
+            .withShardId(shardId)
+            .withParentShardId(parentShardId)
+            .withSequenceNumberRange(new SequenceNumberRange()
+                .withStartingSequenceNumber("0")
+                .withEndingSequenceNumber(closed ? "9" : null));
+    }
+
+    private void mockRecords(String iterator, String nextIterator, Record... records) {
+        when(streams.getRecords(new GetRecordsRequest().withShardIterator(iterator))).thenReturn(new GetRecordsResult()
+            .withRecords(records)
+            .withNextShardIterator(nextIterator));
+    }
+
+    private static Record record(String sequenceNumber, String hashKey, String tableName) {
+        StreamRecord streamRecord = new StreamRecord()
+            .withSequenceNumber(sequenceNumber)
+            .withKeys(ImmutableMap.of("table", new AttributeValue(hashKey)));
+        if (tableName != null) {
+            streamRecord.withNewImage(ImmutableMap.of(
+                "table", new AttributeValue(hashKey),
+                "data", new AttributeValue(new Gson().toJson(new TableDescription().withTableName(tableName)))));
+        }
+        return new Record().withEventName("INSERT").withDynamodb(streamRecord);
+    }
+
+    private static Entry<String, String> entry(String context, String tableName) {
+        return new SimpleImmutableEntry<>(context, tableName);
+    }
+
+    @Test
+    void testInvalidatesChangedTables() {
+        MtTableDescriptionStreamListener listener = createListener(MtDynamoDbTableDescriptionRepo.builder());
+        mockShards(shard("closed", null, true), shard("open", "closed", false));
+        mockRecords("open/LATEST/null", "open/2",
+            record("1", "ctx.1.table", "table"),
+            record("2", "ctx.table.1", null));
+        mockRecords("open/2", "open/3");
+
+        listener.poll();
+        listener.poll();
+
+        // closed shards are not read, and keys without image are split at each delimiter
+        assertEquals(ImmutableList.of(entry("ctx.1", "table"), entry("ctx", "table.1"), entry("ctx.table", "1")),
+            invalidated);
+    }
+
+    @Test
+    void testInvalidatesChangedTablesWithRangeKey() {
+        MtTableDescriptionStreamListener listener = createListener(MtDynamoDbTableDescriptionRepo.builder()
+            .withTableDescriptionTableRangeKeyField("tableName"));
+        mockShards(shard("open", null, false));
+        mockRecords("open/LATEST/null", "open/1", new Record().withDynamodb(new StreamRecord()
+            .withSequenceNumber("1")
+            .withKeys(ImmutableMap.of("table", new AttributeValue("ctx.1"), "tableName", new AttributeValue("t.1")))));
+
+        listener.poll();
+
+        assertEquals(ImmutableList.of(entry("ctx.1", "t.1")), invalidated);
+    }
+
+    @Test
+    void testFollowsChildShards() {
+        MtTableDescriptionStreamListener listener = createListener(MtDynamoDbTableDescriptionRepo.builder());
+        mockShards(shard("parent", null, false));
+        mockRecords("parent/LATEST/null", null, record("1", "ctx.table1", "table1"));
+        listener.poll();
+
+        mockShards(shard("parent", null, true), shard("child", "parent", false));
+        mockRecords("child/TRIM_HORIZON/null", "child/3", record("2", "ctx.table2", "table2"));
+        mockRecords("child/3", "child/4");
+        // the child is found on the next poll, and read from the start on the one after
+        listener.poll();
+        listener.poll();
+
+        assertEquals(ImmutableList.of(entry("ctx", "table1"), entry("ctx", "table2")), invalidated);
+    }
+
+    @Test
+    void testResumesAfterExpiredIterator() {
+        MtTableDescriptionStreamListener listener = createListener(MtDynamoDbTableDescriptionRepo.builder());
+        mockShards(shard("open", null, false));
+        mockRecords("open/LATEST/null", "open/expired", record("1", "ctx.table1", "table1"));
+        when(streams.getRecords(new GetRecordsRequest().withShardIterator("open/expired")))
+            .thenThrow(new ExpiredIteratorException("expired"));
+        mockRecords("open/AFTER_SEQUENCE_NUMBER/1", "open/3", record("2", "ctx.table2", "table2"));
+
+        listener.poll();
+        listener.poll();
+        listener.poll();
+
+        assertEquals(ImmutableList.of(entry("ctx", "table1"), entry("ctx", "table2")), invalidated);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019, salesforce.com, inc.
+ * All rights reserved.
+ * Licensed under the BSD 3-Clause license.
+ * For full license text, see LICENSE.txt file in the repo root  or https://opensource.org/licenses/BSD-3-Clause
+ */
+
+package com.salesforce.dynamodbv2.mt.repo;
+
+import static com.amazonaws.services.dynamodbv2.model.KeyType.HASH;
+import static com.amazonaws.services.dynamodbv2.model.KeyType.RANGE;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.N;
+import static com.amazonaws.services.dynamodbv2.model.ScalarAttributeType.S;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.StreamSpecification;
+import com.amazonaws.services.dynamodbv2.model.StreamViewType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TableDescriptionCodec.
+ */
+class TableDescriptionCodecTest {
+
+    private static TableDescription createTableDescription() {
+        return new TableDescription()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("hk", HASH), new KeySchemaElement("rk", RANGE))
+            .withAttributeDefinitions(new AttributeDefinition("hk", S), new AttributeDefinition("rk", N),
+                new AttributeDefinition("gsiHk", S), new AttributeDefinition("lsiRk", S))
+            .withProvisionedThroughput(new ProvisionedThroughputDescription()
+                .withReadCapacityUnits(1L)
+                .withWriteCapacityUnits(2L))
+            .withStreamSpecification(new StreamSpecification()
+                .withStreamEnabled(true)
+                .withStreamViewType(StreamViewType.NEW_AND_OLD_IMAGES))
+            .withLocalSecondaryIndexes(new LocalSecondaryIndexDescription()
+                .withIndexName("lsi")
+                .withKeySchema(new KeySchemaElement("hk", HASH), new KeySchemaElement("lsiRk", RANGE))
+                .withProjection(new Projection()
+                    .withProjectionType(ProjectionType.INCLUDE)
+                    .withNonKeyAttributes("a", "b")))
+            .withGlobalSecondaryIndexes(new GlobalSecondaryIndexDescription()
+                .withIndexName("gsi")
+                .withKeySchema(new KeySchemaElement("gsiHk", HASH))
+                .withProjection(new Projection().withProjectionType(ProjectionType.ALL))
+                .withProvisionedThroughput(new ProvisionedThroughputDescription()
+                    .withReadCapacityUnits(3L)
+                    .withWriteCapacityUnits(4L)));
+    }
+
+    @Test
+    void testRoundTrip() {
+        TableDescription tableDescription = createTableDescription();
+        assertEquals(tableDescription, TableDescriptionCodec.decode(TableDescriptionCodec.encode(tableDescription)));
+    }
+
+    @Test
+    void testRoundTripMinimal() {
+        TableDescription tableDescription = new TableDescription()
+            .withTableName("table")
+            .withKeySchema(new KeySchemaElement("hk", HASH))
+            .withAttributeDefinitions(new AttributeDefinition("hk", S));
+        assertEquals(tableDescription, TableDescriptionCodec.decode(TableDescriptionCodec.encode(tableDescription)));
+    }
+
+    @Test
+    void testSmallerThanJson() {
+        TableDescription tableDescription = createTableDescription();
+        int json = new Gson().toJson(tableDescription).getBytes(UTF_8).length;
+        int binary = TableDescriptionCodec.encode(tableDescription).remaining();
+        assertTrue(binary * 2 < json, "binary: " + binary + ", json: " + json);
+    }
+
+    @Test
+    void testMalformed() {
+        ByteBuffer encoded = TableDescriptionCodec.encode(createTableDescription());
+        ByteBuffer unknownVersion = ByteBuffer.allocate(encoded.remaining()).put(encoded.duplicate()).put(0, (byte) 2);
+        unknownVersion.flip();
+        assertThrows(IllegalArgumentException.class, () -> TableDescriptionCodec.decode(unknownVersion));
+        ByteBuffer truncated = encoded.duplicate().limit(encoded.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> TableDescriptionCodec.decode(truncated));
+        ByteBuffer trailing = ByteBuffer.allocate(encoded.remaining() + 1).put(encoded.duplicate());
+        trailing.flip();
+        trailing.limit(trailing.capacity());
+        assertThrows(IllegalArgumentException.class, () -> TableDescriptionCodec.decode(trailing));
+    }
+
+}
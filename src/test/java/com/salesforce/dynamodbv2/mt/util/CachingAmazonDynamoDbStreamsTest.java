@@ -6,6 +6,7 @@ import static com.amazonaws.services.dynamodbv2.model.StreamViewType.NEW_IMAGE;
 import static com.google.common.collect.Iterables.getLast;
 import static com.salesforce.dynamodbv2.mt.util.CachingAmazonDynamoDbStreams.GET_RECORDS_LIMIT;
 import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -50,6 +51,7 @@ import com.amazonaws.services.dynamodbv2.model.StreamStatus;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TrimmedDataAccessException;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableMap;
 import com.salesforce.dynamodbv2.dynamodblocal.AmazonDynamoDbLocal;
 import com.salesforce.dynamodbv2.mt.util.CachingAmazonDynamoDbStreams.Sleeper;
@@ -58,6 +60,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -406,6 +415,40 @@ class CachingAmazonDynamoDbStreamsTest {
         verify(streams, times(numGetRecords)).getRecords(any());
     }
 
+    /*
+     * Gets records 0 to 5 for the given request in two threads, the second of which starts while the stream read of the
+     * first is blocked.
+     */
+    private static void assertConcurrentGetRecords(AmazonDynamoDBStreams streams,
+        CachingAmazonDynamoDbStreams cachingStreams,
+        GetShardIteratorRequest request) throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            loaded.await();
+            return new GetRecordsResult().withRecords(records.subList(0, 5));
+        }).when(streams).getRecords(any());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> first = executor.submit(() -> assertGetRecords(cachingStreams, request, null, 0, 5));
+            loading.await();
+            final AtomicReference<Thread> waiter = new AtomicReference<>();
+            final Future<?> second = executor.submit(() -> {
+                waiter.set(Thread.currentThread());
+                assertGetRecords(cachingStreams, request, null, 0, 5);
+            });
+            // the second thread waits either for the first thread's read or, if not shared, for its own
+            await().until(() -> waiter.get() != null && waiter.get().getState() == Thread.State.WAITING);
+            loaded.countDown();
+            first.get();
+            second.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Verifies that invalid sequence numbers are rejected.
      */
@@ -796,6 +839,198 @@ class CachingAmazonDynamoDbStreamsTest {
         assertCacheMisses(streams, 3, 3);
     }
 
+    /**
+     * Verifies that the byte budget is shared by all shards, and that the oldest segments are evicted first regardless
+     * of their shard.
+     */
+    @Test
+    void testCacheEvictionAcrossShards() {
+        AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+
+        GetShardIteratorRequest firstRequest = newAtSequenceNumberRequest(0);
+        String firstIterator = mockGetShardIterator(streams, firstRequest);
+        mockGetRecords(streams, firstIterator, records.subList(0, 4), null);
+
+        GetShardIteratorRequest secondRequest = newAtSequenceNumberRequest(0).withShardId("shard2");
+        String secondIterator = mockGetShardIterator(streams, secondRequest);
+        mockGetRecords(streams, secondIterator, records.subList(0, 4), null);
+
+        CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withMaxRecordsByteSize(4L)
+            .withMaxIteratorCacheSize(0)
+            .build();
+
+        assertGetRecords(cachingStreams, firstRequest, null, 0, 4);
+        assertGetRecords(cachingStreams, firstRequest, null, 0, 4);
+        // first shard segment now cached
+        assertCacheMisses(streams, 1, 1);
+
+        assertGetRecords(cachingStreams, secondRequest, null, 0, 4);
+        assertGetRecords(cachingStreams, secondRequest, null, 0, 4);
+        // second shard segment cached, which exceeds the budget together with the first
+        assertCacheMisses(streams, 2, 2);
+
+        assertGetRecords(cachingStreams, firstRequest, null, 0, 4);
+        // first shard segment was evicted, since it is older
+        assertCacheMisses(streams, 3, 3);
+    }
+
+    /**
+     * Verifies that concurrent readers of different shards get the records of their shard.
+     */
+    @Test
+    void testConcurrentReadersAcrossShards() throws Exception {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final List<GetShardIteratorRequest> requests = IntStream.range(0, 8)
+            .mapToObj(shard -> newAtSequenceNumberRequest(0).withShardId("shard" + shard))
+            .collect(toList());
+        for (GetShardIteratorRequest request : requests) {
+            mockGetAllRecords(streams, mockGetShardIterator(streams, request));
+        }
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withMaxRecordsByteSize(4 * records.size())
+            .build();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> readers = IntStream.range(0, 8)
+                .mapToObj(reader -> executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        assertGetRecords(cachingStreams, requests.get((reader + i) % requests.size()), null, 0, 10);
+                    }
+                }))
+                .collect(toList());
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verifies that empty results at the tip of a shard are cached until the configured TTL has passed.
+     */
+    @Test
+    void testEmptyResultCached() {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final GetShardIteratorRequest request = newAtSequenceNumberRequest(0);
+        final String iterator = mockGetShardIterator(streams, request);
+        mockGetRecords(streams, iterator, Collections.emptyList(), iterator);
+        final AtomicLong nanos = new AtomicLong();
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withEmptyResultTtlInMillis(1000L)
+            .withTicker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            })
+            .build();
+
+        assertGetRecords(cachingStreams, request, null, 0, 0);
+        assertGetRecords(cachingStreams, request, null, 0, 0);
+        assertCacheMisses(streams, 1, 1);
+
+        // once the TTL has passed, the stream is read again
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        mockGetRecords(streams, iterator, 0, 5);
+        assertGetRecords(cachingStreams, request, null, 0, 5);
+        assertGetRecords(cachingStreams, request, null, 0, 5);
+        assertCacheMisses(streams, 1, 2);
+    }
+
+    /**
+     * Verifies that concurrent polls of a tip position whose empty result expired share a single stream read.
+     */
+    @Test
+    void testConcurrentTipPollsCollapsed() throws Exception {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final GetShardIteratorRequest request = newAtSequenceNumberRequest(0);
+        final String iterator = mockGetShardIterator(streams, request);
+        mockGetRecords(streams, iterator, Collections.emptyList(), iterator);
+        final AtomicLong nanos = new AtomicLong();
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withEmptyResultTtlInMillis(1000L)
+            .withTicker(new Ticker() {
+                @Override
+                public long read() {
+                    return nanos.get();
+                }
+            })
+            .build();
+        assertGetRecords(cachingStreams, request, null, 0, 0);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertConcurrentGetRecords(streams, cachingStreams, request);
+        assertCacheMisses(streams, 1, 2);
+    }
+
+    /**
+     * Verifies that concurrent cache misses at the same position share a single stream read.
+     */
+    @Test
+    void testConcurrentMissesShareLoad() throws Exception {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final GetShardIteratorRequest request = newAtSequenceNumberRequest(0);
+        mockGetShardIterator(streams, request);
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams).build();
+
+        assertConcurrentGetRecords(streams, cachingStreams, request);
+        assertCacheMisses(streams, 1, 1);
+    }
+
+    /**
+     * Verifies that the segment following the records returned to a client is read ahead within the shard's budget.
+     */
+    @Test
+    void testReadAhead() {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final GetShardIteratorRequest request = newAtSequenceNumberRequest(0);
+        final String iterator = mockGetShardIterator(streams, request);
+        mockGetRecords(streams, mockGetRecords(streams, mockGetRecords(streams, iterator, 0, 3), 3, 6), 6, 10);
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withReadAheadExecutor(Runnable::run)
+            .withReadAheadsPerShardPerSecond(0.001)
+            .build();
+
+        // the first read loads the next segment ahead
+        final String next = assertGetRecords(cachingStreams, request, null, 0, 3);
+        assertCacheMisses(streams, 1, 2);
+
+        // the next segment is cached, but the shard's budget does not allow reading the one after ahead
+        final String last = assertGetRecords(cachingStreams, next, null, records.subList(3, 6));
+        assertCacheMisses(streams, 1, 2);
+
+        assertNull(assertGetRecords(cachingStreams, last, null, records.subList(6, 10)));
+        assertCacheMisses(streams, 1, 3);
+    }
+
+    /**
+     * Verifies that the read-ahead budget of a shard is kept even if no iterators are cached.
+     */
+    @Test
+    void testReadAheadBudgetNotBoundByIteratorCache() {
+        final AmazonDynamoDBStreams streams = mock(AmazonDynamoDBStreams.class);
+        final GetShardIteratorRequest request = newAtSequenceNumberRequest(0);
+        final String iterator = mockGetShardIterator(streams, request);
+        final String secondIterator = mockGetRecords(streams, iterator, 0, 3);
+        final String thirdIterator = mockGetRecords(streams, secondIterator, 3, 6);
+        mockGetRecords(streams, thirdIterator, 6, 10);
+        // iterators are not cached, so they are looked up again for each read
+        mockGetShardIterator(streams, newAfterSequenceNumberRequest(2), secondIterator);
+        mockGetShardIterator(streams, newAfterSequenceNumberRequest(5), thirdIterator);
+        final CachingAmazonDynamoDbStreams cachingStreams = new CachingAmazonDynamoDbStreams.Builder(streams)
+            .withMaxIteratorCacheSize(0)
+            .withReadAheadExecutor(Runnable::run)
+            .withReadAheadsPerShardPerSecond(0.001)
+            .build();
+
+        final String next = assertGetRecords(cachingStreams, request, null, 0, 3);
+        assertGetRecords(cachingStreams, next, null, records.subList(3, 6));
+        verify(streams, times(2)).getRecords(any());
+    }
+
     /**
      * Verifies that caching streams still work even if the cache is disabled (by setting size to 0).
      */